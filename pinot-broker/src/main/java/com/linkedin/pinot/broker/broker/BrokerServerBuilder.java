@@ -19,6 +19,7 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.util.HashedWheelTimer;
 
+import java.util.Iterator;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -41,6 +42,7 @@ import com.linkedin.pinot.common.metrics.MetricsHelper;
 import com.linkedin.pinot.common.response.ServerInstance;
 import com.linkedin.pinot.core.query.reduce.DefaultReduceService;
 import com.linkedin.pinot.requestHandler.BrokerRequestHandler;
+import com.linkedin.pinot.requestHandler.BrokerResultCache;
 import com.linkedin.pinot.routing.CfgBasedRouting;
 import com.linkedin.pinot.routing.HelixExternalViewBasedRouting;
 import com.linkedin.pinot.routing.RoutingTable;
@@ -66,9 +68,17 @@ public class BrokerServerBuilder {
   private static final String CLIENT_CONFIG_PREFIX = "pinot.broker.client";
   private static final String METRICS_CONFIG_PREFIX = "pinot.broker.metrics";
   private static final String BROKER_TIME_OUT_CONFIG = "pinot.broker.time.out";
+  // Max size of the responses cached by the broker, non positive to disable the cache
+  private static final String RESULT_CACHE_MAX_BYTES_CONFIG = "pinot.broker.result.cache.max.bytes";
+  private static final String RESULT_CACHE_OFFLINE_TTL_MS_CONFIG = "pinot.broker.result.cache.offline.ttl.ms";
+  private static final String RESULT_CACHE_REALTIME_TTL_MS_CONFIG = "pinot.broker.result.cache.realtime.ttl.ms";
+  // Prefix of the per table TTL overrides, followed by the table name without type suffix
+  private static final String RESULT_CACHE_TABLE_TTL_MS_CONFIG_PREFIX = "pinot.broker.result.cache.table.ttl.ms";
 
   private static final Logger LOGGER = LoggerFactory.getLogger(BrokerServerBuilder.class);
   private static final long DEFAULT_BROKER_TIME_OUT = 10 * 1000L;
+  private static final long DEFAULT_RESULT_CACHE_OFFLINE_TTL_MS = 5 * 60 * 1000L;
+  private static final long DEFAULT_RESULT_CACHE_REALTIME_TTL_MS = 10 * 1000L;
 
   // Connection Pool Related
   private KeyedPool<ServerInstance, NettyClientConnection> _connPool;
@@ -176,13 +186,39 @@ public class BrokerServerBuilder {
 
     _requestHandler =
         new BrokerRequestHandler(_routingTable, _timeBoundaryService, _scatterGather, new DefaultReduceService(),
-            _brokerMetrics, brokerTimeOut);
+            _brokerMetrics, brokerTimeOut, buildResultCache());
 
     //TODO: Start Broker Server : Code goes here. Broker Server part should use request handler to submit requests
 
     LOGGER.info("Network initialized !!");
   }
 
+  /**
+   * Build the broker result cache if it is enabled. Cached responses are only dropped on routing table changes with
+   * the Helix based routing, the config based routing tables never change.
+   */
+  private BrokerResultCache buildResultCache() {
+    long maxBytes = _config.getLong(RESULT_CACHE_MAX_BYTES_CONFIG, 0L);
+    if (maxBytes <= 0) {
+      return null;
+    }
+    long offlineTtlMs = _config.getLong(RESULT_CACHE_OFFLINE_TTL_MS_CONFIG, DEFAULT_RESULT_CACHE_OFFLINE_TTL_MS);
+    long realtimeTtlMs = _config.getLong(RESULT_CACHE_REALTIME_TTL_MS_CONFIG, DEFAULT_RESULT_CACHE_REALTIME_TTL_MS);
+    BrokerResultCache resultCache = new BrokerResultCache(maxBytes, offlineTtlMs, realtimeTtlMs);
+    Configuration tableTtlConfig = _config.subset(RESULT_CACHE_TABLE_TTL_MS_CONFIG_PREFIX);
+    Iterator<?> tableNames = tableTtlConfig.getKeys();
+    while (tableNames.hasNext()) {
+      String tableName = (String) tableNames.next();
+      resultCache.setTableTtlMs(tableName, tableTtlConfig.getLong(tableName));
+    }
+    if (_routingTable instanceof HelixExternalViewBasedRouting) {
+      ((HelixExternalViewBasedRouting) _routingTable).addRoutingTableChangeListener(resultCache);
+    }
+    LOGGER.info("Broker result cache of " + maxBytes + " bytes, offline TTL " + offlineTtlMs + " ms, realtime TTL "
+        + realtimeTtlMs + " ms");
+    return resultCache;
+  }
+
   public void buildHTTP() {
     // build server which has servlet
     Configuration c = _config.subset(CLIENT_CONFIG_PREFIX);
@@ -28,6 +28,10 @@ public class QueryException {
   public static final ProcessingException PQL_PARSING_ERROR = new ProcessingException(150);
   public static final ProcessingException QUERY_EXECUTION_ERROR = new ProcessingException(200);
   public static final ProcessingException EXECUTION_TIMEOUT_ERROR = new ProcessingException(250);
+  public static final ProcessingException QUERY_MEMORY_LIMIT_EXCEEDED_ERROR = new ProcessingException(260);
+  public static final ProcessingException QUERY_SCHEDULING_ERROR = new ProcessingException(270);
+  public static final ProcessingException QUERY_CANCELLED_ERROR = new ProcessingException(280);
+  public static final ProcessingException QUERY_VALIDATION_ERROR = new ProcessingException(290);
   public static final ProcessingException BROKER_GATHER_ERROR = new ProcessingException(300);
   public static final ProcessingException FUTURE_CALL_ERROR = new ProcessingException(350);
   public static final ProcessingException BROKER_TIMEOUT_ERROR = new ProcessingException(400);
@@ -45,6 +49,10 @@ public class QueryException {
     PQL_PARSING_ERROR.setMessage(" PQLParsingError");
     QUERY_EXECUTION_ERROR.setMessage("QueryExecutionError");
     EXECUTION_TIMEOUT_ERROR.setMessage("ExecutionTimeout");
+    QUERY_MEMORY_LIMIT_EXCEEDED_ERROR.setMessage("QueryMemoryLimitExceeded");
+    QUERY_SCHEDULING_ERROR.setMessage("QuerySchedulingError");
+    QUERY_CANCELLED_ERROR.setMessage("QueryCancelled");
+    QUERY_VALIDATION_ERROR.setMessage("QueryValidationError");
     BROKER_GATHER_ERROR.setMessage("BrokerGatherError");
     FUTURE_CALL_ERROR.setMessage("FutureCallError");
     BROKER_TIMEOUT_ERROR.setMessage("BrokerTimeout");
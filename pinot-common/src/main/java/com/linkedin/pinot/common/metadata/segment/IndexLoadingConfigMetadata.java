@@ -31,12 +31,35 @@ public class IndexLoadingConfigMetadata {
 
   private final static String KEY_OF_LOADING_INVERTED_INDEX = "metadata.loading.inverted.index.columns";
   private final Set<String> _loadingInvertedIndexColumnSet = new HashSet<String>();
+  private final static String KEY_OF_LOADING_RANGE_INDEX = "metadata.loading.range.index.columns";
+  private final Set<String> _loadingRangeIndexColumnSet = new HashSet<String>();
+  private final static String KEY_OF_LOADING_ON_HEAP_DICTIONARY = "metadata.loading.on.heap.dictionary.columns";
+  private final Set<String> _loadingOnHeapDictionaryColumnSet = new HashSet<String>();
+  private final static String KEY_OF_MATERIALIZED_INVERTED_INDEX_MAX_CARDINALITY =
+      "metadata.loading.inverted.index.materialize.max.cardinality";
+  private int _materializedInvertedIndexMaxCardinality = 0;
+  private final static String KEY_OF_STRING_DICTIONARY_HASH_INDEX_MAX_CARDINALITY =
+      "metadata.loading.string.dictionary.hash.index.max.cardinality";
+  private int _stringDictionaryHashIndexMaxCardinality = 0;
 
   public IndexLoadingConfigMetadata(Configuration tableDataManagerConfig) {
     List<String> valueOfLoadingInvertedIndexConfig = tableDataManagerConfig.getList(KEY_OF_LOADING_INVERTED_INDEX, null);
     if ((valueOfLoadingInvertedIndexConfig != null) && (!valueOfLoadingInvertedIndexConfig.isEmpty())) {
       initLoadingInvertedIndexColumnSet(valueOfLoadingInvertedIndexConfig.toArray(new String[0]));
     }
+    List<String> valueOfLoadingRangeIndexConfig = tableDataManagerConfig.getList(KEY_OF_LOADING_RANGE_INDEX, null);
+    if ((valueOfLoadingRangeIndexConfig != null) && (!valueOfLoadingRangeIndexConfig.isEmpty())) {
+      initLoadingRangeIndexColumnSet(valueOfLoadingRangeIndexConfig.toArray(new String[0]));
+    }
+    List<String> valueOfLoadingOnHeapDictionaryConfig =
+        tableDataManagerConfig.getList(KEY_OF_LOADING_ON_HEAP_DICTIONARY, null);
+    if ((valueOfLoadingOnHeapDictionaryConfig != null) && (!valueOfLoadingOnHeapDictionaryConfig.isEmpty())) {
+      initLoadingOnHeapDictionaryColumnSet(valueOfLoadingOnHeapDictionaryConfig.toArray(new String[0]));
+    }
+    _materializedInvertedIndexMaxCardinality =
+        tableDataManagerConfig.getInt(KEY_OF_MATERIALIZED_INVERTED_INDEX_MAX_CARDINALITY, 0);
+    _stringDictionaryHashIndexMaxCardinality =
+        tableDataManagerConfig.getInt(KEY_OF_STRING_DICTIONARY_HASH_INDEX_MAX_CARDINALITY, 0);
   }
 
   public void initLoadingInvertedIndexColumnSet(String[] columnCollections) {
@@ -51,4 +74,55 @@ public class IndexLoadingConfigMetadata {
     return _loadingInvertedIndexColumnSet.contains(columnName);
   }
 
+  public void initLoadingRangeIndexColumnSet(String[] columnCollections) {
+    _loadingRangeIndexColumnSet.addAll(Arrays.asList(columnCollections));
+  }
+
+  public Set<String> getLoadingRangeIndexColumns() {
+    return _loadingRangeIndexColumnSet;
+  }
+
+  public boolean isLoadingRangeIndexForColumn(String columnName) {
+    return _loadingRangeIndexColumnSet.contains(columnName);
+  }
+
+  public void initLoadingOnHeapDictionaryColumnSet(String[] columnCollections) {
+    _loadingOnHeapDictionaryColumnSet.addAll(Arrays.asList(columnCollections));
+  }
+
+  public Set<String> getLoadingOnHeapDictionaryColumns() {
+    return _loadingOnHeapDictionaryColumnSet;
+  }
+
+  /**
+   * @return true if the dictionary of the column is decoded into an on heap array at load time
+   */
+  public boolean isLoadingOnHeapDictionaryForColumn(String columnName) {
+    return _loadingOnHeapDictionaryColumnSet.contains(columnName);
+  }
+
+  public void setMaterializedInvertedIndexMaxCardinality(int maxCardinality) {
+    _materializedInvertedIndexMaxCardinality = maxCardinality;
+  }
+
+  /**
+   * @return the max cardinality of the columns whose inverted index bitmaps are all materialized at load time, 0 for
+   * none
+   */
+  public int getMaterializedInvertedIndexMaxCardinality() {
+    return _materializedInvertedIndexMaxCardinality;
+  }
+
+  public void setStringDictionaryHashIndexMaxCardinality(int maxCardinality) {
+    _stringDictionaryHashIndexMaxCardinality = maxCardinality;
+  }
+
+  /**
+   * @return the max cardinality of the variable length string dictionaries that get an on heap hash index at load
+   * time, 0 for none
+   */
+  public int getStringDictionaryHashIndexMaxCardinality() {
+    return _stringDictionaryHashIndexMaxCardinality;
+  }
+
 }
@@ -80,7 +80,7 @@ public abstract class AbstractMetrics<QP extends AbstractMetrics.QueryPhase, M e
    * @param metricName The metric name to register
    * @return The complete metric name
    */
-  private String buildMetricName(BrokerRequest request, String metricName) {
+  protected String buildMetricName(BrokerRequest request, String metricName) {
     if (request != null && request.getQuerySource() != null && request.getQuerySource().getTableName() != null) {
       return _metricPrefix + request.getQuerySource().getTableName() + "." + metricName;
     } else {
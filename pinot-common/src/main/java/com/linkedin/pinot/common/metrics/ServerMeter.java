@@ -26,7 +26,10 @@ public enum ServerMeter implements AbstractMetrics.Meter {
   QUERIES("queries", true),
   UNCAUGHT_EXCEPTIONS("exceptions", true),
   RESPONSE_SERIALIZATION_EXCEPTIONS("exceptions", true),
-  QUERY_EXECUTION_EXCEPTIONS("exceptions", false);
+  QUERY_EXECUTION_EXCEPTIONS("exceptions", false),
+  QUERY_MEMORY_LIMIT_EXCEEDED_EXCEPTIONS("exceptions", false),
+  QUERIES_REJECTED("queries", false),
+  QUERIES_CANCELLED("queries", false);
 
   private final String meterName;
   private final String unit;
@@ -15,6 +15,9 @@
  */
 package com.linkedin.pinot.common.metrics;
 
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.MetricName;
 import com.yammer.metrics.core.MetricsRegistry;
 
 
@@ -23,6 +26,8 @@ import com.yammer.metrics.core.MetricsRegistry;
  *
  */
 public class ServerMetrics extends AbstractMetrics<ServerQueryPhase, ServerMeter> {
+  private static final String QUERY_PEAK_MEMORY_BYTES = "queryPeakMemoryBytes";
+
   @Override
   protected ServerQueryPhase[] getQueryPhases() {
     return ServerQueryPhase.values();
@@ -36,4 +41,26 @@ public class ServerMetrics extends AbstractMetrics<ServerQueryPhase, ServerMeter
   public ServerMetrics(MetricsRegistry metricsRegistry) {
     super("pinot.server.", metricsRegistry, ServerMetrics.class);
   }
+
+  /**
+   * Logs the peak number of heap bytes a query used on this server.
+   *
+   * @param request The broker request associated with this query
+   * @param peakBytes The peak number of bytes charged to the query
+   */
+  public void addQueryPeakMemoryBytes(final BrokerRequest request, final long peakBytes) {
+    final MetricName metricName = new MetricName(ServerMetrics.class, buildMetricName(request, QUERY_PEAK_MEMORY_BYTES));
+    MetricsHelper.newHistogram(_metricsRegistry, metricName, false).update(peakBytes);
+  }
+
+  /**
+   * Registers a global gauge whose value is read from the given gauge whenever it is reported.
+   *
+   * @param gaugeName The name of the gauge
+   * @param gauge The gauge providing the value
+   */
+  public <T> void addCallbackGauge(final String gaugeName, final Gauge<T> gauge) {
+    final MetricName metricName = new MetricName(ServerMetrics.class, _metricPrefix + gaugeName);
+    MetricsHelper.newGauge(_metricsRegistry, metricName, gauge);
+  }
 }
@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.query;
+
+/**
+ * Cancellation flag of a single query on a server, raised when the broker that sent the query gives up on it.
+ *
+ * The flag of a query is bound to the threads working on the query, so that the per-segment operators can check it
+ * between blocks through {@link #checkCurrent()} and stop scanning the segments of a query nobody waits for anymore.
+ * Threads without a bound flag are never cancelled.
+ */
+public class QueryCancellationFlag {
+  private static final ThreadLocal<QueryCancellationFlag> CURRENT_FLAG = new ThreadLocal<QueryCancellationFlag>();
+
+  private final long _requestId;
+  private volatile boolean _isCancelled = false;
+
+  public QueryCancellationFlag(long requestId) {
+    _requestId = requestId;
+  }
+
+  /**
+   * Returns the flag bound to the current thread, or null if none.
+   */
+  public static QueryCancellationFlag getCurrent() {
+    return CURRENT_FLAG.get();
+  }
+
+  /**
+   * Binds the given flag to the current thread, or unbinds the current one if null.
+   */
+  public static void setCurrent(QueryCancellationFlag flag) {
+    if (flag == null) {
+      CURRENT_FLAG.remove();
+    } else {
+      CURRENT_FLAG.set(flag);
+    }
+  }
+
+  /**
+   * Returns whether the query of the flag bound to the current thread, if any, has been cancelled.
+   */
+  public static boolean isCurrentCancelled() {
+    QueryCancellationFlag flag = CURRENT_FLAG.get();
+    return (flag != null) && flag.isCancelled();
+  }
+
+  /**
+   * @throws QueryCancelledException if the query of the flag bound to the current thread has been cancelled
+   */
+  public static void checkCurrent() {
+    QueryCancellationFlag flag = CURRENT_FLAG.get();
+    if ((flag != null) && flag._isCancelled) {
+      throw new QueryCancelledException("Request " + flag._requestId + " has been cancelled");
+    }
+  }
+
+  public void cancel() {
+    _isCancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return _isCancelled;
+  }
+
+  public long getRequestId() {
+    return _requestId;
+  }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.query;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Server wide budget of heap bytes shared by all the queries in flight. Queries charge the budget through their
+ * {@link QueryMemoryTracker}, and a query whose charge does not fit in the remaining budget is terminated.
+ */
+public class QueryMemoryBudget {
+  private final long _maxBytes;
+  private final AtomicLong _allocatedBytes = new AtomicLong();
+
+  /**
+   * @param maxBytes the maximum number of bytes for all queries, or a non positive value for no limit
+   */
+  public QueryMemoryBudget(long maxBytes) {
+    _maxBytes = maxBytes;
+  }
+
+  /**
+   * Charges the given number of bytes to the budget.
+   *
+   * @return true if the bytes fit in the budget, false otherwise. The bytes are charged either way and need to be
+   * released by the caller.
+   */
+  public boolean allocate(long bytes) {
+    long allocatedBytes = _allocatedBytes.addAndGet(bytes);
+    return (_maxBytes <= 0) || (allocatedBytes <= _maxBytes);
+  }
+
+  public void release(long bytes) {
+    _allocatedBytes.addAndGet(-bytes);
+  }
+
+  /**
+   * Returns true if no more bytes can be charged to the budget, in which case new queries should be rejected.
+   */
+  public boolean isExhausted() {
+    return (_maxBytes > 0) && (_allocatedBytes.get() >= _maxBytes);
+  }
+
+  public long getAllocatedBytes() {
+    return _allocatedBytes.get();
+  }
+
+  public long getMaxBytes() {
+    return _maxBytes;
+  }
+}
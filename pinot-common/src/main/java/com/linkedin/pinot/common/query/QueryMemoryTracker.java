@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.query;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Accounts for the heap bytes allocated by a single query on a server.
+ *
+ * The tracker of a query is bound to the threads working on the query, so that the operators, services and
+ * builders allocating memory for the query can charge it through {@link #allocateOnCurrent(long)} without it being
+ * passed around. Charges made on threads without a bound tracker are ignored.
+ *
+ * Once the query goes over its own limit or over the server wide budget, the allocation throws a
+ * {@link QueryMemoryLimitExceededException}, and every later allocation of the query throws as well so that all
+ * the threads working on the query terminate early.
+ *
+ * Once the tracker is closed, charges and releases are ignored, so that threads still finishing work for a query
+ * that already returned, e.g. after a timeout, do not touch the server wide budget.
+ */
+public class QueryMemoryTracker {
+  private static final ThreadLocal<QueryMemoryTracker> CURRENT_TRACKER = new ThreadLocal<QueryMemoryTracker>();
+
+  private final QueryMemoryBudget _budget;
+  private final long _maxQueryBytes;
+  private final AtomicLong _allocatedBytes = new AtomicLong();
+  private final AtomicLong _peakBytes = new AtomicLong();
+  private volatile boolean _isLimitExceeded = false;
+  // Guarded by this, together with the budget updates of the tracker.
+  private boolean _isClosed = false;
+
+  /**
+   * @param budget the server wide budget shared with the other queries
+   * @param maxQueryBytes the maximum number of bytes for this query, or a non positive value for no limit
+   */
+  public QueryMemoryTracker(QueryMemoryBudget budget, long maxQueryBytes) {
+    _budget = budget;
+    _maxQueryBytes = maxQueryBytes;
+  }
+
+  /**
+   * Returns the tracker bound to the current thread, or null if none.
+   */
+  public static QueryMemoryTracker getCurrent() {
+    return CURRENT_TRACKER.get();
+  }
+
+  /**
+   * Binds the given tracker to the current thread, or unbinds the current one if null.
+   */
+  public static void setCurrent(QueryMemoryTracker tracker) {
+    if (tracker == null) {
+      CURRENT_TRACKER.remove();
+    } else {
+      CURRENT_TRACKER.set(tracker);
+    }
+  }
+
+  /**
+   * Charges the given number of bytes to the tracker bound to the current thread, if any.
+   *
+   * @throws QueryMemoryLimitExceededException if the query went over its memory limit
+   */
+  public static void allocateOnCurrent(long bytes) {
+    QueryMemoryTracker tracker = CURRENT_TRACKER.get();
+    if (tracker != null) {
+      tracker.allocate(bytes);
+    }
+  }
+
+  /**
+   * Returns the given number of bytes to the tracker bound to the current thread, if any.
+   */
+  public static void releaseOnCurrent(long bytes) {
+    QueryMemoryTracker tracker = CURRENT_TRACKER.get();
+    if (tracker != null) {
+      tracker.release(bytes);
+    }
+  }
+
+  /**
+   * Charges the given number of bytes to the query.
+   *
+   * @throws QueryMemoryLimitExceededException if the query went over its memory limit
+   */
+  public void allocate(long bytes) {
+    if (_isLimitExceeded) {
+      throw new QueryMemoryLimitExceededException("Query already went over its memory limit");
+    }
+    long allocatedBytes;
+    boolean fitsInBudget;
+    synchronized (this) {
+      if (_isClosed) {
+        return;
+      }
+      allocatedBytes = _allocatedBytes.addAndGet(bytes);
+      fitsInBudget = _budget.allocate(bytes);
+    }
+    updatePeakBytes(allocatedBytes);
+    if ((_maxQueryBytes > 0) && (allocatedBytes > _maxQueryBytes)) {
+      _isLimitExceeded = true;
+      throw new QueryMemoryLimitExceededException(
+          "Query allocated " + allocatedBytes + " bytes, more than its limit of " + _maxQueryBytes + " bytes");
+    }
+    if (!fitsInBudget) {
+      _isLimitExceeded = true;
+      throw new QueryMemoryLimitExceededException(
+          "Query allocated " + allocatedBytes + " bytes, more than the server query memory budget of "
+              + _budget.getMaxBytes() + " bytes allows");
+    }
+  }
+
+  /**
+   * Returns the given number of bytes to the query.
+   */
+  public synchronized void release(long bytes) {
+    if (_isClosed) {
+      return;
+    }
+    _allocatedBytes.addAndGet(-bytes);
+    _budget.release(bytes);
+  }
+
+  /**
+   * Returns all the bytes still charged to the query to the server wide budget. Called once the query is done, later
+   * charges and releases are ignored.
+   */
+  public synchronized void close() {
+    if (_isClosed) {
+      return;
+    }
+    _isClosed = true;
+    _budget.release(_allocatedBytes.getAndSet(0));
+  }
+
+  private void updatePeakBytes(long allocatedBytes) {
+    long peakBytes = _peakBytes.get();
+    while ((allocatedBytes > peakBytes) && !_peakBytes.compareAndSet(peakBytes, allocatedBytes)) {
+      peakBytes = _peakBytes.get();
+    }
+  }
+
+  public long getAllocatedBytes() {
+    return _allocatedBytes.get();
+  }
+
+  public long getPeakBytes() {
+    return _peakBytes.get();
+  }
+
+  public boolean isLimitExceeded() {
+    return _isLimitExceeded;
+  }
+
+  public synchronized boolean isClosed() {
+    return _isClosed;
+  }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.query;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.ConfigurationException;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.request.InstanceRequest;
+import com.linkedin.pinot.common.utils.DataTable;
+
+
+/**
+ * Schedules the queries received by a server on its own threads, between the transport and the QueryExecutor.
+ */
+public interface QueryScheduler {
+  public void init(Configuration querySchedulerConfig, QueryExecutor queryExecutor, ServerMetrics serverMetrics)
+      throws ConfigurationException;
+
+  public void start();
+
+  /**
+   * Queue the given request for execution. The returned future is completed with the response of the query, or
+   * with an error response if the query could not be scheduled; it is never failed.
+   *
+   * @param instanceRequest
+   * @return future of the instance response
+   */
+  public ListenableFuture<DataTable> submit(InstanceRequest instanceRequest);
+
+  /**
+   * Cancel the query with the given request id sent by the given broker: a pending query is answered with a
+   * QUERY_CANCELLED_ERROR response without being executed, and a running query is flagged so that its operators stop
+   * early. Request ids are only unique per broker, so a query is identified by both.
+   *
+   * @param brokerId broker id of the InstanceRequest, or null if the broker did not set one
+   * @param requestId
+   * @return true if a pending or running query was found for the broker and request id
+   */
+  public boolean cancel(String brokerId, long requestId);
+
+  public void shutDown();
+
+  boolean isStarted();
+}
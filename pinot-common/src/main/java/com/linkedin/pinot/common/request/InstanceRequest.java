@@ -47,6 +47,8 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
   private static final org.apache.thrift.protocol.TField QUERY_FIELD_DESC = new org.apache.thrift.protocol.TField("query", org.apache.thrift.protocol.TType.STRUCT, (short)2);
   private static final org.apache.thrift.protocol.TField SEARCH_SEGMENTS_FIELD_DESC = new org.apache.thrift.protocol.TField("searchSegments", org.apache.thrift.protocol.TType.LIST, (short)3);
   private static final org.apache.thrift.protocol.TField ENABLE_TRACE_FIELD_DESC = new org.apache.thrift.protocol.TField("enableTrace", org.apache.thrift.protocol.TType.BOOL, (short)4);
+  private static final org.apache.thrift.protocol.TField CANCEL_FIELD_DESC = new org.apache.thrift.protocol.TField("cancel", org.apache.thrift.protocol.TType.BOOL, (short)5);
+  private static final org.apache.thrift.protocol.TField BROKER_ID_FIELD_DESC = new org.apache.thrift.protocol.TField("brokerId", org.apache.thrift.protocol.TType.STRING, (short)6);
 
   private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
   static {
@@ -58,13 +60,17 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
   private BrokerRequest query; // required
   private List<String> searchSegments; // optional
   private boolean enableTrace; // optional
+  private boolean cancel; // optional
+  private String brokerId; // optional
 
   /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
   public enum _Fields implements org.apache.thrift.TFieldIdEnum {
     REQUEST_ID((short)1, "requestId"),
     QUERY((short)2, "query"),
     SEARCH_SEGMENTS((short)3, "searchSegments"),
-    ENABLE_TRACE((short)4, "enableTrace");
+    ENABLE_TRACE((short)4, "enableTrace"),
+    CANCEL((short)5, "cancel"),
+    BROKER_ID((short)6, "brokerId");
 
     private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
 
@@ -87,6 +93,10 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
           return SEARCH_SEGMENTS;
         case 4: // ENABLE_TRACE
           return ENABLE_TRACE;
+        case 5: // CANCEL
+          return CANCEL;
+        case 6: // BROKER_ID
+          return BROKER_ID;
         default:
           return null;
       }
@@ -129,8 +139,9 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
   // isset id assignments
   private static final int __REQUESTID_ISSET_ID = 0;
   private static final int __ENABLETRACE_ISSET_ID = 1;
+  private static final int __CANCEL_ISSET_ID = 2;
   private byte __isset_bitfield = 0;
-  private static final _Fields optionals[] = {_Fields.SEARCH_SEGMENTS,_Fields.ENABLE_TRACE};
+  private static final _Fields optionals[] = {_Fields.SEARCH_SEGMENTS,_Fields.ENABLE_TRACE,_Fields.CANCEL,_Fields.BROKER_ID};
   public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
   static {
     Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
@@ -143,6 +154,10 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
             new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING))));
     tmpMap.put(_Fields.ENABLE_TRACE, new org.apache.thrift.meta_data.FieldMetaData("enableTrace", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.BOOL)));
+    tmpMap.put(_Fields.CANCEL, new org.apache.thrift.meta_data.FieldMetaData("cancel", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.BOOL)));
+    tmpMap.put(_Fields.BROKER_ID, new org.apache.thrift.meta_data.FieldMetaData("brokerId", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING)));
     metaDataMap = Collections.unmodifiableMap(tmpMap);
     org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(InstanceRequest.class, metaDataMap);
   }
@@ -174,6 +189,10 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
       this.searchSegments = __this__searchSegments;
     }
     this.enableTrace = other.enableTrace;
+    this.cancel = other.cancel;
+    if (other.isSetBrokerId()) {
+      this.brokerId = other.brokerId;
+    }
   }
 
   public InstanceRequest deepCopy() {
@@ -188,6 +207,9 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
     this.searchSegments = null;
     setEnableTraceIsSet(false);
     this.enableTrace = false;
+    setCancelIsSet(false);
+    this.cancel = false;
+    this.brokerId = null;
   }
 
   public long getRequestId() {
@@ -295,6 +317,51 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
     __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __ENABLETRACE_ISSET_ID, value);
   }
 
+  public boolean isCancel() {
+    return this.cancel;
+  }
+
+  public void setCancel(boolean cancel) {
+    this.cancel = cancel;
+    setCancelIsSet(true);
+  }
+
+  public void unsetCancel() {
+    __isset_bitfield = EncodingUtils.clearBit(__isset_bitfield, __CANCEL_ISSET_ID);
+  }
+
+  /** Returns true if field cancel is set (has been assigned a value) and false otherwise */
+  public boolean isSetCancel() {
+    return EncodingUtils.testBit(__isset_bitfield, __CANCEL_ISSET_ID);
+  }
+
+  public void setCancelIsSet(boolean value) {
+    __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __CANCEL_ISSET_ID, value);
+  }
+
+  public String getBrokerId() {
+    return this.brokerId;
+  }
+
+  public void setBrokerId(String brokerId) {
+    this.brokerId = brokerId;
+  }
+
+  public void unsetBrokerId() {
+    this.brokerId = null;
+  }
+
+  /** Returns true if field brokerId is set (has been assigned a value) and false otherwise */
+  public boolean isSetBrokerId() {
+    return this.brokerId != null;
+  }
+
+  public void setBrokerIdIsSet(boolean value) {
+    if (!value) {
+      this.brokerId = null;
+    }
+  }
+
   public void setFieldValue(_Fields field, Object value) {
     switch (field) {
     case REQUEST_ID:
@@ -329,6 +396,22 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
       }
       break;
 
+    case CANCEL:
+      if (value == null) {
+        unsetCancel();
+      } else {
+        setCancel((Boolean)value);
+      }
+      break;
+
+    case BROKER_ID:
+      if (value == null) {
+        unsetBrokerId();
+      } else {
+        setBrokerId((String)value);
+      }
+      break;
+
     }
   }
 
@@ -346,6 +429,12 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
     case ENABLE_TRACE:
       return Boolean.valueOf(isEnableTrace());
 
+    case CANCEL:
+      return Boolean.valueOf(isCancel());
+
+    case BROKER_ID:
+      return getBrokerId();
+
     }
     throw new IllegalStateException();
   }
@@ -365,6 +454,10 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
       return isSetSearchSegments();
     case ENABLE_TRACE:
       return isSetEnableTrace();
+    case CANCEL:
+      return isSetCancel();
+    case BROKER_ID:
+      return isSetBrokerId();
     }
     throw new IllegalStateException();
   }
@@ -418,6 +511,24 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
         return false;
     }
 
+    boolean this_present_cancel = true && this.isSetCancel();
+    boolean that_present_cancel = true && that.isSetCancel();
+    if (this_present_cancel || that_present_cancel) {
+      if (!(this_present_cancel && that_present_cancel))
+        return false;
+      if (this.cancel != that.cancel)
+        return false;
+    }
+
+    boolean this_present_brokerId = true && this.isSetBrokerId();
+    boolean that_present_brokerId = true && that.isSetBrokerId();
+    if (this_present_brokerId || that_present_brokerId) {
+      if (!(this_present_brokerId && that_present_brokerId))
+        return false;
+      if (!this.brokerId.equals(that.brokerId))
+        return false;
+    }
+
     return true;
   }
 
@@ -445,6 +556,16 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
     if (present_enableTrace)
       list.add(enableTrace);
 
+    boolean present_cancel = true && (isSetCancel());
+    list.add(present_cancel);
+    if (present_cancel)
+      list.add(cancel);
+
+    boolean present_brokerId = true && (isSetBrokerId());
+    list.add(present_brokerId);
+    if (present_brokerId)
+      list.add(brokerId);
+
     return list.hashCode();
   }
 
@@ -496,6 +617,26 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
         return lastComparison;
       }
     }
+    lastComparison = Boolean.valueOf(isSetCancel()).compareTo(other.isSetCancel());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetCancel()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.cancel, other.cancel);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
+    lastComparison = Boolean.valueOf(isSetBrokerId()).compareTo(other.isSetBrokerId());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetBrokerId()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.brokerId, other.brokerId);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
     return 0;
   }
 
@@ -543,6 +684,22 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
       sb.append(this.enableTrace);
       first = false;
     }
+    if (isSetCancel()) {
+      if (!first) sb.append(", ");
+      sb.append("cancel:");
+      sb.append(this.cancel);
+      first = false;
+    }
+    if (isSetBrokerId()) {
+      if (!first) sb.append(", ");
+      sb.append("brokerId:");
+      if (this.brokerId == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.brokerId);
+      }
+      first = false;
+    }
     sb.append(")");
     return sb.toString();
   }
@@ -642,6 +799,22 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
               org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
             }
             break;
+          case 5: // CANCEL
+            if (schemeField.type == org.apache.thrift.protocol.TType.BOOL) {
+              struct.cancel = iprot.readBool();
+              struct.setCancelIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
+          case 6: // BROKER_ID
+            if (schemeField.type == org.apache.thrift.protocol.TType.STRING) {
+              struct.brokerId = iprot.readString();
+              struct.setBrokerIdIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
           default:
             org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
         }
@@ -682,6 +855,18 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
         oprot.writeBool(struct.enableTrace);
         oprot.writeFieldEnd();
       }
+      if (struct.isSetCancel()) {
+        oprot.writeFieldBegin(CANCEL_FIELD_DESC);
+        oprot.writeBool(struct.cancel);
+        oprot.writeFieldEnd();
+      }
+      if (struct.brokerId != null) {
+        if (struct.isSetBrokerId()) {
+          oprot.writeFieldBegin(BROKER_ID_FIELD_DESC);
+          oprot.writeString(struct.brokerId);
+          oprot.writeFieldEnd();
+        }
+      }
       oprot.writeFieldStop();
       oprot.writeStructEnd();
     }
@@ -708,7 +893,13 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
       if (struct.isSetEnableTrace()) {
         optionals.set(1);
       }
-      oprot.writeBitSet(optionals, 2);
+      if (struct.isSetCancel()) {
+        optionals.set(2);
+      }
+      if (struct.isSetBrokerId()) {
+        optionals.set(3);
+      }
+      oprot.writeBitSet(optionals, 4);
       if (struct.isSetSearchSegments()) {
         {
           oprot.writeI32(struct.searchSegments.size());
@@ -721,6 +912,12 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
       if (struct.isSetEnableTrace()) {
         oprot.writeBool(struct.enableTrace);
       }
+      if (struct.isSetCancel()) {
+        oprot.writeBool(struct.cancel);
+      }
+      if (struct.isSetBrokerId()) {
+        oprot.writeString(struct.brokerId);
+      }
     }
 
     @Override
@@ -731,7 +928,7 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
       struct.query = new BrokerRequest();
       struct.query.read(iprot);
       struct.setQueryIsSet(true);
-      BitSet incoming = iprot.readBitSet(2);
+      BitSet incoming = iprot.readBitSet(4);
       if (incoming.get(0)) {
         {
           org.apache.thrift.protocol.TList _list73 = new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, iprot.readI32());
@@ -749,6 +946,14 @@ public class InstanceRequest implements org.apache.thrift.TBase<InstanceRequest,
         struct.enableTrace = iprot.readBool();
         struct.setEnableTraceIsSet(true);
       }
+      if (incoming.get(2)) {
+        struct.cancel = iprot.readBool();
+        struct.setCancelIsSet(true);
+      }
+      if (incoming.get(3)) {
+        struct.brokerId = iprot.readString();
+        struct.setBrokerIdIsSet(true);
+      }
     }
   }
 
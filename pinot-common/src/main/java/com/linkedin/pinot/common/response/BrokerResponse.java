@@ -36,6 +36,7 @@ public class BrokerResponse {
   private long _totalDocs = 0;
   private long _numDocsScanned = 0;
   private long _timeUsedMs = 0;
+  private boolean _isApproximate = false;
   private List<JSONObject> _aggregationResults;
   private List<ResponseStatistics> _segmentStatistics;
   private List<ProcessingException> _exceptions;
@@ -88,6 +89,18 @@ public class BrokerResponse {
     _timeUsedMs = timeUsedMs;
   }
 
+  /**
+   * Returns true if some servers trimmed their group by results to stay within their groups limit, in which case
+   * the group by results may be approximate.
+   */
+  public boolean isApproximate() {
+    return _isApproximate;
+  }
+
+  public void setApproximate(boolean isApproximate) {
+    _isApproximate = isApproximate;
+  }
+
   public int getAggregationResultsSize() {
     return (_aggregationResults == null) ? 0 : _aggregationResults.size();
   }
@@ -199,6 +212,9 @@ public class BrokerResponse {
     sb.append("timeUsedMs:");
     sb.append(_timeUsedMs);
     sb.append(", ");
+    sb.append("isApproximate:");
+    sb.append(_isApproximate);
+    sb.append(", ");
     sb.append("aggregationResults:");
     if (_aggregationResults == null) {
       sb.append("null");
@@ -242,6 +258,7 @@ public class BrokerResponse {
     retJsonObject.put("totalDocs", _totalDocs);
     retJsonObject.put("timeUsedMs", _timeUsedMs);
     retJsonObject.put("numDocsScanned", _numDocsScanned);
+    retJsonObject.put("isApproximate", _isApproximate);
     retJsonObject.put("aggregationResults", new JSONArray(_aggregationResults));
     retJsonObject.put("selectionResults", _selectionResults);
     retJsonObject.put("segmentStatistics", new JSONArray(_segmentStatistics));
@@ -259,6 +276,9 @@ public class BrokerResponse {
     brokerResponse.setTotalDocs(retJsonObject.getLong("totalDocs"));
     brokerResponse.setTimeUsedMs(retJsonObject.getLong("timeUsedMs"));
     brokerResponse.setNumDocsScanned(retJsonObject.getLong("numDocsScanned"));
+    if (retJsonObject.has("isApproximate")) {
+      brokerResponse.setApproximate(retJsonObject.getBoolean("isApproximate"));
+    }
     if (retJsonObject.has("aggregationResults")) {
       JSONArray aggregationResults = retJsonObject.getJSONArray("aggregationResults");
       if (aggregationResults != null && aggregationResults.length() > 0) {
@@ -32,6 +32,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.query.QueryMemoryTracker;
 
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
@@ -134,6 +135,11 @@ public class DataTableBuilder {
 
   boolean isOpen = false;
 
+  /**
+   * Number of bytes of the data holders already charged to the memory tracker of the query
+   */
+  private long chargedBytes = 0;
+
   public DataTableBuilder(DataSchema schema) {
     this.schema = schema;
     this.metadata = new HashMap<String, String>();
@@ -502,6 +508,16 @@ public class DataTableBuilder {
    */
   public void finishRow() throws Exception {
     fixedSizeDataHolder.add(currentRowData.array());
+    chargeDataHolders();
+  }
+
+  /**
+   * Charges the bytes added to the data holders since the last call to the memory tracker of the query.
+   */
+  private void chargeDataHolders() {
+    long dataHoldersBytes = (long) fixedSizeDataHolder.position() + variableSizeDataHolder.position();
+    QueryMemoryTracker.allocateOnCurrent(dataHoldersBytes - chargedBytes);
+    chargedBytes = dataHoldersBytes;
   }
 
   /**
@@ -526,7 +542,8 @@ public class DataTableBuilder {
    * @throws Exception
    */
   public DataTable build() throws Exception {
-
+    // The data holders are copied into the data table.
+    QueryMemoryTracker.allocateOnCurrent(chargedBytes);
     return new DataTable(currentRowId, reverseDictionary, metadata, schema, fixedSizeDataHolder.toBytes(),
         variableSizeDataHolder.toBytes());
   }
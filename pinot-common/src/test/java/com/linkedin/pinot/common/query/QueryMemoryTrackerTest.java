@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.common.query;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+/**
+ * Tests for the QueryMemoryTracker and QueryMemoryBudget classes.
+ */
+public class QueryMemoryTrackerTest {
+
+  @Test
+  public void testQueryLimit() {
+    QueryMemoryBudget budget = new QueryMemoryBudget(-1L);
+    QueryMemoryTracker tracker = new QueryMemoryTracker(budget, 100L);
+    tracker.allocate(60L);
+    tracker.release(20L);
+    tracker.allocate(60L);
+    Assert.assertEquals(tracker.getAllocatedBytes(), 100L);
+    Assert.assertEquals(tracker.getPeakBytes(), 100L);
+    Assert.assertFalse(tracker.isLimitExceeded());
+
+    try {
+      tracker.allocate(1L);
+      Assert.fail("Allocation over the query limit should throw");
+    } catch (QueryMemoryLimitExceededException e) {
+      // Expected
+    }
+    Assert.assertTrue(tracker.isLimitExceeded());
+    Assert.assertEquals(tracker.getPeakBytes(), 101L);
+
+    // Once over the limit, every allocation of the query throws.
+    tracker.release(50L);
+    try {
+      tracker.allocate(1L);
+      Assert.fail("Allocation after the query went over its limit should throw");
+    } catch (QueryMemoryLimitExceededException e) {
+      // Expected
+    }
+
+    tracker.close();
+    Assert.assertEquals(tracker.getAllocatedBytes(), 0L);
+    Assert.assertEquals(budget.getAllocatedBytes(), 0L);
+  }
+
+  @Test
+  public void testServerBudget() {
+    QueryMemoryBudget budget = new QueryMemoryBudget(100L);
+    QueryMemoryTracker tracker1 = new QueryMemoryTracker(budget, -1L);
+    QueryMemoryTracker tracker2 = new QueryMemoryTracker(budget, -1L);
+    tracker1.allocate(70L);
+    Assert.assertFalse(budget.isExhausted());
+    try {
+      tracker2.allocate(40L);
+      Assert.fail("Allocation over the server budget should throw");
+    } catch (QueryMemoryLimitExceededException e) {
+      // Expected
+    }
+    Assert.assertTrue(budget.isExhausted());
+    Assert.assertFalse(tracker1.isLimitExceeded());
+    Assert.assertTrue(tracker2.isLimitExceeded());
+
+    tracker2.close();
+    Assert.assertEquals(budget.getAllocatedBytes(), 70L);
+    tracker1.allocate(30L);
+    tracker1.close();
+    Assert.assertEquals(budget.getAllocatedBytes(), 0L);
+  }
+
+  @Test
+  public void testChargesAfterClose() {
+    QueryMemoryBudget budget = new QueryMemoryBudget(100L);
+    QueryMemoryTracker tracker = new QueryMemoryTracker(budget, -1L);
+    tracker.allocate(40L);
+    tracker.close();
+    Assert.assertTrue(tracker.isClosed());
+    Assert.assertEquals(budget.getAllocatedBytes(), 0L);
+
+    // A worker still running after the query returned charges and releases the closed tracker.
+    tracker.allocate(30L);
+    tracker.release(10L);
+    tracker.release(40L);
+    QueryMemoryTracker.setCurrent(tracker);
+    try {
+      QueryMemoryTracker.allocateOnCurrent(50L);
+    } finally {
+      QueryMemoryTracker.setCurrent(null);
+    }
+    Assert.assertEquals(tracker.getAllocatedBytes(), 0L);
+    Assert.assertEquals(budget.getAllocatedBytes(), 0L);
+
+    // Closing again returns nothing more.
+    tracker.close();
+    Assert.assertEquals(budget.getAllocatedBytes(), 0L);
+  }
+
+  @Test
+  public void testCurrentTracker() {
+    // Without a bound tracker, charges are ignored.
+    QueryMemoryTracker.setCurrent(null);
+    QueryMemoryTracker.allocateOnCurrent(1000L);
+
+    QueryMemoryTracker tracker = new QueryMemoryTracker(new QueryMemoryBudget(-1L), -1L);
+    QueryMemoryTracker.setCurrent(tracker);
+    try {
+      Assert.assertSame(QueryMemoryTracker.getCurrent(), tracker);
+      QueryMemoryTracker.allocateOnCurrent(1000L);
+      QueryMemoryTracker.releaseOnCurrent(400L);
+      Assert.assertEquals(tracker.getAllocatedBytes(), 600L);
+      Assert.assertEquals(tracker.getPeakBytes(), 1000L);
+    } finally {
+      QueryMemoryTracker.setCurrent(null);
+    }
+    Assert.assertNull(QueryMemoryTracker.getCurrent());
+  }
+}
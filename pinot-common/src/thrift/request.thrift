@@ -135,4 +135,6 @@ struct InstanceRequest {
   2: required BrokerRequest query;
   3: optional list<string> searchSegments;
   4: optional bool enableTrace;
+  5: optional bool cancel;
+  6: optional string brokerId;
 }
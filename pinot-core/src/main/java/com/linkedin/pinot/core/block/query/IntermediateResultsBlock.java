@@ -36,6 +36,7 @@ import com.linkedin.pinot.core.common.BlockValSet;
 import com.linkedin.pinot.core.common.Predicate;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByIntermediateResult;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
 
 
@@ -55,6 +56,8 @@ public class IntermediateResultsBlock implements Block {
   private long _totalDocs;
   private Map<String, String> _traceInfo;
   private List<Map<String, Serializable>> _aggregationGroupByOperatorResult;
+  private GroupByIntermediateResult _groupByIntermediateResult;
+  private boolean _isApproximate = false;
   private DataSchema _dataSchema;
   private Collection<Serializable[]> _selectionResult;
 
@@ -62,6 +65,7 @@ public class IntermediateResultsBlock implements Block {
   private static String NUM_DOCS_SCANNED = "numDocsScanned";
   private static String TIME_USED_MS = "timeUsedMs";
   private static String TOTAL_DOCS = "totalDocs";
+  private static String IS_APPROXIMATE = "isApproximate";
 
   public IntermediateResultsBlock(List<AggregationFunction> aggregationFunctionList,
       List<Serializable> aggregationResult) {
@@ -75,6 +79,12 @@ public class IntermediateResultsBlock implements Block {
     _aggregationGroupByOperatorResult = aggregationGroupByResults;
   }
 
+  public IntermediateResultsBlock(List<AggregationFunction> aggregationFunctionList,
+      GroupByIntermediateResult groupByIntermediateResult) {
+    _aggregationFunctionList = aggregationFunctionList;
+    _groupByIntermediateResult = groupByIntermediateResult;
+  }
+
   public IntermediateResultsBlock(Exception e) {
     if (_processingExceptions == null) {
       _processingExceptions = new ArrayList<ProcessingException>();
@@ -124,7 +134,7 @@ public class IntermediateResultsBlock implements Block {
       return getAggregationResultDataTable();
     }
 
-    if (_aggregationGroupByOperatorResult != null) {
+    if (_aggregationGroupByOperatorResult != null || _groupByIntermediateResult != null) {
       return getAggregationGroupByResultDataTable();
     }
     if (_selectionResult != null) {
@@ -141,6 +151,9 @@ public class IntermediateResultsBlock implements Block {
     dataTable.getMetadata().put(NUM_DOCS_SCANNED, _numDocsScanned + "");
     dataTable.getMetadata().put(TIME_USED_MS, _timeUsedMs + "");
     dataTable.getMetadata().put(TOTAL_DOCS, _totalDocs + "");
+    if (_isApproximate) {
+      dataTable.getMetadata().put(IS_APPROXIMATE, "true");
+    }
     if (_processingExceptions != null && _processingExceptions.size() > 0) {
       for (int i = 0; i < _processingExceptions.size(); ++i) {
         dataTable.addException(_processingExceptions.get(i));
@@ -186,10 +199,27 @@ public class IntermediateResultsBlock implements Block {
     _aggregationResultList = aggregationResults;
   }
 
+  /**
+   * Return the String keyed group by results. If the block holds a GroupByIntermediateResult, it is converted here
+   * once, and the block only keeps the converted maps from then on.
+   */
   public List<Map<String, Serializable>> getAggregationGroupByOperatorResult() {
+    if (_groupByIntermediateResult != null) {
+      _aggregationGroupByOperatorResult = _groupByIntermediateResult.toGroupByResultMaps();
+      _groupByIntermediateResult = null;
+    }
     return _aggregationGroupByOperatorResult;
   }
 
+  public GroupByIntermediateResult getGroupByIntermediateResult() {
+    return _groupByIntermediateResult;
+  }
+
+  public void setGroupByIntermediateResult(GroupByIntermediateResult groupByIntermediateResult) {
+    _groupByIntermediateResult = groupByIntermediateResult;
+    _aggregationGroupByOperatorResult = null;
+  }
+
   public DataTable getAggregationGroupByResultDataTable() throws Exception {
 
     String[] columnNames = new String[] { "functionName", "GroupByResultMap" };
@@ -198,10 +228,11 @@ public class IntermediateResultsBlock implements Block {
 
     DataTableBuilder dataTableBuilder = new DataTableBuilder(dataSchema);
     dataTableBuilder.open();
-    for (int i = 0; i < _aggregationGroupByOperatorResult.size(); ++i) {
+    List<Map<String, Serializable>> aggregationGroupByResult = getAggregationGroupByOperatorResult();
+    for (int i = 0; i < aggregationGroupByResult.size(); ++i) {
       dataTableBuilder.startRow();
       dataTableBuilder.setColumn(0, _aggregationFunctionList.get(i).getFunctionName());
-      dataTableBuilder.setColumn(1, _aggregationGroupByOperatorResult.get(i));
+      dataTableBuilder.setColumn(1, aggregationGroupByResult.get(i));
       dataTableBuilder.finishRow();
     }
     dataTableBuilder.seal();
@@ -236,6 +267,20 @@ public class IntermediateResultsBlock implements Block {
     return _traceInfo;
   }
 
+  /**
+   * Whether some groups were trimmed because the query went over its groups limit, in which case the group by results
+   * may be approximate. Every group by operator trims its segment result and the combine trims the merged result.
+   * The per function group by operators trim their result maps only once the segment is scanned, so their memory
+   * while scanning is not bounded by the limit.
+   */
+  public boolean isApproximate() {
+    return _isApproximate;
+  }
+
+  public void setApproximate(boolean isApproximate) {
+    _isApproximate = isApproximate;
+  }
+
   public void setExceptionsList(List<ProcessingException> processingExceptions) {
     _processingExceptions = processingExceptions;
   }
@@ -264,6 +309,10 @@ public class IntermediateResultsBlock implements Block {
     _traceInfo = traceInfo;
   }
 
+  public List<AggregationFunction> getAggregationFunctions() {
+    return _aggregationFunctionList;
+  }
+
   public void setAggregationFunctions(List<AggregationFunction> aggregationFunctions) {
     _aggregationFunctionList = aggregationFunctions;
   }
@@ -287,6 +336,7 @@ public class IntermediateResultsBlock implements Block {
 
   public void setAggregationGroupByResult1(List<Map<String, Serializable>> combineAggregationGroupByResults1) {
     _aggregationGroupByOperatorResult = combineAggregationGroupByResults1;
+    _groupByIntermediateResult = null;
 
   }
 }
@@ -42,6 +42,10 @@ public abstract class BlockSingleValIterator implements BlockValIterator {
     throw new UnsupportedOperationException();
   }
 
+  public String nextStringVal(){
+    throw new UnsupportedOperationException();
+  }
+
   public byte[] nextBytesVal(){
     throw new UnsupportedOperationException();
   }
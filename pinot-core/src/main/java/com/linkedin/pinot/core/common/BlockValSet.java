@@ -26,6 +26,18 @@ public interface BlockValSet {
   BlockValIterator iterator();
 
   DataType getValueType();
+
+  /**
+   * Read the values of docIds[startPos, startPos + limit) into values starting at outStartPos. For dictionary encoded
+   * columns the values are dictionary ids. Only supported on single value columns.
+   *
+   * @param docIds
+   * @param startPos
+   * @param limit
+   * @param values
+   * @param outStartPos
+   */
+  void readIntValues(int[] docIds, int startPos, int limit, int[] values, int outStartPos);
 /*
   int getDictionaryId(int docId);
 
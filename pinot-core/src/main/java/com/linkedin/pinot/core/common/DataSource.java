@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.core.common;
 
+import com.linkedin.pinot.core.segment.index.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
@@ -25,6 +26,11 @@ public interface DataSource extends Operator {
   DataSourceMetadata getDataSourceMetadata();
   
   InvertedIndexReader getInvertedIndex();
+
+  /**
+   * @return the bucketed bitmap range index of the column, null if the column does not have one loaded
+   */
+  BitmapRangeIndexReader getRangeIndex();
   
   Dictionary getDictionary();
 }
@@ -28,6 +28,10 @@ public class RegexPredicate extends Predicate {
     super(lhs, Type.REGEX, rhs);
   }
 
+  public String getRegex() {
+    return getRhs().get(0);
+  }
+
   @Override
   public String toString() {
     return "Predicate: type: " + getType() + ", left : " + getLhs() + ", right : " + Arrays.toString(getRhs().toArray(new String[0])) + "\n";
@@ -18,6 +18,8 @@ package com.linkedin.pinot.core.data.manager.config;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.config.AbstractTableConfig;
 import com.linkedin.pinot.common.config.TableNameBuilder;
@@ -32,6 +34,7 @@ import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
  *
  */
 public class TableDataManagerConfig {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TableDataManagerConfig.class);
 
   private static final String TABLE_DATA_MANAGER_NUM_QUERY_EXECUTOR_THREADS = "numQueryExecutorThreads";
   private static final String TABLE_DATA_MANAGER_TYPE = "dataManagerType";
@@ -102,6 +105,26 @@ public class TableDataManagerConfig {
   public void overrideConfigs(AbstractTableConfig tableConfig) {
     _tableDataManagerConfig.setProperty(READ_MODE, tableConfig.getIndexingConfig().getLoadMode().toLowerCase());
     _tableDataManagerConfig.setProperty(TABLE_DATA_MANAGER_NAME, tableConfig.getTableName());
+    // Allow a table to size its own query executor, which bounds the parallelism of its queries
+    if (tableConfig.getCustomConfigs() != null && tableConfig.getCustomConfigs().getCustomConfigs() != null) {
+      String numQueryExecutorThreads =
+          tableConfig.getCustomConfigs().getCustomConfigs().get(TABLE_DATA_MANAGER_NUM_QUERY_EXECUTOR_THREADS);
+      if (numQueryExecutorThreads != null) {
+        try {
+          int numThreads = Integer.parseInt(numQueryExecutorThreads.trim());
+          if (numThreads > 0) {
+            _tableDataManagerConfig.setProperty(TABLE_DATA_MANAGER_NUM_QUERY_EXECUTOR_THREADS, numThreads);
+          } else {
+            LOGGER.warn("Ignoring non positive {}: {} for table {}, using {}",
+                TABLE_DATA_MANAGER_NUM_QUERY_EXECUTOR_THREADS, numQueryExecutorThreads, tableConfig.getTableName(),
+                getNumberOfTableQueryExecutorThreads());
+          }
+        } catch (NumberFormatException e) {
+          LOGGER.warn("Ignoring invalid {}: {} for table {}, using {}", TABLE_DATA_MANAGER_NUM_QUERY_EXECUTOR_THREADS,
+              numQueryExecutorThreads, tableConfig.getTableName(), getNumberOfTableQueryExecutorThreads());
+        }
+      }
+    }
   }
 
   public IndexLoadingConfigMetadata getIndexLoadingConfigMetadata() {
@@ -42,6 +42,7 @@ import com.linkedin.pinot.common.utils.NamedThreadFactory;
 import com.linkedin.pinot.core.data.manager.config.TableDataManagerConfig;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
 import com.yammer.metrics.Metrics;
 import com.yammer.metrics.core.Counter;
@@ -178,6 +179,7 @@ public class OfflineTableDataManager implements TableDataManager {
           _currentNumberOfDocuments.inc(indexSegmentToAdd.getTotalDocs());
           segment.getSegment().destroy();
         }
+        invalidateCachedResults(indexSegmentToAdd.getSegmentName());
       }
     }
   }
@@ -228,6 +230,7 @@ public class OfflineTableDataManager implements TableDataManager {
         _currentNumberOfDocuments.dec(segment.getSegment().getTotalDocs());
         _numDeletedSegments.inc();
         segment.getSegment().destroy();
+        invalidateCachedResults(segmentId);
       }
       LOGGER.info("Segment " + segmentId + " has been deleted");
       _segmentAsyncExecutorService.execute(new Runnable() {
@@ -243,6 +246,13 @@ public class OfflineTableDataManager implements TableDataManager {
     }
   }
 
+  private void invalidateCachedResults(String segmentId) {
+    SegmentResultCache segmentResultCache = TableDataManagerProvider.getSegmentResultCache();
+    if (segmentResultCache != null) {
+      segmentResultCache.invalidateSegment(segmentId);
+    }
+  }
+
   @Override
   public boolean isStarted() {
     return _isStarted;
@@ -20,6 +20,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import com.linkedin.pinot.core.data.manager.config.TableDataManagerConfig;
 import com.linkedin.pinot.core.data.manager.realtime.RealtimeTableDataManager;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 
 
 /**
@@ -30,6 +31,9 @@ public class TableDataManagerProvider {
 
   private static Map<String, Class<? extends TableDataManager>> keyToFunction =
       new ConcurrentHashMap<String, Class<? extends TableDataManager>>();
+  // Per segment result cache of the query executor of the server, if enabled, for the table data managers to drop the
+  // results of the segments they refresh or remove.
+  private static volatile SegmentResultCache segmentResultCache = null;
 
   static {
     keyToFunction.put("offline", OfflineTableDataManager.class);
@@ -53,4 +57,11 @@ public class TableDataManagerProvider {
     }
   }
 
+  public static void setSegmentResultCache(SegmentResultCache cache) {
+    segmentResultCache = cache;
+  }
+
+  public static SegmentResultCache getSegmentResultCache() {
+    return segmentResultCache;
+  }
 }
@@ -200,9 +200,7 @@ public class FixedBitSkipListSCMVReader implements SingleColumnMultiValueReader
   public int getIntArray(int row, int[] intArray) {
     int startOffset = computeStartOffset(row);
     int length = computeLength(startOffset);
-    for (int i = 0; i < length; i++) {
-      intArray[i] = rawDataReader.getInt(startOffset + i, 0);
-    }
+    rawDataReader.readIntValues(startOffset, 0, length, intArray, 0);
     return length;
   }
 
@@ -268,6 +268,65 @@ public class FixedBitWidthRowColDataFileReader {
 
   }
 
+  /**
+   * Batch version of getInt(), reads the values of column col for rows[startPos, startPos + limit) into values
+   * starting at outStartPos. The column layout is resolved once for the whole batch.
+   *
+   * @param rows
+   * @param col
+   * @param startPos
+   * @param limit
+   * @param values
+   * @param outStartPos
+   */
+  public void readIntValues(int[] rows, int col, int startPos, int limit, int[] values, int outStartPos) {
+    if (col >= cols) {
+      throw new IndexOutOfBoundsException(String.format("Column %d is not with in expected range %d", col, cols));
+    }
+    final int colBitOffset = colBitOffSets[col];
+    final int colSizeInBits = colSizesInBits[col];
+    final int offset = offsets[col];
+    final int endPos = startPos + limit;
+    for (int i = startPos; i < endPos; ++i) {
+      final int row = rows[i];
+      if (row >= this.rows) {
+        throw new IndexOutOfBoundsException(String.format("Row %d is not with in expected range %d", row, this.rows));
+      }
+      final int startBitOffset = row * rowSizeInBits + colBitOffset;
+      values[outStartPos++] = customBitSet.readInt(startBitOffset, startBitOffset + colSizeInBits) - offset;
+    }
+  }
+
+  /**
+   * Bulk version of getInt(), reads the values of column col for the consecutive rows [startRow, startRow + length)
+   * into values starting at outStartPos, unpacking them from whole longs of the buffer.
+   *
+   * @param startRow
+   * @param col
+   * @param length
+   * @param values
+   * @param outStartPos
+   */
+  public void readIntValues(int startRow, int col, int length, int[] values, int outStartPos) {
+    if (length == 0) {
+      return;
+    }
+    if (startRow < 0 || length < 0 || startRow + length > rows || col >= cols) {
+      final String message = String.format("Rows [%d,%d) of column %d are not with in expected range (%d,%d)",
+          startRow, startRow + length, col, rows, cols);
+      throw new IndexOutOfBoundsException(message);
+    }
+    final int startBitOffset = computeBitOffset(startRow, col);
+    customBitSet.readInts(startBitOffset, colSizesInBits[col], rowSizeInBits, length, values, outStartPos);
+    final int offset = offsets[col];
+    if (offset != 0) {
+      final int endPos = outStartPos + length;
+      for (int i = outStartPos; i < endPos; ++i) {
+        values[i] -= offset;
+      }
+    }
+  }
+
   public int getNumberOfRows() {
     return rows;
   }
@@ -67,6 +67,9 @@ public class SegmentGeneratorConfig {
   private RecordReaderConfig recordReaderConfig;
 
   private boolean createInvertedIndex = false;
+  private List<String> rangeIndexColumns = new ArrayList<String>();
+  private List<String> rawIndexColumns = new ArrayList<String>();
+  private List<String> chunkCompressedIndexColumns = new ArrayList<String>();
 
   /*
    *
@@ -98,6 +101,44 @@ public class SegmentGeneratorConfig {
     return this.createInvertedIndex;
   }
 
+  /**
+   * Columns to build a bucketed bitmap range index for, sorted columns are skipped as they are range friendly already.
+   * @param rangeIndexColumns
+   */
+  public void setRangeIndexColumns(List<String> rangeIndexColumns) {
+    this.rangeIndexColumns = rangeIndexColumns;
+  }
+
+  public List<String> getRangeIndexColumns() {
+    return this.rangeIndexColumns;
+  }
+
+  /**
+   * Single value numeric columns to store as raw fixed width values without a dictionary, e.g. high cardinality
+   * metrics. No inverted or range index is built for them.
+   * @param rawIndexColumns
+   */
+  public void setRawIndexColumns(List<String> rawIndexColumns) {
+    this.rawIndexColumns = rawIndexColumns;
+  }
+
+  public List<String> getRawIndexColumns() {
+    return this.rawIndexColumns;
+  }
+
+  /**
+   * Single value numeric or STRING columns to store without a dictionary in LZ4 compressed chunks of docs, e.g. high
+   * cardinality dimensions like member ids or urls. No inverted or range index is built for them.
+   * @param chunkCompressedIndexColumns
+   */
+  public void setChunkCompressedIndexColumns(List<String> chunkCompressedIndexColumns) {
+    this.chunkCompressedIndexColumns = chunkCompressedIndexColumns;
+  }
+
+  public List<String> getChunkCompressedIndexColumns() {
+    return this.chunkCompressedIndexColumns;
+  }
+
   public void setSegmentName(String segmentName) {
     properties.put(SEGMENT_NAME, segmentName);
   }
@@ -211,6 +252,9 @@ public class SegmentGeneratorConfig {
   }
 
   public SegmentVersion getSegmentVersion() {
+    if (!properties.containsKey(SEGMENT_INDEX_VERSION)) {
+      return SegmentVersion.v1;
+    }
     return SegmentVersion.valueOf(properties.get(SEGMENT_INDEX_VERSION).toString());
   }
 
@@ -16,5 +16,7 @@
 package com.linkedin.pinot.core.indexsegment.generator;
 
 public enum SegmentVersion {
-  v1;
+  v1,
+  // Stores string dictionaries as variable length values instead of padded fixed width rows.
+  v2;
 }
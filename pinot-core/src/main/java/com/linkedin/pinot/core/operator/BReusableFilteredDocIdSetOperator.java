@@ -62,22 +62,15 @@ public class BReusableFilteredDocIdSetOperator implements Operator {
     if (_currentDoc == Constants.EOF) {
       return null;
     }
+    if (_filterOperators == null) {
+      return nextMatchAllDocIdSetBlock();
+    }
     if (!inited) {
       inited = true;
       _currentDoc = 0;
-      if (_filterOperators == null) {
-        _currentBlock = new MatchEntireSegmentDocIdSetBlock(_docSize);
-        _currentBlockDocIdIterator = _currentBlock.getBlockDocIdSet().iterator();
-        return _currentBlock;
-      } else {
-        _currentBlock = _filterOperators.nextBlock();
-      }
+      _currentBlock = _filterOperators.nextBlock();
       _currentBlockDocIdIterator = _currentBlock.getBlockDocIdSet().iterator();
     }
-    if (_filterOperators == null) {
-      _currentBlock = null;
-      return _currentBlock;
-    }
     _pos = 0;
     getNextDoc();
     while (_currentDoc != Constants.EOF) {
@@ -98,6 +91,26 @@ public class BReusableFilteredDocIdSetOperator implements Operator {
     return _currentDocIdSetBlock;
   }
 
+  /**
+   * Without filter, every doc matches: hand out the doc ids in chunks of _maxSizeOfdocIdSet like the filtered path,
+   * so downstream operators always see fixed size DocIdSetBlocks.
+   */
+  private Block nextMatchAllDocIdSetBlock() {
+    if (_currentDoc >= _docSize) {
+      _currentDoc = Constants.EOF;
+      _currentDocIdSetBlock = null;
+      return _currentDocIdSetBlock;
+    }
+    _pos = 0;
+    while (_pos < _maxSizeOfdocIdSet && _currentDoc < _docSize) {
+      _docIdArray[_pos++] = _currentDoc++;
+    }
+    _searchableDocIdSize = _pos;
+    _currentDocIdSetBlock = new DocIdSetBlock(_docIdArray, _pos);
+    _currentBlock = _currentDocIdSetBlock;
+    return _currentDocIdSetBlock;
+  }
+
   @Override
   public Block nextBlock(BlockId BlockId) {
     throw new UnsupportedOperationException();
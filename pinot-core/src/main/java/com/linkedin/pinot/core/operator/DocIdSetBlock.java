@@ -81,7 +81,7 @@ public class DocIdSetBlock implements Block {
           @Override
           public int next() {
             _pos++;
-            if (_pos == _searchableLength) {
+            if (_pos >= _searchableLength) {
               return Constants.EOF;
             }
             return _docIdArray[_pos];
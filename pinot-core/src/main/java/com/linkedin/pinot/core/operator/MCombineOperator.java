@@ -15,34 +15,37 @@
  */
 package com.linkedin.pinot.core.operator;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-import org.apache.helix.manager.zk.ZKHelixManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.query.QueryCancellationFlag;
+import com.linkedin.pinot.common.query.QueryCancelledException;
+import com.linkedin.pinot.common.query.QueryMemoryLimitExceededException;
+import com.linkedin.pinot.common.query.QueryMemoryTracker;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
 import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockId;
 import com.linkedin.pinot.core.common.Operator;
-import com.linkedin.pinot.core.operator.query.MAggregationGroupByOperator;
-import com.linkedin.pinot.core.operator.query.MAggregationOperator;
-import com.linkedin.pinot.core.operator.query.MSelectionOnlyOperator;
-import com.linkedin.pinot.core.operator.query.MSelectionOrderByOperator;
 import com.linkedin.pinot.core.query.aggregation.CombineService;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByIntermediateResult;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 
 
 /**
@@ -57,21 +60,33 @@ import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOpera
  *      Number of Operators is based on the pruned segments:
  *          one segment to one Operator.
  *
+ * In parallel mode the segments are not statically partitioned between threads. Each worker claims the next
+ * unprocessed segment from a shared counter, so a worker that finishes its segments early keeps taking work from
+ * the others. When a worker runs out of segments it folds in every result already published by the other workers
+ * and publishes the combined result, so merging happens incrementally on the workers as they finish instead of on a
+ * dedicated merger thread.
+ * Large group by results are not folded into each other: once all the workers are done, the group keys are split into
+ * one partition per worker result and the partitions are merged and trimmed concurrently.
+ * When the calling thread stops waiting (e.g. on timeout) it closes the published results before merging them: late
+ * workers stop claiming segments and drop their results instead of publishing them.
+ *
  *
  */
 public class MCombineOperator implements Operator {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MCombineOperator.class);
+  // Min number of groups over all the worker results to merge group by results by partition
+  private static final int MIN_GROUPS_FOR_PARTITIONED_MERGE = 10000;
 
   private final List<Operator> _operators;
   private final boolean _isParallel;
   private final BrokerRequest _brokerRequest;
   private final ExecutorService _executorService;
   private long _timeOutMs;
-  //Make this configurable
-  //These two control the parallelism on a per query basis, depending on the number of segments to process
-  private static int MAX_THREADS_PER_QUERY = 5;
-  private static int MIN_SEGMENTS_PER_THREAD = 10;
+  // These two control the parallelism on a per query basis, depending on the number of segments to process
+  private final int _maxThreadsPerQuery;
+  private final int _minSegmentsPerThread;
+  private final int _numGroupsLimit;
 
   private IntermediateResultsBlock _mergedBlock;
 
@@ -80,14 +95,32 @@ public class MCombineOperator implements Operator {
     _isParallel = false;
     _brokerRequest = brokerRequest;
     _executorService = null;
+    _maxThreadsPerQuery = 1;
+    _minSegmentsPerThread = QueryExecutorConfig.DEFAULT_MIN_SEGMENTS_PER_THREAD;
+    _numGroupsLimit = QueryExecutorConfig.DEFAULT_NUM_GROUPS_LIMIT;
   }
 
   public MCombineOperator(List<Operator> retOperators, ExecutorService executorService, long timeOutMs,
       BrokerRequest brokerRequest) {
+    this(retOperators, executorService, timeOutMs, brokerRequest, QueryExecutorConfig.DEFAULT_MAX_THREADS_PER_QUERY,
+        QueryExecutorConfig.DEFAULT_MIN_SEGMENTS_PER_THREAD);
+  }
+
+  public MCombineOperator(List<Operator> retOperators, ExecutorService executorService, long timeOutMs,
+      BrokerRequest brokerRequest, int maxThreadsPerQuery, int minSegmentsPerThread) {
+    this(retOperators, executorService, timeOutMs, brokerRequest, maxThreadsPerQuery, minSegmentsPerThread,
+        QueryExecutorConfig.DEFAULT_NUM_GROUPS_LIMIT);
+  }
+
+  public MCombineOperator(List<Operator> retOperators, ExecutorService executorService, long timeOutMs,
+      BrokerRequest brokerRequest, int maxThreadsPerQuery, int minSegmentsPerThread, int numGroupsLimit) {
     _operators = retOperators;
     _executorService = executorService;
     _brokerRequest = brokerRequest;
     _timeOutMs = timeOutMs;
+    _maxThreadsPerQuery = Math.max(1, maxThreadsPerQuery);
+    _minSegmentsPerThread = Math.max(1, minSegmentsPerThread);
+    _numGroupsLimit = numGroupsLimit;
     if (_executorService != null) {
       _isParallel = true;
     } else {
@@ -109,135 +142,117 @@ public class MCombineOperator implements Operator {
     final long startTime = System.currentTimeMillis();
     if (_isParallel) {
       final long queryEndTime = System.currentTimeMillis() + _timeOutMs;
-      int numGroups = Math.min(MAX_THREADS_PER_QUERY, (_operators.size() + MIN_SEGMENTS_PER_THREAD - 1) / MIN_SEGMENTS_PER_THREAD);
+      final int numOperators = _operators.size();
+      final int numWorkers = getNumWorkers(numOperators);
 
-      final List<List<Operator>> operatorGroups = new ArrayList<List<Operator>>(numGroups);
-      for (int i = 0; i < numGroups; i++) {
-        operatorGroups.add(new ArrayList<Operator>());
-      }
-      for (int i = 0; i < _operators.size(); i++) {
-        operatorGroups.get(i % numGroups).add(_operators.get(i));
-      }
-      final BlockingQueue<Block> blockingQueue = new ArrayBlockingQueue<Block>(operatorGroups.size());
-      // Submit operators.
-      for (final List<Operator> operatorGroup : operatorGroups) {
-        _executorService.submit(new Runnable() {
+      final AtomicInteger nextOperatorIndex = new AtomicInteger(0);
+      final FinishedBlocks finishedBlocks = new FinishedBlocks();
+      final ConcurrentLinkedQueue<ProcessingException> processingExceptions =
+          new ConcurrentLinkedQueue<ProcessingException>();
+      final CountDownLatch workersDone = new CountDownLatch(numWorkers);
+      // Workers charge the memory they allocate to the tracker of the query bound to the calling thread, and stop
+      // once the cancellation flag of the query bound to the calling thread is raised.
+      final QueryMemoryTracker queryMemoryTracker = QueryMemoryTracker.getCurrent();
+      final QueryCancellationFlag queryCancellationFlag = QueryCancellationFlag.getCurrent();
+
+      for (int i = 0; i < numWorkers; i++) {
+        _executorService.execute(new Runnable() {
           @Override
           public void run() {
-            IntermediateResultsBlock mergedBlock = null;
+            QueryMemoryTracker.setCurrent(queryMemoryTracker);
+            QueryCancellationFlag.setCurrent(queryCancellationFlag);
             try {
-              for (Operator operator : operatorGroup) {
-                IntermediateResultsBlock blockToMerge = (IntermediateResultsBlock) operator.nextBlock();
-                if (mergedBlock == null) {
-                  mergedBlock = blockToMerge;
-                } else {
-                  CombineService.mergeTwoBlocks(_brokerRequest, mergedBlock, blockToMerge);
+              IntermediateResultsBlock mergedBlock = null;
+              int index;
+              while (!finishedBlocks.isClosed() && System.currentTimeMillis() < queryEndTime
+                  && (index = nextOperatorIndex.getAndIncrement()) < numOperators) {
+                IntermediateResultsBlock blockToMerge;
+                try {
+                  blockToMerge = (IntermediateResultsBlock) _operators.get(index).nextBlock();
+                } catch (QueryMemoryLimitExceededException e) {
+                  // The query is terminated, stop claiming segments.
+                  LOGGER.error("Query went over its memory limit in the MCombine operator", e);
+                  processingExceptions.add(QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e));
+                  break;
+                } catch (QueryCancelledException e) {
+                  // Nobody waits for the result anymore, stop claiming segments.
+                  LOGGER.info("Query cancelled in the MCombine operator: {}", e.getMessage());
+                  break;
+                } catch (Exception e) {
+                  LOGGER.error("exception in the MCombine operator ", e);
+                  processingExceptions.add(QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e));
+                  continue;
                 }
+                mergedBlock = mergeBlocks(mergedBlock, blockToMerge, processingExceptions);
               }
-            } catch (Exception e) {
-              LOGGER.error("exception in the MCombine operator ", e);
-              mergedBlock = new IntermediateResultsBlock(e);
-            }
-            if (blockingQueue != null) {
-              blockingQueue.offer(mergedBlock);
+
+              // Fold in the results other workers have already published, then publish ours. Whatever is left in
+              // the queue when all workers are done is merged by the calling thread. Group by results are published
+              // as they are, they are merged by partition once all the workers are done.
+              if ((mergedBlock != null) && (mergedBlock.getGroupByIntermediateResult() == null)) {
+                IntermediateResultsBlock finishedBlock;
+                while ((finishedBlock = finishedBlocks.poll()) != null) {
+                  mergedBlock = mergeBlocks(mergedBlock, finishedBlock, processingExceptions);
+                }
+              }
+              if ((mergedBlock != null) && !finishedBlocks.offer(mergedBlock)) {
+                LOGGER.debug("Dropped the result of a worker finishing after the MCombine operator stopped waiting");
+              }
+            } finally {
+              QueryMemoryTracker.setCurrent(null);
+              QueryCancellationFlag.setCurrent(null);
+              workersDone.countDown();
             }
           }
         });
       }
-      LOGGER
-          .debug("Submitting operators to be run in parallel and it took:" + (System.currentTimeMillis() - startTime));
-
-      // Submit merger job:
-      Future<IntermediateResultsBlock> mergedBlockFuture =
-          _executorService.submit(new Callable<IntermediateResultsBlock>() {
-            @Override
-            public IntermediateResultsBlock call() throws Exception {
-              int mergedBlocksNumber = 0;
-              IntermediateResultsBlock mergedBlock = null;
-              while ((queryEndTime > System.currentTimeMillis()) && (mergedBlocksNumber < operatorGroups.size())) {
-                if (mergedBlock == null) {
-                  mergedBlock =
-                      (IntermediateResultsBlock) blockingQueue.poll(queryEndTime - System.currentTimeMillis(),
-                          TimeUnit.MILLISECONDS);
-                  if (mergedBlock != null) {
-                    mergedBlocksNumber++;
-                  }
-                  LOGGER.debug("Got response from operator 0 after: {}", (System.currentTimeMillis() - startTime));
-                } else {
-                  IntermediateResultsBlock blockToMerge =
-                      (IntermediateResultsBlock) blockingQueue.poll(queryEndTime - System.currentTimeMillis(),
-                          TimeUnit.MILLISECONDS);
-                  if (blockToMerge != null) {
-                    try {
-                      LOGGER.debug("Got response from operator {} after: {}", mergedBlocksNumber,
-                          (System.currentTimeMillis() - startTime));
-                      CombineService.mergeTwoBlocks(_brokerRequest, mergedBlock, blockToMerge);
-                      LOGGER.debug("Merged response from operator {} after: {}", mergedBlocksNumber,
-                          (System.currentTimeMillis() - startTime));
-                    } catch (Exception e) {
-                      mergedBlock.getExceptions().add(
-                          QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
-                    }
-                    mergedBlocksNumber++;
-                  }
-                }
-              }
-              return mergedBlock;
-            }
-          });
+      LOGGER.debug("Submitted {} workers for {} segments after: {}", numWorkers, numOperators,
+          (System.currentTimeMillis() - startTime));
 
-      // Get merge results.
+      boolean isFinished = false;
+      boolean isInterrupted = false;
       try {
-        _mergedBlock = mergedBlockFuture.get(queryEndTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        isFinished = workersDone.await(queryEndTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
       } catch (InterruptedException e) {
         LOGGER.error("InterruptedException ", e);
-        if (_mergedBlock == null) {
-          _mergedBlock = new IntermediateResultsBlock(e);
-        }
-        List<ProcessingException> exceptions = _mergedBlock.getExceptions();
-        if (exceptions == null) {
-          exceptions = new ArrayList<ProcessingException>();
-        }
-        exceptions.add(QueryException.getException(QueryException.FUTURE_CALL_ERROR, e));
-        _mergedBlock.setExceptionsList(exceptions);
-      } catch (ExecutionException e) {
-        LOGGER.error("Execution Exception", e);
-        if (_mergedBlock == null) {
-          _mergedBlock = new IntermediateResultsBlock(e);
-        }
-        List<ProcessingException> exceptions = _mergedBlock.getExceptions();
-        if (exceptions == null) {
-          exceptions = new ArrayList<ProcessingException>();
+        Thread.currentThread().interrupt();
+        isInterrupted = true;
+        processingExceptions.add(QueryException.getException(QueryException.FUTURE_CALL_ERROR, e));
+      }
+
+      // From here on the calling thread owns the published results, workers still running can not touch them.
+      List<IntermediateResultsBlock> blocksToMerge = finishedBlocks.close();
+      if (isFinished && isFitForPartitionedMerge(blocksToMerge)) {
+        _mergedBlock = mergeGroupByPartitions(blocksToMerge, queryEndTime, processingExceptions);
+      } else {
+        for (IntermediateResultsBlock blockToMerge : blocksToMerge) {
+          _mergedBlock = mergeBlocks(_mergedBlock, blockToMerge, processingExceptions);
         }
-        exceptions.add(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
-        _mergedBlock.setExceptionsList(exceptions);
-      } catch (TimeoutException e) {
-        LOGGER.error("TimeoutException ", e);
+      }
+      if (!isFinished && !isInterrupted) {
+        LOGGER.error("Timed out while combining results of {} segments", numOperators);
+        processingExceptions.add(QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR,
+            new Exception("Timed out after " + _timeOutMs + "ms while combining segment results")));
+      }
+      if (!processingExceptions.isEmpty()) {
         if (_mergedBlock == null) {
-          _mergedBlock = new IntermediateResultsBlock(e);
+          _mergedBlock = new IntermediateResultsBlock();
         }
         List<ProcessingException> exceptions = _mergedBlock.getExceptions();
         if (exceptions == null) {
           exceptions = new ArrayList<ProcessingException>();
         }
-        exceptions.add(QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR, e));
+        exceptions.addAll(processingExceptions);
         _mergedBlock.setExceptionsList(exceptions);
       }
 
     } else {
       for (Operator operator : _operators) {
-        if ((operator instanceof MAggregationOperator) || (operator instanceof MSelectionOrderByOperator)
-            || (operator instanceof MSelectionOnlyOperator) || (operator instanceof MAggregationGroupByOperator)
-            || (operator instanceof MCombineOperator)) {
-          IntermediateResultsBlock block = (IntermediateResultsBlock) operator.nextBlock();
-          if (_mergedBlock == null) {
-            _mergedBlock = block;
-          } else {
-            CombineService.mergeTwoBlocks(_brokerRequest, _mergedBlock, block);
-          }
+        IntermediateResultsBlock block = (IntermediateResultsBlock) operator.nextBlock();
+        if (_mergedBlock == null) {
+          _mergedBlock = block;
         } else {
-          throw new UnsupportedOperationException("Unsupported Operator to be processed in MResultOperator : "
-              + operator);
+          CombineService.mergeTwoBlocks(_brokerRequest, _mergedBlock, block);
         }
       }
     }
@@ -251,6 +266,202 @@ public class MCombineOperator implements Operator {
     return _mergedBlock;
   }
 
+  /**
+   * Results published by the workers of one nextBlock() call. Once closed by the calling thread, polling returns
+   * nothing and offering drops the result, so late workers can neither take a block the calling thread is merging nor
+   * publish a block the calling thread will never see.
+   */
+  private static class FinishedBlocks {
+    private final List<IntermediateResultsBlock> _blocks = new ArrayList<IntermediateResultsBlock>();
+    private boolean _isClosed = false;
+
+    synchronized boolean isClosed() {
+      return _isClosed;
+    }
+
+    /**
+     * @return false if closed, the block is dropped
+     */
+    synchronized boolean offer(IntermediateResultsBlock block) {
+      if (_isClosed) {
+        return false;
+      }
+      _blocks.add(block);
+      return true;
+    }
+
+    /**
+     * @return a published block, null if there is none or if closed
+     */
+    synchronized IntermediateResultsBlock poll() {
+      if (_isClosed || _blocks.isEmpty()) {
+        return null;
+      }
+      return _blocks.remove(_blocks.size() - 1);
+    }
+
+    /**
+     * @return the blocks published so far
+     */
+    synchronized List<IntermediateResultsBlock> close() {
+      _isClosed = true;
+      List<IntermediateResultsBlock> blocks = new ArrayList<IntermediateResultsBlock>(_blocks);
+      _blocks.clear();
+      return blocks;
+    }
+  }
+
+  /**
+   * Number of workers to schedule for this query: bounded by the configured threads per query and the number of
+   * segments, and, when the executor exposes it, by the number of threads of the table executor not currently busy
+   * so that a loaded server does not queue up more workers than it can run.
+   */
+  private int getNumWorkers(int numOperators) {
+    int numWorkers =
+        Math.min(_maxThreadsPerQuery, (numOperators + _minSegmentsPerThread - 1) / _minSegmentsPerThread);
+    if (_executorService instanceof ThreadPoolExecutor) {
+      ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) _executorService;
+      int idleThreads = threadPoolExecutor.getMaximumPoolSize() - threadPoolExecutor.getActiveCount();
+      numWorkers = Math.min(numWorkers, Math.max(1, idleThreads));
+    }
+    return numWorkers;
+  }
+
+  /**
+   * Group by results are merged by partition when there are several of them and enough groups to be worth it.
+   */
+  private boolean isFitForPartitionedMerge(List<IntermediateResultsBlock> blocks) {
+    if (blocks.size() < 2) {
+      return false;
+    }
+    GroupByIntermediateResult firstResult = blocks.get(0).getGroupByIntermediateResult();
+    if (firstResult == null) {
+      return false;
+    }
+    long numGroups = 0;
+    for (IntermediateResultsBlock block : blocks) {
+      GroupByIntermediateResult result = block.getGroupByIntermediateResult();
+      if ((result == null) || !firstResult.isMergeableWith(result)) {
+        return false;
+      }
+      numGroups += result.getNumGroups();
+    }
+    return numGroups >= MIN_GROUPS_FOR_PARTITIONED_MERGE;
+  }
+
+  /**
+   * Merge the group by results of the given blocks with one task per partition of the group keys. Each task merges
+   * the groups of its partition from all the blocks, then builds and trims the result maps of the partition, and the
+   * disjoint partition maps are put together at the end. The calling thread runs the first partition.
+   */
+  private IntermediateResultsBlock mergeGroupByPartitions(List<IntermediateResultsBlock> blocks, long queryEndTime,
+      final ConcurrentLinkedQueue<ProcessingException> processingExceptions) {
+    final int numPartitions = blocks.size();
+    final List<GroupByIntermediateResult> results = new ArrayList<GroupByIntermediateResult>(numPartitions);
+    for (IntermediateResultsBlock block : blocks) {
+      results.add(block.getGroupByIntermediateResult());
+    }
+    final AtomicReferenceArray<List<Map<String, Serializable>>> partitionResults =
+        new AtomicReferenceArray<List<Map<String, Serializable>>>(numPartitions);
+    final CountDownLatch partitionsDone = new CountDownLatch(numPartitions - 1);
+    final QueryMemoryTracker queryMemoryTracker = QueryMemoryTracker.getCurrent();
+    for (int i = 1; i < numPartitions; i++) {
+      final int partitionId = i;
+      _executorService.execute(new Runnable() {
+        @Override
+        public void run() {
+          QueryMemoryTracker.setCurrent(queryMemoryTracker);
+          try {
+            partitionResults.set(partitionId, mergePartition(results, partitionId, numPartitions));
+          } catch (Exception e) {
+            LOGGER.error("Caught exception while merging group by partition {}", partitionId, e);
+            processingExceptions.add(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
+          } finally {
+            QueryMemoryTracker.setCurrent(null);
+            partitionsDone.countDown();
+          }
+        }
+      });
+    }
+    try {
+      partitionResults.set(0, mergePartition(results, 0, numPartitions));
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while merging group by partition 0", e);
+      processingExceptions.add(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
+    }
+    try {
+      if (!partitionsDone.await(queryEndTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS)) {
+        LOGGER.error("Timed out while merging {} group by partitions", numPartitions);
+        processingExceptions.add(QueryException.getException(QueryException.EXECUTION_TIMEOUT_ERROR,
+            new Exception("Timed out after " + _timeOutMs + "ms while merging group by results")));
+      }
+    } catch (InterruptedException e) {
+      LOGGER.error("InterruptedException ", e);
+      Thread.currentThread().interrupt();
+      processingExceptions.add(QueryException.getException(QueryException.FUTURE_CALL_ERROR, e));
+    }
+
+    final int numAggregations = _brokerRequest.getAggregationsInfoSize();
+    final List<Map<String, Serializable>> groupByResults = new ArrayList<Map<String, Serializable>>(numAggregations);
+    for (int i = 0; i < numAggregations; i++) {
+      groupByResults.add(new HashMap<String, Serializable>());
+    }
+    for (int partitionId = 0; partitionId < numPartitions; partitionId++) {
+      List<Map<String, Serializable>> partitionResult = partitionResults.get(partitionId);
+      if (partitionResult != null) {
+        for (int i = 0; i < numAggregations; i++) {
+          groupByResults.get(i).putAll(partitionResult.get(i));
+        }
+      }
+    }
+
+    IntermediateResultsBlock mergedBlock = blocks.get(0);
+    for (int i = 1; i < blocks.size(); i++) {
+      CombineService.mergeBlockMetadata(_brokerRequest, mergedBlock, blocks.get(i));
+    }
+    mergedBlock.setAggregationGroupByResult1(groupByResults);
+    return mergedBlock;
+  }
+
+  private List<Map<String, Serializable>> mergePartition(List<GroupByIntermediateResult> results, int partitionId,
+      int numPartitions) {
+    List<Map<String, Serializable>> partitionResult =
+        GroupByIntermediateResult.mergePartition(results, partitionId, numPartitions).toGroupByResultMaps();
+    new AggregationGroupByOperatorService(_brokerRequest.getAggregationsInfo(), _brokerRequest.getGroupBy())
+        .trimToSize(partitionResult);
+    return partitionResult;
+  }
+
+  private IntermediateResultsBlock mergeBlocks(IntermediateResultsBlock mergedBlock,
+      IntermediateResultsBlock blockToMerge, ConcurrentLinkedQueue<ProcessingException> processingExceptions) {
+    if (mergedBlock == null) {
+      return blockToMerge;
+    }
+    try {
+      CombineService.mergeTwoBlocks(_brokerRequest, mergedBlock, blockToMerge);
+      // Keep the merged group by result within the groups limit of the query.
+      GroupByIntermediateResult groupByResult = mergedBlock.getGroupByIntermediateResult();
+      if (groupByResult != null) {
+        GroupByIntermediateResult trimmedResult =
+            groupByResult.trimToLimit(_numGroupsLimit, _brokerRequest.getGroupBy().getTopN());
+        if (trimmedResult != groupByResult) {
+          mergedBlock.setGroupByIntermediateResult(trimmedResult);
+          mergedBlock.setApproximate(true);
+        }
+      } else if (_brokerRequest.isSetGroupBy() && (mergedBlock.getAggregationGroupByOperatorResult() != null)) {
+        if (GroupByIntermediateResult.trimResultMapsToLimit(mergedBlock.getAggregationFunctions(),
+            mergedBlock.getAggregationGroupByOperatorResult(), _numGroupsLimit,
+            _brokerRequest.getGroupBy().getTopN())) {
+          mergedBlock.setApproximate(true);
+        }
+      }
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while merging results", e);
+      processingExceptions.add(QueryException.getException(QueryException.MERGE_RESPONSE_ERROR, e));
+    }
+    return mergedBlock;
+  }
+
   private void trimToSize(BrokerRequest brokerRequest, IntermediateResultsBlock mergedBlock) {
     AggregationGroupByOperatorService aggregationGroupByOperatorService =
         new AggregationGroupByOperatorService(brokerRequest.getAggregationsInfo(), brokerRequest.getGroupBy());
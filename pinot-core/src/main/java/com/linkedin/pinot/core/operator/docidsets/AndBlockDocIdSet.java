@@ -15,10 +15,12 @@
  */
 package com.linkedin.pinot.core.operator.docidsets;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,6 +28,7 @@ import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.common.FilterBlockDocIdSet;
 import com.linkedin.pinot.core.operator.filter.AndOperator;
+import com.linkedin.pinot.core.operator.filter.utils.BitmapUtils;
 
 
 public final class AndBlockDocIdSet implements FilterBlockDocIdSet {
@@ -33,28 +36,92 @@ public final class AndBlockDocIdSet implements FilterBlockDocIdSet {
    * 
    */
   private final BlockDocIdIterator[] docIdIterators;
+  private final ScanBasedDocIdIterator[] scanBasedDocIdIterators;
   private final int[] docIdPointers;
   private static final Logger LOGGER = LoggerFactory.getLogger(AndOperator.class);
   boolean reachedEnd = false;
   int currentDocId = -1;
   public final AtomicLong timeMeasure = new AtomicLong(0);
   private List<FilterBlockDocIdSet> blockDocIdSets;
+  private BitmapDocIdSet bitmapDocIdSet;
   private int minDocId = Integer.MIN_VALUE;
   private int maxDocId = Integer.MAX_VALUE;
 
   public AndBlockDocIdSet(List<FilterBlockDocIdSet> blockDocIdSets) {
-    this.blockDocIdSets = blockDocIdSets;
-    final int[] docIdPointers = new int[blockDocIdSets.size()];
-    final BlockDocIdIterator[] docIdIterators = new BlockDocIdIterator[blockDocIdSets.size()];
-    for (int srcId = 0; srcId < blockDocIdSets.size(); srcId++) {
-      docIdIterators[srcId] = blockDocIdSets.get(srcId).iterator();
+    this.blockDocIdSets = intersectBitmapDocIdSets(blockDocIdSets);
+    // Scan based children are only probed with isMatch() on the docs that all the other children agree on.
+    // Keep at least one child to drive the iteration.
+    final List<BlockDocIdIterator> drivingIterators = new ArrayList<BlockDocIdIterator>();
+    final List<ScanBasedDocIdIterator> scanIterators = new ArrayList<ScanBasedDocIdIterator>();
+    for (FilterBlockDocIdSet blockDocIdSet : this.blockDocIdSets) {
+      BlockDocIdIterator iterator = blockDocIdSet.iterator();
+      if (iterator instanceof ScanBasedDocIdIterator) {
+        scanIterators.add((ScanBasedDocIdIterator) iterator);
+      } else {
+        drivingIterators.add(iterator);
+      }
+    }
+    if (drivingIterators.isEmpty() && !scanIterators.isEmpty()) {
+      drivingIterators.add(scanIterators.remove(0));
     }
+    final int[] docIdPointers = new int[drivingIterators.size()];
     Arrays.fill(docIdPointers, -1);
-    this.docIdIterators = docIdIterators;
+    this.docIdIterators = drivingIterators.toArray(new BlockDocIdIterator[drivingIterators.size()]);
+    this.scanBasedDocIdIterators = scanIterators.toArray(new ScanBasedDocIdIterator[scanIterators.size()]);
     this.docIdPointers = docIdPointers;
     updateMinMaxRange();
   }
 
+  /**
+   * Intersects all the bitmap based children with bitmap algebra up front, the result replaces them as the first child.
+   * @param blockDocIdSets
+   * @return
+   */
+  private List<FilterBlockDocIdSet> intersectBitmapDocIdSets(List<FilterBlockDocIdSet> blockDocIdSets) {
+    final List<ImmutableRoaringBitmap> bitmaps = new ArrayList<ImmutableRoaringBitmap>();
+    final List<FilterBlockDocIdSet> others = new ArrayList<FilterBlockDocIdSet>();
+    BitmapDocIdSet firstBitmapDocIdSet = null;
+    int bitmapMinDocId = Integer.MIN_VALUE;
+    int bitmapMaxDocId = Integer.MAX_VALUE;
+    for (FilterBlockDocIdSet blockDocIdSet : blockDocIdSets) {
+      BitmapDocIdSet childBitmapDocIdSet = BitmapDocIdSet.asBitmapDocIdSet(blockDocIdSet);
+      if (childBitmapDocIdSet == null) {
+        others.add(blockDocIdSet);
+      } else {
+        if (firstBitmapDocIdSet == null) {
+          firstBitmapDocIdSet = childBitmapDocIdSet;
+        }
+        bitmaps.add(childBitmapDocIdSet.getUnionBitmap());
+        bitmapMinDocId = Math.max(bitmapMinDocId, childBitmapDocIdSet.getMinDocId());
+        bitmapMaxDocId = Math.min(bitmapMaxDocId, childBitmapDocIdSet.getMaxDocId());
+      }
+    }
+    if (bitmaps.isEmpty()) {
+      return blockDocIdSets;
+    }
+    final BitmapDocIdSet intersection;
+    if (bitmaps.size() == 1) {
+      intersection = firstBitmapDocIdSet;
+    } else {
+      intersection = new BitmapDocIdSet(bitmapMinDocId, bitmapMaxDocId,
+          BitmapUtils.fastBitmapsAnd(bitmaps.toArray(new ImmutableRoaringBitmap[bitmaps.size()])));
+    }
+    if (others.isEmpty()) {
+      bitmapDocIdSet = intersection;
+    }
+    final List<FilterBlockDocIdSet> result = new ArrayList<FilterBlockDocIdSet>(others.size() + 1);
+    result.add(intersection);
+    result.addAll(others);
+    return result;
+  }
+
+  /**
+   * @return the result as a single BitmapDocIdSet if all the children are bitmap based, null otherwise
+   */
+  public BitmapDocIdSet getBitmapDocIdSet() {
+    return bitmapDocIdSet;
+  }
+
   private void updateMinMaxRange() {
     for (FilterBlockDocIdSet blockDocIdSet : blockDocIdSets) {
       minDocId = Math.max(minDocId, blockDocIdSet.getMinDocId());
@@ -91,23 +158,29 @@ public final class AndBlockDocIdSet implements FilterBlockDocIdSet {
           return currentDocId;
         }
         currentMax = currentMax + 1;
-        //always increment the pointer to current max, when this is called first time, every one will be set to start of posting list.
-        for (int i = 0; i < docIdIterators.length; i++) {
-          docIdPointers[i] = docIdIterators[i].advance(currentMax);
-          if (docIdPointers[i] == Constants.EOF) {
-            reachedEnd = true;
-            currentMax = Constants.EOF;
-            break;
-          }
-          if (docIdPointers[i] > currentMax) {
-            currentMax = docIdPointers[i];
-            if (i > 0) {
-              i = -1;
+        while (true) {
+          //always increment the pointer to current max, when this is called first time, every one will be set to start of posting list.
+          for (int i = 0; i < docIdIterators.length; i++) {
+            docIdPointers[i] = docIdIterators[i].advance(currentMax);
+            if (docIdPointers[i] == Constants.EOF) {
+              reachedEnd = true;
+              currentMax = Constants.EOF;
+              break;
+            }
+            if (docIdPointers[i] > currentMax) {
+              currentMax = docIdPointers[i];
+              if (i > 0) {
+                i = -1;
+              }
+            } else if (docIdPointers[i] < currentMax) {
+              LOGGER.warn("Should never happen, {} returns docIdPointer : {} should always >= currentMax : {}", docIdIterators[i], docIdPointers[i], currentMax);
+              throw new IllegalStateException("Should never happen, docIdPointer should always >= currentMax");
             }
-          } else if (docIdPointers[i] < currentMax) {
-            LOGGER.warn("Should never happen, {} returns docIdPointer : {} should always >= currentMax : {}", docIdIterators[i], docIdPointers[i], currentMax);
-            throw new IllegalStateException("Should never happen, docIdPointer should always >= currentMax");
           }
+          if (currentMax == Constants.EOF || isMatchedByScanBasedIterators(currentMax)) {
+            break;
+          }
+          currentMax = currentMax + 1;
         }
         currentDocId = currentMax;
         long end = System.currentTimeMillis();
@@ -126,6 +199,15 @@ public final class AndBlockDocIdSet implements FilterBlockDocIdSet {
     };
   }
 
+  private boolean isMatchedByScanBasedIterators(int docId) {
+    for (ScanBasedDocIdIterator scanBasedDocIdIterator : scanBasedDocIdIterators) {
+      if (!scanBasedDocIdIterator.isMatch(docId)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <T> T getRaw() {
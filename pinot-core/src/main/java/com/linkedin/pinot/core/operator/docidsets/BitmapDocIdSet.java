@@ -30,47 +30,102 @@ import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.BlockMetadata;
 import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.common.FilterBlockDocIdSet;
+import com.linkedin.pinot.core.operator.filter.utils.BitmapUtils;
 
 
 public class BitmapDocIdSet implements FilterBlockDocIdSet {
 
   final private ImmutableRoaringBitmap[] raw;
   public final AtomicLong timeMeasure = new AtomicLong(0);
-  private BlockMetadata blockMetadata;
+  private final int minDocId;
+  private final int maxDocId;
+  private int startDocId;
+  private int endDocId;
   BitmapBasedBlockIdSetIterator bitmapBasedBlockIdSetIterator;
+  private ImmutableRoaringBitmap unionBitmap;
 
   public BitmapDocIdSet(BlockMetadata blockMetadata, ImmutableRoaringBitmap... bitmaps) {
-    this.blockMetadata = blockMetadata;
-    raw = bitmaps;
-    IntIterator[] iterators = new IntIterator[bitmaps.length];
-    for (int i = 0; i < bitmaps.length; i++) {
-      iterators[i] = bitmaps[i].getIntIterator();
-    }
-    bitmapBasedBlockIdSetIterator = new BitmapBasedBlockIdSetIterator(iterators);
-    bitmapBasedBlockIdSetIterator.setStartDocId(blockMetadata.getStartDocId());
-    bitmapBasedBlockIdSetIterator.setEndDocId(blockMetadata.getEndDocId());
+    this(blockMetadata.getStartDocId(), blockMetadata.getEndDocId(), bitmaps);
   }
 
   public BitmapDocIdSet(BlockMetadata blockMetadata, MutableRoaringBitmap... bitmaps) {
-    this.blockMetadata = blockMetadata;
+    this(blockMetadata.getStartDocId(), blockMetadata.getEndDocId(), (ImmutableRoaringBitmap[]) bitmaps);
+  }
+
+  public BitmapDocIdSet(int minDocId, int maxDocId, ImmutableRoaringBitmap... bitmaps) {
+    this.minDocId = minDocId;
+    this.maxDocId = maxDocId;
+    this.startDocId = minDocId;
+    this.endDocId = maxDocId;
     raw = bitmaps;
     IntIterator[] iterators = new IntIterator[bitmaps.length];
     for (int i = 0; i < bitmaps.length; i++) {
       iterators[i] = bitmaps[i].getIntIterator();
     }
     bitmapBasedBlockIdSetIterator = new BitmapBasedBlockIdSetIterator(iterators);
-    bitmapBasedBlockIdSetIterator.setStartDocId(blockMetadata.getStartDocId());
-    bitmapBasedBlockIdSetIterator.setEndDocId(blockMetadata.getEndDocId());
+    bitmapBasedBlockIdSetIterator.setStartDocId(minDocId);
+    bitmapBasedBlockIdSetIterator.setEndDocId(maxDocId);
+  }
+
+  /**
+   * Returns the docIdSet as a single BitmapDocIdSet if it is entirely backed by bitmaps, so that AND/OR can combine it
+   * with bitmap algebra instead of iterating doc by doc. Returns null otherwise.
+   * @param docIdSet
+   * @return
+   */
+  public static BitmapDocIdSet asBitmapDocIdSet(FilterBlockDocIdSet docIdSet) {
+    if (docIdSet instanceof BitmapDocIdSet) {
+      return (BitmapDocIdSet) docIdSet;
+    }
+    if (docIdSet instanceof AndBlockDocIdSet) {
+      return ((AndBlockDocIdSet) docIdSet).getBitmapDocIdSet();
+    }
+    if (docIdSet instanceof OrBlockDocIdSet) {
+      return ((OrBlockDocIdSet) docIdSet).getBitmapDocIdSet();
+    }
+    return null;
+  }
+
+  /**
+   * Union of all the bitmaps of this docIdSet clipped to [startDocId, endDocId], computed lazily.
+   * @return
+   */
+  public ImmutableRoaringBitmap getUnionBitmap() {
+    if (unionBitmap == null) {
+      ImmutableRoaringBitmap union;
+      if (raw.length == 1) {
+        union = raw[0];
+      } else {
+        union = BitmapUtils.fastBitmapOr(raw);
+      }
+      unionBitmap = clipToRange(union, startDocId, endDocId);
+    }
+    return unionBitmap;
+  }
+
+  private static ImmutableRoaringBitmap clipToRange(ImmutableRoaringBitmap bitmap, int startDocId, int endDocId) {
+    if (bitmap.isEmpty()) {
+      return bitmap;
+    }
+    if (bitmap.select(0) >= startDocId && bitmap.select(bitmap.getCardinality() - 1) <= endDocId) {
+      return bitmap;
+    }
+    if (startDocId > endDocId) {
+      return new MutableRoaringBitmap();
+    }
+    MutableRoaringBitmap range = new MutableRoaringBitmap();
+    range.flip(startDocId, endDocId + 1);
+    return ImmutableRoaringBitmap.and(bitmap, range);
   }
 
   @Override
   public int getMinDocId() {
-    return blockMetadata.getStartDocId();
+    return minDocId;
   }
 
   @Override
   public int getMaxDocId() {
-    return blockMetadata.getEndDocId();
+    return maxDocId;
   }
 
   /**
@@ -78,6 +133,8 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
    * @param startDocId
    */
   public void setStartDocId(int startDocId) {
+    this.startDocId = startDocId;
+    unionBitmap = null;
     bitmapBasedBlockIdSetIterator.setStartDocId(startDocId);
   }
 
@@ -86,6 +143,8 @@ public class BitmapDocIdSet implements FilterBlockDocIdSet {
    * @param endDocId
    */
   public void setEndDocId(int endDocId) {
+    this.endDocId = endDocId;
+    unionBitmap = null;
     bitmapBasedBlockIdSetIterator.setEndDocId(endDocId);
   }
 
@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.docidsets;
+
+/**
+ * Primitive membership test for the dictionary ids matched by a predicate, used by the scan based doc id sets in
+ * place of a boxed Set&lt;Integer&gt;.
+ * A contiguous run of dictionary ids (range predicates) is checked against its [min, max] bounds, any other set of
+ * dictionary ids is checked against a bitset sized to the largest matching dictionary id.
+ */
+public final class DictionaryIdMatcher {
+  private final int minDictId;
+  private final int maxDictId;
+  private final long[] words;
+
+  public DictionaryIdMatcher(int[] dictIds) {
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (int dictId : dictIds) {
+      min = Math.min(min, dictId);
+      max = Math.max(max, dictId);
+    }
+    minDictId = min;
+    maxDictId = max;
+    if (dictIds.length == 0 || isContiguous(dictIds, min, max)) {
+      words = null;
+    } else {
+      words = new long[(max >>> 6) + 1];
+      for (int dictId : dictIds) {
+        words[dictId >>> 6] |= 1L << dictId;
+      }
+    }
+  }
+
+  private static boolean isContiguous(int[] dictIds, int min, int max) {
+    if ((long) max - min + 1 != dictIds.length) {
+      return false;
+    }
+    // Predicate evaluators hand out sorted distinct dictionary ids, but do not rely on it.
+    for (int i = 1; i < dictIds.length; i++) {
+      if (dictIds[i] != dictIds[i - 1] + 1) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public boolean matches(int dictId) {
+    if (dictId < minDictId || dictId > maxDictId) {
+      return false;
+    }
+    if (words == null) {
+      return true;
+    }
+    return (words[dictId >>> 6] & (1L << dictId)) != 0;
+  }
+}
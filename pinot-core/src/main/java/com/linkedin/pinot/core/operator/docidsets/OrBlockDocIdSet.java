@@ -15,16 +15,20 @@
  */
 package com.linkedin.pinot.core.operator.docidsets;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
 import com.linkedin.pinot.common.utils.Pairs;
 import com.linkedin.pinot.common.utils.Pairs.IntPair;
 import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.common.FilterBlockDocIdSet;
+import com.linkedin.pinot.core.operator.filter.utils.BitmapUtils;
 
 
 public final class OrBlockDocIdSet implements FilterBlockDocIdSet {
@@ -34,10 +38,12 @@ public final class OrBlockDocIdSet implements FilterBlockDocIdSet {
   private final BlockDocIdIterator[] docIdIterators;
   final public AtomicLong timeMeasure = new AtomicLong(0);
   private List<FilterBlockDocIdSet> docIdSets;
+  private BitmapDocIdSet bitmapDocIdSet;
   private int maxDocId = Integer.MIN_VALUE;
   private int minDocId = Integer.MAX_VALUE;
 
   public OrBlockDocIdSet(List<FilterBlockDocIdSet> blockDocIdSets) {
+    blockDocIdSets = unionBitmapDocIdSets(blockDocIdSets);
     this.docIdSets = blockDocIdSets;
     final BlockDocIdIterator[] docIdIterators = new BlockDocIdIterator[blockDocIdSets.size()];
     for (int srcId = 0; srcId < blockDocIdSets.size(); srcId++) {
@@ -47,6 +53,56 @@ public final class OrBlockDocIdSet implements FilterBlockDocIdSet {
     updateMinMaxRange();
   }
 
+  /**
+   * Unions all the bitmap based children with bitmap algebra up front, the result replaces them as the first child.
+   * @param blockDocIdSets
+   * @return
+   */
+  private List<FilterBlockDocIdSet> unionBitmapDocIdSets(List<FilterBlockDocIdSet> blockDocIdSets) {
+    final List<ImmutableRoaringBitmap> bitmaps = new ArrayList<ImmutableRoaringBitmap>();
+    final List<FilterBlockDocIdSet> others = new ArrayList<FilterBlockDocIdSet>();
+    BitmapDocIdSet firstBitmapDocIdSet = null;
+    int bitmapMinDocId = Integer.MAX_VALUE;
+    int bitmapMaxDocId = Integer.MIN_VALUE;
+    for (FilterBlockDocIdSet blockDocIdSet : blockDocIdSets) {
+      BitmapDocIdSet childBitmapDocIdSet = BitmapDocIdSet.asBitmapDocIdSet(blockDocIdSet);
+      if (childBitmapDocIdSet == null) {
+        others.add(blockDocIdSet);
+      } else {
+        if (firstBitmapDocIdSet == null) {
+          firstBitmapDocIdSet = childBitmapDocIdSet;
+        }
+        bitmaps.add(childBitmapDocIdSet.getUnionBitmap());
+        bitmapMinDocId = Math.min(bitmapMinDocId, childBitmapDocIdSet.getMinDocId());
+        bitmapMaxDocId = Math.max(bitmapMaxDocId, childBitmapDocIdSet.getMaxDocId());
+      }
+    }
+    if (bitmaps.isEmpty()) {
+      return blockDocIdSets;
+    }
+    final BitmapDocIdSet union;
+    if (bitmaps.size() == 1) {
+      union = firstBitmapDocIdSet;
+    } else {
+      union = new BitmapDocIdSet(bitmapMinDocId, bitmapMaxDocId,
+          BitmapUtils.fastBitmapOr(bitmaps.toArray(new ImmutableRoaringBitmap[bitmaps.size()])));
+    }
+    if (others.isEmpty()) {
+      bitmapDocIdSet = union;
+    }
+    final List<FilterBlockDocIdSet> result = new ArrayList<FilterBlockDocIdSet>(others.size() + 1);
+    result.add(union);
+    result.addAll(others);
+    return result;
+  }
+
+  /**
+   * @return the result as a single BitmapDocIdSet if all the children are bitmap based, null otherwise
+   */
+  public BitmapDocIdSet getBitmapDocIdSet() {
+    return bitmapDocIdSet;
+  }
+
   private void updateMinMaxRange() {
     for (FilterBlockDocIdSet blockDocIdSet : docIdSets) {
       minDocId = Math.min(minDocId, blockDocIdSet.getMinDocId());
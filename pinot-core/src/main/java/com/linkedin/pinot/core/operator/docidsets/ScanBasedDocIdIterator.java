@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.docidsets;
+
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+
+
+/**
+ * Doc id iterator that evaluates its predicate by scanning the forward index.
+ * isMatch() lets AND check only the docs that survived the index based children, instead of scanning forward to the
+ * next match through advance().
+ *
+ */
+public interface ScanBasedDocIdIterator extends BlockDocIdIterator {
+
+  /**
+   * @param docId
+   * @return true if the doc is within the range of this iterator and matches the predicate
+   */
+  boolean isMatch(int docId);
+}
@@ -15,9 +15,6 @@
  */
 package com.linkedin.pinot.core.operator.docidsets;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.BlockMetadata;
 import com.linkedin.pinot.core.common.BlockSingleValIterator;
@@ -66,27 +63,40 @@ public class ScanBasedSingleValueDocIdSet implements FilterBlockDocIdSet {
     return blockValSetBlockDocIdIterator;
   }
 
-  public static class BlockValSetBasedDocIdIterator implements BlockDocIdIterator {
+  public static class BlockValSetBasedDocIdIterator implements ScanBasedDocIdIterator {
+    private static final int DOC_ID_BUFFER_SIZE = 1024;
+
     int currentDocId = -1;
     BlockSingleValIterator valueIterator;
-    private Set<Integer> dictIdSet;
+    private final BlockValSet blockValSet;
+    private final DictionaryIdMatcher dictIdMatcher;
+    private final int lastDocIdInBlock;
     private int startDocId;
     private int endDocId;
 
+    // Dictionary ids of the docs [bufferStartDocId, bufferStartDocId + bufferLength), read in bulk from the block.
+    private final int[] docIdBuffer;
+    private final int[] dictIdBuffer;
+    private int bufferStartDocId = -1;
+    private int bufferLength = 0;
+
     public BlockValSetBasedDocIdIterator(BlockValSet blockValSet, BlockMetadata blockMetadata, int[] dictIds) {
+      this.blockValSet = blockValSet;
       if (dictIds.length < 1) {
-        this.dictIdSet = null;
+        this.dictIdMatcher = null;
+        this.docIdBuffer = null;
+        this.dictIdBuffer = null;
         currentDocId = Constants.EOF;
         setStartDocId(Constants.EOF);
         setEndDocId(Constants.EOF);
       } else {
-        this.dictIdSet = new HashSet<Integer>(dictIds.length);
-        for (int dictId : dictIds) {
-          dictIdSet.add(dictId);
-        }
+        this.dictIdMatcher = new DictionaryIdMatcher(dictIds);
+        this.docIdBuffer = new int[DOC_ID_BUFFER_SIZE];
+        this.dictIdBuffer = new int[DOC_ID_BUFFER_SIZE];
         setStartDocId(blockMetadata.getStartDocId());
         setEndDocId(blockMetadata.getEndDocId());
       }
+      lastDocIdInBlock = blockMetadata.getEndDocId();
       valueIterator = (BlockSingleValIterator) blockValSet.iterator();
     }
 
@@ -115,12 +125,12 @@ public class ScanBasedSingleValueDocIdSet implements FilterBlockDocIdSet {
         targetDocId = startDocId;
       } else if (targetDocId > endDocId) {
         currentDocId = Constants.EOF;
+        return currentDocId;
       }
       if (currentDocId >= targetDocId) {
         return currentDocId;
       } else {
         currentDocId = targetDocId - 1;
-        valueIterator.skipTo(targetDocId);
         return next();
       }
     }
@@ -130,17 +140,50 @@ public class ScanBasedSingleValueDocIdSet implements FilterBlockDocIdSet {
       if (currentDocId == Constants.EOF) {
         return currentDocId;
       }
-      while (valueIterator.hasNext() && currentDocId <= endDocId) {
-        currentDocId = currentDocId + 1;
-        int dictIdForCurrentDoc = valueIterator.nextIntVal();
-        if (dictIdSet.contains(dictIdForCurrentDoc)) {
-          return currentDocId;
+      final int lastDocId = Math.min(endDocId, lastDocIdInBlock);
+      int docId = Math.max(currentDocId + 1, startDocId);
+      while (docId <= lastDocId) {
+        int pos = docId - bufferStartDocId;
+        if (pos < 0 || pos >= bufferLength) {
+          fillBuffer(docId, lastDocId);
+          pos = 0;
+        }
+        final int limit = Math.min(bufferLength, lastDocId - bufferStartDocId + 1);
+        for (; pos < limit; pos++) {
+          if (dictIdMatcher.matches(dictIdBuffer[pos])) {
+            currentDocId = bufferStartDocId + pos;
+            return currentDocId;
+          }
         }
+        docId = bufferStartDocId + limit;
       }
       currentDocId = Constants.EOF;
       return Constants.EOF;
     }
 
+    private void fillBuffer(int docId, int lastDocId) {
+      final int length = Math.min(DOC_ID_BUFFER_SIZE, lastDocId - docId + 1);
+      for (int i = 0; i < length; i++) {
+        docIdBuffer[i] = docId + i;
+      }
+      blockValSet.readIntValues(docIdBuffer, 0, length, dictIdBuffer, 0);
+      bufferStartDocId = docId;
+      bufferLength = length;
+    }
+
+    @Override
+    public boolean isMatch(int docId) {
+      if (dictIdMatcher == null || docId < startDocId || docId > endDocId) {
+        return false;
+      }
+      int pos = docId - bufferStartDocId;
+      if (pos >= 0 && pos < bufferLength) {
+        return dictIdMatcher.matches(dictIdBuffer[pos]);
+      }
+      valueIterator.skipTo(docId);
+      return dictIdMatcher.matches(valueIterator.nextIntVal());
+    }
+
     @Override
     public int currentDocId() {
       return currentDocId;
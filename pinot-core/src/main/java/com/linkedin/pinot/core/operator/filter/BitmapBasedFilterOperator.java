@@ -15,6 +15,9 @@
  */
 package com.linkedin.pinot.core.operator.filter;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +34,8 @@ import com.linkedin.pinot.core.common.Predicate;
 import com.linkedin.pinot.core.operator.docidsets.BitmapDocIdSet;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
+import com.linkedin.pinot.core.operator.filter.predicate.RangeOfflineDictionaryPredicateEvaluator;
+import com.linkedin.pinot.core.segment.index.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
@@ -58,14 +63,54 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
     Dictionary dictionary = dataSource.getDictionary();
     PredicateEvaluator evaluator = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary);
     int[] dictionaryIds = evaluator.getDictionaryIds();
-    ImmutableRoaringBitmap[] bitmaps = new ImmutableRoaringBitmap[dictionaryIds.length];
-    for (int i = 0; i < dictionaryIds.length; i++) {
-      bitmaps[i] = invertedIndex.getImmutable(dictionaryIds[i]);
+    BitmapRangeIndexReader rangeIndex = dataSource.getRangeIndex();
+    ImmutableRoaringBitmap[] bitmaps;
+    if (rangeIndex != null && evaluator instanceof RangeOfflineDictionaryPredicateEvaluator
+        && dictionaryIds.length > 0) {
+      bitmaps = getRangeBitmaps(invertedIndex, rangeIndex, dictionaryIds[0], dictionaryIds[dictionaryIds.length - 1]);
+    } else {
+      bitmaps = new ImmutableRoaringBitmap[dictionaryIds.length];
+      for (int i = 0; i < dictionaryIds.length; i++) {
+        bitmaps[i] = invertedIndex.getImmutable(dictionaryIds[i]);
+      }
     }
     bitmapBlock = new BitmapBlock(dataSourceBlock.getMetadata(), bitmaps);
     return bitmapBlock;
   }
 
+  /**
+   * Covers the contiguous dictionary id range [startDictId, endDictId] with the range index buckets that fall entirely
+   * inside it, plus one inverted index bitmap per dictionary id on the partially covered edges.
+   * @param invertedIndex
+   * @param rangeIndex
+   * @param startDictId
+   * @param endDictId
+   * @return
+   */
+  public static ImmutableRoaringBitmap[] getRangeBitmaps(InvertedIndexReader invertedIndex, BitmapRangeIndexReader rangeIndex,
+      int startDictId, int endDictId) {
+    final int bucketSize = rangeIndex.getBucketSize();
+    final int firstFullBucket = (startDictId + bucketSize - 1) / bucketSize;
+    final int endFullBucket = (endDictId + 1) / bucketSize;
+    final List<ImmutableRoaringBitmap> bitmaps = new ArrayList<ImmutableRoaringBitmap>();
+    if (firstFullBucket >= endFullBucket) {
+      for (int dictId = startDictId; dictId <= endDictId; dictId++) {
+        bitmaps.add(invertedIndex.getImmutable(dictId));
+      }
+    } else {
+      for (int dictId = startDictId; dictId < firstFullBucket * bucketSize; dictId++) {
+        bitmaps.add(invertedIndex.getImmutable(dictId));
+      }
+      for (int bucket = firstFullBucket; bucket < endFullBucket; bucket++) {
+        bitmaps.add(rangeIndex.getBucketBitmap(bucket));
+      }
+      for (int dictId = endFullBucket * bucketSize; dictId <= endDictId; dictId++) {
+        bitmaps.add(invertedIndex.getImmutable(dictId));
+      }
+    }
+    return bitmaps.toArray(new ImmutableRoaringBitmap[bitmaps.size()]);
+  }
+
   @Override
   public boolean close() {
     LOGGER.info("Time spent in BitmapBasedFilterOperator operator:{} is {}", this,
@@ -77,10 +122,16 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
 
     private final ImmutableRoaringBitmap[] bitmaps;
     private BitmapDocIdSet bitmapDocIdSet;
-    private BlockMetadata blockMetadata;
+    private final int startDocId;
+    private final int endDocId;
 
     public BitmapBlock(BlockMetadata blockMetadata, ImmutableRoaringBitmap[] bitmaps) {
-      this.blockMetadata = blockMetadata;
+      this(blockMetadata.getStartDocId(), blockMetadata.getEndDocId(), bitmaps);
+    }
+
+    public BitmapBlock(int startDocId, int endDocId, ImmutableRoaringBitmap[] bitmaps) {
+      this.startDocId = startDocId;
+      this.endDocId = endDocId;
       this.bitmaps = bitmaps;
     }
 
@@ -96,7 +147,7 @@ public class BitmapBasedFilterOperator extends BaseFilterOperator {
 
     @Override
     public FilterBlockDocIdSet getFilteredBlockDocIdSet() {
-      bitmapDocIdSet = new BitmapDocIdSet(blockMetadata, bitmaps);
+      bitmapDocIdSet = new BitmapDocIdSet(startDocId, endDocId, bitmaps);
       return bitmapDocIdSet;
     }
 
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import com.linkedin.pinot.core.common.BaseFilterBlock;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.FilterBlockDocIdSet;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.docidsets.BitmapDocIdSet;
+import com.linkedin.pinot.core.query.cache.FilterBitmapCache;
+
+
+/**
+ * Evaluates a filter subtree missing from the FilterBitmapCache of its segment, and caches its doc ids when the
+ * subtree is entirely evaluated with bitmaps. Subtrees involving scans are not cached, their doc ids are only known
+ * once iterated.
+ *
+ */
+public class BitmapCachingFilterOperator extends BaseFilterOperator {
+  private final Operator operator;
+  private final FilterBitmapCache filterBitmapCache;
+  private final String canonicalFilter;
+
+  public BitmapCachingFilterOperator(Operator operator, FilterBitmapCache filterBitmapCache, String canonicalFilter) {
+    this.operator = operator;
+    this.filterBitmapCache = filterBitmapCache;
+    this.canonicalFilter = canonicalFilter;
+  }
+
+  public Operator getOperator() {
+    return operator;
+  }
+
+  @Override
+  public boolean open() {
+    return operator.open();
+  }
+
+  @Override
+  public BaseFilterBlock nextFilterBlock(BlockId blockId) {
+    // Every call to getFilteredBlockDocIdSet() builds a new doc id set, hand out the one evaluated here.
+    final FilterBlockDocIdSet docIdSet = ((BaseFilterBlock) operator.nextBlock()).getFilteredBlockDocIdSet();
+    BitmapDocIdSet bitmapDocIdSet = BitmapDocIdSet.asBitmapDocIdSet(docIdSet);
+    if (bitmapDocIdSet != null) {
+      filterBitmapCache.put(canonicalFilter, bitmapDocIdSet.getUnionBitmap());
+    }
+    return new BaseFilterBlock() {
+      @Override
+      public BlockId getId() {
+        return new BlockId(0);
+      }
+
+      @Override
+      public FilterBlockDocIdSet getFilteredBlockDocIdSet() {
+        return docIdSet;
+      }
+    };
+  }
+
+  @Override
+  public boolean close() {
+    return operator.close();
+  }
+}
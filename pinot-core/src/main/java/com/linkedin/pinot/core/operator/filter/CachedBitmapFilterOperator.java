@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import com.linkedin.pinot.core.common.BaseFilterBlock;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.operator.filter.BitmapBasedFilterOperator.BitmapBlock;
+
+
+/**
+ * Leaf filter operator serving the doc ids of a filter subtree from the FilterBitmapCache of its segment.
+ *
+ */
+public class CachedBitmapFilterOperator extends BaseFilterOperator {
+  private final ImmutableRoaringBitmap bitmap;
+  private final int totalDocs;
+
+  public CachedBitmapFilterOperator(ImmutableRoaringBitmap bitmap, int totalDocs) {
+    this.bitmap = bitmap;
+    this.totalDocs = totalDocs;
+  }
+
+  @Override
+  public boolean open() {
+    return true;
+  }
+
+  @Override
+  public BaseFilterBlock nextFilterBlock(BlockId blockId) {
+    return new BitmapBlock(0, totalDocs - 1, new ImmutableRoaringBitmap[] { bitmap });
+  }
+
+  @Override
+  public boolean close() {
+    return true;
+  }
+}
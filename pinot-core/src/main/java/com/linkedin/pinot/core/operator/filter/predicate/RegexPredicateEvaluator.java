@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.filter.predicate;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.regex.Pattern;
+
+import com.linkedin.pinot.core.common.predicate.RegexPredicate;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
+
+
+/**
+ * Evaluates a REGEX predicate once against the dictionary of a segment column, the predicate matches a value if the
+ * pattern is found anywhere in it.
+ * A pattern of the form ^literal or ^literal.* is a prefix match, which is answered by binary searching the sorted
+ * string dictionary for the contiguous range of dictionary ids starting with the literal. Padded string dictionaries
+ * are searched in the order of their padded values, which is the order of their dictionary ids.
+ * Matching dictionary ids of immutable dictionaries are cached per dictionary (i.e. per segment and column) and pattern,
+ * so that repeated queries do not scan the dictionary again.
+ */
+public class RegexPredicateEvaluator extends AbstractPredicateEvaluator {
+  private static final int MAX_CACHED_PATTERNS_PER_DICTIONARY = 64;
+  private static final String REGEX_META_CHARS = "\\.[]{}()<>*+-=!?^$|";
+
+  private static final Map<Dictionary, Map<String, int[]>> MATCHING_IDS_CACHE =
+      Collections.synchronizedMap(new WeakHashMap<Dictionary, Map<String, int[]>>());
+
+  public RegexPredicateEvaluator(RegexPredicate predicate, Dictionary dictionary) {
+    final String regex = predicate.getRegex();
+    if (!(dictionary instanceof ImmutableDictionaryReader)) {
+      // Realtime dictionaries keep growing, their matches can not be cached.
+      matchingIds = getMatchingDictionaryIds(regex, dictionary);
+      return;
+    }
+    Map<String, int[]> cachedMatchingIds;
+    synchronized (MATCHING_IDS_CACHE) {
+      cachedMatchingIds = MATCHING_IDS_CACHE.get(dictionary);
+      if (cachedMatchingIds == null) {
+        cachedMatchingIds = Collections.synchronizedMap(new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, int[]> eldest) {
+            return size() > MAX_CACHED_PATTERNS_PER_DICTIONARY;
+          }
+        });
+        MATCHING_IDS_CACHE.put(dictionary, cachedMatchingIds);
+      }
+    }
+    int[] ids = cachedMatchingIds.get(regex);
+    if (ids == null) {
+      ids = getMatchingDictionaryIds(regex, dictionary);
+      cachedMatchingIds.put(regex, ids);
+    }
+    matchingIds = ids;
+  }
+
+  /**
+   * @param regex
+   * @param dictionary
+   * @return sorted dictionary ids of the values matching the regex
+   */
+  static int[] getMatchingDictionaryIds(String regex, Dictionary dictionary) {
+    final String prefix = getLiteralPrefix(regex);
+    if (prefix != null && dictionary instanceof StringDictionary) {
+      final int lengthOfMaxEntry = ((StringDictionary) dictionary).getLengthOfMaxEntry();
+      // With a pad char in the prefix, padded values starting with the prefix may come from values that do not.
+      if (lengthOfMaxEntry < 0 || prefix.indexOf(V1Constants.Str.STRING_PAD_CHAR) < 0) {
+        final int start = lowerBound(dictionary, lengthOfMaxEntry, prefix);
+        final int end = prefixUpperBound(dictionary, lengthOfMaxEntry, prefix, start);
+        final int[] ids = new int[end - start];
+        for (int i = 0; i < ids.length; i++) {
+          ids[i] = start + i;
+        }
+        return ids;
+      }
+    }
+
+    final Pattern pattern = Pattern.compile(regex);
+    final IntArrayList ids = new IntArrayList();
+    final int length = dictionary.length();
+    for (int dictId = 0; dictId < length; dictId++) {
+      if (pattern.matcher(dictionary.get(dictId).toString()).find()) {
+        ids.add(dictId);
+      }
+    }
+    return ids.toIntArray();
+  }
+
+  /**
+   * @param regex
+   * @return the literal if the regex is of the form ^literal or ^literal.*, null otherwise
+   */
+  static String getLiteralPrefix(String regex) {
+    if (!regex.startsWith("^")) {
+      return null;
+    }
+    String prefix = regex.substring(1);
+    if (prefix.endsWith(".*")) {
+      prefix = prefix.substring(0, prefix.length() - 2);
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (REGEX_META_CHARS.indexOf(prefix.charAt(i)) >= 0) {
+        return null;
+      }
+    }
+    return prefix;
+  }
+
+  /**
+   * @return the value of the dictionary id in the order of the dictionary ids, i.e. padded for padded dictionaries
+   */
+  private static String getSortedValue(Dictionary dictionary, int lengthOfMaxEntry, int dictId) {
+    final String value = dictionary.get(dictId).toString();
+    if (lengthOfMaxEntry < 0) {
+      return value;
+    }
+    return StringDictionary.pad(value, lengthOfMaxEntry);
+  }
+
+  /**
+   * @return the first dictionary id whose sorted value is not less than the given value
+   */
+  private static int lowerBound(Dictionary dictionary, int lengthOfMaxEntry, String value) {
+    int low = 0;
+    int high = dictionary.length();
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (getSortedValue(dictionary, lengthOfMaxEntry, mid).compareTo(value) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Values starting with the prefix are contiguous in the sorted dictionary and directly follow the lower bound of
+   * the prefix. Without a pad char in the prefix, a value starts with the prefix iff its padded value does.
+   * @return the first dictionary id from start on whose value does not start with the prefix
+   */
+  private static int prefixUpperBound(Dictionary dictionary, int lengthOfMaxEntry, String prefix, int start) {
+    int low = start;
+    int high = dictionary.length();
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (getSortedValue(dictionary, lengthOfMaxEntry, mid).startsWith(prefix)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -18,10 +18,10 @@ package com.linkedin.pinot.core.operator.filter.utils;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.PriorityQueue;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.roaringbitmap.buffer.BufferFastAggregation;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.roaringbitmap.buffer.MutableRoaringBitmap;
 
@@ -37,7 +37,7 @@ public class BitmapUtils {
 
     if (bitmaps.length == 1) {
       answer = new MutableRoaringBitmap();
-      answer.and(bitmaps[0]);
+      answer.or(bitmaps[0]);
     } else if (bitmaps.length == 2) {
       answer = ImmutableRoaringBitmap.and(bitmaps[0], bitmaps[1]);
     } else {
@@ -52,9 +52,9 @@ public class BitmapUtils {
           return bitmaps[o1].getSizeInBytes() - bitmaps[o2].getSizeInBytes();
         }
       });
-      answer = ImmutableRoaringBitmap.and(bitmaps[0], bitmaps[1]);
-      for (int srcId = 2; srcId < bitmaps.length; srcId++) {
-        answer.and(bitmaps[srcId]);
+      answer = ImmutableRoaringBitmap.and(bitmaps[array[0]], bitmaps[array[1]]);
+      for (int srcId = 2; srcId < bitmaps.length && !answer.isEmpty(); srcId++) {
+        answer.and(bitmaps[array[srcId]]);
       }
     }
     boolean validate = false;
@@ -70,7 +70,7 @@ public class BitmapUtils {
       }
     }
     long end = System.currentTimeMillis();
-    LOGGER.info("And operator took: " + (end - start));
+    LOGGER.debug("And operator took: " + (end - start));
 
     return answer;
   }
@@ -84,23 +84,8 @@ public class BitmapUtils {
     } else if (bitmaps.length == 2) {
       answer = ImmutableRoaringBitmap.or(bitmaps[0], bitmaps[1]);
     } else {
-      //if we have more than 2 bitmaps to intersect, re order them so that we use the bitmaps according to the number of bits set to 1
-      PriorityQueue<ImmutableRoaringBitmap> pq =
-          new PriorityQueue<ImmutableRoaringBitmap>(bitmaps.length, new Comparator<ImmutableRoaringBitmap>() {
-            @Override
-            public int compare(ImmutableRoaringBitmap a, ImmutableRoaringBitmap b) {
-              return a.getSizeInBytes() - b.getSizeInBytes();
-            }
-          });
-      for (int srcId = 0; srcId < bitmaps.length; srcId++) {
-        pq.add(bitmaps[srcId]);
-      }
-      ImmutableRoaringBitmap x1 = pq.poll();
-      ImmutableRoaringBitmap x2 = pq.poll();
-      answer = ImmutableRoaringBitmap.or(x1, x2);
-      while (pq.size() > 0) {
-        answer.or(pq.poll());
-      }
+      // wide OR, let roaring merge the containers of all the bitmaps in a single pass
+      answer = BufferFastAggregation.horizontal_or(bitmaps);
     }
     //turn this on manually if we want to compare optimized and unoptimized version
     boolean validate = false;
@@ -114,7 +99,7 @@ public class BitmapUtils {
     }
     long end = System.currentTimeMillis();
 
-    LOGGER.info("time taken for fast Or : " + (end - start));
+    LOGGER.debug("time taken for fast Or : " + (end - start));
     return answer;
   }
 
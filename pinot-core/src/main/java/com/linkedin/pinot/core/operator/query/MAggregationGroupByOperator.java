@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import com.linkedin.pinot.common.query.QueryCancellationFlag;
+import com.linkedin.pinot.common.query.QueryMemoryTracker;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.GroupBy;
 import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
@@ -29,7 +31,10 @@ import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.DocIdSetBlock;
 import com.linkedin.pinot.core.operator.MProjectionOperator;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByIntermediateResult;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 
 
 /**
@@ -45,17 +50,26 @@ public class MAggregationGroupByOperator implements Operator {
   private final List<AggregationInfo> _aggregationInfoList;
   private final MProjectionOperator _projectionOperator;
   private final GroupBy _groupBy;
+  private final int _numGroupsLimit;
 
   private List<AggregationFunctionGroupByOperator> _aggregationFunctionGroupByOperatorList;
 
   public MAggregationGroupByOperator(IndexSegment indexSegment, List<AggregationInfo> aggregationInfoList,
       GroupBy groupBy, Operator projectionOperator,
       List<AggregationFunctionGroupByOperator> aggregationFunctionGroupByOperatorList) {
+    this(indexSegment, aggregationInfoList, groupBy, projectionOperator, aggregationFunctionGroupByOperatorList,
+        QueryExecutorConfig.DEFAULT_NUM_GROUPS_LIMIT);
+  }
+
+  public MAggregationGroupByOperator(IndexSegment indexSegment, List<AggregationInfo> aggregationInfoList,
+      GroupBy groupBy, Operator projectionOperator,
+      List<AggregationFunctionGroupByOperator> aggregationFunctionGroupByOperatorList, int numGroupsLimit) {
     _aggregationInfoList = aggregationInfoList;
     _indexSegment = indexSegment;
     _groupBy = groupBy;
     _projectionOperator = (MProjectionOperator) projectionOperator;
     _aggregationFunctionGroupByOperatorList = aggregationFunctionGroupByOperatorList;
+    _numGroupsLimit = numGroupsLimit;
   }
 
   @Override
@@ -74,6 +88,7 @@ public class MAggregationGroupByOperator implements Operator {
 
     long numDocsScanned = 0;
     while (_projectionOperator.nextBlock() != null) {
+      QueryCancellationFlag.checkCurrent();
       for (int i = 0; i < _aggregationFunctionGroupByOperatorList.size(); ++i) {
         _aggregationFunctionGroupByOperatorList.get(i).nextBlock();
       }
@@ -82,11 +97,20 @@ public class MAggregationGroupByOperator implements Operator {
     }
 
     for (int i = 0; i < _aggregationFunctionGroupByOperatorList.size(); ++i) {
-      aggregationGroupByResults.add(_aggregationFunctionGroupByOperatorList.get(i).getAggregationGroupByResult());
+      Map<String, Serializable> aggregationGroupByResult =
+          _aggregationFunctionGroupByOperatorList.get(i).getAggregationGroupByResult();
+      QueryMemoryTracker.allocateOnCurrent(
+          GroupByIntermediateResult.estimateResultMapsBytes(1, aggregationGroupByResult.size()));
+      aggregationGroupByResults.add(aggregationGroupByResult);
     }
+    // The per function operators build their whole result maps, only the groups sent to the combine are bounded.
+    List<AggregationFunction> aggregationFunctions =
+        AggregationFunctionFactory.getAggregationFunction(_aggregationInfoList);
+    boolean isResultTrimmed = GroupByIntermediateResult.trimResultMapsToLimit(aggregationFunctions,
+        aggregationGroupByResults, _numGroupsLimit, _groupBy.getTopN());
     final IntermediateResultsBlock resultBlock =
-        new IntermediateResultsBlock(AggregationFunctionFactory.getAggregationFunction(_aggregationInfoList),
-            aggregationGroupByResults, true);
+        new IntermediateResultsBlock(aggregationFunctions, aggregationGroupByResults, true);
+    resultBlock.setApproximate(isResultTrimmed);
     resultBlock.setNumDocsScanned(numDocsScanned);
     resultBlock.setTotalDocs(_indexSegment.getTotalDocs());
     resultBlock.setTimeUsedMs(System.currentTimeMillis() - startTime);
@@ -0,0 +1,259 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.query;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+
+import java.util.List;
+
+import com.linkedin.pinot.common.query.QueryCancellationFlag;
+import com.linkedin.pinot.common.query.QueryMemoryTracker;
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.block.query.ProjectionBlock;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.DocIdSetBlock;
+import com.linkedin.pinot.core.operator.MProjectionOperator;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.aggregation.function.CountAggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.groupby.DenseDictionaryBasedGroupKeyGenerator;
+import com.linkedin.pinot.core.query.aggregation.groupby.DictionaryBasedGroupKeyGenerator;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByIntermediateResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
+
+
+/**
+ * MAggregationGroupByWithResultHolderOperator applies all the AggregationInfos and the GroupBy query to a given
+ * IndexSegment in a single pass.
+ * The group slots of each doc are computed once, then every aggregation function updates its own
+ * GroupByResultHolder for those slots.
+ * The number of groups is bounded by the groups limit of the query: past it the groups are trimmed to the top ones and
+ * the result block is flagged as approximate.
+ * nextBlock() will return an IntermediateResultBlock for the given IndexSegment.
+ *
+ *
+ */
+public class MAggregationGroupByWithResultHolderOperator implements Operator {
+  private static final int INITIAL_RESULT_HOLDER_CAPACITY = 1024;
+
+  private final IndexSegment _indexSegment;
+  private final List<AggregationInfo> _aggregationInfoList;
+  private final MProjectionOperator _projectionOperator;
+  private final GroupBy _groupBy;
+
+  private final AggregationFunction[] _aggregationFunctions;
+  private final Block[][] _aggregationFunctionBlocks;
+  private final Block[] _groupByBlocks;
+  private final boolean _isDenseGroupKey;
+  private final int _numGroupsLimit;
+  private GroupKeyGenerator _groupKeyGenerator;
+  private GroupByResultHolder[] _resultHolders;
+
+  // Groups flushed out of the group key generator once it went over the groups limit
+  private GroupByIntermediateResult _flushedResult;
+  private boolean _isResultTrimmed = false;
+
+  // Estimated bytes of the groups held by the operator, charged to the memory tracker of the query
+  private final long _bytesPerGroup;
+  private long _chargedBytes = 0;
+
+  public MAggregationGroupByWithResultHolderOperator(IndexSegment indexSegment,
+      List<AggregationInfo> aggregationInfoList, GroupBy groupBy, Operator projectionOperator,
+      boolean isDenseGroupKey) {
+    this(indexSegment, aggregationInfoList, groupBy, projectionOperator, isDenseGroupKey,
+        QueryExecutorConfig.DEFAULT_NUM_GROUPS_LIMIT);
+  }
+
+  public MAggregationGroupByWithResultHolderOperator(IndexSegment indexSegment,
+      List<AggregationInfo> aggregationInfoList, GroupBy groupBy, Operator projectionOperator,
+      boolean isDenseGroupKey, int numGroupsLimit) {
+    _indexSegment = indexSegment;
+    _aggregationInfoList = aggregationInfoList;
+    _groupBy = groupBy;
+    _projectionOperator = (MProjectionOperator) projectionOperator;
+
+    final int numAggregations = aggregationInfoList.size();
+    _aggregationFunctions = new AggregationFunction[numAggregations];
+    _aggregationFunctionBlocks = new Block[numAggregations][];
+    for (int i = 0; i < numAggregations; ++i) {
+      AggregationInfo aggregationInfo = aggregationInfoList.get(i);
+      boolean hasDictionary = AggregationFunctionUtils.isAggregationFunctionWithDictionary(aggregationInfo, indexSegment);
+      _aggregationFunctions[i] = AggregationFunctionFactory.get(aggregationInfo, hasDictionary);
+      String[] aggregationColumns;
+      if (_aggregationFunctions[i] instanceof CountAggregationFunction) {
+        aggregationColumns = new String[0];
+      } else {
+        aggregationColumns = aggregationInfo.getAggregationParams().get("column").trim().split(",");
+      }
+      _aggregationFunctionBlocks[i] = new Block[aggregationColumns.length];
+      for (int j = 0; j < aggregationColumns.length; ++j) {
+        _aggregationFunctionBlocks[i][j] =
+            _projectionOperator.getDataSource(aggregationColumns[j]).nextBlock(new BlockId(0));
+      }
+    }
+
+    _groupByBlocks = new Block[_groupBy.getColumnsSize()];
+    for (int i = 0; i < _groupBy.getColumnsSize(); ++i) {
+      _groupByBlocks[i] = _projectionOperator.getDataSource(_groupBy.getColumns().get(i)).nextBlock(new BlockId(0));
+    }
+    _isDenseGroupKey = isDenseGroupKey;
+    _numGroupsLimit = numGroupsLimit;
+    _bytesPerGroup = GroupByIntermediateResult.estimateBytesPerGroup(numAggregations, _groupByBlocks.length);
+    initGroupKeyGeneratorAndResultHolders();
+  }
+
+  private void initGroupKeyGeneratorAndResultHolders() {
+    int initialCapacity;
+    if (_isDenseGroupKey) {
+      _groupKeyGenerator = new DenseDictionaryBasedGroupKeyGenerator(_groupByBlocks);
+      initialCapacity = _groupKeyGenerator.getGroupSlotUpperBound();
+    } else {
+      _groupKeyGenerator = new DictionaryBasedGroupKeyGenerator(_groupByBlocks);
+      initialCapacity = INITIAL_RESULT_HOLDER_CAPACITY;
+    }
+    _resultHolders = new GroupByResultHolder[_aggregationFunctions.length];
+    for (int i = 0; i < _aggregationFunctions.length; ++i) {
+      _resultHolders[i] = _aggregationFunctions[i].createGroupByResultHolder(initialCapacity);
+    }
+  }
+
+  @Override
+  public boolean open() {
+    _projectionOperator.open();
+    return true;
+  }
+
+  @Override
+  public Block nextBlock() {
+    final long startTime = System.currentTimeMillis();
+    long numDocsScanned = 0;
+    ProjectionBlock projectionBlock;
+    while ((projectionBlock = (ProjectionBlock) _projectionOperator.nextBlock()) != null) {
+      QueryCancellationFlag.checkCurrent();
+      final DocIdSetBlock docIdSetBlock = (DocIdSetBlock) projectionBlock.getDocIdSetBlock();
+      final BlockDocIdIterator blockDocIdIterator = docIdSetBlock.getBlockDocIdSet().iterator();
+      int length;
+      while ((length = _groupKeyGenerator.generateGroupSlots(blockDocIdIterator)) != Constants.EOF) {
+        final int groupSlotUpperBound = _groupKeyGenerator.getGroupSlotUpperBound();
+        final int[] docIds = _groupKeyGenerator.getDocIdBuffer();
+        final int[] groupSlots = _groupKeyGenerator.getGroupSlotBuffer();
+        for (int i = 0; i < _aggregationFunctions.length; ++i) {
+          _resultHolders[i].ensureCapacity(groupSlotUpperBound);
+          _aggregationFunctions[i].aggregateGroupBy(docIds, groupSlots, length, _aggregationFunctionBlocks[i],
+              _resultHolders[i]);
+        }
+        // The dense group key generator is bounded by its cardinality product, the hash based one is flushed and
+        // trimmed once it goes over the groups limit.
+        if (!_isDenseGroupKey && (groupSlotUpperBound > 2 * getNumGroupsToKeep())) {
+          flushGroups();
+        } else {
+          long flushedBytes = (_flushedResult == null) ? 0 : _flushedResult.getEstimatedBytes();
+          updateChargedBytes(_bytesPerGroup * groupSlotUpperBound + flushedBytes);
+        }
+      }
+      numDocsScanned += docIdSetBlock.getSearchableLength();
+    }
+
+    GroupByIntermediateResult groupByIntermediateResult = getGroupByIntermediateResult();
+    if (_flushedResult != null) {
+      groupByIntermediateResult = GroupByIntermediateResult.merge(_flushedResult, groupByIntermediateResult);
+      _flushedResult = null;
+    }
+    GroupByIntermediateResult trimmedResult =
+        groupByIntermediateResult.trimToLimit(_numGroupsLimit, _groupBy.getTopN());
+    _isResultTrimmed |= (trimmedResult != groupByIntermediateResult);
+    updateChargedBytes(trimmedResult.getEstimatedBytes());
+
+    final IntermediateResultsBlock resultBlock =
+        new IntermediateResultsBlock(AggregationFunctionFactory.getAggregationFunction(_aggregationInfoList),
+            trimmedResult);
+    resultBlock.setApproximate(_isResultTrimmed);
+    resultBlock.setNumDocsScanned(numDocsScanned);
+    resultBlock.setTotalDocs(_indexSegment.getTotalDocs());
+    resultBlock.setTimeUsedMs(System.currentTimeMillis() - startTime);
+    return resultBlock;
+  }
+
+  private int getNumGroupsToKeep() {
+    return GroupByIntermediateResult.getNumGroupsToKeep(_numGroupsLimit, _groupBy.getTopN());
+  }
+
+  /**
+   * Move the groups generated so far into the flushed result, trim it to the groups to keep, and start over with an
+   * empty group key generator. Groups dropped here may show up again later with partial values, so the result of the
+   * segment is flagged as approximate.
+   */
+  private void flushGroups() {
+    GroupByIntermediateResult groupByIntermediateResult = getGroupByIntermediateResult();
+    if (_flushedResult != null) {
+      groupByIntermediateResult = GroupByIntermediateResult.merge(_flushedResult, groupByIntermediateResult);
+    }
+    _flushedResult = groupByIntermediateResult.trimToSize(getNumGroupsToKeep());
+    _isResultTrimmed = true;
+    initGroupKeyGeneratorAndResultHolders();
+    updateChargedBytes(_flushedResult.getEstimatedBytes());
+  }
+
+  /**
+   * Charge or return the difference between the given bytes and the bytes already charged to the memory tracker of
+   * the query.
+   */
+  private void updateChargedBytes(long bytes) {
+    if (bytes > _chargedBytes) {
+      QueryMemoryTracker.allocateOnCurrent(bytes - _chargedBytes);
+    } else {
+      QueryMemoryTracker.releaseOnCurrent(_chargedBytes - bytes);
+    }
+    _chargedBytes = bytes;
+  }
+
+  /**
+   * Move the accumulators of all the generated groups into a GroupByIntermediateResult keyed by segment independent
+   * GroupKeys, so that results of different segments can be merged without building group key strings.
+   */
+  private GroupByIntermediateResult getGroupByIntermediateResult() {
+    final GroupByIntermediateResult groupByIntermediateResult =
+        new GroupByIntermediateResult(_aggregationFunctions, _groupKeyGenerator.getGroupByColumnTypes(),
+            INITIAL_RESULT_HOLDER_CAPACITY);
+    final IntIterator groupSlotIterator = _groupKeyGenerator.getGroupSlotIterator();
+    while (groupSlotIterator.hasNext()) {
+      final int groupSlot = groupSlotIterator.nextInt();
+      groupByIntermediateResult.mergeGroup(_groupKeyGenerator.getGroupKey(groupSlot), _resultHolders, groupSlot);
+    }
+    return groupByIntermediateResult;
+  }
+
+  @Override
+  public Block nextBlock(BlockId BlockId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean close() {
+    _projectionOperator.close();
+    return true;
+  }
+}
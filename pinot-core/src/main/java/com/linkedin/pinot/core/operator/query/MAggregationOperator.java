@@ -19,6 +19,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.linkedin.pinot.common.query.QueryCancellationFlag;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.core.block.query.AggregationResultBlock;
 import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
@@ -74,6 +75,7 @@ public class MAggregationOperator implements Operator {
     final long startTime = System.currentTimeMillis();
     long numDocsScanned = 0;
     while (_projectionOperator.nextBlock() != null) {
+      QueryCancellationFlag.checkCurrent();
       for (int i = 0; i < _aggregationFunctionOperatorList.size(); ++i) {
         AggregationResultBlock block = (AggregationResultBlock) _aggregationFunctionOperatorList.get(i).nextBlock();
         if (block != null) {
@@ -22,6 +22,7 @@ import java.util.Collection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.linkedin.pinot.common.query.QueryCancellationFlag;
 import com.linkedin.pinot.common.request.Selection;
 import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
 import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
@@ -79,6 +80,7 @@ public class MSelectionOnlyOperator implements Operator {
     long numDocsScanned = 0;
     ProjectionBlock projectionBlock = null;
     while ((projectionBlock = (ProjectionBlock) _projectionOperator.nextBlock()) != null) {
+      QueryCancellationFlag.checkCurrent();
       int j = 0;
       for (int i = 0; i < _dataSchema.size(); ++i) {
         _blocks[j++] = projectionBlock.getBlock(_dataSchema.getColumnName(i));
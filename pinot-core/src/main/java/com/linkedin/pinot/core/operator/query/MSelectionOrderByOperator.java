@@ -25,6 +25,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.query.QueryCancellationFlag;
+import com.linkedin.pinot.common.query.QueryCancelledException;
 import com.linkedin.pinot.common.request.Selection;
 import com.linkedin.pinot.common.request.SelectionSort;
 import com.linkedin.pinot.common.response.ProcessingException;
@@ -95,6 +97,7 @@ public class MSelectionOrderByOperator implements Operator {
     ProjectionBlock projectionBlock = null;
     try {
       while ((projectionBlock = (ProjectionBlock) _projectionOperator.nextBlock()) != null) {
+        QueryCancellationFlag.checkCurrent();
         int j = 0;
         for (int i = 0; i < _dataSchema.size(); ++i) {
           _blocks[j++] = projectionBlock.getBlock(_dataSchema.getColumnName(i));
@@ -114,6 +117,8 @@ public class MSelectionOrderByOperator implements Operator {
       resultBlock.setTimeUsedMs(endTime - startTime);
       LOGGER.info("Time spent in MSelectionOperator:" + (endTime - startTime));
       return resultBlock;
+    } catch (QueryCancelledException e) {
+      throw e;
     } catch (Exception e) {
       LOGGER.warn("Caught exception while processing selection operator", e);
       final IntermediateResultsBlock resultBlock = new IntermediateResultsBlock();
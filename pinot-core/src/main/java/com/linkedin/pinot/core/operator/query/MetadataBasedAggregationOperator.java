@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.query;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+
+
+/**
+ * MetadataBasedAggregationOperator answers COUNT, MIN and MAX aggregations over all the docs of a segment from the
+ * segment metadata and the sorted dictionaries, without touching the forward indexes.
+ * nextBlock() will return an IntermediateResultBlock for the given IndexSegment.
+ *
+ */
+public class MetadataBasedAggregationOperator implements Operator {
+
+  private final IndexSegmentImpl _indexSegment;
+  private final List<AggregationInfo> _aggregationInfoList;
+
+  public MetadataBasedAggregationOperator(IndexSegmentImpl indexSegment, List<AggregationInfo> aggregationInfoList) {
+    _indexSegment = indexSegment;
+    _aggregationInfoList = aggregationInfoList;
+  }
+
+  @Override
+  public boolean open() {
+    return true;
+  }
+
+  @Override
+  public Block nextBlock() {
+    final long startTime = System.currentTimeMillis();
+    final int totalDocs = _indexSegment.getTotalDocs();
+    final List<Serializable> aggregationResults = new ArrayList<Serializable>();
+    for (AggregationInfo aggregationInfo : _aggregationInfoList) {
+      final String aggregationType = aggregationInfo.getAggregationType().toLowerCase();
+      if (aggregationType.equals("count")) {
+        aggregationResults.add(Long.valueOf(totalDocs));
+      } else {
+        final String column = aggregationInfo.getAggregationParams().get("column").trim();
+        final Dictionary dictionary = _indexSegment.getDictionaryFor(column);
+        if (aggregationType.equals("min")) {
+          aggregationResults.add(dictionary.getDoubleValue(0));
+        } else if (aggregationType.equals("max")) {
+          aggregationResults.add(dictionary.getDoubleValue(dictionary.length() - 1));
+        } else {
+          throw new UnsupportedOperationException("Aggregation " + aggregationType + " can not be answered from metadata");
+        }
+      }
+    }
+
+    final IntermediateResultsBlock resultBlock =
+        new IntermediateResultsBlock(AggregationFunctionFactory.getAggregationFunction(_aggregationInfoList),
+            aggregationResults);
+    // Every doc of the segment matches, report them as scanned so the response is the same as for the scan plan.
+    resultBlock.setNumDocsScanned(totalDocs);
+    resultBlock.setTotalDocs(totalDocs);
+    resultBlock.setTimeUsedMs(System.currentTimeMillis() - startTime);
+    return resultBlock;
+  }
+
+  @Override
+  public Block nextBlock(BlockId BlockId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean close() {
+    return true;
+  }
+}
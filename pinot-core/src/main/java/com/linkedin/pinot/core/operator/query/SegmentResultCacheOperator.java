@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.operator.query;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.plan.PlanNode;
+import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+
+
+/**
+ * SegmentResultCacheOperator returns the cached result of the query on its segment when there is one. Otherwise it
+ * makes and runs the inner segment plan of the query, and caches the IntermediateResultsBlock it returns.
+ * The inner segment plan is only made on a cache miss, so a cache hit neither plans nor scans the segment.
+ *
+ */
+public class SegmentResultCacheOperator implements Operator {
+
+  private final IndexSegment _indexSegment;
+  private final BrokerRequest _brokerRequest;
+  private final BrokerRequest _normalizedRequest;
+  private final PlanMaker _planMaker;
+  private final SegmentResultCache _segmentResultCache;
+
+  public SegmentResultCacheOperator(IndexSegment indexSegment, BrokerRequest brokerRequest,
+      BrokerRequest normalizedRequest, PlanMaker planMaker, SegmentResultCache segmentResultCache) {
+    _indexSegment = indexSegment;
+    _brokerRequest = brokerRequest;
+    _normalizedRequest = normalizedRequest;
+    _planMaker = planMaker;
+    _segmentResultCache = segmentResultCache;
+  }
+
+  @Override
+  public boolean open() {
+    return true;
+  }
+
+  @Override
+  public Block nextBlock() {
+    final long startTime = System.currentTimeMillis();
+    IntermediateResultsBlock resultBlock = _segmentResultCache.get(_indexSegment, _normalizedRequest);
+    if (resultBlock != null) {
+      resultBlock.setTimeUsedMs(System.currentTimeMillis() - startTime);
+      return resultBlock;
+    }
+
+    final PlanNode innerSegmentPlanNode = _planMaker.makeInnerSegmentPlan(_indexSegment, _brokerRequest);
+    resultBlock = (IntermediateResultsBlock) innerSegmentPlanNode.run().nextBlock();
+    _segmentResultCache.put(_indexSegment, _normalizedRequest, resultBlock);
+    return resultBlock;
+  }
+
+  @Override
+  public Block nextBlock(BlockId BlockId) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean close() {
+    return true;
+  }
+}
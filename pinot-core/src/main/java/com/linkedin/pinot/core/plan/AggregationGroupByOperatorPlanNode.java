@@ -30,7 +30,9 @@ import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.query.AggregationFunctionGroupByOperator;
 import com.linkedin.pinot.core.operator.query.MAggregationGroupByOperator;
+import com.linkedin.pinot.core.operator.query.MAggregationGroupByWithResultHolderOperator;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunctionUtils;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 
 
 /**
@@ -47,15 +49,25 @@ public class AggregationGroupByOperatorPlanNode implements PlanNode {
   private final List<AggregationFunctionGroupByPlanNode> _aggregationFunctionGroupByPlanNodes =
       new ArrayList<AggregationFunctionGroupByPlanNode>();
   private final AggregationGroupByImplementationType _aggregationGroupByImplementationType;
+  private final int _numGroupsLimit;
 
   public AggregationGroupByOperatorPlanNode(IndexSegment indexSegment, BrokerRequest query,
       AggregationGroupByImplementationType aggregationGroupByImplementationType) {
+    this(indexSegment, query, aggregationGroupByImplementationType, QueryExecutorConfig.DEFAULT_NUM_GROUPS_LIMIT);
+  }
+
+  public AggregationGroupByOperatorPlanNode(IndexSegment indexSegment, BrokerRequest query,
+      AggregationGroupByImplementationType aggregationGroupByImplementationType, int numGroupsLimit) {
+    _numGroupsLimit = numGroupsLimit;
     _indexSegment = indexSegment;
     _brokerRequest = query;
     _aggregationGroupByImplementationType = aggregationGroupByImplementationType;
     _projectionPlanNode =
         new ProjectionPlanNode(_indexSegment, getAggregationGroupByRelatedColumns(), new DocIdSetPlanNode(
             _indexSegment, _brokerRequest, 10000));
+    if (isSinglePassImplementation()) {
+      return;
+    }
     for (int i = 0; i < _brokerRequest.getAggregationsInfo().size(); ++i) {
       AggregationInfo aggregationInfo = _brokerRequest.getAggregationsInfo().get(i);
       boolean hasDictionary = AggregationFunctionUtils.isAggregationFunctionWithDictionary(aggregationInfo, _indexSegment);
@@ -77,8 +89,27 @@ public class AggregationGroupByOperatorPlanNode implements PlanNode {
     return aggregationGroupByRelatedColumns.toArray(new String[0]);
   }
 
+  /**
+   * The result holder based implementations compute the group key of each doc once and update all the
+   * aggregation functions in the same pass, instead of running one operator per aggregation function.
+   */
+  private boolean isSinglePassImplementation() {
+    return (_aggregationGroupByImplementationType == AggregationGroupByImplementationType.DictionaryWithResultHolder)
+        || (_aggregationGroupByImplementationType == AggregationGroupByImplementationType.DictionaryWithDenseResultHolder);
+  }
+
+  public AggregationGroupByImplementationType getAggregationGroupByImplementationType() {
+    return _aggregationGroupByImplementationType;
+  }
+
   @Override
   public Operator run() {
+    if (isSinglePassImplementation()) {
+      return new MAggregationGroupByWithResultHolderOperator(_indexSegment, _brokerRequest.getAggregationsInfo(),
+          _brokerRequest.getGroupBy(), _projectionPlanNode.run(),
+          _aggregationGroupByImplementationType == AggregationGroupByImplementationType.DictionaryWithDenseResultHolder,
+          _numGroupsLimit);
+    }
     List<AggregationFunctionGroupByOperator> aggregationFunctionOperatorList =
         new ArrayList<AggregationFunctionGroupByOperator>();
     for (AggregationFunctionGroupByPlanNode aggregationFunctionGroupByPlanNode : _aggregationFunctionGroupByPlanNodes) {
@@ -86,12 +117,21 @@ public class AggregationGroupByOperatorPlanNode implements PlanNode {
           .add((AggregationFunctionGroupByOperator) aggregationFunctionGroupByPlanNode.run());
     }
     return new MAggregationGroupByOperator(_indexSegment, _brokerRequest.getAggregationsInfo(),
-        _brokerRequest.getGroupBy(), _projectionPlanNode.run(), aggregationFunctionOperatorList);
+        _brokerRequest.getGroupBy(), _projectionPlanNode.run(), aggregationFunctionOperatorList, _numGroupsLimit);
   }
 
   @Override
   public void showTree(String prefix) {
     LOGGER.debug(prefix + "Inner-Segment Plan Node :");
+    if (isSinglePassImplementation()) {
+      LOGGER.debug(prefix + "Operator: MAggregationGroupByWithResultHolderOperator");
+      LOGGER.debug(prefix + "Argument 0: Projection - ");
+      _projectionPlanNode.showTree(prefix + "    ");
+      LOGGER.debug(prefix + "Argument 1: Aggregations  - " + _brokerRequest.getAggregationsInfo());
+      LOGGER.debug(prefix + "Argument 2: GroupBy  - " + _brokerRequest.getGroupBy());
+      LOGGER.debug(prefix + "Argument 3: ImplementationType  - " + _aggregationGroupByImplementationType);
+      return;
+    }
     LOGGER.debug(prefix + "Operator: MAggregationGroupByOperator");
     LOGGER.debug(prefix + "Argument 0: Projection - ");
     _projectionPlanNode.showTree(prefix + "    ");
@@ -104,6 +144,8 @@ public class AggregationGroupByOperatorPlanNode implements PlanNode {
   public enum AggregationGroupByImplementationType {
     NoDictionary,
     Dictionary,
+    DictionaryWithResultHolder,
+    DictionaryWithDenseResultHolder,
     DictionaryAndTrie
   }
 }
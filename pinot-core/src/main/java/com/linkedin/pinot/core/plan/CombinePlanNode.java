@@ -29,6 +29,7 @@ import com.linkedin.pinot.common.exception.QueryException;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.operator.MCombineOperator;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 
 
 /**
@@ -42,12 +43,29 @@ public class CombinePlanNode implements PlanNode {
   private final BrokerRequest _brokerRequest;
   private final ExecutorService _executorService;
   private final long _timeOutMs;
+  private final int _maxThreadsPerQuery;
+  private final int _minSegmentsPerThread;
+  private final int _numGroupsLimit;
 
   public CombinePlanNode(BrokerRequest brokerRequest, ExecutorService executorService, long timeOutMs) {
+    this(brokerRequest, executorService, timeOutMs, QueryExecutorConfig.DEFAULT_MAX_THREADS_PER_QUERY,
+        QueryExecutorConfig.DEFAULT_MIN_SEGMENTS_PER_THREAD);
+  }
+
+  public CombinePlanNode(BrokerRequest brokerRequest, ExecutorService executorService, long timeOutMs,
+      int maxThreadsPerQuery, int minSegmentsPerThread) {
+    this(brokerRequest, executorService, timeOutMs, maxThreadsPerQuery, minSegmentsPerThread,
+        QueryExecutorConfig.DEFAULT_NUM_GROUPS_LIMIT);
+  }
+
+  public CombinePlanNode(BrokerRequest brokerRequest, ExecutorService executorService, long timeOutMs,
+      int maxThreadsPerQuery, int minSegmentsPerThread, int numGroupsLimit) {
     _brokerRequest = brokerRequest;
     _executorService = executorService;
     _timeOutMs = timeOutMs;
-
+    _maxThreadsPerQuery = maxThreadsPerQuery;
+    _minSegmentsPerThread = minSegmentsPerThread;
+    _numGroupsLimit = numGroupsLimit;
   }
 
   public void addPlanNode(PlanNode planNode) {
@@ -93,7 +111,8 @@ public class CombinePlanNode implements PlanNode {
       }
     }
     MCombineOperator mCombineOperator =
-        new MCombineOperator(retOperators, _executorService, _timeOutMs, _brokerRequest);
+        new MCombineOperator(retOperators, _executorService, _timeOutMs, _brokerRequest, _maxThreadsPerQuery,
+            _minSegmentsPerThread, _numGroupsLimit);
     long end = System.currentTimeMillis();
     LOGGER.info("CombinePlanNode.run took: " + (end - start));
     return mCombineOperator;
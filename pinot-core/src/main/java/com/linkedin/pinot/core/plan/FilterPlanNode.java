@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,20 +44,28 @@ import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.operator.filter.AndOperator;
 import com.linkedin.pinot.core.operator.filter.BaseFilterOperator;
 import com.linkedin.pinot.core.operator.filter.BitmapBasedFilterOperator;
+import com.linkedin.pinot.core.operator.filter.BitmapCachingFilterOperator;
+import com.linkedin.pinot.core.operator.filter.CachedBitmapFilterOperator;
 import com.linkedin.pinot.core.operator.filter.InvertedIndexBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.OrOperator;
 import com.linkedin.pinot.core.operator.filter.ScanBasedFilterOperator;
 import com.linkedin.pinot.core.operator.filter.SortedInvertedIndexBasedFilterOperator;
+import com.linkedin.pinot.core.query.cache.FilterBitmapCache;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
 
 
 public class FilterPlanNode implements PlanNode {
   private static final Logger LOGGER = LoggerFactory.getLogger(FilterPlanNode.class);
   private final BrokerRequest _brokerRequest;
   private final IndexSegment _segment;
+  // Null when the segment does not cache its filter bitmaps
+  private final FilterBitmapCache _filterBitmapCache;
 
   public FilterPlanNode(IndexSegment segment, BrokerRequest brokerRequest) {
     _segment = segment;
     _brokerRequest = brokerRequest;
+    _filterBitmapCache =
+        (segment instanceof IndexSegmentImpl) ? ((IndexSegmentImpl) segment).getFilterBitmapCache() : null;
   }
 
   @Override
@@ -80,6 +89,15 @@ public class FilterPlanNode implements PlanNode {
     final boolean isLeaf = (childFilters == null) || childFilters.isEmpty();
 
     if (!isLeaf) {
+      // AND/OR subtrees are looked up in the filter bitmap cache of the segment, a cached subtree becomes a bitmap leaf
+      String canonicalFilter = null;
+      if (_filterBitmapCache != null) {
+        canonicalFilter = FilterBitmapCache.getCanonicalFilter(filterQueryTree);
+        ImmutableRoaringBitmap cachedBitmap = _filterBitmapCache.get(canonicalFilter);
+        if (cachedBitmap != null) {
+          return new CachedBitmapFilterOperator(cachedBitmap, _segment.getTotalDocs());
+        }
+      }
       List<Operator> operators = new ArrayList<Operator>();
       for (final FilterQueryTree query : childFilters) {
         Operator childOperator = constructPhysicalOperator(query);
@@ -99,6 +117,9 @@ public class FilterPlanNode implements PlanNode {
           throw new UnsupportedOperationException("Not support filter type - " + filterType
               + " with children operators");
       }
+      if (canonicalFilter != null) {
+        ret = new BitmapCachingFilterOperator(ret, _filterBitmapCache, canonicalFilter);
+      }
     } else {
       final FilterOperator filterType = filterQueryTree.getOperator();
       final String column = filterQueryTree.getColumn();
@@ -158,15 +179,22 @@ public class FilterPlanNode implements PlanNode {
     final Map<Operator, Integer> operatorPriorityMap = new HashMap<Operator, Integer>();
     for (Operator operator : operators) {
       Integer priority = Integer.MAX_VALUE;
-      if (operator instanceof SortedInvertedIndexBasedFilterOperator) {
+      // Subtrees being cached keep the priority of the operator they wrap
+      Operator prioritizedOperator = operator;
+      if (operator instanceof BitmapCachingFilterOperator) {
+        prioritizedOperator = ((BitmapCachingFilterOperator) operator).getOperator();
+      }
+      if (prioritizedOperator instanceof SortedInvertedIndexBasedFilterOperator) {
         priority = 0;
-      } else if (operator instanceof AndOperator) {
+      } else if (prioritizedOperator instanceof AndOperator) {
         priority = 1;
-      } else if (operator instanceof InvertedIndexBasedFilterOperator) {
+      } else if (prioritizedOperator instanceof InvertedIndexBasedFilterOperator
+          || prioritizedOperator instanceof BitmapBasedFilterOperator
+          || prioritizedOperator instanceof CachedBitmapFilterOperator) {
         priority = 2;
-      } else if (operator instanceof ScanBasedFilterOperator) {
+      } else if (prioritizedOperator instanceof ScanBasedFilterOperator) {
         priority = 3;
-      } else if (operator instanceof OrOperator) {
+      } else if (prioritizedOperator instanceof OrOperator) {
         priority = 4;
       }
       operatorPriorityMap.put(operator, priority);
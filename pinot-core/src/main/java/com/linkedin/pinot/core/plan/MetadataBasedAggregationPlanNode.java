@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.plan;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.query.MetadataBasedAggregationOperator;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+
+
+/**
+ * MetadataBasedAggregationPlanNode answers aggregation only queries that cover every doc of a segment, and only
+ * contain COUNT, MIN and MAX, from the segment metadata instead of the projection and scan of AggregationPlanNode.
+ *
+ */
+public class MetadataBasedAggregationPlanNode implements PlanNode {
+  private static final Logger LOGGER = LoggerFactory.getLogger("QueryPlanLog");
+  private final IndexSegmentImpl _indexSegment;
+  private final BrokerRequest _brokerRequest;
+
+  public MetadataBasedAggregationPlanNode(IndexSegmentImpl indexSegment, BrokerRequest query) {
+    _indexSegment = indexSegment;
+    _brokerRequest = query;
+  }
+
+  @Override
+  public Operator run() {
+    return new MetadataBasedAggregationOperator(_indexSegment, _brokerRequest.getAggregationsInfo());
+  }
+
+  @Override
+  public void showTree(String prefix) {
+    LOGGER.debug(prefix + "Inner-Segment Plan Node :");
+    LOGGER.debug(prefix + "Operator: MetadataBasedAggregationOperator");
+    LOGGER.debug(prefix + "Argument 0: IndexSegment - " + _indexSegment.getSegmentName());
+    LOGGER.debug(prefix + "Argument 1: Aggregations - " + _brokerRequest.getAggregationsInfo());
+  }
+}
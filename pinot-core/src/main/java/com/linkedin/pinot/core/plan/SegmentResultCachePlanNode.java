@@ -0,0 +1,64 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.plan;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.operator.query.SegmentResultCacheOperator;
+import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+
+
+/**
+ * SegmentResultCachePlanNode serves the result of the query on an immutable segment from the SegmentResultCache,
+ * and only makes and runs the inner segment plan of the query on a cache miss.
+ *
+ */
+public class SegmentResultCachePlanNode implements PlanNode {
+  private static final Logger LOGGER = LoggerFactory.getLogger("QueryPlanLog");
+  private final IndexSegment _indexSegment;
+  private final BrokerRequest _brokerRequest;
+  private final BrokerRequest _normalizedRequest;
+  private final PlanMaker _planMaker;
+  private final SegmentResultCache _segmentResultCache;
+
+  public SegmentResultCachePlanNode(IndexSegment indexSegment, BrokerRequest brokerRequest,
+      BrokerRequest normalizedRequest, PlanMaker planMaker, SegmentResultCache segmentResultCache) {
+    _indexSegment = indexSegment;
+    _brokerRequest = brokerRequest;
+    _normalizedRequest = normalizedRequest;
+    _planMaker = planMaker;
+    _segmentResultCache = segmentResultCache;
+  }
+
+  @Override
+  public Operator run() {
+    return new SegmentResultCacheOperator(_indexSegment, _brokerRequest, _normalizedRequest, _planMaker,
+        _segmentResultCache);
+  }
+
+  @Override
+  public void showTree(String prefix) {
+    LOGGER.debug(prefix + "Inner-Segment Plan Node :");
+    LOGGER.debug(prefix + "Operator: SegmentResultCacheOperator");
+    LOGGER.debug(prefix + "Argument 0: IndexSegment - " + _indexSegment.getSegmentName());
+    LOGGER.debug(prefix + "Argument 1: Inner Segment Plan Node : made on a cache miss");
+  }
+}
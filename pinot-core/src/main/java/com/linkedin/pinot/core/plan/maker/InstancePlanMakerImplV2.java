@@ -15,12 +15,20 @@
  */
 package com.linkedin.pinot.core.plan.maker;
 
+import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.query.QueryValidationException;
+import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.common.predicate.RangePredicate;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.plan.AggregationGroupByOperatorPlanNode;
 import com.linkedin.pinot.core.plan.AggregationGroupByOperatorPlanNode.AggregationGroupByImplementationType;
@@ -28,11 +36,18 @@ import com.linkedin.pinot.core.plan.AggregationPlanNode;
 import com.linkedin.pinot.core.plan.CombinePlanNode;
 import com.linkedin.pinot.core.plan.GlobalPlanImplV0;
 import com.linkedin.pinot.core.plan.InstanceResponsePlanNode;
+import com.linkedin.pinot.core.plan.MetadataBasedAggregationPlanNode;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.PlanNode;
+import com.linkedin.pinot.core.plan.SegmentResultCachePlanNode;
 import com.linkedin.pinot.core.plan.SelectionPlanNode;
 import com.linkedin.pinot.core.query.aggregation.groupby.BitHacks;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 
 /**
@@ -42,12 +57,42 @@ import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
  *
  */
 public class InstancePlanMakerImplV2 implements PlanMaker {
+  private final int _maxDenseGroupByCardinalityProduct;
+  private final int _maxThreadsPerQuery;
+  private final int _minSegmentsPerThread;
+  private final int _numGroupsLimit;
+  // Null when the per segment result cache is disabled
+  private final SegmentResultCache _segmentResultCache;
+
+  public InstancePlanMakerImplV2() {
+    _maxDenseGroupByCardinalityProduct = QueryExecutorConfig.DEFAULT_MAX_DENSE_GROUP_BY_CARDINALITY_PRODUCT;
+    _maxThreadsPerQuery = QueryExecutorConfig.DEFAULT_MAX_THREADS_PER_QUERY;
+    _minSegmentsPerThread = QueryExecutorConfig.DEFAULT_MIN_SEGMENTS_PER_THREAD;
+    _numGroupsLimit = QueryExecutorConfig.DEFAULT_NUM_GROUPS_LIMIT;
+    _segmentResultCache = null;
+  }
+
+  public InstancePlanMakerImplV2(QueryExecutorConfig queryExecutorConfig) {
+    this(queryExecutorConfig, null);
+  }
+
+  public InstancePlanMakerImplV2(QueryExecutorConfig queryExecutorConfig, SegmentResultCache segmentResultCache) {
+    _maxDenseGroupByCardinalityProduct = queryExecutorConfig.getMaxDenseGroupByCardinalityProduct();
+    _maxThreadsPerQuery = queryExecutorConfig.getMaxThreadsPerQuery();
+    _minSegmentsPerThread = queryExecutorConfig.getMinSegmentsPerThread();
+    _numGroupsLimit = queryExecutorConfig.getNumGroupsLimit();
+    _segmentResultCache = segmentResultCache;
+  }
 
   @Override
   public PlanNode makeInnerSegmentPlan(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    validateNoDictionaryColumns(indexSegment, brokerRequest);
 
     if (brokerRequest.isSetAggregationsInfo()) {
       if (!brokerRequest.isSetGroupBy()) {
+        if (isFitForMetadataBasedPlan(indexSegment, brokerRequest)) {
+          return new MetadataBasedAggregationPlanNode((IndexSegmentImpl) indexSegment, brokerRequest);
+        }
         // Only Aggregation
         final PlanNode aggregationPlanNode = new AggregationPlanNode(indexSegment, brokerRequest);
         return aggregationPlanNode;
@@ -55,16 +100,24 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         // Aggregation GroupBy
         PlanNode aggregationGroupByPlanNode;
         if (indexSegment instanceof IndexSegmentImpl) {
-          if (isGroupKeyFitForLong(indexSegment, brokerRequest)) {
+          if (isGroupKeyFitForDenseArray(indexSegment, brokerRequest)) {
             aggregationGroupByPlanNode =
-                new AggregationGroupByOperatorPlanNode(indexSegment, brokerRequest, AggregationGroupByImplementationType.Dictionary);
+                new AggregationGroupByOperatorPlanNode(indexSegment, brokerRequest, AggregationGroupByImplementationType.DictionaryWithDenseResultHolder,
+                    _numGroupsLimit);
+          } else if (isGroupKeyFitForLong(indexSegment, brokerRequest)) {
+            // The primitive result holders keep one accumulator per group slot instead of one boxed result per group.
+            aggregationGroupByPlanNode =
+                new AggregationGroupByOperatorPlanNode(indexSegment, brokerRequest, AggregationGroupByImplementationType.DictionaryWithResultHolder,
+                    _numGroupsLimit);
           } else {
             aggregationGroupByPlanNode =
-                new AggregationGroupByOperatorPlanNode(indexSegment, brokerRequest, AggregationGroupByImplementationType.DictionaryAndTrie);
+                new AggregationGroupByOperatorPlanNode(indexSegment, brokerRequest, AggregationGroupByImplementationType.DictionaryAndTrie,
+                    _numGroupsLimit);
           }
         } else {
           aggregationGroupByPlanNode =
-              new AggregationGroupByOperatorPlanNode(indexSegment, brokerRequest, AggregationGroupByImplementationType.NoDictionary);
+              new AggregationGroupByOperatorPlanNode(indexSegment, brokerRequest, AggregationGroupByImplementationType.NoDictionary,
+                  _numGroupsLimit);
         }
         return aggregationGroupByPlanNode;
       }
@@ -80,10 +133,24 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
   @Override
   public Plan makeInterSegmentPlan(List<IndexSegment> indexSegmentList, BrokerRequest brokerRequest, ExecutorService executorService, long timeOutMs) {
     final InstanceResponsePlanNode rootNode = new InstanceResponsePlanNode();
-    final CombinePlanNode combinePlanNode = new CombinePlanNode(brokerRequest, executorService, timeOutMs);
+    final CombinePlanNode combinePlanNode =
+        new CombinePlanNode(brokerRequest, executorService, timeOutMs, _maxThreadsPerQuery, _minSegmentsPerThread,
+            _numGroupsLimit);
     rootNode.setPlanNode(combinePlanNode);
+    final BrokerRequest normalizedRequest =
+        (_segmentResultCache != null) ? SegmentResultCache.getNormalizedRequest(brokerRequest) : null;
     for (final IndexSegment indexSegment : indexSegmentList) {
-      combinePlanNode.addPlanNode(makeInnerSegmentPlan(indexSegment, brokerRequest));
+      // The inner segment plan of a cached segment is only made on a cache miss.
+      validateNoDictionaryColumns(indexSegment, brokerRequest);
+      final PlanNode innerSegmentPlanNode;
+      if (normalizedRequest != null && !isFitForMetadataBasedAggregation(indexSegment, brokerRequest)
+          && SegmentResultCache.isCacheable(indexSegment, brokerRequest)) {
+        innerSegmentPlanNode =
+            new SegmentResultCachePlanNode(indexSegment, brokerRequest, normalizedRequest, this, _segmentResultCache);
+      } else {
+        innerSegmentPlanNode = makeInnerSegmentPlan(indexSegment, brokerRequest);
+      }
+      combinePlanNode.addPlanNode(innerSegmentPlanNode);
     }
     return new GlobalPlanImplV0(rootNode);
   }
@@ -99,4 +166,167 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
     }
     return true;
   }
+
+  /**
+   * Raw and chunk compressed columns of offline segments have no dictionary, while the filter operators, the group key
+   * generators and distinctcount all work on dictionary ids. Reject such queries before any operator runs.
+   */
+  private static void validateNoDictionaryColumns(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    if (!(indexSegment instanceof IndexSegmentImpl)) {
+      return;
+    }
+    final SegmentMetadataImpl segmentMetadata = (SegmentMetadataImpl) indexSegment.getSegmentMetadata();
+    final FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(brokerRequest);
+    if (filterQueryTree != null) {
+      validateFilterColumns(segmentMetadata, filterQueryTree);
+    }
+    if (brokerRequest.isSetGroupBy()) {
+      for (final String column : brokerRequest.getGroupBy().getColumns()) {
+        validateHasDictionary(segmentMetadata, column, "Group by");
+      }
+    }
+    if (brokerRequest.isSetAggregationsInfo()) {
+      for (final AggregationInfo aggregationInfo : brokerRequest.getAggregationsInfo()) {
+        if (aggregationInfo.getAggregationType().equalsIgnoreCase("distinctcount")) {
+          for (final String column : aggregationInfo.getAggregationParams().get("column").trim().split(",")) {
+            validateHasDictionary(segmentMetadata, column, "Distinctcount");
+          }
+        }
+      }
+    }
+  }
+
+  private static void validateFilterColumns(SegmentMetadataImpl segmentMetadata, FilterQueryTree filterQueryTree) {
+    if (filterQueryTree.getChildren() != null && !filterQueryTree.getChildren().isEmpty()) {
+      for (final FilterQueryTree child : filterQueryTree.getChildren()) {
+        validateFilterColumns(segmentMetadata, child);
+      }
+    } else {
+      validateHasDictionary(segmentMetadata, filterQueryTree.getColumn(), "Filter");
+    }
+  }
+
+  private static void validateHasDictionary(SegmentMetadataImpl segmentMetadata, String column, String usage) {
+    final ColumnMetadata columnMetadata = segmentMetadata.getColumnMetadataFor(column);
+    if (columnMetadata != null && !columnMetadata.hasDictionary()) {
+      throw new QueryValidationException(usage + " on column " + column + " is not supported, the column has no "
+          + "dictionary in segment " + segmentMetadata.getName());
+    }
+  }
+
+  /**
+   * COUNT, MIN and MAX over all the docs of an offline segment can be answered from the segment metadata and the sorted
+   * dictionaries. All the docs are selected if there is no filter, or if the filter is a single range predicate that
+   * covers every value of its column.
+   */
+  private boolean isFitForMetadataBasedAggregation(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    return brokerRequest.isSetAggregationsInfo() && !brokerRequest.isSetGroupBy()
+        && isFitForMetadataBasedPlan(indexSegment, brokerRequest);
+  }
+
+  private boolean isFitForMetadataBasedPlan(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    if (!(indexSegment instanceof IndexSegmentImpl) || indexSegment.getTotalDocs() == 0) {
+      return false;
+    }
+    final SegmentMetadataImpl segmentMetadata = (SegmentMetadataImpl) indexSegment.getSegmentMetadata();
+    for (final AggregationInfo aggregationInfo : brokerRequest.getAggregationsInfo()) {
+      final String aggregationType = aggregationInfo.getAggregationType().toLowerCase();
+      if (aggregationType.equals("count")) {
+        continue;
+      }
+      if (!aggregationType.equals("min") && !aggregationType.equals("max")) {
+        return false;
+      }
+      if (!isSingleValueNumericColumnWithDictionary(segmentMetadata,
+          aggregationInfo.getAggregationParams().get("column").trim())) {
+        return false;
+      }
+    }
+    final FilterQueryTree filterQueryTree = RequestUtils.generateFilterQueryTree(brokerRequest);
+    return filterQueryTree == null || isRangeCoveringSegment((IndexSegmentImpl) indexSegment, filterQueryTree);
+  }
+
+  private boolean isSingleValueNumericColumnWithDictionary(SegmentMetadataImpl segmentMetadata, String column) {
+    final ColumnMetadata columnMetadata = segmentMetadata.getColumnMetadataFor(column);
+    if (columnMetadata == null || !columnMetadata.isSingleValue() || !columnMetadata.hasDictionary()) {
+      return false;
+    }
+    switch (columnMetadata.getDataType()) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private boolean isRangeCoveringSegment(IndexSegmentImpl indexSegment, FilterQueryTree filterQueryTree) {
+    if ((filterQueryTree.getChildren() != null && !filterQueryTree.getChildren().isEmpty())
+        || filterQueryTree.getOperator() != FilterOperator.RANGE) {
+      return false;
+    }
+    final String column = filterQueryTree.getColumn();
+    if (!isSingleValueNumericColumnWithDictionary((SegmentMetadataImpl) indexSegment.getSegmentMetadata(), column)) {
+      return false;
+    }
+    final RangePredicate predicate = new RangePredicate(column, filterQueryTree.getValue());
+    final Dictionary dictionary = indexSegment.getDictionaryFor(column);
+    final DataType dataType =
+        ((SegmentMetadataImpl) indexSegment.getSegmentMetadata()).getColumnMetadataFor(column).getDataType();
+    try {
+      final String lower = predicate.getLowerBoundary();
+      if (!lower.equals("*")) {
+        final int compareToMin = compareToDictionaryValue(lower, dictionary, 0, dataType);
+        if (predicate.includeLowerBoundary() ? compareToMin > 0 : compareToMin >= 0) {
+          return false;
+        }
+      }
+      final String upper = predicate.getUpperBoundary();
+      if (!upper.equals("*")) {
+        final int compareToMax = compareToDictionaryValue(upper, dictionary, dictionary.length() - 1, dataType);
+        if (predicate.includeUpperBoundary() ? compareToMax < 0 : compareToMax <= 0) {
+          return false;
+        }
+      }
+    } catch (NumberFormatException e) {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Compares a range boundary with a dictionary value. INT and LONG values are compared exactly against the long
+   * value, as doubles can not tell apart the long values above 2^53. The boundary may still be written as a decimal.
+   */
+  private static int compareToDictionaryValue(String boundary, Dictionary dictionary, int dictId, DataType dataType) {
+    switch (dataType) {
+      case INT:
+      case LONG:
+        return new BigDecimal(boundary).compareTo(BigDecimal.valueOf(dictionary.getLongValue(dictId)));
+      default:
+        return Double.compare(Double.parseDouble(boundary), dictionary.getDoubleValue(dictId));
+    }
+  }
+
+  /**
+   * The dense array group by uses the group key as an index into preallocated arrays,
+   * so only pick it when the cartesian product of the groupBy column cardinalities is small enough.
+   */
+  private boolean isGroupKeyFitForDenseArray(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    final SegmentMetadataImpl segmentMetadata = (SegmentMetadataImpl) indexSegment.getSegmentMetadata();
+    long cardinalityProduct = 1L;
+    for (final String column : brokerRequest.getGroupBy().getColumns()) {
+      final ColumnMetadata columnMetadata = segmentMetadata.getColumnMetadataFor(column);
+      if (columnMetadata == null) {
+        return false;
+      }
+      cardinalityProduct *= columnMetadata.getCardinality();
+      if (cardinalityProduct > _maxDenseGroupByCardinalityProduct) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
@@ -23,6 +23,7 @@ import org.json.JSONObject;
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
 
 
 /**
@@ -60,6 +61,49 @@ public interface AggregationFunction<AggregateResult extends Serializable, Reduc
    */
   AggregateResult aggregate(AggregateResult mergedResult, int docId, Block[] block);
 
+  /**
+   * Create the primitive result holder used by the result holder based group by operators.
+   *
+   * @param initialCapacity
+   * @return resultHolder
+   */
+  GroupByResultHolder createGroupByResultHolder(int initialCapacity);
+
+  /**
+   * Aggregate function used by the result holder based group by operators.
+   * For each i in [0, length), the value of docIds[i] is merged into the accumulator of group slot groupSlots[i].
+   * The caller makes sure the result holder has enough capacity for all the group slots.
+   *
+   * @param docIds
+   * @param groupSlots
+   * @param length
+   * @param block
+   * @param resultHolder
+   */
+  void aggregateGroupBy(int[] docIds, int[] groupSlots, int length, Block[] block, GroupByResultHolder resultHolder);
+
+  /**
+   * Return the intermediate result for one group slot from the result holder.
+   *
+   * @param resultHolder
+   * @param groupSlot
+   * @return intermediate result
+   */
+  AggregateResult getGroupByResult(GroupByResultHolder resultHolder, int groupSlot);
+
+  /**
+   * Merge the accumulator of otherGroupSlot in otherResultHolder into the accumulator of groupSlot in resultHolder.
+   * Used to combine group by results of different segments without going through the intermediate result objects.
+   * The caller makes sure the result holder has enough capacity for groupSlot.
+   *
+   * @param resultHolder
+   * @param groupSlot
+   * @param otherResultHolder
+   * @param otherGroupSlot
+   */
+  void mergeGroupByResult(GroupByResultHolder resultHolder, int groupSlot, GroupByResultHolder otherResultHolder,
+      int otherGroupSlot);
+
   /**
    * Take a list of intermediate results and do intermediate merge.
    *
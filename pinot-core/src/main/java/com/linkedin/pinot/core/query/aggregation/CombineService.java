@@ -27,6 +27,7 @@ import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByIntermediateResult;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorService;
 import com.linkedin.pinot.core.query.selection.SelectionOperatorUtils;
 
@@ -49,23 +50,21 @@ public class CombineService {
       mergedBlock = blockToMerge;
       return;
     }
-    // Combine NumDocsScanned
-    mergedBlock.setNumDocsScanned(mergedBlock.getNumDocsScanned() + blockToMerge.getNumDocsScanned());
-    // Combine TotalDocs
-    mergedBlock.setTotalDocs(mergedBlock.getTotalDocs() + blockToMerge.getTotalDocs());
-    // Debug mode enable : Combine SegmentStatistics and TraceInfo
-    if (brokerRequest.isEnableTrace()) {
-      mergedBlock.getSegmentStatistics().addAll(blockToMerge.getSegmentStatistics());
-      mergedBlock.getTraceInfo().putAll(blockToMerge.getTraceInfo());
-    }
-    // Combine Exceptions
-    mergedBlock.setExceptionsList(combineExceptions(mergedBlock.getExceptions(), blockToMerge.getExceptions()));
+    mergeBlockMetadata(brokerRequest, mergedBlock, blockToMerge);
 
     if (brokerRequest.isSetAggregationsInfo()) {
       if (brokerRequest.isSetGroupBy()) {
         // Combine AggregationGroupBy
-        mergedBlock.setAggregationGroupByResult1(combineAggregationGroupByResults1(brokerRequest,
-            mergedBlock.getAggregationGroupByOperatorResult(), blockToMerge.getAggregationGroupByOperatorResult()));
+        GroupByIntermediateResult groupByResult = mergedBlock.getGroupByIntermediateResult();
+        GroupByIntermediateResult groupByResultToMerge = blockToMerge.getGroupByIntermediateResult();
+        if ((groupByResult != null) && (groupByResultToMerge != null)
+            && groupByResult.isMergeableWith(groupByResultToMerge)) {
+          mergedBlock.setGroupByIntermediateResult(GroupByIntermediateResult.merge(groupByResult,
+              groupByResultToMerge));
+        } else {
+          mergedBlock.setAggregationGroupByResult1(combineAggregationGroupByResults1(brokerRequest,
+              mergedBlock.getAggregationGroupByOperatorResult(), blockToMerge.getAggregationGroupByOperatorResult()));
+        }
       } else {
         // Combine Aggregations
         List<AggregationFunction> aggregationFunctions =
@@ -88,6 +87,26 @@ public class CombineService {
     }
   }
 
+  /**
+   * Combine everything but the results of the two blocks: doc counts, statistics, trace info and exceptions.
+   */
+  public static void mergeBlockMetadata(BrokerRequest brokerRequest, IntermediateResultsBlock mergedBlock,
+      IntermediateResultsBlock blockToMerge) {
+    // Combine NumDocsScanned
+    mergedBlock.setNumDocsScanned(mergedBlock.getNumDocsScanned() + blockToMerge.getNumDocsScanned());
+    // Combine TotalDocs
+    mergedBlock.setTotalDocs(mergedBlock.getTotalDocs() + blockToMerge.getTotalDocs());
+    // Debug mode enable : Combine SegmentStatistics and TraceInfo
+    if (brokerRequest.isEnableTrace()) {
+      mergedBlock.getSegmentStatistics().addAll(blockToMerge.getSegmentStatistics());
+      mergedBlock.getTraceInfo().putAll(blockToMerge.getTraceInfo());
+    }
+    // Combine Exceptions
+    mergedBlock.setExceptionsList(combineExceptions(mergedBlock.getExceptions(), blockToMerge.getExceptions()));
+    // Combine approximate flag
+    mergedBlock.setApproximate(mergedBlock.isApproximate() || blockToMerge.isApproximate());
+  }
+
   private static List<Map<String, Serializable>> combineAggregationGroupByResults1(BrokerRequest brokerRequest,
       List<Map<String, Serializable>> list1, List<Map<String, Serializable>> list2) {
     if (list1 == null) {
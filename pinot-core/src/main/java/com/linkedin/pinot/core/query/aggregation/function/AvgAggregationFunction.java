@@ -28,14 +28,15 @@ import com.linkedin.pinot.common.Utils;
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.core.common.Block;
-import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.BlockSingleValIterator;
-import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.operator.DocIdSetBlock;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.CombineLevel;
 import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction.AvgPair;
 import com.linkedin.pinot.core.query.utils.Pair;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.DoubleLongPairGroupByResultHolder;
 
 
 /**
@@ -46,6 +47,8 @@ public class AvgAggregationFunction implements AggregationFunction<AvgPair, Doub
   private static final Logger LOGGER = LoggerFactory.getLogger(AvgAggregationFunction.class);
 
   private String _avgByColumn;
+  // AvgPair is an inner class, keep the batch buffers out of its serialized form.
+  private final transient DictionaryValueBatchReader _batchReader = new DictionaryValueBatchReader();
 
   public AvgAggregationFunction() {
 
@@ -61,18 +64,14 @@ public class AvgAggregationFunction implements AggregationFunction<AvgPair, Doub
   public AvgPair aggregate(Block docIdSetBlock, Block[] block) {
     double ret = 0;
     long cnt = 0;
-    int docId = 0;
-    Dictionary dictionaryReader = block[0].getMetadata().getDictionary();
-    BlockDocIdIterator docIdIterator = docIdSetBlock.getBlockDocIdSet().iterator();
-    BlockSingleValIterator blockValIterator = (BlockSingleValIterator) block[0].getBlockValueSet().iterator();
-
-    while ((docId = docIdIterator.next()) != Constants.EOF) {
-      if (blockValIterator.skipTo(docId)) {
-        int dictionaryIndex = blockValIterator.nextIntVal();
-        if (dictionaryIndex != Dictionary.NULL_VALUE_INDEX) {
-          ret += dictionaryReader.getDoubleValue(dictionaryIndex);
-          cnt++;
-        }
+    DocIdSetBlock docIds = (DocIdSetBlock) docIdSetBlock;
+    int length = docIds.getSearchableLength();
+    double[] values = _batchReader.readDoubleValues(block[0], docIds.getDocIdSet(), length, 0);
+    int[] dictionaryIds = _batchReader.getDictionaryIds();
+    for (int i = 0; i < length; ++i) {
+      if (dictionaryIds[i] != Dictionary.NULL_VALUE_INDEX) {
+        ret += values[i];
+        cnt++;
       }
     }
     return new AvgPair(ret, cnt);
@@ -94,6 +93,38 @@ public class AvgAggregationFunction implements AggregationFunction<AvgPair, Doub
     return mergedResult;
   }
 
+  @Override
+  public GroupByResultHolder createGroupByResultHolder(int initialCapacity) {
+    return new DoubleLongPairGroupByResultHolder(initialCapacity);
+  }
+
+  @Override
+  public void aggregateGroupBy(int[] docIds, int[] groupSlots, int length, Block[] block,
+      GroupByResultHolder resultHolder) {
+    DoubleLongPairGroupByResultHolder pairResultHolder = (DoubleLongPairGroupByResultHolder) resultHolder;
+    double[] values = _batchReader.readDoubleValues(block[0], docIds, length, 0);
+    int[] dictionaryIds = _batchReader.getDictionaryIds();
+    for (int i = 0; i < length; ++i) {
+      if (dictionaryIds[i] != Dictionary.NULL_VALUE_INDEX) {
+        pairResultHolder.addToSlot(groupSlots[i], values[i], 1);
+      }
+    }
+  }
+
+  @Override
+  public AvgPair getGroupByResult(GroupByResultHolder resultHolder, int groupSlot) {
+    DoubleLongPairGroupByResultHolder pairResultHolder = (DoubleLongPairGroupByResultHolder) resultHolder;
+    return new AvgPair(pairResultHolder.getDoubleResult(groupSlot), pairResultHolder.getLongResult(groupSlot));
+  }
+
+  @Override
+  public void mergeGroupByResult(GroupByResultHolder resultHolder, int groupSlot, GroupByResultHolder otherResultHolder,
+      int otherGroupSlot) {
+    DoubleLongPairGroupByResultHolder otherPairResultHolder = (DoubleLongPairGroupByResultHolder) otherResultHolder;
+    ((DoubleLongPairGroupByResultHolder) resultHolder).addToSlot(groupSlot,
+        otherPairResultHolder.getDoubleResult(otherGroupSlot), otherPairResultHolder.getLongResult(otherGroupSlot));
+  }
+
   @Override
   public List<AvgPair> combine(List<AvgPair> aggregationResultList, CombineLevel combineLevel) {
     double combinedSumResult = 0;
@@ -19,6 +19,8 @@ import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.BlockSingleValIterator;
 import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.DoubleLongPairGroupByResultHolder;
 
 
 /**
@@ -55,4 +57,16 @@ public class AvgAggregationNoDictionaryFunction extends AvgAggregationFunction {
     }
     return mergedResult;
   }
+
+  @Override
+  public void aggregateGroupBy(int[] docIds, int[] groupSlots, int length, Block[] block,
+      GroupByResultHolder resultHolder) {
+    DoubleLongPairGroupByResultHolder pairResultHolder = (DoubleLongPairGroupByResultHolder) resultHolder;
+    BlockSingleValIterator blockValIterator = (BlockSingleValIterator) block[0].getBlockValueSet().iterator();
+    for (int i = 0; i < length; ++i) {
+      if (blockValIterator.skipTo(docIds[i])) {
+        pairResultHolder.addToSlot(groupSlots[i], blockValIterator.nextDoubleVal(), 1);
+      }
+    }
+  }
 }
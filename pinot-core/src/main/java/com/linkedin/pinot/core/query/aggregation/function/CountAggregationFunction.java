@@ -28,6 +28,8 @@ import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.operator.DocIdSetBlock;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.CombineLevel;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.LongGroupByResultHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +64,33 @@ public class CountAggregationFunction implements AggregationFunction<Long, Long>
     }
   }
 
+  @Override
+  public GroupByResultHolder createGroupByResultHolder(int initialCapacity) {
+    return new LongGroupByResultHolder(initialCapacity);
+  }
+
+  @Override
+  public void aggregateGroupBy(int[] docIds, int[] groupSlots, int length, Block[] block,
+      GroupByResultHolder resultHolder) {
+    long[] results = ((LongGroupByResultHolder) resultHolder).getResultArray();
+    for (int i = 0; i < length; ++i) {
+      results[groupSlots[i]]++;
+    }
+  }
+
+  @Override
+  public Long getGroupByResult(GroupByResultHolder resultHolder, int groupSlot) {
+    return ((LongGroupByResultHolder) resultHolder).getLongResult(groupSlot);
+  }
+
+  @Override
+  public void mergeGroupByResult(GroupByResultHolder resultHolder, int groupSlot, GroupByResultHolder otherResultHolder,
+      int otherGroupSlot) {
+    LongGroupByResultHolder longResultHolder = (LongGroupByResultHolder) resultHolder;
+    longResultHolder.setValueForSlot(groupSlot, longResultHolder.getLongResult(groupSlot)
+        + ((LongGroupByResultHolder) otherResultHolder).getLongResult(otherGroupSlot));
+  }
+
   @Override
   public List<Long> combine(List<Long> aggregationResultList, CombineLevel combineLevel) {
     long combinedValue = 0;
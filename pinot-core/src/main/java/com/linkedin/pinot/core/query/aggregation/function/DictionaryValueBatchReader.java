@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.function;
+
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+
+
+/**
+ * DictionaryValueBatchReader reads the dictionary ids and the double values of a batch of docs through the batch
+ * BlockValSet/Dictionary APIs, instead of one skipTo()/nextIntVal()/getDoubleValue() per doc.
+ * Buffers are reused across batches, so an instance must not be shared between threads.
+ *
+ */
+public class DictionaryValueBatchReader {
+  private int[] _dictionaryIds = new int[0];
+  private double[] _values = new double[0];
+
+  /**
+   * Read the double values of docIds[0, length) from the single value block.
+   * Docs with Dictionary.NULL_VALUE_INDEX get nullValue.
+   *
+   * @param block
+   * @param docIds
+   * @param length
+   * @param nullValue
+   * @return values buffer, valid in [0, length)
+   */
+  public double[] readDoubleValues(Block block, int[] docIds, int length, double nullValue) {
+    if (_dictionaryIds.length < length) {
+      _dictionaryIds = new int[length];
+      _values = new double[length];
+    }
+    block.getBlockValueSet().readIntValues(docIds, 0, length, _dictionaryIds, 0);
+    Dictionary dictionary = block.getMetadata().getDictionary();
+
+    boolean hasNull = false;
+    for (int i = 0; i < length; ++i) {
+      if (_dictionaryIds[i] == Dictionary.NULL_VALUE_INDEX) {
+        hasNull = true;
+        break;
+      }
+    }
+    if (!hasNull) {
+      dictionary.readDoubleValues(_dictionaryIds, 0, length, _values, 0);
+    } else {
+      for (int i = 0; i < length; ++i) {
+        int dictionaryId = _dictionaryIds[i];
+        _values[i] = (dictionaryId == Dictionary.NULL_VALUE_INDEX) ? nullValue : dictionary.getDoubleValue(dictionaryId);
+      }
+    }
+    return _values;
+  }
+
+  /**
+   * @return dictionary ids buffer filled by the last readDoubleValues() call
+   */
+  public int[] getDictionaryIds() {
+    return _dictionaryIds;
+  }
+}
@@ -33,6 +33,8 @@ import com.linkedin.pinot.core.common.Constants;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.CombineLevel;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -106,6 +108,67 @@ public class DistinctCountAggregationFunction implements AggregationFunction<Int
     return mergedResult;
   }
 
+  @Override
+  public GroupByResultHolder createGroupByResultHolder(int initialCapacity) {
+    return new ObjectGroupByResultHolder(initialCapacity);
+  }
+
+  @Override
+  public void aggregateGroupBy(int[] docIds, int[] groupSlots, int length, Block[] block,
+      GroupByResultHolder resultHolder) {
+    ObjectGroupByResultHolder objectResultHolder = (ObjectGroupByResultHolder) resultHolder;
+    Dictionary dictionaryReader = block[0].getMetadata().getDictionary();
+    boolean isStringColumn = (block[0].getMetadata().getDataType() == DataType.STRING);
+    BlockSingleValIterator blockValIterator = (BlockSingleValIterator) block[0].getBlockValueSet().iterator();
+    for (int i = 0; i < length; ++i) {
+      if (blockValIterator.skipTo(docIds[i])) {
+        IntOpenHashSet valueSet = getOrCreateValueSet(objectResultHolder, groupSlots[i]);
+        int dictionaryIndex = blockValIterator.nextIntVal();
+        if (dictionaryIndex == Dictionary.NULL_VALUE_INDEX) {
+          valueSet.add(Integer.MIN_VALUE);
+        } else if (isStringColumn) {
+          valueSet.add(dictionaryReader.get(dictionaryIndex).hashCode());
+        } else {
+          valueSet.add(((Number) dictionaryReader.get(dictionaryIndex)).hashCode());
+        }
+      }
+    }
+  }
+
+  protected IntOpenHashSet getOrCreateValueSet(ObjectGroupByResultHolder resultHolder, int groupSlot) {
+    IntOpenHashSet valueSet = resultHolder.getResult(groupSlot);
+    if (valueSet == null) {
+      valueSet = new IntOpenHashSet();
+      resultHolder.setValueForSlot(groupSlot, valueSet);
+    }
+    return valueSet;
+  }
+
+  @Override
+  public IntOpenHashSet getGroupByResult(GroupByResultHolder resultHolder, int groupSlot) {
+    IntOpenHashSet valueSet = ((ObjectGroupByResultHolder) resultHolder).getResult(groupSlot);
+    if (valueSet == null) {
+      return new IntOpenHashSet();
+    }
+    return valueSet;
+  }
+
+  @Override
+  public void mergeGroupByResult(GroupByResultHolder resultHolder, int groupSlot, GroupByResultHolder otherResultHolder,
+      int otherGroupSlot) {
+    IntOpenHashSet otherValueSet = ((ObjectGroupByResultHolder) otherResultHolder).getResult(otherGroupSlot);
+    if (otherValueSet == null) {
+      return;
+    }
+    ObjectGroupByResultHolder objectResultHolder = (ObjectGroupByResultHolder) resultHolder;
+    IntOpenHashSet valueSet = objectResultHolder.getResult(groupSlot);
+    if (valueSet == null) {
+      objectResultHolder.setValueForSlot(groupSlot, otherValueSet);
+    } else {
+      valueSet.addAll(otherValueSet);
+    }
+  }
+
   @Override
   public List<IntOpenHashSet> combine(List<IntOpenHashSet> aggregationResultList, CombineLevel combineLevel) {
     if ((aggregationResultList == null) || aggregationResultList.isEmpty()) {
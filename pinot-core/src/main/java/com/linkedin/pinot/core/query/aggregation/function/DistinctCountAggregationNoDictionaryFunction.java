@@ -22,6 +22,9 @@ import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.BlockSingleValIterator;
 import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
 
 public class DistinctCountAggregationNoDictionaryFunction extends DistinctCountAggregationFunction {
@@ -60,4 +63,22 @@ public class DistinctCountAggregationNoDictionaryFunction extends DistinctCountA
     return mergedResult;
   }
 
+  @Override
+  public void aggregateGroupBy(int[] docIds, int[] groupSlots, int length, Block[] block,
+      GroupByResultHolder resultHolder) {
+    ObjectGroupByResultHolder objectResultHolder = (ObjectGroupByResultHolder) resultHolder;
+    Dictionary dictionaryReader = block[0].getMetadata().getDictionary();
+    boolean isStringColumn = (block[0].getMetadata().getDataType() == DataType.STRING);
+    BlockSingleValIterator blockValIterator = (BlockSingleValIterator) block[0].getBlockValueSet().iterator();
+    for (int i = 0; i < length; ++i) {
+      if (blockValIterator.skipTo(docIds[i])) {
+        IntOpenHashSet valueSet = getOrCreateValueSet(objectResultHolder, groupSlots[i]);
+        if (isStringColumn) {
+          valueSet.add(dictionaryReader.get(blockValIterator.nextIntVal()).hashCode());
+        } else {
+          valueSet.add(((Number) dictionaryReader.get(blockValIterator.nextIntVal())).intValue());
+        }
+      }
+    }
+  }
 }
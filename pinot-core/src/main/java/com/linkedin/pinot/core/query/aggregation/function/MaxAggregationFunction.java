@@ -26,12 +26,13 @@ import org.json.JSONObject;
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.core.common.Block;
-import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.BlockSingleValIterator;
-import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.operator.DocIdSetBlock;
 import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
 import com.linkedin.pinot.core.query.aggregation.CombineLevel;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.DoubleGroupByResultHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,6 +42,7 @@ public class MaxAggregationFunction implements AggregationFunction<Double, Doubl
   private static final Logger LOGGER = LoggerFactory.getLogger(MaxAggregationFunction.class);
 
   private String _maxColumnName;
+  private final DictionaryValueBatchReader _batchReader = new DictionaryValueBatchReader();
 
   public MaxAggregationFunction() {
 
@@ -54,21 +56,12 @@ public class MaxAggregationFunction implements AggregationFunction<Double, Doubl
   @Override
   public Double aggregate(Block docIdSetBlock, Block[] block) {
     double ret = DEFAULT_VALUE;
-    double tmp = 0;
-    int docId = 0;
-    Dictionary dictionaryReader = block[0].getMetadata().getDictionary();
-    BlockDocIdIterator docIdIterator = docIdSetBlock.getBlockDocIdSet().iterator();
-    BlockSingleValIterator blockValIterator = (BlockSingleValIterator) block[0].getBlockValueSet().iterator();
-
-    while ((docId = docIdIterator.next()) != Constants.EOF) {
-      if (blockValIterator.skipTo(docId)) {
-        int dictionaryIndex = blockValIterator.nextIntVal();
-        if (dictionaryIndex != Dictionary.NULL_VALUE_INDEX) {
-          tmp = dictionaryReader.getDoubleValue(dictionaryIndex);
-          if (tmp > ret) {
-            ret = tmp;
-          }
-        }
+    DocIdSetBlock docIds = (DocIdSetBlock) docIdSetBlock;
+    int length = docIds.getSearchableLength();
+    double[] values = _batchReader.readDoubleValues(block[0], docIds.getDocIdSet(), length, DEFAULT_VALUE);
+    for (int i = 0; i < length; ++i) {
+      if (values[i] > ret) {
+        ret = values[i];
       }
     }
     return ret;
@@ -93,6 +86,35 @@ public class MaxAggregationFunction implements AggregationFunction<Double, Doubl
     return mergedResult;
   }
 
+  @Override
+  public GroupByResultHolder createGroupByResultHolder(int initialCapacity) {
+    return new DoubleGroupByResultHolder(initialCapacity, Double.NEGATIVE_INFINITY);
+  }
+
+  @Override
+  public void aggregateGroupBy(int[] docIds, int[] groupSlots, int length, Block[] block,
+      GroupByResultHolder resultHolder) {
+    double[] results = ((DoubleGroupByResultHolder) resultHolder).getResultArray();
+    double[] values = _batchReader.readDoubleValues(block[0], docIds, length, DEFAULT_VALUE);
+    for (int i = 0; i < length; ++i) {
+      int groupSlot = groupSlots[i];
+      results[groupSlot] = Math.max(results[groupSlot], values[i]);
+    }
+  }
+
+  @Override
+  public Double getGroupByResult(GroupByResultHolder resultHolder, int groupSlot) {
+    return ((DoubleGroupByResultHolder) resultHolder).getDoubleResult(groupSlot);
+  }
+
+  @Override
+  public void mergeGroupByResult(GroupByResultHolder resultHolder, int groupSlot, GroupByResultHolder otherResultHolder,
+      int otherGroupSlot) {
+    DoubleGroupByResultHolder doubleResultHolder = (DoubleGroupByResultHolder) resultHolder;
+    doubleResultHolder.setValueForSlot(groupSlot, Math.max(doubleResultHolder.getDoubleResult(groupSlot),
+        ((DoubleGroupByResultHolder) otherResultHolder).getDoubleResult(otherGroupSlot)));
+  }
+
   @Override
   public List<Double> combine(List<Double> aggregationResultList, CombineLevel combineLevel) {
     double maxValue = DEFAULT_VALUE;
@@ -19,6 +19,8 @@ import com.linkedin.pinot.core.common.Block;
 import com.linkedin.pinot.core.common.BlockDocIdIterator;
 import com.linkedin.pinot.core.common.BlockSingleValIterator;
 import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.DoubleGroupByResultHolder;
 
 
 public class MinAggregationNoDictionaryFunction extends MinAggregationFunction {
@@ -57,4 +59,16 @@ public class MinAggregationNoDictionaryFunction extends MinAggregationFunction {
     return mergedResult;
   }
 
+  @Override
+  public void aggregateGroupBy(int[] docIds, int[] groupSlots, int length, Block[] block,
+      GroupByResultHolder resultHolder) {
+    double[] results = ((DoubleGroupByResultHolder) resultHolder).getResultArray();
+    BlockSingleValIterator blockValIterator = (BlockSingleValIterator) block[0].getBlockValueSet().iterator();
+    for (int i = 0; i < length; ++i) {
+      if (blockValIterator.skipTo(docIds[i])) {
+        int groupSlot = groupSlots[i];
+        results[groupSlot] = Math.min(results[groupSlot], blockValIterator.nextDoubleVal());
+      }
+    }
+  }
 }
@@ -0,0 +1,240 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+
+import java.util.Arrays;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.BlockMultiValIterator;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.BlockValIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+
+
+/**
+ * DenseDictionaryBasedGroupKeyGenerator is used when the product of the group by column cardinalities is small.
+ * The dictionary ids are combined as a mixed radix number (d0 * c1 + d1) * c2 + d2 ..., and that number is used
+ * directly as the group slot, so no hashing is needed and result holders can be preallocated with
+ * getGroupSlotUpperBound() entries.
+ *
+ */
+public class DenseDictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
+
+  private final Block[] _groupByBlocks;
+  private final Dictionary[] _dictionaries;
+  private final int[] _cardinalities;
+  private final boolean[] _isSingleValueGroupByColumn;
+  private final boolean _isGroupByColumnsContainMultiValueColumn;
+  private final BlockValIterator[] _groupByBlockValIterators;
+  private final int[][] _multiValueEntries;
+  private final String[] _stringArray;
+  private final DataType[] _groupByColumnTypes;
+  private final int[] _groupKeyDictionaryIds;
+  private final int _groupSlotUpperBound;
+
+  private final boolean[] _isGroupSlotUsed;
+  private final IntArrayList _usedGroupSlots = new IntArrayList();
+  private final IntArrayList _tempGroupSlots = new IntArrayList();
+
+  private int[] _docIdBuffer = new int[MAX_DOCS_PER_CHUNK];
+  private int[] _groupSlotBuffer = new int[MAX_DOCS_PER_CHUNK];
+  private final int[] _dictionaryIdBuffer = new int[MAX_DOCS_PER_CHUNK];
+
+  public DenseDictionaryBasedGroupKeyGenerator(Block[] groupByBlocks) {
+    _groupByBlocks = groupByBlocks;
+    int numGroupByColumns = groupByBlocks.length;
+    _dictionaries = new Dictionary[numGroupByColumns];
+    _cardinalities = new int[numGroupByColumns];
+    _isSingleValueGroupByColumn = new boolean[numGroupByColumns];
+    _groupByBlockValIterators = new BlockValIterator[numGroupByColumns];
+    _multiValueEntries = new int[numGroupByColumns][];
+    _stringArray = new String[numGroupByColumns];
+    _groupByColumnTypes = new DataType[numGroupByColumns];
+    _groupKeyDictionaryIds = new int[numGroupByColumns];
+
+    boolean containsMultiValueColumn = false;
+    long cardinalityProduct = 1L;
+    for (int i = 0; i < numGroupByColumns; ++i) {
+      _dictionaries[i] = groupByBlocks[i].getMetadata().getDictionary();
+      _groupByColumnTypes[i] = groupByBlocks[i].getMetadata().getDataType();
+      _cardinalities[i] = _dictionaries[i].length();
+      cardinalityProduct *= _cardinalities[i];
+      if (cardinalityProduct > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Cardinality product of group by columns is too large for dense group by");
+      }
+      _isSingleValueGroupByColumn[i] = groupByBlocks[i].getMetadata().isSingleValue();
+      if (!_isSingleValueGroupByColumn[i]) {
+        containsMultiValueColumn = true;
+        _multiValueEntries[i] = new int[groupByBlocks[i].getMetadata().getMaxNumberOfMultiValues()];
+      }
+    }
+    _isGroupByColumnsContainMultiValueColumn = containsMultiValueColumn;
+    _groupSlotUpperBound = (int) cardinalityProduct;
+    _isGroupSlotUsed = new boolean[_groupSlotUpperBound];
+  }
+
+  @Override
+  public int generateGroupSlots(BlockDocIdIterator docIdIterator) {
+    int numDocs = 0;
+    int length = 0;
+    int docId;
+
+    if (!_isGroupByColumnsContainMultiValueColumn) {
+      while ((length < MAX_DOCS_PER_CHUNK) && ((docId = docIdIterator.next()) != Constants.EOF)) {
+        _docIdBuffer[length++] = docId;
+      }
+      numDocs = length;
+      Arrays.fill(_groupSlotBuffer, 0, length, 0);
+      for (int i = 0; i < _cardinalities.length; ++i) {
+        // Read the dictionary ids of the whole chunk for one column at a time.
+        _groupByBlocks[i].getBlockValueSet().readIntValues(_docIdBuffer, 0, length, _dictionaryIdBuffer, 0);
+        int cardinality = _cardinalities[i];
+        for (int j = 0; j < length; ++j) {
+          _groupSlotBuffer[j] = _groupSlotBuffer[j] * cardinality + _dictionaryIdBuffer[j];
+        }
+      }
+      for (int j = 0; j < length; ++j) {
+        markUsed(_groupSlotBuffer[j]);
+      }
+    } else {
+      for (int i = 0; i < _groupByBlocks.length; ++i) {
+        _groupByBlockValIterators[i] = _groupByBlocks[i].getBlockValueSet().iterator();
+      }
+      while ((numDocs < MAX_DOCS_PER_CHUNK) && ((docId = docIdIterator.next()) != Constants.EOF)) {
+        fillGroupSlots(docId);
+        int numGroupSlots = _tempGroupSlots.size();
+        ensureBufferSize(length + numGroupSlots);
+        for (int j = 0; j < numGroupSlots; ++j) {
+          _docIdBuffer[length] = docId;
+          _groupSlotBuffer[length] = markUsed(_tempGroupSlots.getInt(j));
+          length++;
+        }
+        numDocs++;
+      }
+    }
+    if (numDocs == 0) {
+      return Constants.EOF;
+    }
+    return length;
+  }
+
+  @Override
+  public int[] getDocIdBuffer() {
+    return _docIdBuffer;
+  }
+
+  @Override
+  public int[] getGroupSlotBuffer() {
+    return _groupSlotBuffer;
+  }
+
+  @Override
+  public int getGroupSlotUpperBound() {
+    return _groupSlotUpperBound;
+  }
+
+  @Override
+  public IntIterator getGroupSlotIterator() {
+    return _usedGroupSlots.iterator();
+  }
+
+  @Override
+  public GroupKey getGroupKey(int groupSlot) {
+    int remaining = groupSlot;
+    for (int i = _cardinalities.length - 1; i >= 0; --i) {
+      _groupKeyDictionaryIds[i] = remaining % _cardinalities[i];
+      remaining /= _cardinalities[i];
+    }
+    return GroupKey.fromDictionaryIds(_dictionaries, _groupByColumnTypes, _groupKeyDictionaryIds);
+  }
+
+  @Override
+  public DataType[] getGroupByColumnTypes() {
+    return _groupByColumnTypes;
+  }
+
+  @Override
+  public String getGroupKeyString(int groupSlot) {
+    int remaining = groupSlot;
+    for (int i = _cardinalities.length - 1; i >= 0; --i) {
+      _stringArray[i] = _dictionaries[i].get(remaining % _cardinalities[i]).toString();
+      remaining /= _cardinalities[i];
+    }
+
+    final StringBuilder builder = new StringBuilder();
+    for (int j = 0; j < (_stringArray.length - 1); j++) {
+      builder.append(_stringArray[j]).append(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter.toString());
+    }
+    builder.append(_stringArray[_stringArray.length - 1]);
+    return builder.toString();
+  }
+
+  private int markUsed(int groupSlot) {
+    if (!_isGroupSlotUsed[groupSlot]) {
+      _isGroupSlotUsed[groupSlot] = true;
+      _usedGroupSlots.add(groupSlot);
+    }
+    return groupSlot;
+  }
+
+  private void fillGroupSlots(int docId) {
+    _tempGroupSlots.clear();
+    _tempGroupSlots.add(0);
+    for (int i = 0; i < _cardinalities.length; ++i) {
+      int cardinality = _cardinalities[i];
+      if (_isSingleValueGroupByColumn[i]) {
+        BlockSingleValIterator blockValIterator = (BlockSingleValIterator) _groupByBlockValIterators[i];
+        blockValIterator.skipTo(docId);
+        int dictId = blockValIterator.nextIntVal();
+        for (int j = 0; j < _tempGroupSlots.size(); ++j) {
+          _tempGroupSlots.set(j, _tempGroupSlots.getInt(j) * cardinality + dictId);
+        }
+      } else {
+        BlockMultiValIterator blockValIterator = (BlockMultiValIterator) _groupByBlockValIterators[i];
+        blockValIterator.skipTo(docId);
+        int[] entries = _multiValueEntries[i];
+        int numValues = blockValIterator.nextIntVal(entries);
+        if (numValues == 0 || numValues == Constants.EOF) {
+          _tempGroupSlots.clear();
+          return;
+        }
+        int originSize = _tempGroupSlots.size();
+        for (int j = 1; j < numValues; ++j) {
+          for (int k = 0; k < originSize; ++k) {
+            _tempGroupSlots.add(_tempGroupSlots.getInt(k) * cardinality + entries[j]);
+          }
+        }
+        for (int k = 0; k < originSize; ++k) {
+          _tempGroupSlots.set(k, _tempGroupSlots.getInt(k) * cardinality + entries[0]);
+        }
+      }
+    }
+  }
+
+  private void ensureBufferSize(int size) {
+    if (size > _docIdBuffer.length) {
+      int newSize = Math.max(size, _docIdBuffer.length * 2);
+      _docIdBuffer = Arrays.copyOf(_docIdBuffer, newSize);
+      _groupSlotBuffer = Arrays.copyOf(_groupSlotBuffer, newSize);
+    }
+  }
+}
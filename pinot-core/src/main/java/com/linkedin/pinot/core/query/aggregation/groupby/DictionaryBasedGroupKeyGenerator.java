@@ -0,0 +1,257 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import it.unimi.dsi.fastutil.ints.AbstractIntIterator;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.util.Arrays;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.BlockMultiValIterator;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.BlockValIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+
+
+/**
+ * DictionaryBasedGroupKeyGenerator packs the dictionary ids of the group by columns into a long group key,
+ * then maps every distinct group key to a dense int group slot through a hash map.
+ *
+ */
+public class DictionaryBasedGroupKeyGenerator implements GroupKeyGenerator {
+
+  private final Block[] _groupByBlocks;
+  private final Dictionary[] _dictionaries;
+  private final int[] _groupKeyBitSize;
+  private final boolean[] _isSingleValueGroupByColumn;
+  private final boolean _isGroupByColumnsContainMultiValueColumn;
+  private final BlockValIterator[] _groupByBlockValIterators;
+  private final int[][] _multiValueEntries;
+  private final String[] _stringArray;
+  private final DataType[] _groupByColumnTypes;
+  private final int[] _groupKeyDictionaryIds;
+
+  private final Long2IntOpenHashMap _groupKeyToSlot = new Long2IntOpenHashMap();
+  private final LongArrayList _slotToGroupKey = new LongArrayList();
+  private final LongArrayList _tempGroupKeys = new LongArrayList();
+
+  private int[] _docIdBuffer = new int[MAX_DOCS_PER_CHUNK];
+  private int[] _groupSlotBuffer = new int[MAX_DOCS_PER_CHUNK];
+  private final int[] _dictionaryIdBuffer = new int[MAX_DOCS_PER_CHUNK];
+  private final long[] _groupKeyBuffer = new long[MAX_DOCS_PER_CHUNK];
+
+  public DictionaryBasedGroupKeyGenerator(Block[] groupByBlocks) {
+    _groupByBlocks = groupByBlocks;
+    int numGroupByColumns = groupByBlocks.length;
+    _dictionaries = new Dictionary[numGroupByColumns];
+    _groupKeyBitSize = new int[numGroupByColumns];
+    _isSingleValueGroupByColumn = new boolean[numGroupByColumns];
+    _groupByBlockValIterators = new BlockValIterator[numGroupByColumns];
+    _multiValueEntries = new int[numGroupByColumns][];
+    _stringArray = new String[numGroupByColumns];
+    _groupByColumnTypes = new DataType[numGroupByColumns];
+    _groupKeyDictionaryIds = new int[numGroupByColumns];
+
+    boolean containsMultiValueColumn = false;
+    int totalBitSet = 0;
+    for (int i = 0; i < numGroupByColumns; ++i) {
+      _dictionaries[i] = groupByBlocks[i].getMetadata().getDictionary();
+      _groupByColumnTypes[i] = groupByBlocks[i].getMetadata().getDataType();
+      _groupKeyBitSize[i] = BitHacks.findLogBase2(_dictionaries[i].length()) + 1;
+      totalBitSet += _groupKeyBitSize[i];
+      _isSingleValueGroupByColumn[i] = groupByBlocks[i].getMetadata().isSingleValue();
+      if (!_isSingleValueGroupByColumn[i]) {
+        containsMultiValueColumn = true;
+        _multiValueEntries[i] = new int[groupByBlocks[i].getMetadata().getMaxNumberOfMultiValues()];
+      }
+    }
+    if (totalBitSet > 64) {
+      throw new IllegalArgumentException("Too many columns for an efficient group by");
+    }
+    _isGroupByColumnsContainMultiValueColumn = containsMultiValueColumn;
+    _groupKeyToSlot.defaultReturnValue(-1);
+  }
+
+  @Override
+  public int generateGroupSlots(BlockDocIdIterator docIdIterator) {
+    int numDocs = 0;
+    int length = 0;
+    int docId;
+
+    if (!_isGroupByColumnsContainMultiValueColumn) {
+      while ((length < MAX_DOCS_PER_CHUNK) && ((docId = docIdIterator.next()) != Constants.EOF)) {
+        _docIdBuffer[length++] = docId;
+      }
+      numDocs = length;
+      Arrays.fill(_groupKeyBuffer, 0, length, 0L);
+      for (int i = 0; i < _groupKeyBitSize.length; ++i) {
+        // Read the dictionary ids of the whole chunk for one column at a time.
+        _groupByBlocks[i].getBlockValueSet().readIntValues(_docIdBuffer, 0, length, _dictionaryIdBuffer, 0);
+        int bitSize = _groupKeyBitSize[i];
+        for (int j = 0; j < length; ++j) {
+          _groupKeyBuffer[j] = (_groupKeyBuffer[j] << bitSize) | _dictionaryIdBuffer[j];
+        }
+      }
+      for (int j = 0; j < length; ++j) {
+        _groupSlotBuffer[j] = getOrCreateGroupSlot(_groupKeyBuffer[j]);
+      }
+    } else {
+      for (int i = 0; i < _groupByBlocks.length; ++i) {
+        _groupByBlockValIterators[i] = _groupByBlocks[i].getBlockValueSet().iterator();
+      }
+      while ((numDocs < MAX_DOCS_PER_CHUNK) && ((docId = docIdIterator.next()) != Constants.EOF)) {
+        fillGroupKeys(docId);
+        int numGroupKeys = _tempGroupKeys.size();
+        ensureBufferSize(length + numGroupKeys);
+        for (int j = 0; j < numGroupKeys; ++j) {
+          _docIdBuffer[length] = docId;
+          _groupSlotBuffer[length] = getOrCreateGroupSlot(_tempGroupKeys.getLong(j));
+          length++;
+        }
+        numDocs++;
+      }
+    }
+    if (numDocs == 0) {
+      return Constants.EOF;
+    }
+    return length;
+  }
+
+  @Override
+  public int[] getDocIdBuffer() {
+    return _docIdBuffer;
+  }
+
+  @Override
+  public int[] getGroupSlotBuffer() {
+    return _groupSlotBuffer;
+  }
+
+  @Override
+  public int getGroupSlotUpperBound() {
+    return _slotToGroupKey.size();
+  }
+
+  @Override
+  public IntIterator getGroupSlotIterator() {
+    final int numGroupSlots = _slotToGroupKey.size();
+    return new AbstractIntIterator() {
+      private int _groupSlot = 0;
+
+      @Override
+      public boolean hasNext() {
+        return _groupSlot < numGroupSlots;
+      }
+
+      @Override
+      public int nextInt() {
+        return _groupSlot++;
+      }
+    };
+  }
+
+  @Override
+  public GroupKey getGroupKey(int groupSlot) {
+    long key = _slotToGroupKey.getLong(groupSlot);
+    for (int i = _groupKeyBitSize.length - 1; i >= 0; --i) {
+      _groupKeyDictionaryIds[i] = (int) (key & (-1L >>> (64 - _groupKeyBitSize[i])));
+      key >>>= _groupKeyBitSize[i];
+    }
+    return GroupKey.fromDictionaryIds(_dictionaries, _groupByColumnTypes, _groupKeyDictionaryIds);
+  }
+
+  @Override
+  public DataType[] getGroupByColumnTypes() {
+    return _groupByColumnTypes;
+  }
+
+  @Override
+  public String getGroupKeyString(int groupSlot) {
+    long key = _slotToGroupKey.getLong(groupSlot);
+    int i = _groupKeyBitSize.length - 1;
+    while (i >= 0) {
+      final long number = key & (-1L >>> (64 - _groupKeyBitSize[i]));
+      _stringArray[i] = _dictionaries[i].get((int) number).toString();
+      key >>>= _groupKeyBitSize[i];
+      i--;
+    }
+
+    final StringBuilder builder = new StringBuilder();
+    for (int j = 0; j < (_stringArray.length - 1); j++) {
+      builder.append(_stringArray[j]).append(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter.toString());
+    }
+    builder.append(_stringArray[_stringArray.length - 1]);
+    return builder.toString();
+  }
+
+  private int getOrCreateGroupSlot(long groupKey) {
+    int groupSlot = _groupKeyToSlot.get(groupKey);
+    if (groupSlot == -1) {
+      groupSlot = _slotToGroupKey.size();
+      _groupKeyToSlot.put(groupKey, groupSlot);
+      _slotToGroupKey.add(groupKey);
+    }
+    return groupSlot;
+  }
+
+  private void fillGroupKeys(int docId) {
+    _tempGroupKeys.clear();
+    _tempGroupKeys.add(0L);
+    for (int i = 0; i < _groupKeyBitSize.length; ++i) {
+      int bitSize = _groupKeyBitSize[i];
+      if (_isSingleValueGroupByColumn[i]) {
+        BlockSingleValIterator blockValIterator = (BlockSingleValIterator) _groupByBlockValIterators[i];
+        blockValIterator.skipTo(docId);
+        int dictId = blockValIterator.nextIntVal();
+        for (int j = 0; j < _tempGroupKeys.size(); ++j) {
+          _tempGroupKeys.set(j, (_tempGroupKeys.getLong(j) << bitSize) | dictId);
+        }
+      } else {
+        BlockMultiValIterator blockValIterator = (BlockMultiValIterator) _groupByBlockValIterators[i];
+        blockValIterator.skipTo(docId);
+        int[] entries = _multiValueEntries[i];
+        int numValues = blockValIterator.nextIntVal(entries);
+        int originSize = _tempGroupKeys.size();
+        if (numValues == 0 || numValues == Constants.EOF) {
+          _tempGroupKeys.clear();
+          return;
+        }
+        for (int j = 1; j < numValues; ++j) {
+          for (int k = 0; k < originSize; ++k) {
+            _tempGroupKeys.add((_tempGroupKeys.getLong(k) << bitSize) | entries[j]);
+          }
+        }
+        for (int k = 0; k < originSize; ++k) {
+          _tempGroupKeys.set(k, (_tempGroupKeys.getLong(k) << bitSize) | entries[0]);
+        }
+      }
+    }
+  }
+
+  private void ensureBufferSize(int size) {
+    if (size > _docIdBuffer.length) {
+      int newSize = Math.max(size, _docIdBuffer.length * 2);
+      _docIdBuffer = Arrays.copyOf(_docIdBuffer, newSize);
+      _groupSlotBuffer = Arrays.copyOf(_groupSlotBuffer, newSize);
+    }
+  }
+}
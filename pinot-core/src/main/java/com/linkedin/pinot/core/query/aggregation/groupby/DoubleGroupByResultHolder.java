@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import java.util.Arrays;
+
+
+/**
+ * Result holder backed by a double array, used by sum/min/max.
+ *
+ */
+public class DoubleGroupByResultHolder implements GroupByResultHolder {
+
+  private final double _defaultValue;
+  private double[] _resultArray;
+
+  public DoubleGroupByResultHolder(int initialCapacity, double defaultValue) {
+    _defaultValue = defaultValue;
+    _resultArray = new double[initialCapacity];
+    if (defaultValue != 0) {
+      Arrays.fill(_resultArray, defaultValue);
+    }
+  }
+
+  @Override
+  public void ensureCapacity(int capacity) {
+    if (capacity <= _resultArray.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, _resultArray.length * 2);
+    int oldCapacity = _resultArray.length;
+    _resultArray = Arrays.copyOf(_resultArray, newCapacity);
+    if (_defaultValue != 0) {
+      Arrays.fill(_resultArray, oldCapacity, newCapacity, _defaultValue);
+    }
+  }
+
+  @Override
+  public int getCapacity() {
+    return _resultArray.length;
+  }
+
+  public double getDoubleResult(int groupSlot) {
+    return _resultArray[groupSlot];
+  }
+
+  public void setValueForSlot(int groupSlot, double value) {
+    _resultArray[groupSlot] = value;
+  }
+
+  public double[] getResultArray() {
+    return _resultArray;
+  }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import java.util.Arrays;
+
+
+/**
+ * Result holder backed by a double array and a long array, used by avg to keep sum and count per group.
+ *
+ */
+public class DoubleLongPairGroupByResultHolder implements GroupByResultHolder {
+
+  private double[] _doubleArray;
+  private long[] _longArray;
+
+  public DoubleLongPairGroupByResultHolder(int initialCapacity) {
+    _doubleArray = new double[initialCapacity];
+    _longArray = new long[initialCapacity];
+  }
+
+  @Override
+  public void ensureCapacity(int capacity) {
+    if (capacity <= _doubleArray.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, _doubleArray.length * 2);
+    _doubleArray = Arrays.copyOf(_doubleArray, newCapacity);
+    _longArray = Arrays.copyOf(_longArray, newCapacity);
+  }
+
+  @Override
+  public int getCapacity() {
+    return _doubleArray.length;
+  }
+
+  public double getDoubleResult(int groupSlot) {
+    return _doubleArray[groupSlot];
+  }
+
+  public long getLongResult(int groupSlot) {
+    return _longArray[groupSlot];
+  }
+
+  public void addToSlot(int groupSlot, double doubleValue, long longValue) {
+    _doubleArray[groupSlot] += doubleValue;
+    _longArray[groupSlot] += longValue;
+  }
+
+  public void setValueForSlot(int groupSlot, double doubleValue, long longValue) {
+    _doubleArray[groupSlot] = doubleValue;
+    _longArray[groupSlot] = longValue;
+  }
+}
@@ -0,0 +1,442 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.query.QueryMemoryTracker;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction.AvgPair;
+
+
+/**
+ * GroupByIntermediateResult holds the group by results of one or more segments before they are sent to the broker.
+ * Groups are identified by segment independent GroupKeys mapped to dense group slots through an open addressing
+ * hash map, and every aggregation function keeps its accumulators in a primitive GroupByResultHolder indexed by
+ * group slot. Merging two results only touches primitives; the String keyed result maps are built once, by
+ * toGroupByResultMaps().
+ *
+ */
+public class GroupByIntermediateResult {
+  // Rough heap cost of a group, charged to the memory tracker of the query: the GroupKey with its hash map and slot
+  // list entries, and one primitive accumulator per aggregation function.
+  private static final int GROUP_KEY_OVERHEAD_BYTES = 64;
+  private static final int GROUP_KEY_BYTES_PER_COLUMN = 16;
+  private static final int ACCUMULATOR_BYTES = 8;
+  // Rough heap cost of a group in the String keyed result map of one aggregation function: the key String, the boxed
+  // value and the hash map entry.
+  private static final int RESULT_MAP_ENTRY_BYTES = 128;
+
+  private final AggregationFunction[] _aggregationFunctions;
+  private final DataType[] _groupByColumnTypes;
+  private final GroupByResultHolder[] _resultHolders;
+  private final Object2IntOpenHashMap<GroupKey> _groupKeyToSlot;
+  private final List<GroupKey> _slotToGroupKey;
+
+  public GroupByIntermediateResult(AggregationFunction[] aggregationFunctions, DataType[] groupByColumnTypes,
+      int initialCapacity) {
+    _aggregationFunctions = aggregationFunctions;
+    _groupByColumnTypes = groupByColumnTypes;
+    _resultHolders = new GroupByResultHolder[aggregationFunctions.length];
+    for (int i = 0; i < aggregationFunctions.length; ++i) {
+      _resultHolders[i] = aggregationFunctions[i].createGroupByResultHolder(initialCapacity);
+    }
+    _groupKeyToSlot = new Object2IntOpenHashMap<GroupKey>(initialCapacity);
+    _groupKeyToSlot.defaultReturnValue(-1);
+    _slotToGroupKey = new ArrayList<GroupKey>(initialCapacity);
+  }
+
+  public int getNumGroups() {
+    return _slotToGroupKey.size();
+  }
+
+  /**
+   * Merge the accumulators of otherGroupSlot in the given result holders into the group of the given key.
+   *
+   * @param groupKey
+   * @param otherResultHolders one per aggregation function, in the same order as this result
+   * @param otherGroupSlot
+   */
+  public void mergeGroup(GroupKey groupKey, GroupByResultHolder[] otherResultHolders, int otherGroupSlot) {
+    int groupSlot = getOrCreateGroupSlot(groupKey);
+    for (int i = 0; i < _aggregationFunctions.length; ++i) {
+      _aggregationFunctions[i].mergeGroupByResult(_resultHolders[i], groupSlot, otherResultHolders[i],
+          otherGroupSlot);
+    }
+  }
+
+  /**
+   * Two results can be merged if they group by columns of the same types with the same aggregation functions.
+   *
+   * @param other
+   * @return true if the results can be merged
+   */
+  public boolean isMergeableWith(GroupByIntermediateResult other) {
+    if (!Arrays.equals(_groupByColumnTypes, other._groupByColumnTypes)
+        || (_aggregationFunctions.length != other._aggregationFunctions.length)) {
+      return false;
+    }
+    for (int i = 0; i < _aggregationFunctions.length; ++i) {
+      if (!_aggregationFunctions[i].getFunctionName().equals(other._aggregationFunctions[i].getFunctionName())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Merge the groups of the other result into this one. The other result must not be used afterwards.
+   *
+   * @param other
+   */
+  public void merge(GroupByIntermediateResult other) {
+    int numGroups = other._slotToGroupKey.size();
+    for (int otherGroupSlot = 0; otherGroupSlot < numGroups; ++otherGroupSlot) {
+      mergeGroup(other._slotToGroupKey.get(otherGroupSlot), other._resultHolders, otherGroupSlot);
+    }
+  }
+
+  /**
+   * Merge the smaller of the two results into the larger one, and return the larger one.
+   *
+   * @param result1
+   * @param result2
+   * @return merged result
+   */
+  public static GroupByIntermediateResult merge(GroupByIntermediateResult result1, GroupByIntermediateResult result2) {
+    if (result1.getNumGroups() >= result2.getNumGroups()) {
+      result1.merge(result2);
+      return result1;
+    } else {
+      result2.merge(result1);
+      return result2;
+    }
+  }
+
+  /**
+   * Merge the groups of the given results that hash into the given partition into a new result.
+   * Partitions hold disjoint groups and the given results are only read, except for the accumulators moved into the
+   * new result, so all the partitions of the same results can be merged concurrently.
+   *
+   * @param results results to merge, they must be mergeable with each other and not used afterwards
+   * @param partitionId
+   * @param numPartitions
+   * @return merged result holding the groups of the partition
+   */
+  public static GroupByIntermediateResult mergePartition(List<GroupByIntermediateResult> results, int partitionId,
+      int numPartitions) {
+    int numGroups = 0;
+    for (GroupByIntermediateResult result : results) {
+      numGroups += result.getNumGroups();
+    }
+    GroupByIntermediateResult firstResult = results.get(0);
+    GroupByIntermediateResult partitionResult =
+        new GroupByIntermediateResult(firstResult._aggregationFunctions, firstResult._groupByColumnTypes,
+            Math.max(1, numGroups / numPartitions));
+    for (GroupByIntermediateResult result : results) {
+      int numResultGroups = result.getNumGroups();
+      for (int groupSlot = 0; groupSlot < numResultGroups; ++groupSlot) {
+        GroupKey groupKey = result._slotToGroupKey.get(groupSlot);
+        if (getPartition(groupKey, numPartitions) == partitionId) {
+          partitionResult.mergeGroup(groupKey, result._resultHolders, groupSlot);
+        }
+      }
+    }
+    QueryMemoryTracker.allocateOnCurrent(partitionResult.getEstimatedBytes());
+    return partitionResult;
+  }
+
+  /**
+   * Estimated number of heap bytes taken by a group of a GroupByIntermediateResult, or of a group key generator.
+   *
+   * @param numAggregationFunctions
+   * @param numGroupByColumns
+   * @return estimated bytes per group
+   */
+  public static long estimateBytesPerGroup(int numAggregationFunctions, int numGroupByColumns) {
+    return GROUP_KEY_OVERHEAD_BYTES + (long) GROUP_KEY_BYTES_PER_COLUMN * numGroupByColumns
+        + (long) ACCUMULATOR_BYTES * numAggregationFunctions;
+  }
+
+  /**
+   * Estimated number of heap bytes taken by String keyed group by result maps.
+   *
+   * @param numAggregationFunctions
+   * @param numGroups number of groups in every map
+   * @return estimated bytes of the maps
+   */
+  public static long estimateResultMapsBytes(int numAggregationFunctions, int numGroups) {
+    return (long) RESULT_MAP_ENTRY_BYTES * numAggregationFunctions * numGroups;
+  }
+
+  public long getEstimatedBytes() {
+    return estimateBytesPerGroup(_aggregationFunctions.length, _groupByColumnTypes.length) * getNumGroups();
+  }
+
+  private static int getPartition(GroupKey groupKey, int numPartitions) {
+    return (HashCommon.murmurHash3(groupKey.hashCode()) & Integer.MAX_VALUE) % numPartitions;
+  }
+
+  /**
+   * Number of groups to keep when a result goes over the groups limit of a query: half the limit, but never less than
+   * the 5 * topN groups the final trim of the combine keeps.
+   *
+   * @param numGroupsLimit
+   * @param topN
+   * @return number of groups to keep
+   */
+  public static int getNumGroupsToKeep(int numGroupsLimit, long topN) {
+    return (int) Math.min(Integer.MAX_VALUE / 2, Math.max(numGroupsLimit / 2, topN * 5));
+  }
+
+  /**
+   * Trim the result if it holds more than twice the number of groups to keep for the given limit.
+   *
+   * @param numGroupsLimit
+   * @param topN
+   * @return this result if it is within the limit, a new trimmed result otherwise
+   */
+  public GroupByIntermediateResult trimToLimit(int numGroupsLimit, long topN) {
+    int numGroupsToKeep = getNumGroupsToKeep(numGroupsLimit, topN);
+    if (getNumGroups() <= 2 * numGroupsToKeep) {
+      return this;
+    }
+    return trimToSize(numGroupsToKeep);
+  }
+
+  /**
+   * Keep the top numGroupsToKeep groups of every aggregation function and drop the others. Groups are ranked on the
+   * primitive accumulators (the smallest first for min, the largest first otherwise) with a quickselect, and a group
+   * is kept if it is in the top groups of any of the functions.
+   *
+   * @param numGroupsToKeep
+   * @return this result if there is nothing to trim, a new trimmed result otherwise
+   */
+  public GroupByIntermediateResult trimToSize(int numGroupsToKeep) {
+    int numGroups = _slotToGroupKey.size();
+    if (numGroups <= numGroupsToKeep) {
+      return this;
+    }
+    boolean[] isGroupKept = new boolean[numGroups];
+    double[] values = new double[numGroups];
+    double[] selectBuffer = new double[numGroups];
+    for (int i = 0; i < _aggregationFunctions.length; ++i) {
+      double sign = _aggregationFunctions[i].getFunctionName().startsWith("min_") ? -1 : 1;
+      for (int groupSlot = 0; groupSlot < numGroups; ++groupSlot) {
+        values[groupSlot] = sign * getRankValue(i, groupSlot);
+      }
+      System.arraycopy(values, 0, selectBuffer, 0, numGroups);
+      double threshold = selectKthLargest(selectBuffer, numGroups, numGroupsToKeep);
+      int numTiesToKeep = numGroupsToKeep;
+      for (int groupSlot = 0; groupSlot < numGroups; ++groupSlot) {
+        if (values[groupSlot] > threshold) {
+          numTiesToKeep--;
+        }
+      }
+      for (int groupSlot = 0; groupSlot < numGroups; ++groupSlot) {
+        if (values[groupSlot] > threshold) {
+          isGroupKept[groupSlot] = true;
+        } else if ((values[groupSlot] == threshold) && (numTiesToKeep > 0)) {
+          isGroupKept[groupSlot] = true;
+          numTiesToKeep--;
+        }
+      }
+    }
+
+    GroupByIntermediateResult trimmedResult =
+        new GroupByIntermediateResult(_aggregationFunctions, _groupByColumnTypes, numGroupsToKeep);
+    for (int groupSlot = 0; groupSlot < numGroups; ++groupSlot) {
+      if (isGroupKept[groupSlot]) {
+        trimmedResult.mergeGroup(_slotToGroupKey.get(groupSlot), _resultHolders, groupSlot);
+      }
+    }
+    return trimmedResult;
+  }
+
+  private double getRankValue(int aggregationIndex, int groupSlot) {
+    GroupByResultHolder resultHolder = _resultHolders[aggregationIndex];
+    if (resultHolder instanceof DoubleGroupByResultHolder) {
+      return ((DoubleGroupByResultHolder) resultHolder).getDoubleResult(groupSlot);
+    }
+    if (resultHolder instanceof LongGroupByResultHolder) {
+      return ((LongGroupByResultHolder) resultHolder).getLongResult(groupSlot);
+    }
+    if (resultHolder instanceof DoubleLongPairGroupByResultHolder) {
+      DoubleLongPairGroupByResultHolder pairResultHolder = (DoubleLongPairGroupByResultHolder) resultHolder;
+      long count = pairResultHolder.getLongResult(groupSlot);
+      return (count == 0) ? 0 : pairResultHolder.getDoubleResult(groupSlot) / count;
+    }
+    return getRankValue(_aggregationFunctions[aggregationIndex].getGroupByResult(resultHolder, groupSlot));
+  }
+
+  private static double getRankValue(Object result) {
+    if (result instanceof AvgPair) {
+      AvgPair avgPair = (AvgPair) result;
+      return (avgPair.getSecond() == 0) ? 0 : avgPair.getFirst() / avgPair.getSecond();
+    }
+    if (result instanceof Number) {
+      return ((Number) result).doubleValue();
+    }
+    if (result instanceof Collection) {
+      return ((Collection) result).size();
+    }
+    return 0;
+  }
+
+  /**
+   * Trim String keyed group by result maps, one per aggregation function, the way trimToLimit() trims a result: a map
+   * holding more than twice the number of groups to keep for the given limit keeps only its top groups.
+   * Used on the results of the group by operators that do not produce a GroupByIntermediateResult.
+   *
+   * @param aggregationFunctions
+   * @param groupByResultMaps
+   * @param numGroupsLimit
+   * @param topN
+   * @return true if groups were dropped from any of the maps
+   */
+  public static boolean trimResultMapsToLimit(List<AggregationFunction> aggregationFunctions,
+      List<Map<String, Serializable>> groupByResultMaps, int numGroupsLimit, long topN) {
+    int numGroupsToKeep = getNumGroupsToKeep(numGroupsLimit, topN);
+    boolean isTrimmed = false;
+    for (int i = 0; i < groupByResultMaps.size(); ++i) {
+      Map<String, Serializable> groupByResultMap = groupByResultMaps.get(i);
+      if ((groupByResultMap != null) && (groupByResultMap.size() > 2 * numGroupsToKeep)) {
+        trimResultMapToSize(aggregationFunctions.get(i), groupByResultMap, numGroupsToKeep);
+        isTrimmed = true;
+      }
+    }
+    return isTrimmed;
+  }
+
+  /**
+   * Keep the top numGroupsToKeep groups of the map, ranked the same way as in trimToSize().
+   */
+  private static void trimResultMapToSize(AggregationFunction aggregationFunction,
+      Map<String, Serializable> groupByResultMap, int numGroupsToKeep) {
+    int numGroups = groupByResultMap.size();
+    double sign = aggregationFunction.getFunctionName().startsWith("min_") ? -1 : 1;
+    String[] groupKeys = new String[numGroups];
+    double[] values = new double[numGroups];
+    int index = 0;
+    for (Map.Entry<String, Serializable> entry : groupByResultMap.entrySet()) {
+      groupKeys[index] = entry.getKey();
+      values[index] = sign * getRankValue(entry.getValue());
+      index++;
+    }
+    double[] selectBuffer = values.clone();
+    double threshold = selectKthLargest(selectBuffer, numGroups, numGroupsToKeep);
+    int numTiesToKeep = numGroupsToKeep;
+    for (int i = 0; i < numGroups; ++i) {
+      if (values[i] > threshold) {
+        numTiesToKeep--;
+      }
+    }
+    for (int i = 0; i < numGroups; ++i) {
+      if (values[i] < threshold) {
+        groupByResultMap.remove(groupKeys[i]);
+      } else if (values[i] == threshold) {
+        if (numTiesToKeep > 0) {
+          numTiesToKeep--;
+        } else {
+          groupByResultMap.remove(groupKeys[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Quickselect: return the k-th largest of the first length values. The values are reordered.
+   */
+  private static double selectKthLargest(double[] values, int length, int k) {
+    int target = k - 1;
+    int left = 0;
+    int right = length - 1;
+    while (left < right) {
+      double pivot = values[(left + right) >>> 1];
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (values[i] > pivot) {
+          i++;
+        }
+        while (values[j] < pivot) {
+          j--;
+        }
+        if (i <= j) {
+          double temp = values[i];
+          values[i] = values[j];
+          values[j] = temp;
+          i++;
+          j--;
+        }
+      }
+      if (target <= j) {
+        right = j;
+      } else if (target >= i) {
+        left = i;
+      } else {
+        break;
+      }
+    }
+    return values[target];
+  }
+
+  /**
+   * Build the String keyed group by result maps, one per aggregation function, as sent to the broker.
+   *
+   * @return group by result maps
+   */
+  public List<Map<String, Serializable>> toGroupByResultMaps() {
+    int numGroups = _slotToGroupKey.size();
+    QueryMemoryTracker.allocateOnCurrent(estimateResultMapsBytes(_aggregationFunctions.length, numGroups));
+    List<Map<String, Serializable>> groupByResultMaps = new ArrayList<Map<String, Serializable>>();
+    for (int i = 0; i < _aggregationFunctions.length; ++i) {
+      groupByResultMaps.add(new HashMap<String, Serializable>(numGroups));
+    }
+    for (int groupSlot = 0; groupSlot < numGroups; ++groupSlot) {
+      // Decode the group key only once for all the aggregation functions.
+      String groupKeyString = _slotToGroupKey.get(groupSlot).toGroupKeyString(_groupByColumnTypes);
+      for (int i = 0; i < _aggregationFunctions.length; ++i) {
+        groupByResultMaps.get(i).put(groupKeyString,
+            _aggregationFunctions[i].getGroupByResult(_resultHolders[i], groupSlot));
+      }
+    }
+    return groupByResultMaps;
+  }
+
+  private int getOrCreateGroupSlot(GroupKey groupKey) {
+    int groupSlot = _groupKeyToSlot.getInt(groupKey);
+    if (groupSlot == -1) {
+      groupSlot = _slotToGroupKey.size();
+      _groupKeyToSlot.put(groupKey, groupSlot);
+      _slotToGroupKey.add(groupKey);
+      for (GroupByResultHolder resultHolder : _resultHolders) {
+        resultHolder.ensureCapacity(groupSlot + 1);
+      }
+    }
+    return groupSlot;
+  }
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+/**
+ * GroupByResultHolder keeps one primitive accumulator per group slot for a single aggregation function.
+ * Group slots are dense int ids handed out by the group by operator, the holder grows as new slots show up.
+ *
+ */
+public interface GroupByResultHolder {
+
+  /**
+   * Make sure the holder can store results for group slots in [0, capacity).
+   *
+   * @param capacity
+   */
+  void ensureCapacity(int capacity);
+
+  /**
+   * Return the number of group slots the holder can currently store.
+   *
+   * @return capacity
+   */
+  int getCapacity();
+}
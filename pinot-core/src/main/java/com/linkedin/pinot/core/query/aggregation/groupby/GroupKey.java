@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import java.util.Arrays;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+
+
+/**
+ * GroupKey is a segment independent group key: the values of the group by columns of a group, value-encoded so they
+ * can be compared across segments whose dictionaries differ.
+ * Numeric values are kept as primitive bits in a long array, other values as strings. The joined group key string is
+ * only built by toGroupKeyString(), once the final groups are known.
+ *
+ */
+public final class GroupKey {
+  private final long[] _numericValues;
+  private final String[] _stringValues;
+  private final int _hashCode;
+
+  private GroupKey(long[] numericValues, String[] stringValues) {
+    _numericValues = numericValues;
+    _stringValues = stringValues;
+    _hashCode = 31 * Arrays.hashCode(numericValues) + Arrays.hashCode(stringValues);
+  }
+
+  /**
+   * Build the group key of the given dictionary ids, one per group by column.
+   *
+   * @param dictionaries
+   * @param dataTypes
+   * @param dictionaryIds
+   * @return group key
+   */
+  public static GroupKey fromDictionaryIds(Dictionary[] dictionaries, DataType[] dataTypes, int[] dictionaryIds) {
+    int numColumns = dictionaries.length;
+    long[] numericValues = new long[numColumns];
+    String[] stringValues = null;
+    for (int i = 0; i < numColumns; ++i) {
+      Dictionary dictionary = dictionaries[i];
+      int dictionaryId = dictionaryIds[i];
+      switch (dataTypes[i]) {
+        case INT:
+        case LONG:
+          numericValues[i] = dictionary.getLongValue(dictionaryId);
+          break;
+        case FLOAT:
+          numericValues[i] = Float.floatToIntBits(dictionary.getFloatValue(dictionaryId));
+          break;
+        case DOUBLE:
+          numericValues[i] = Double.doubleToLongBits(dictionary.getDoubleValue(dictionaryId));
+          break;
+        default:
+          if (stringValues == null) {
+            stringValues = new String[numColumns];
+          }
+          stringValues[i] = dictionary.get(dictionaryId).toString();
+          break;
+      }
+    }
+    return new GroupKey(numericValues, stringValues);
+  }
+
+  /**
+   * Decode the group key back to the values of the group by columns, joined by groupByMultiDelimeter.
+   * The result is the same as joining the dictionary values the key was built from.
+   *
+   * @param dataTypes
+   * @return group key string
+   */
+  public String toGroupKeyString(DataType[] dataTypes) {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < _numericValues.length; ++i) {
+      if (i > 0) {
+        builder.append(GroupByConstants.GroupByDelimiter.groupByMultiDelimeter.toString());
+      }
+      switch (dataTypes[i]) {
+        case INT:
+          builder.append((int) _numericValues[i]);
+          break;
+        case LONG:
+          builder.append(_numericValues[i]);
+          break;
+        case FLOAT:
+          builder.append(Float.intBitsToFloat((int) _numericValues[i]));
+          break;
+        case DOUBLE:
+          builder.append(Double.longBitsToDouble(_numericValues[i]));
+          break;
+        default:
+          builder.append(_stringValues[i]);
+          break;
+      }
+    }
+    return builder.toString();
+  }
+
+  @Override
+  public int hashCode() {
+    return _hashCode;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof GroupKey)) {
+      return false;
+    }
+    GroupKey other = (GroupKey) obj;
+    return (_hashCode == other._hashCode) && Arrays.equals(_numericValues, other._numericValues)
+        && Arrays.equals(_stringValues, other._stringValues);
+  }
+}
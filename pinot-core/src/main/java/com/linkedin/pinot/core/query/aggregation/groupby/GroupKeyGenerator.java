@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+
+
+/**
+ * GroupKeyGenerator maps the group by column values of each doc to an int group slot.
+ * The group slots index the primitive arrays of GroupByResultHolders.
+ *
+ * generateGroupSlots() consumes up to MAX_DOCS_PER_CHUNK docs from a doc id iterator and fills the docId buffer and
+ * the group slot buffer, one entry per (docId, groupSlot) pair. Docs with multi value group by columns can produce
+ * several entries.
+ *
+ */
+public interface GroupKeyGenerator {
+  int MAX_DOCS_PER_CHUNK = 10000;
+
+  /**
+   * Compute the group slots for the next chunk of docs of the given iterator.
+   *
+   * @param docIdIterator
+   * @return number of (docId, groupSlot) entries in the buffers, or Constants.EOF if the iterator is exhausted
+   */
+  int generateGroupSlots(BlockDocIdIterator docIdIterator);
+
+  int[] getDocIdBuffer();
+
+  int[] getGroupSlotBuffer();
+
+  /**
+   * Return an upper bound (exclusive) of all the group slots generated so far.
+   * Result holders need at least this capacity.
+   *
+   * @return group slot upper bound
+   */
+  int getGroupSlotUpperBound();
+
+  /**
+   * Return an iterator over the group slots that have been generated so far.
+   *
+   * @return group slot iterator
+   */
+  IntIterator getGroupSlotIterator();
+
+  /**
+   * Decode the group slot back to the dictionary values of the group by columns, joined by groupByMultiDelimeter.
+   *
+   * @param groupSlot
+   * @return group key string
+   */
+  String getGroupKeyString(int groupSlot);
+
+  /**
+   * Decode the group slot back to a segment independent GroupKey holding the values of the group by columns.
+   *
+   * @param groupSlot
+   * @return group key
+   */
+  GroupKey getGroupKey(int groupSlot);
+
+  /**
+   * Return the data types of the group by columns, used to decode the GroupKeys.
+   *
+   * @return group by column data types
+   */
+  DataType[] getGroupByColumnTypes();
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.aggregation.groupby;
+
+import java.util.Arrays;
+
+
+/**
+ * Result holder backed by a long array, used by count.
+ *
+ */
+public class LongGroupByResultHolder implements GroupByResultHolder {
+
+  private long[] _resultArray;
+
+  public LongGroupByResultHolder(int initialCapacity) {
+    _resultArray = new long[initialCapacity];
+  }
+
+  @Override
+  public void ensureCapacity(int capacity) {
+    if (capacity <= _resultArray.length) {
+      return;
+    }
+    _resultArray = Arrays.copyOf(_resultArray, Math.max(capacity, _resultArray.length * 2));
+  }
+
+  @Override
+  public int getCapacity() {
+    return _resultArray.length;
+  }
+
+  public long getLongResult(int groupSlot) {
+    return _resultArray[groupSlot];
+  }
+
+  public void setValueForSlot(int groupSlot, long value) {
+    _resultArray[groupSlot] = value;
+  }
+
+  public long[] getResultArray() {
+    return _resultArray;
+  }
+}
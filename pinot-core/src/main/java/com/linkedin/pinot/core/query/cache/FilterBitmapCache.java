@@ -0,0 +1,194 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+
+
+/**
+ * FilterBitmapCache keeps the doc ids matched by the AND/OR filter subtrees evaluated on one immutable segment, so
+ * that the filters shared by many queries are intersected once per segment instead of once per query.
+ *
+ * Entries are keyed by the canonical form of the filter subtree, see {@link #getCanonicalFilter(FilterQueryTree)}.
+ * The cache is bounded by the number of bitmap bytes it holds, and evicts the least recently used entries first.
+ * It is owned by its segment and cleared when the segment is destroyed.
+ *
+ * The max number of bytes of the caches created from now on is set server wide through
+ * {@link #setMaxBytesPerSegment(long)}, the caches are disabled while it is not positive.
+ *
+ */
+public class FilterBitmapCache {
+  // Rough heap cost of an entry on top of its bitmap: the canonical filter string and the linked hash map entry.
+  private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+  private static volatile long maxBytesPerSegment = 0L;
+
+  private final long _maxBytes;
+  private final LinkedHashMap<String, ImmutableRoaringBitmap> _entries =
+      new LinkedHashMap<String, ImmutableRoaringBitmap>(16, 0.75f, true);
+  private long _numBytes = 0L;
+  private long _numHits = 0L;
+  private long _numMisses = 0L;
+
+  public FilterBitmapCache(long maxBytes) {
+    _maxBytes = maxBytes;
+  }
+
+  public static void setMaxBytesPerSegment(long maxBytes) {
+    maxBytesPerSegment = maxBytes;
+  }
+
+  public static long getMaxBytesPerSegment() {
+    return maxBytesPerSegment;
+  }
+
+  /**
+   * Canonical form of the given filter subtree: the children of AND/OR nodes and the values of IN/NOT_IN predicates
+   * are sorted, so that the same filter written in a different order maps to the same entry. Values are length
+   * prefixed, so that no value can be mistaken for a separator.
+   *
+   * @param filterQueryTree
+   * @return canonical filter string
+   */
+  public static String getCanonicalFilter(FilterQueryTree filterQueryTree) {
+    final StringBuilder builder = new StringBuilder();
+    appendCanonicalFilter(filterQueryTree, builder);
+    return builder.toString();
+  }
+
+  private static void appendCanonicalFilter(FilterQueryTree filterQueryTree, StringBuilder builder) {
+    final List<FilterQueryTree> children = filterQueryTree.getChildren();
+    if (children != null && !children.isEmpty()) {
+      final List<String> canonicalChildren = new ArrayList<String>(children.size());
+      for (FilterQueryTree child : children) {
+        canonicalChildren.add(getCanonicalFilter(child));
+      }
+      Collections.sort(canonicalChildren);
+      builder.append(filterQueryTree.getOperator()).append('(');
+      for (String canonicalChild : canonicalChildren) {
+        builder.append(canonicalChild).append(';');
+      }
+      builder.append(')');
+      return;
+    }
+    final FilterOperator operator = filterQueryTree.getOperator();
+    List<String> values = filterQueryTree.getValue();
+    if (values != null && (operator == FilterOperator.IN || operator == FilterOperator.NOT_IN)) {
+      values = new ArrayList<String>(values);
+      Collections.sort(values);
+    }
+    appendValue(filterQueryTree.getColumn(), builder);
+    builder.append(operator).append('[');
+    if (values != null) {
+      for (String value : values) {
+        appendValue(value, builder);
+      }
+    }
+    builder.append(']');
+  }
+
+  private static void appendValue(String value, StringBuilder builder) {
+    if (value == null) {
+      builder.append("-1:");
+    } else {
+      builder.append(value.length()).append(':').append(value);
+    }
+  }
+
+  /**
+   * @param canonicalFilter
+   * @return the cached doc ids matched by the filter, or null if they are not cached. Callers must not modify them.
+   */
+  public synchronized ImmutableRoaringBitmap get(String canonicalFilter) {
+    final ImmutableRoaringBitmap bitmap = _entries.get(canonicalFilter);
+    if (bitmap == null) {
+      _numMisses++;
+    } else {
+      _numHits++;
+    }
+    return bitmap;
+  }
+
+  /**
+   * Cache the doc ids matched by the filter. The bitmap is kept as is, callers must not modify it afterwards.
+   *
+   * @param canonicalFilter
+   * @param bitmap
+   */
+  public void put(String canonicalFilter, ImmutableRoaringBitmap bitmap) {
+    final long entryBytes = getEntryBytes(canonicalFilter, bitmap);
+    if (entryBytes > _maxBytes) {
+      return;
+    }
+    synchronized (this) {
+      removeEntry(canonicalFilter);
+      _entries.put(canonicalFilter, bitmap);
+      _numBytes += entryBytes;
+      final Iterator<Map.Entry<String, ImmutableRoaringBitmap>> iterator = _entries.entrySet().iterator();
+      while (_numBytes > _maxBytes && iterator.hasNext()) {
+        final Map.Entry<String, ImmutableRoaringBitmap> entry = iterator.next();
+        _numBytes -= getEntryBytes(entry.getKey(), entry.getValue());
+        iterator.remove();
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    _entries.clear();
+    _numBytes = 0L;
+  }
+
+  public long getMaxBytes() {
+    return _maxBytes;
+  }
+
+  public synchronized long getNumBytes() {
+    return _numBytes;
+  }
+
+  public synchronized int getNumEntries() {
+    return _entries.size();
+  }
+
+  public synchronized long getNumHits() {
+    return _numHits;
+  }
+
+  public synchronized long getNumMisses() {
+    return _numMisses;
+  }
+
+  private void removeEntry(String canonicalFilter) {
+    final ImmutableRoaringBitmap bitmap = _entries.remove(canonicalFilter);
+    if (bitmap != null) {
+      _numBytes -= getEntryBytes(canonicalFilter, bitmap);
+    }
+  }
+
+  private static long getEntryBytes(String canonicalFilter, ImmutableRoaringBitmap bitmap) {
+    return bitmap.getSizeInBytes() + 2L * canonicalFilter.length() + ENTRY_OVERHEAD_BYTES;
+  }
+}
@@ -0,0 +1,313 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.pinot.common.query.QueryMemoryTracker;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByIntermediateResult;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+
+
+/**
+ * SegmentResultCache keeps the per segment results of aggregation and group by queries on immutable segments, so
+ * that the same query on the same segment is answered without planning nor scanning the segment again.
+ *
+ * Entries are keyed by table, segment name and segment CRC, and by the broker request stripped of the fields that do
+ * not change its result. A refreshed segment gets a new CRC, so it never reads the results of the segment it
+ * replaces; the table data managers still invalidate the entries of refreshed and removed segments to release their
+ * memory early. Results are stored serialized: the combine phase merges segment results in place, so a cached result
+ * is never handed out, every hit deserializes a fresh copy. The cache is bounded by the number of serialized bytes it
+ * holds, and evicts the least recently used entries first.
+ *
+ * Only segments loaded from disk are cached, consuming realtime segments change while they are queried.
+ *
+ */
+public class SegmentResultCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultCache.class);
+  // Rough heap cost of an entry on top of its serialized result: the key with its copy of the broker request, and the
+  // linked hash map entry.
+  private static final int ENTRY_OVERHEAD_BYTES = 1024;
+
+  private final long _maxBytes;
+  private final LinkedHashMap<SegmentResultKey, byte[]> _entries =
+      new LinkedHashMap<SegmentResultKey, byte[]>(16, 0.75f, true);
+  private long _numBytes = 0L;
+  private long _numHits = 0L;
+  private long _numMisses = 0L;
+
+  public SegmentResultCache(long maxBytes) {
+    _maxBytes = maxBytes;
+  }
+
+  /**
+   * Only the results of aggregation and group by queries on segments loaded from disk are cached.
+   *
+   * @param indexSegment
+   * @param brokerRequest
+   * @return true if the result of the query on the segment can be cached
+   */
+  public static boolean isCacheable(IndexSegment indexSegment, BrokerRequest brokerRequest) {
+    return (indexSegment instanceof IndexSegmentImpl) && brokerRequest.isSetAggregationsInfo()
+        && (indexSegment.getSegmentMetadata() != null) && (indexSegment.getSegmentMetadata().getCrc() != null);
+  }
+
+  /**
+   * Copy of the broker request without the fields that do not change the per segment result of the query, to be
+   * shared by the cache lookups of all the segments of the query.
+   *
+   * @param brokerRequest
+   * @return normalized broker request
+   */
+  public static BrokerRequest getNormalizedRequest(BrokerRequest brokerRequest) {
+    BrokerRequest normalizedRequest = brokerRequest.deepCopy();
+    normalizedRequest.unsetBucketHashKey();
+    normalizedRequest.unsetEnableTrace();
+    return normalizedRequest;
+  }
+
+  /**
+   * Look up the result of the given normalized request on the given segment.
+   *
+   * @param indexSegment
+   * @param normalizedRequest
+   * @return a fresh copy of the cached result, or null if the result is not cached
+   */
+  public IntermediateResultsBlock get(IndexSegment indexSegment, BrokerRequest normalizedRequest) {
+    final SegmentResultKey key = new SegmentResultKey(indexSegment, normalizedRequest);
+    final byte[] serializedResult;
+    synchronized (this) {
+      serializedResult = _entries.get(key);
+      if (serializedResult == null) {
+        _numMisses++;
+        return null;
+      } else {
+        _numHits++;
+      }
+    }
+    QueryMemoryTracker.allocateOnCurrent(serializedResult.length);
+    try {
+      return deserialize(serializedResult, normalizedRequest);
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while reading the cached result of segment {}", indexSegment.getSegmentName(), e);
+      synchronized (this) {
+        removeEntry(key);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Cache the result of the given normalized request on the given segment. Results with exceptions are not cached.
+   *
+   * @param indexSegment
+   * @param normalizedRequest
+   * @param resultBlock
+   */
+  public void put(IndexSegment indexSegment, BrokerRequest normalizedRequest, IntermediateResultsBlock resultBlock) {
+    if ((resultBlock.getExceptions() != null) && !resultBlock.getExceptions().isEmpty()) {
+      return;
+    }
+    final byte[] serializedResult;
+    try {
+      serializedResult = serialize(resultBlock);
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while caching the result of segment {}", indexSegment.getSegmentName(), e);
+      return;
+    }
+    final long entryBytes = getEntryBytes(serializedResult);
+    if (entryBytes > _maxBytes) {
+      return;
+    }
+    final SegmentResultKey key = new SegmentResultKey(indexSegment, normalizedRequest);
+    synchronized (this) {
+      removeEntry(key);
+      _entries.put(key, serializedResult);
+      _numBytes += entryBytes;
+      final Iterator<Map.Entry<SegmentResultKey, byte[]>> iterator = _entries.entrySet().iterator();
+      while (_numBytes > _maxBytes && iterator.hasNext()) {
+        _numBytes -= getEntryBytes(iterator.next().getValue());
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Drop all the cached results of the given segment, once it is refreshed or removed. Segments are only identified
+   * by name here, the results of segments of other tables with the same name are dropped as well.
+   *
+   * @param segmentName
+   */
+  public synchronized void invalidateSegment(String segmentName) {
+    final Iterator<Map.Entry<SegmentResultKey, byte[]>> iterator = _entries.entrySet().iterator();
+    int numInvalidatedEntries = 0;
+    while (iterator.hasNext()) {
+      final Map.Entry<SegmentResultKey, byte[]> entry = iterator.next();
+      if (entry.getKey()._segmentName.equals(segmentName)) {
+        _numBytes -= getEntryBytes(entry.getValue());
+        iterator.remove();
+        numInvalidatedEntries++;
+      }
+    }
+    if (numInvalidatedEntries > 0) {
+      LOGGER.info("Invalidated {} cached results of segment {}", numInvalidatedEntries, segmentName);
+    }
+  }
+
+  public long getMaxBytes() {
+    return _maxBytes;
+  }
+
+  public synchronized long getNumBytes() {
+    return _numBytes;
+  }
+
+  public synchronized int getNumEntries() {
+    return _entries.size();
+  }
+
+  public synchronized long getNumHits() {
+    return _numHits;
+  }
+
+  public synchronized long getNumMisses() {
+    return _numMisses;
+  }
+
+  private void removeEntry(SegmentResultKey key) {
+    final byte[] serializedResult = _entries.remove(key);
+    if (serializedResult != null) {
+      _numBytes -= getEntryBytes(serializedResult);
+    }
+  }
+
+  private static long getEntryBytes(byte[] serializedResult) {
+    return serializedResult.length + ENTRY_OVERHEAD_BYTES;
+  }
+
+  private static byte[] serialize(IntermediateResultsBlock resultBlock) throws IOException {
+    final CachedResult cachedResult = new CachedResult();
+    if (resultBlock.getAggregationResult() != null) {
+      cachedResult._aggregationResults = new ArrayList<Serializable>(resultBlock.getAggregationResult());
+    } else {
+      // Don't convert the result of the block itself, it is still merged with the other segments on group keys.
+      final GroupByIntermediateResult groupByResult = resultBlock.getGroupByIntermediateResult();
+      final List<Map<String, Serializable>> groupByResultMaps = (groupByResult != null)
+          ? groupByResult.toGroupByResultMaps() : resultBlock.getAggregationGroupByOperatorResult();
+      cachedResult._groupByResults = new ArrayList<Map<String, Serializable>>(groupByResultMaps);
+    }
+    cachedResult._numDocsScanned = resultBlock.getNumDocsScanned();
+    cachedResult._totalDocs = resultBlock.getTotalDocs();
+    cachedResult._isApproximate = resultBlock.isApproximate();
+
+    final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    final ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
+    objectOutputStream.writeObject(cachedResult);
+    objectOutputStream.close();
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  private static IntermediateResultsBlock deserialize(byte[] serializedResult, BrokerRequest brokerRequest)
+      throws IOException, ClassNotFoundException {
+    final ObjectInputStream objectInputStream =
+        new ObjectInputStream(new ByteArrayInputStream(serializedResult));
+    final CachedResult cachedResult;
+    try {
+      cachedResult = (CachedResult) objectInputStream.readObject();
+    } finally {
+      objectInputStream.close();
+    }
+
+    final IntermediateResultsBlock resultBlock;
+    if (cachedResult._aggregationResults != null) {
+      resultBlock =
+          new IntermediateResultsBlock(AggregationFunctionFactory.getAggregationFunction(brokerRequest),
+              cachedResult._aggregationResults);
+    } else {
+      resultBlock =
+          new IntermediateResultsBlock(AggregationFunctionFactory.getAggregationFunction(brokerRequest),
+              cachedResult._groupByResults, true);
+    }
+    resultBlock.setNumDocsScanned(cachedResult._numDocsScanned);
+    resultBlock.setTotalDocs(cachedResult._totalDocs);
+    resultBlock.setApproximate(cachedResult._isApproximate);
+    return resultBlock;
+  }
+
+  private static class CachedResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private ArrayList<Serializable> _aggregationResults;
+    private ArrayList<Map<String, Serializable>> _groupByResults;
+    private long _numDocsScanned;
+    private long _totalDocs;
+    private boolean _isApproximate;
+  }
+
+  private static class SegmentResultKey {
+    private final String _tableName;
+    private final String _segmentName;
+    private final String _crc;
+    private final BrokerRequest _normalizedRequest;
+    private final int _hashCode;
+
+    SegmentResultKey(IndexSegment indexSegment, BrokerRequest normalizedRequest) {
+      _tableName = indexSegment.getSegmentMetadata().getTableName();
+      _segmentName = indexSegment.getSegmentName();
+      _crc = indexSegment.getSegmentMetadata().getCrc();
+      _normalizedRequest = normalizedRequest;
+      int hashCode = _segmentName.hashCode();
+      hashCode = 31 * hashCode + _crc.hashCode();
+      _hashCode = 31 * hashCode + _normalizedRequest.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof SegmentResultKey)) {
+        return false;
+      }
+      final SegmentResultKey other = (SegmentResultKey) o;
+      return (_hashCode == other._hashCode) && _segmentName.equals(other._segmentName) && _crc.equals(other._crc)
+          && ((_tableName == null) ? (other._tableName == null) : _tableName.equals(other._tableName))
+          && _normalizedRequest.equals(other._normalizedRequest);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+}
@@ -32,6 +32,33 @@ public class QueryExecutorConfig {
   public static final String QUERY_PLANNER = "queryPlanner";
   // Prefix key of TimeOut
   public static final String TIME_OUT = "timeout";
+  // Key of the max cardinality product of the groupBy columns to use the dense array group by
+  public static final String MAX_DENSE_GROUP_BY_CARDINALITY_PRODUCT = "maxDenseGroupByCardinalityProduct";
+  public static final int DEFAULT_MAX_DENSE_GROUP_BY_CARDINALITY_PRODUCT = 1000000;
+  // Key of the max number of threads a single query may use to process its segments
+  public static final String MAX_THREADS_PER_QUERY = "maxThreadsPerQuery";
+  public static final int DEFAULT_MAX_THREADS_PER_QUERY = Math.max(1, Runtime.getRuntime().availableProcessors());
+  // Key of the min number of segments to process per thread before another thread is used for a query
+  public static final String MIN_SEGMENTS_PER_THREAD = "minSegmentsPerThread";
+  public static final int DEFAULT_MIN_SEGMENTS_PER_THREAD = 10;
+  // Key of the max number of groups a group by query keeps per segment and per combined result before trimming
+  public static final String NUM_GROUPS_LIMIT = "numGroupsLimit";
+  public static final int DEFAULT_NUM_GROUPS_LIMIT = 100000;
+  // Key of the max number of heap bytes a single query may allocate, non positive for no limit
+  public static final String MAX_QUERY_MEMORY_BYTES = "maxQueryMemoryBytes";
+  public static final long DEFAULT_MAX_QUERY_MEMORY_BYTES = -1L;
+  // Key of the max number of heap bytes all the queries in flight may allocate, non positive for no limit
+  public static final String QUERY_MEMORY_BUDGET_BYTES = "queryMemoryBudgetBytes";
+  public static final long DEFAULT_QUERY_MEMORY_BUDGET_BYTES = Runtime.getRuntime().maxMemory() / 2;
+  // Key of the max number of bytes of per segment results cached for offline segments, non positive to disable the cache
+  public static final String SEGMENT_RESULT_CACHE_MAX_BYTES = "segmentResultCacheMaxBytes";
+  public static final long DEFAULT_SEGMENT_RESULT_CACHE_MAX_BYTES = 0L;
+  // Key of the max number of bytes of filter bitmaps cached per offline segment, non positive to disable the caches
+  public static final String FILTER_BITMAP_CACHE_MAX_BYTES_PER_SEGMENT = "filterBitmapCacheMaxBytesPerSegment";
+  public static final long DEFAULT_FILTER_BITMAP_CACHE_MAX_BYTES_PER_SEGMENT = 0L;
+  // Key of the max number of inverted index bitmap handles cached server wide, non positive to disable the cache
+  public static final String INVERTED_INDEX_BITMAP_CACHE_MAX_ENTRIES = "invertedIndexBitmapCacheMaxEntries";
+  public static final long DEFAULT_INVERTED_INDEX_BITMAP_CACHE_MAX_ENTRIES = 100000L;
 
   private static final String[] REQUIRED_KEYS = {};
 
@@ -39,6 +66,15 @@ public class QueryExecutorConfig {
   private SegmentPrunerConfig _segmentPrunerConfig;
   private QueryPlannerConfig _queryPlannerConfig;
   private final long _timeOutMs;
+  private final int _maxDenseGroupByCardinalityProduct;
+  private final int _maxThreadsPerQuery;
+  private final int _minSegmentsPerThread;
+  private final int _numGroupsLimit;
+  private final long _maxQueryMemoryBytes;
+  private final long _queryMemoryBudgetBytes;
+  private final long _segmentResultCacheMaxBytes;
+  private final long _filterBitmapCacheMaxBytesPerSegment;
+  private final long _invertedIndexBitmapCacheMaxEntries;
 
   public QueryExecutorConfig(Configuration config) throws ConfigurationException {
     _queryExecutorConfig = config;
@@ -46,6 +82,23 @@ public class QueryExecutorConfig {
     _segmentPrunerConfig = new SegmentPrunerConfig(_queryExecutorConfig.subset(QUERY_PRUNER));
     _queryPlannerConfig = new QueryPlannerConfig(_queryExecutorConfig.subset(QUERY_PLANNER));
     _timeOutMs = _queryExecutorConfig.getLong(TIME_OUT, -1);
+    _maxDenseGroupByCardinalityProduct =
+        _queryExecutorConfig.getInt(MAX_DENSE_GROUP_BY_CARDINALITY_PRODUCT,
+            DEFAULT_MAX_DENSE_GROUP_BY_CARDINALITY_PRODUCT);
+    _maxThreadsPerQuery = _queryExecutorConfig.getInt(MAX_THREADS_PER_QUERY, DEFAULT_MAX_THREADS_PER_QUERY);
+    _minSegmentsPerThread = _queryExecutorConfig.getInt(MIN_SEGMENTS_PER_THREAD, DEFAULT_MIN_SEGMENTS_PER_THREAD);
+    _numGroupsLimit = _queryExecutorConfig.getInt(NUM_GROUPS_LIMIT, DEFAULT_NUM_GROUPS_LIMIT);
+    _maxQueryMemoryBytes = _queryExecutorConfig.getLong(MAX_QUERY_MEMORY_BYTES, DEFAULT_MAX_QUERY_MEMORY_BYTES);
+    _queryMemoryBudgetBytes =
+        _queryExecutorConfig.getLong(QUERY_MEMORY_BUDGET_BYTES, DEFAULT_QUERY_MEMORY_BUDGET_BYTES);
+    _segmentResultCacheMaxBytes =
+        _queryExecutorConfig.getLong(SEGMENT_RESULT_CACHE_MAX_BYTES, DEFAULT_SEGMENT_RESULT_CACHE_MAX_BYTES);
+    _filterBitmapCacheMaxBytesPerSegment =
+        _queryExecutorConfig.getLong(FILTER_BITMAP_CACHE_MAX_BYTES_PER_SEGMENT,
+            DEFAULT_FILTER_BITMAP_CACHE_MAX_BYTES_PER_SEGMENT);
+    _invertedIndexBitmapCacheMaxEntries =
+        _queryExecutorConfig.getLong(INVERTED_INDEX_BITMAP_CACHE_MAX_ENTRIES,
+            DEFAULT_INVERTED_INDEX_BITMAP_CACHE_MAX_ENTRIES);
   }
 
   private void checkRequiredKeys() throws ConfigurationException {
@@ -71,4 +124,40 @@ public class QueryExecutorConfig {
   public long getTimeOut() {
     return _timeOutMs;
   }
+
+  public int getMaxDenseGroupByCardinalityProduct() {
+    return _maxDenseGroupByCardinalityProduct;
+  }
+
+  public int getMaxThreadsPerQuery() {
+    return _maxThreadsPerQuery;
+  }
+
+  public int getMinSegmentsPerThread() {
+    return _minSegmentsPerThread;
+  }
+
+  public int getNumGroupsLimit() {
+    return _numGroupsLimit;
+  }
+
+  public long getMaxQueryMemoryBytes() {
+    return _maxQueryMemoryBytes;
+  }
+
+  public long getQueryMemoryBudgetBytes() {
+    return _queryMemoryBudgetBytes;
+  }
+
+  public long getSegmentResultCacheMaxBytes() {
+    return _segmentResultCacheMaxBytes;
+  }
+
+  public long getFilterBitmapCacheMaxBytesPerSegment() {
+    return _filterBitmapCacheMaxBytesPerSegment;
+  }
+
+  public long getInvertedIndexBitmapCacheMaxEntries() {
+    return _invertedIndexBitmapCacheMaxEntries;
+  }
 }
@@ -32,21 +32,34 @@ import com.linkedin.pinot.common.exception.QueryException;
 import com.linkedin.pinot.common.metrics.ServerMeter;
 import com.linkedin.pinot.common.metrics.ServerMetrics;
 import com.linkedin.pinot.common.metrics.ServerQueryPhase;
+import com.linkedin.pinot.common.query.QueryCancellationFlag;
+import com.linkedin.pinot.common.query.QueryCancelledException;
 import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.common.query.QueryMemoryBudget;
+import com.linkedin.pinot.common.query.QueryMemoryLimitExceededException;
+import com.linkedin.pinot.common.query.QueryMemoryTracker;
+import com.linkedin.pinot.common.query.QueryValidationException;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.InstanceRequest;
+import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.core.data.manager.offline.InstanceDataManager;
 import com.linkedin.pinot.core.data.manager.offline.SegmentDataManager;
 import com.linkedin.pinot.core.data.manager.offline.TableDataManager;
+import com.linkedin.pinot.core.data.manager.offline.TableDataManagerProvider;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
 import com.linkedin.pinot.core.plan.maker.PlanMaker;
+import com.linkedin.pinot.core.query.cache.FilterBitmapCache;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
 import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 import com.linkedin.pinot.core.query.pruner.SegmentPrunerService;
 import com.linkedin.pinot.core.query.pruner.SegmentPrunerServiceImpl;
+import com.linkedin.pinot.core.segment.index.InvertedIndexBitmapCache;
+import com.linkedin.pinot.core.segment.index.readers.DictionaryHeapUsage;
 import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Gauge;
 import com.yammer.metrics.core.MetricName;
 import com.yammer.metrics.core.Timer;
 
@@ -66,6 +79,8 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
   private boolean _printQueryPlan = true;
   private final Map<String, Long> _resourceTimeOutMsMap = new ConcurrentHashMap<String, Long>();
   private ServerMetrics _serverMetrics;
+  private QueryMemoryBudget _queryMemoryBudget = null;
+  private SegmentResultCache _segmentResultCache = null;
 
   public ServerQueryExecutorV1Impl() {
   }
@@ -84,12 +99,37 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
       _defaultTimeOutMs = _queryExecutorConfig.getTimeOut();
     }
     LOGGER.info("Default timeout for query executor : {}", _defaultTimeOutMs);
+    _queryMemoryBudget = new QueryMemoryBudget(_queryExecutorConfig.getQueryMemoryBudgetBytes());
+    LOGGER.info("Query memory budget for query executor : {} bytes, max memory per query : {} bytes",
+        _queryExecutorConfig.getQueryMemoryBudgetBytes(), _queryExecutorConfig.getMaxQueryMemoryBytes());
     LOGGER.info("Trying to build SegmentPrunerService");
     if (_segmentPrunerService == null) {
       _segmentPrunerService = new SegmentPrunerServiceImpl(_queryExecutorConfig.getPrunerConfig());
     }
+    if (_queryExecutorConfig.getSegmentResultCacheMaxBytes() > 0) {
+      LOGGER.info("Trying to build SegmentResultCache of {} bytes", _queryExecutorConfig.getSegmentResultCacheMaxBytes());
+      _segmentResultCache = new SegmentResultCache(_queryExecutorConfig.getSegmentResultCacheMaxBytes());
+      TableDataManagerProvider.setSegmentResultCache(_segmentResultCache);
+    }
+    LOGGER.info("Filter bitmap cache per offline segment : {} bytes",
+        _queryExecutorConfig.getFilterBitmapCacheMaxBytesPerSegment());
+    FilterBitmapCache.setMaxBytesPerSegment(_queryExecutorConfig.getFilterBitmapCacheMaxBytesPerSegment());
+    LOGGER.info("Inverted index bitmap cache : {} entries", _queryExecutorConfig.getInvertedIndexBitmapCacheMaxEntries());
+    if (_queryExecutorConfig.getInvertedIndexBitmapCacheMaxEntries() > 0) {
+      InvertedIndexBitmapCache.setInstance(
+          new InvertedIndexBitmapCache(_queryExecutorConfig.getInvertedIndexBitmapCacheMaxEntries()));
+    } else {
+      InvertedIndexBitmapCache.setInstance(null);
+    }
+    registerInvertedIndexBitmapCacheGauges();
+    _serverMetrics.addCallbackGauge("onHeapDictionaryBytes", new Gauge<Long>() {
+      @Override
+      public Long value() {
+        return DictionaryHeapUsage.getHeapBytes();
+      }
+    });
     LOGGER.info("Trying to build QueryPlanMaker");
-    _planMaker = new InstancePlanMakerImplV2();
+    _planMaker = new InstancePlanMakerImplV2(_queryExecutorConfig, _segmentResultCache);
     LOGGER.info("Trying to build QueryExecutorTimer");
     if (_queryExecutorTimer == null) {
       _queryExecutorTimer =
@@ -102,9 +142,17 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
   public DataTable processQuery(final InstanceRequest instanceRequest) {
     DataTable instanceResponse;
     long start = System.currentTimeMillis();
+    // Operators, services and builders working on the query charge the memory they allocate to its tracker.
+    final QueryMemoryTracker queryMemoryTracker =
+        new QueryMemoryTracker(_queryMemoryBudget, _queryExecutorConfig.getMaxQueryMemoryBytes());
+    QueryMemoryTracker.setCurrent(queryMemoryTracker);
     try {
       final BrokerRequest brokerRequest = instanceRequest.getQuery();
       LOGGER.info("Incoming query is : {}", brokerRequest);
+      if (_queryMemoryBudget.isExhausted()) {
+        throw new QueryMemoryLimitExceededException("Query memory budget of " + _queryMemoryBudget.getMaxBytes()
+            + " bytes is exhausted, rejecting query");
+      }
       long startPruningTime = System.nanoTime();
       final List<IndexSegment> queryableSegmentDataManagerList = getPrunedQueryableSegments(instanceRequest);
       long pruningTime = System.nanoTime() - startPruningTime;
@@ -133,6 +181,15 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
       globalQueryPlan.execute();
       long executeTime = System.nanoTime() - executeStartTime;
       _serverMetrics.addPhaseTiming(brokerRequest, ServerQueryPhase.QUERY_PLAN_EXECUTION, executeTime);
+      if (QueryCancellationFlag.isCurrentCancelled()) {
+        // Operators stopped scanning segments once the query got cancelled, the response is incomplete.
+        throw new QueryCancelledException("Request " + instanceRequest.getRequestId() + " has been cancelled");
+      }
+      if (queryMemoryTracker.isLimitExceeded()) {
+        // Threads of the query caught the exception and terminated early, the response is incomplete.
+        throw new QueryMemoryLimitExceededException("Query went over its memory limit after allocating "
+            + queryMemoryTracker.getPeakBytes() + " bytes");
+      }
       instanceResponse = globalQueryPlan.getInstanceResponse();
       long end = System.currentTimeMillis();
       LOGGER.info("Searching Instance for Request Id - {}, browse took: {}", instanceRequest.getRequestId(), (end - start));
@@ -141,17 +198,39 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
       instanceResponse.getMetadata().put("requestId", Long.toString(instanceRequest.getRequestId()));
       return instanceResponse;
     } catch (Exception e) {
+      if ((e instanceof QueryCancelledException) || QueryCancellationFlag.isCurrentCancelled()) {
+        // Nobody waits for the response of a cancelled query anymore, don't report it as a failure.
+        LOGGER.info("Request Id - {} cancelled after {}ms", instanceRequest.getRequestId(),
+            System.currentTimeMillis() - start);
+        ProcessingException processingException = QueryException.QUERY_CANCELLED_ERROR.deepCopy();
+        processingException.setMessage("Request " + instanceRequest.getRequestId() + " has been cancelled");
+        return getExceptionResponse(instanceRequest, processingException, start);
+      }
+      if ((e instanceof QueryMemoryLimitExceededException) || queryMemoryTracker.isLimitExceeded()) {
+        // Operators may have failed in other ways after the memory limit exception terminated part of the query.
+        _serverMetrics.addMeteredValue(instanceRequest.getQuery(), ServerMeter.QUERY_MEMORY_LIMIT_EXCEEDED_EXCEPTIONS,
+            1);
+        LOGGER.error("Query memory limit exceeded for Request Id - {} after allocating {} bytes",
+            instanceRequest.getRequestId(), queryMemoryTracker.getPeakBytes(), e);
+        ProcessingException processingException = QueryException.QUERY_MEMORY_LIMIT_EXCEEDED_ERROR.deepCopy();
+        processingException.setMessage((e instanceof QueryMemoryLimitExceededException) ? e.getMessage()
+            : "Query went over its memory limit after allocating " + queryMemoryTracker.getPeakBytes() + " bytes");
+        return getExceptionResponse(instanceRequest, processingException, start);
+      }
+      if (e instanceof QueryValidationException) {
+        LOGGER.info("Request Id - {} rejected: {}", instanceRequest.getRequestId(), e.getMessage());
+        ProcessingException processingException = QueryException.QUERY_VALIDATION_ERROR.deepCopy();
+        processingException.setMessage(e.getMessage());
+        return getExceptionResponse(instanceRequest, processingException, start);
+      }
       _serverMetrics.addMeteredValue(instanceRequest.getQuery(), ServerMeter.QUERY_EXECUTION_EXCEPTIONS, 1);
       LOGGER.error(e.getMessage(), e);
-      instanceResponse = new DataTable();
-      instanceResponse.addException(QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e));
-      long end = System.currentTimeMillis();
-      LOGGER.info("Searching Instance for Request Id - {}, browse took: {}", instanceRequest.getRequestId(), (end - start));
-      LOGGER.debug("InstanceResponse for Request Id - {} : {}", instanceRequest.getRequestId(), instanceResponse.toString());
-      instanceResponse.getMetadata().put("timeUsedMs", Long.toString((end - start)));
-      instanceResponse.getMetadata().put("requestId", Long.toString(instanceRequest.getRequestId()));
-      return instanceResponse;
+      return getExceptionResponse(instanceRequest,
+          QueryException.getException(QueryException.QUERY_EXECUTION_ERROR, e), start);
     } finally {
+      QueryMemoryTracker.setCurrent(null);
+      queryMemoryTracker.close();
+      _serverMetrics.addQueryPeakMemoryBytes(instanceRequest.getQuery(), queryMemoryTracker.getPeakBytes());
       if (_instanceDataManager.getTableDataManager(instanceRequest.getQuery().getQuerySource().getTableName()) != null) {
         _instanceDataManager.getTableDataManager(instanceRequest.getQuery().getQuerySource().getTableName())
             .returnSegmentReaders(instanceRequest.getSearchSegments());
@@ -159,6 +238,18 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     }
   }
 
+  private DataTable getExceptionResponse(InstanceRequest instanceRequest, ProcessingException processingException,
+      long start) {
+    DataTable instanceResponse = new DataTable();
+    instanceResponse.addException(processingException);
+    long end = System.currentTimeMillis();
+    LOGGER.info("Searching Instance for Request Id - {}, browse took: {}", instanceRequest.getRequestId(), (end - start));
+    LOGGER.debug("InstanceResponse for Request Id - {} : {}", instanceRequest.getRequestId(), instanceResponse.toString());
+    instanceResponse.getMetadata().put("timeUsedMs", Long.toString((end - start)));
+    instanceResponse.getMetadata().put("requestId", Long.toString(instanceRequest.getRequestId()));
+    return instanceResponse;
+  }
+
   private List<IndexSegment> getPrunedQueryableSegments(final InstanceRequest instanceRequest) {
     LOGGER
         .info("InstanceRequest request {} segments", instanceRequest.getSearchSegments().size());
@@ -180,6 +271,41 @@ public class ServerQueryExecutorV1Impl implements QueryExecutor {
     return queryableSegmentDataManagerList;
   }
 
+  private void registerInvertedIndexBitmapCacheGauges() {
+    _serverMetrics.addCallbackGauge("invertedIndexBitmapCacheEntries", new Gauge<Long>() {
+      @Override
+      public Long value() {
+        InvertedIndexBitmapCache cache = InvertedIndexBitmapCache.getInstance();
+        return (cache != null) ? cache.getNumEntries() : 0L;
+      }
+    });
+    _serverMetrics.addCallbackGauge("invertedIndexBitmapCacheHits", new Gauge<Long>() {
+      @Override
+      public Long value() {
+        InvertedIndexBitmapCache cache = InvertedIndexBitmapCache.getInstance();
+        return (cache != null) ? cache.getNumHits() : 0L;
+      }
+    });
+    _serverMetrics.addCallbackGauge("invertedIndexBitmapCacheMisses", new Gauge<Long>() {
+      @Override
+      public Long value() {
+        InvertedIndexBitmapCache cache = InvertedIndexBitmapCache.getInstance();
+        return (cache != null) ? cache.getNumMisses() : 0L;
+      }
+    });
+    _serverMetrics.addCallbackGauge("invertedIndexBitmapCacheEvictions", new Gauge<Long>() {
+      @Override
+      public Long value() {
+        InvertedIndexBitmapCache cache = InvertedIndexBitmapCache.getInstance();
+        return (cache != null) ? cache.getNumEvictions() : 0L;
+      }
+    });
+  }
+
+  public SegmentResultCache getSegmentResultCache() {
+    return _segmentResultCache;
+  }
+
   @Override
   public synchronized void shutDown() {
     if (isStarted()) {
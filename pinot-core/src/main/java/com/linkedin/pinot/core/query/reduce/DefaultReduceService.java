@@ -57,6 +57,7 @@ public class DefaultReduceService implements ReduceService {
   private static String NUM_DOCS_SCANNED = "numDocsScanned";
   private static String TIME_USED_MS = "timeUsedMs";
   private static String TOTAL_DOCS = "totalDocs";
+  private static String IS_APPROXIMATE = "isApproximate";
 
   @Override
   public BrokerResponse reduce(BrokerRequest brokerRequest, Map<ServerInstance, InstanceResponse> instanceResponseMap) {
@@ -148,6 +149,10 @@ public class DefaultReduceService implements ReduceService {
       if (Long.parseLong(instanceResponse.getMetadata().get(TIME_USED_MS)) > brokerResponse.getTimeUsedMs()) {
         brokerResponse.setTimeUsedMs(Long.parseLong(instanceResponse.getMetadata().get(TIME_USED_MS)));
       }
+      // reduceOnIsApproximate
+      if (Boolean.parseBoolean(instanceResponse.getMetadata().get(IS_APPROXIMATE))) {
+        brokerResponse.setApproximate(true);
+      }
     }
     try {
 
@@ -0,0 +1,360 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.ConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.metrics.ServerMeter;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.metrics.ServerQueryPhase;
+import com.linkedin.pinot.common.query.QueryCancellationFlag;
+import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.common.query.QueryScheduler;
+import com.linkedin.pinot.common.request.InstanceRequest;
+import com.linkedin.pinot.common.response.ProcessingException;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.common.utils.NamedThreadFactory;
+
+
+/**
+ * QueryScheduler running queries on a fixed pool of worker threads out of a bounded queue.
+ *
+ * Pending queries are queued per table. A free worker picks the oldest query of the table with the fewest running
+ * queries, so that a burst of queries on one table does not starve the other tables, and a table never runs more
+ * than its configured share of the workers at once. Queries arriving while the queue is full are rejected with a
+ * QUERY_SCHEDULING_ERROR response.
+ *
+ * Queries are registered by broker and request id until they finish, so that a broker giving up on a query can
+ * cancel it:
+ * a pending query is answered right away without being executed, and the cancellation flag of a running query is
+ * raised for its operators to stop early.
+ */
+public class FairShareQueryScheduler implements QueryScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FairShareQueryScheduler.class);
+
+  // Key of the number of threads running queries
+  public static final String NUM_WORKER_THREADS = "numWorkerThreads";
+  public static final int DEFAULT_NUM_WORKER_THREADS = 20;
+  // Key of the max number of queries waiting for a worker thread, over which new queries are rejected
+  public static final String MAX_PENDING_QUERIES = "maxPendingQueries";
+  public static final int DEFAULT_MAX_PENDING_QUERIES = 1000;
+  // Key of the max number of queries of a single table running at once, non positive for all the worker threads
+  public static final String MAX_RUNNING_QUERIES_PER_TABLE = "maxRunningQueriesPerTable";
+  public static final int DEFAULT_MAX_RUNNING_QUERIES_PER_TABLE = -1;
+
+  private QueryExecutor _queryExecutor;
+  private ServerMetrics _serverMetrics;
+  private int _numWorkerThreads;
+  private int _maxPendingQueries;
+  private int _maxRunningQueriesPerTable;
+  private ExecutorService _workerThreads;
+  private volatile boolean _isStarted = false;
+
+  private final ReentrantLock _lock = new ReentrantLock();
+  private final Condition _queryAvailable = _lock.newCondition();
+  // Guarded by _lock
+  private final Map<String, TableQueue> _tableQueues = new HashMap<String, TableQueue>();
+  // Request ids are only unique per broker, queries are registered by getQueryKey()
+  private final Map<String, SchedulerQuery> _queriesByKey = new HashMap<String, SchedulerQuery>();
+  private int _numPendingQueries = 0;
+
+  @Override
+  public void init(Configuration querySchedulerConfig, QueryExecutor queryExecutor, ServerMetrics serverMetrics)
+      throws ConfigurationException {
+    _queryExecutor = queryExecutor;
+    _serverMetrics = serverMetrics;
+    _numWorkerThreads = querySchedulerConfig.getInt(NUM_WORKER_THREADS, DEFAULT_NUM_WORKER_THREADS);
+    if (_numWorkerThreads <= 0) {
+      throw new ConfigurationException("Invalid number of query scheduler worker threads: " + _numWorkerThreads);
+    }
+    _maxPendingQueries = querySchedulerConfig.getInt(MAX_PENDING_QUERIES, DEFAULT_MAX_PENDING_QUERIES);
+    _maxRunningQueriesPerTable =
+        querySchedulerConfig.getInt(MAX_RUNNING_QUERIES_PER_TABLE, DEFAULT_MAX_RUNNING_QUERIES_PER_TABLE);
+    if (_maxRunningQueriesPerTable <= 0) {
+      _maxRunningQueriesPerTable = _numWorkerThreads;
+    }
+    LOGGER.info("Query scheduler with {} worker threads, {} max pending queries, {} max running queries per table",
+        _numWorkerThreads, _maxPendingQueries, _maxRunningQueriesPerTable);
+  }
+
+  @Override
+  public synchronized void start() {
+    if (_isStarted) {
+      LOGGER.warn("QueryScheduler is already started, won't do anything!");
+      return;
+    }
+    _isStarted = true;
+    _workerThreads = Executors.newFixedThreadPool(_numWorkerThreads, new NamedThreadFactory("query-scheduler"));
+    for (int i = 0; i < _numWorkerThreads; i++) {
+      _workerThreads.execute(new Runnable() {
+        @Override
+        public void run() {
+          runQueries();
+        }
+      });
+    }
+    LOGGER.info("QueryScheduler is started!");
+  }
+
+  @Override
+  public ListenableFuture<DataTable> submit(InstanceRequest instanceRequest) {
+    SettableFuture<DataTable> responseFuture = SettableFuture.create();
+    SchedulerQuery query = new SchedulerQuery(instanceRequest, responseFuture);
+    String rejectionMessage = null;
+    _lock.lock();
+    try {
+      if (!_isStarted) {
+        rejectionMessage = "Query scheduler is not running";
+      } else if (_numPendingQueries >= _maxPendingQueries) {
+        rejectionMessage = "Query queue is full with " + _numPendingQueries + " pending queries";
+      } else {
+        TableQueue tableQueue = _tableQueues.get(query._tableName);
+        if (tableQueue == null) {
+          tableQueue = new TableQueue();
+          _tableQueues.put(query._tableName, tableQueue);
+        }
+        tableQueue._pendingQueries.add(query);
+        _queriesByKey.put(query._queryKey, query);
+        _numPendingQueries++;
+        _queryAvailable.signal();
+      }
+    } finally {
+      _lock.unlock();
+    }
+    if (rejectionMessage != null) {
+      // Completed outside of the lock, as the listeners of the future run on this thread.
+      _serverMetrics.addMeteredValue(instanceRequest.getQuery(), ServerMeter.QUERIES_REJECTED, 1);
+      LOGGER.warn("Rejecting request {}: {}", instanceRequest.getRequestId(), rejectionMessage);
+      responseFuture.set(getErrorResponse(instanceRequest, QueryException.QUERY_SCHEDULING_ERROR, rejectionMessage));
+    }
+    return responseFuture;
+  }
+
+  @Override
+  public boolean cancel(String brokerId, long requestId) {
+    SchedulerQuery query;
+    boolean wasPending = false;
+    _lock.lock();
+    try {
+      query = _queriesByKey.get(getQueryKey(brokerId, requestId));
+      if (query == null) {
+        return false;
+      }
+      query._cancellationFlag.cancel();
+      TableQueue tableQueue = _tableQueues.get(query._tableName);
+      if (tableQueue._pendingQueries.remove(query)) {
+        wasPending = true;
+        _numPendingQueries--;
+        _queriesByKey.remove(query._queryKey);
+        if (tableQueue._pendingQueries.isEmpty() && (tableQueue._numRunningQueries == 0)) {
+          _tableQueues.remove(query._tableName);
+        }
+      }
+    } finally {
+      _lock.unlock();
+    }
+    _serverMetrics.addMeteredValue(query._instanceRequest.getQuery(), ServerMeter.QUERIES_CANCELLED, 1);
+    LOGGER.info("Cancelled {} request {} of broker {}", wasPending ? "pending" : "running", requestId, brokerId);
+    if (wasPending) {
+      query._responseFuture.set(getErrorResponse(query._instanceRequest, QueryException.QUERY_CANCELLED_ERROR,
+          "Request " + requestId + " has been cancelled before running"));
+    }
+    return true;
+  }
+
+  private void runQueries() {
+    SchedulerQuery query;
+    while ((query = takeNextQuery()) != null) {
+      InstanceRequest instanceRequest = query._instanceRequest;
+      DataTable instanceResponse;
+      QueryCancellationFlag.setCurrent(query._cancellationFlag);
+      try {
+        _serverMetrics.addPhaseTiming(instanceRequest.getQuery(), ServerQueryPhase.SCHEDULER_WAIT,
+            System.nanoTime() - query._arrivalTimeNs);
+        instanceResponse = _queryExecutor.processQuery(instanceRequest);
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while processing request {}", instanceRequest.getRequestId(), e);
+        instanceResponse = getErrorResponse(instanceRequest, QueryException.QUERY_SCHEDULING_ERROR, e.getMessage());
+      } finally {
+        QueryCancellationFlag.setCurrent(null);
+        finishQuery(query);
+      }
+      // Only complete the response once the query is no longer registered, so that it can't be cancelled any more.
+      query._responseFuture.set(instanceResponse);
+    }
+  }
+
+  /**
+   * Blocks until a query can run, and returns it. Returns null once the scheduler is shut down.
+   */
+  private SchedulerQuery takeNextQuery() {
+    _lock.lock();
+    try {
+      while (_isStarted) {
+        SchedulerQuery query = pollNextQuery();
+        if (query != null) {
+          return query;
+        }
+        _queryAvailable.awaitUninterruptibly();
+      }
+      return null;
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  /**
+   * Picks the oldest pending query of the table with the fewest running queries among the tables under their share
+   * of the workers. Must be called with the lock held.
+   */
+  private SchedulerQuery pollNextQuery() {
+    TableQueue selectedTableQueue = null;
+    for (TableQueue tableQueue : _tableQueues.values()) {
+      if (tableQueue._pendingQueries.isEmpty() || (tableQueue._numRunningQueries >= _maxRunningQueriesPerTable)) {
+        continue;
+      }
+      if ((selectedTableQueue == null)
+          || (tableQueue._numRunningQueries < selectedTableQueue._numRunningQueries)
+          || ((tableQueue._numRunningQueries == selectedTableQueue._numRunningQueries)
+              && (tableQueue._pendingQueries.peek()._arrivalTimeNs
+                  < selectedTableQueue._pendingQueries.peek()._arrivalTimeNs))) {
+        selectedTableQueue = tableQueue;
+      }
+    }
+    if (selectedTableQueue == null) {
+      return null;
+    }
+    selectedTableQueue._numRunningQueries++;
+    _numPendingQueries--;
+    return selectedTableQueue._pendingQueries.poll();
+  }
+
+  private void finishQuery(SchedulerQuery query) {
+    _lock.lock();
+    try {
+      TableQueue tableQueue = _tableQueues.get(query._tableName);
+      tableQueue._numRunningQueries--;
+      if (tableQueue._pendingQueries.isEmpty() && (tableQueue._numRunningQueries == 0)) {
+        _tableQueues.remove(query._tableName);
+      }
+      // Another query may have been registered under the same key in the meantime.
+      removeRegisteredQuery(query);
+      // A table may have come back under its share of the workers.
+      _queryAvailable.signalAll();
+    } finally {
+      _lock.unlock();
+    }
+  }
+
+  /**
+   * Unregister the given query, unless another query was registered under the same key. Must be called with the lock
+   * held.
+   */
+  private void removeRegisteredQuery(SchedulerQuery query) {
+    if (_queriesByKey.get(query._queryKey) == query) {
+      _queriesByKey.remove(query._queryKey);
+    }
+  }
+
+  private static String getQueryKey(String brokerId, long requestId) {
+    // The request id comes first and has no '_', so keys of different brokers can't collide.
+    return requestId + "_" + brokerId;
+  }
+
+  private static DataTable getErrorResponse(InstanceRequest instanceRequest, ProcessingException error,
+      String message) {
+    DataTable instanceResponse = new DataTable();
+    ProcessingException processingException = error.deepCopy();
+    processingException.setMessage(message);
+    instanceResponse.addException(processingException);
+    instanceResponse.getMetadata().put("requestId", Long.toString(instanceRequest.getRequestId()));
+    return instanceResponse;
+  }
+
+  @Override
+  public synchronized void shutDown() {
+    if (!_isStarted) {
+      LOGGER.warn("QueryScheduler is already shutDown, won't do anything!");
+      return;
+    }
+    _lock.lock();
+    try {
+      _isStarted = false;
+      // Answer the queries still waiting, the running ones complete normally.
+      Iterator<TableQueue> iterator = _tableQueues.values().iterator();
+      while (iterator.hasNext()) {
+        TableQueue tableQueue = iterator.next();
+        SchedulerQuery query;
+        while ((query = tableQueue._pendingQueries.poll()) != null) {
+          removeRegisteredQuery(query);
+          query._responseFuture.set(getErrorResponse(query._instanceRequest, QueryException.QUERY_SCHEDULING_ERROR,
+              "Query scheduler is shutting down"));
+        }
+        if (tableQueue._numRunningQueries == 0) {
+          iterator.remove();
+        }
+      }
+      _numPendingQueries = 0;
+      _queryAvailable.signalAll();
+    } finally {
+      _lock.unlock();
+    }
+    _workerThreads.shutdown();
+    LOGGER.info("QueryScheduler is shutDown!");
+  }
+
+  @Override
+  public boolean isStarted() {
+    return _isStarted;
+  }
+
+  private static class SchedulerQuery {
+    private final InstanceRequest _instanceRequest;
+    private final SettableFuture<DataTable> _responseFuture;
+    private final String _tableName;
+    private final QueryCancellationFlag _cancellationFlag;
+    private final String _queryKey;
+    private final long _arrivalTimeNs = System.nanoTime();
+
+    private SchedulerQuery(InstanceRequest instanceRequest, SettableFuture<DataTable> responseFuture) {
+      _instanceRequest = instanceRequest;
+      _responseFuture = responseFuture;
+      _tableName = instanceRequest.getQuery().getQuerySource().getTableName();
+      _cancellationFlag = new QueryCancellationFlag(instanceRequest.getRequestId());
+      _queryKey = getQueryKey(instanceRequest.getBrokerId(), instanceRequest.getRequestId());
+    }
+  }
+
+  private static class TableQueue {
+    private final ArrayDeque<SchedulerQuery> _pendingQueries = new ArrayDeque<SchedulerQuery>();
+    private int _numRunningQueries = 0;
+  }
+}
@@ -35,6 +35,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.query.QueryMemoryTracker;
 import com.linkedin.pinot.common.request.Selection;
 import com.linkedin.pinot.common.request.SelectionSort;
 import com.linkedin.pinot.common.response.ServerInstance;
@@ -58,12 +59,9 @@ import com.linkedin.pinot.core.realtime.impl.dictionary.LongMutableDictionary;
 import com.linkedin.pinot.core.realtime.impl.dictionary.StringMutableDictionary;
 import com.linkedin.pinot.core.segment.index.data.source.mv.block.MultiValueBlock;
 import com.linkedin.pinot.core.segment.index.data.source.sv.block.UnSortedSingleValueBlock;
+import com.linkedin.pinot.core.segment.index.data.source.sv.block.RawSingleValueBlock;
 import com.linkedin.pinot.core.segment.index.data.source.sv.block.SortedSingleValueBlock;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
-import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
-import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
-import com.linkedin.pinot.core.segment.index.readers.IntDictionary;
-import com.linkedin.pinot.core.segment.index.readers.LongDictionary;
 import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
 
 
@@ -73,6 +71,10 @@ import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
  *
  */
 public class SelectionOperatorService {
+  // Rough heap cost of a materialized row, charged to the memory tracker of the query: the row array and one boxed
+  // value or String per column.
+  private static final int ROW_OVERHEAD_BYTES = 16;
+  private static final int ROW_BYTES_PER_COLUMN = 32;
 
   private int _numDocsScanned = 0;
   private final List<SelectionSort> _sortSequence;
@@ -395,6 +397,7 @@ public class SelectionOperatorService {
       final PriorityQueue<Serializable[]> rowEventsPriorityQueue =
           new PriorityQueue<Serializable[]>(_maxRowSize, _rowComparator);
       PriorityQueue<Integer> queue = (PriorityQueue<Integer>) _rowDocIdSet;
+      chargeRows(queue.size());
       while (!queue.isEmpty()) {
         Serializable[] rowFromBlockValSets = getRowFromBlockValSets(queue.poll(), blocks);
         rowEventsPriorityQueue.add(rowFromBlockValSets);
@@ -403,6 +406,7 @@ public class SelectionOperatorService {
     } else {
       final List<Serializable[]> rowEventsList = new ArrayList<Serializable[]>(_maxRowSize);
       List<Integer> list = (List<Integer>) _rowDocIdSet;
+      chargeRows(Math.min(_maxRowSize, list.size()));
       for (int i = 0; i < Math.min(_maxRowSize, list.size()); i++) {
         Serializable[] rowFromBlockValSets = getRowFromBlockValSets(list.get(i), blocks);
         rowEventsList.add(rowFromBlockValSets);
@@ -413,6 +417,11 @@ public class SelectionOperatorService {
     return _rowEventsSet;
   }
 
+  private void chargeRows(int numRows) {
+    QueryMemoryTracker.allocateOnCurrent(
+        (ROW_OVERHEAD_BYTES + (long) ROW_BYTES_PER_COLUMN * _dataSchema.size()) * numRows);
+  }
+
   private Comparator<Integer> getDocIdComparator(final List<SelectionSort> sortSequence, final DataSchema dataSchema,
       final Block[] blocks) {
 
@@ -640,7 +649,7 @@ public class SelectionOperatorService {
             break;
         }
       } else if (blocks[j] instanceof UnSortedSingleValueBlock
-          || blocks[j] instanceof SortedSingleValueBlock) {
+          || blocks[j] instanceof SortedSingleValueBlock || blocks[j] instanceof RawSingleValueBlock) {
         if (blocks[j].getMetadata().hasDictionary()) {
           Dictionary dictionaryReader = blocks[j].getMetadata().getDictionary();
           BlockSingleValIterator bvIter = (BlockSingleValIterator) blocks[j].getBlockValueSet().iterator();
@@ -648,16 +657,16 @@ public class SelectionOperatorService {
           switch (_dataSchema.getColumnType(i)) {
             case INT:
               int dicId = bvIter.nextIntVal();
-              row[i] = ((IntDictionary) dictionaryReader).get(dicId);
+              row[i] = dictionaryReader.getIntValue(dicId);
               break;
             case FLOAT:
-              row[i] = ((FloatDictionary) dictionaryReader).get(bvIter.nextIntVal());
+              row[i] = dictionaryReader.getFloatValue(bvIter.nextIntVal());
               break;
             case LONG:
-              row[i] = ((LongDictionary) dictionaryReader).get(bvIter.nextIntVal());
+              row[i] = dictionaryReader.getLongValue(bvIter.nextIntVal());
               break;
             case DOUBLE:
-              row[i] = ((DoubleDictionary) dictionaryReader).get(bvIter.nextIntVal());
+              row[i] = dictionaryReader.getDoubleValue(bvIter.nextIntVal());
               break;
             case STRING:
               row[i] = ((StringDictionary) dictionaryReader).get(bvIter.nextIntVal());
@@ -681,6 +690,9 @@ public class SelectionOperatorService {
             case DOUBLE:
               row[i] = new Double(bvIter.nextDoubleVal());
               break;
+            case STRING:
+              row[i] = bvIter.nextStringVal();
+              break;
             default:
               break;
           }
@@ -696,7 +708,7 @@ public class SelectionOperatorService {
             dictSize = bvIter.nextIntVal(dictIds);
             int[] rawIntRow = new int[dictSize];
             for (int dictIdx = 0; dictIdx < dictSize; ++dictIdx) {
-              rawIntRow[dictIdx] = ((IntDictionary) dictionaryReader).get(dictIds[dictIdx]);
+              rawIntRow[dictIdx] = dictionaryReader.getIntValue(dictIds[dictIdx]);
             }
             row[i] = rawIntRow;
             break;
@@ -704,7 +716,7 @@ public class SelectionOperatorService {
             dictSize = bvIter.nextIntVal(dictIds);
             Float[] rawFloatRow = new Float[dictSize];
             for (int dictIdx = 0; dictIdx < dictSize; ++dictIdx) {
-              rawFloatRow[dictIdx] = ((FloatDictionary) dictionaryReader).get(dictIds[dictIdx]);
+              rawFloatRow[dictIdx] = dictionaryReader.getFloatValue(dictIds[dictIdx]);
             }
             row[i] = rawFloatRow;
             break;
@@ -712,7 +724,7 @@ public class SelectionOperatorService {
             dictSize = bvIter.nextIntVal(dictIds);
             Long[] rawLongRow = new Long[dictSize];
             for (int dictIdx = 0; dictIdx < dictSize; ++dictIdx) {
-              rawLongRow[dictIdx] = ((LongDictionary) dictionaryReader).get(dictIds[dictIdx]);
+              rawLongRow[dictIdx] = dictionaryReader.getLongValue(dictIds[dictIdx]);
             }
             row[i] = rawLongRow;
             break;
@@ -720,7 +732,7 @@ public class SelectionOperatorService {
             dictSize = bvIter.nextIntVal(dictIds);
             Double[] rawDoubleRow = new Double[dictSize];
             for (int dictIdx = 0; dictIdx < dictSize; ++dictIdx) {
-              rawDoubleRow[dictIdx] = ((DoubleDictionary) dictionaryReader).get(dictIds[dictIdx]);
+              rawDoubleRow[dictIdx] = dictionaryReader.getDoubleValue(dictIds[dictIdx]);
             }
             row[i] = rawDoubleRow;
             break;
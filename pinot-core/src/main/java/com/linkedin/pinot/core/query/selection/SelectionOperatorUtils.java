@@ -53,13 +53,10 @@ import com.linkedin.pinot.core.realtime.impl.dictionary.IntMutableDictionary;
 import com.linkedin.pinot.core.realtime.impl.dictionary.LongMutableDictionary;
 import com.linkedin.pinot.core.realtime.impl.dictionary.StringMutableDictionary;
 import com.linkedin.pinot.core.segment.index.data.source.mv.block.MultiValueBlock;
+import com.linkedin.pinot.core.segment.index.data.source.sv.block.RawSingleValueBlock;
 import com.linkedin.pinot.core.segment.index.data.source.sv.block.SortedSingleValueBlock;
 import com.linkedin.pinot.core.segment.index.data.source.sv.block.UnSortedSingleValueBlock;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
-import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
-import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
-import com.linkedin.pinot.core.segment.index.readers.IntDictionary;
-import com.linkedin.pinot.core.segment.index.readers.LongDictionary;
 import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
 
 
@@ -305,7 +302,7 @@ public class SelectionOperatorUtils {
             break;
         }
       } else if (blocks[j] instanceof UnSortedSingleValueBlock
-          || blocks[j] instanceof SortedSingleValueBlock) {
+          || blocks[j] instanceof SortedSingleValueBlock || blocks[j] instanceof RawSingleValueBlock) {
         if (blocks[j].getMetadata().hasDictionary()) {
           Dictionary dictionaryReader = blocks[j].getMetadata().getDictionary();
           BlockSingleValIterator bvIter = (BlockSingleValIterator) blocks[j].getBlockValueSet().iterator();
@@ -313,16 +310,16 @@ public class SelectionOperatorUtils {
           switch (dataSchema.getColumnType(i)) {
             case INT:
               int dicId = bvIter.nextIntVal();
-              row[i] = ((IntDictionary) dictionaryReader).get(dicId);
+              row[i] = dictionaryReader.getIntValue(dicId);
               break;
             case FLOAT:
-              row[i] = ((FloatDictionary) dictionaryReader).get(bvIter.nextIntVal());
+              row[i] = dictionaryReader.getFloatValue(bvIter.nextIntVal());
               break;
             case LONG:
-              row[i] = ((LongDictionary) dictionaryReader).get(bvIter.nextIntVal());
+              row[i] = dictionaryReader.getLongValue(bvIter.nextIntVal());
               break;
             case DOUBLE:
-              row[i] = ((DoubleDictionary) dictionaryReader).get(bvIter.nextIntVal());
+              row[i] = dictionaryReader.getDoubleValue(bvIter.nextIntVal());
               break;
             case STRING:
               row[i] = ((StringDictionary) dictionaryReader).get(bvIter.nextIntVal());
@@ -346,6 +343,9 @@ public class SelectionOperatorUtils {
             case DOUBLE:
               row[i] = new Double(bvIter.nextDoubleVal());
               break;
+            case STRING:
+              row[i] = bvIter.nextStringVal();
+              break;
             default:
               break;
           }
@@ -361,7 +361,7 @@ public class SelectionOperatorUtils {
             dictSize = bvIter.nextIntVal(dictIds);
             int[] rawIntRow = new int[dictSize];
             for (int dictIdx = 0; dictIdx < dictSize; ++dictIdx) {
-              rawIntRow[dictIdx] = ((IntDictionary) dictionaryReader).get(dictIds[dictIdx]);
+              rawIntRow[dictIdx] = dictionaryReader.getIntValue(dictIds[dictIdx]);
             }
             row[i] = rawIntRow;
             break;
@@ -369,7 +369,7 @@ public class SelectionOperatorUtils {
             dictSize = bvIter.nextIntVal(dictIds);
             Float[] rawFloatRow = new Float[dictSize];
             for (int dictIdx = 0; dictIdx < dictSize; ++dictIdx) {
-              rawFloatRow[dictIdx] = ((FloatDictionary) dictionaryReader).get(dictIds[dictIdx]);
+              rawFloatRow[dictIdx] = dictionaryReader.getFloatValue(dictIds[dictIdx]);
             }
             row[i] = rawFloatRow;
             break;
@@ -377,7 +377,7 @@ public class SelectionOperatorUtils {
             dictSize = bvIter.nextIntVal(dictIds);
             Long[] rawLongRow = new Long[dictSize];
             for (int dictIdx = 0; dictIdx < dictSize; ++dictIdx) {
-              rawLongRow[dictIdx] = ((LongDictionary) dictionaryReader).get(dictIds[dictIdx]);
+              rawLongRow[dictIdx] = dictionaryReader.getLongValue(dictIds[dictIdx]);
             }
             row[i] = rawLongRow;
             break;
@@ -385,7 +385,7 @@ public class SelectionOperatorUtils {
             dictSize = bvIter.nextIntVal(dictIds);
             Double[] rawDoubleRow = new Double[dictSize];
             for (int dictIdx = 0; dictIdx < dictSize; ++dictIdx) {
-              rawDoubleRow[dictIdx] = ((DoubleDictionary) dictionaryReader).get(dictIds[dictIdx]);
+              rawDoubleRow[dictIdx] = dictionaryReader.getDoubleValue(dictIds[dictIdx]);
             }
             row[i] = rawDoubleRow;
             break;
@@ -32,6 +32,7 @@ import com.linkedin.pinot.core.index.readerwriter.impl.FixedByteSingleColumnMult
 import com.linkedin.pinot.core.index.readerwriter.impl.FixedByteSingleColumnSingleValueReaderWriter;
 import com.linkedin.pinot.core.realtime.impl.dictionary.MutableDictionaryReader;
 import com.linkedin.pinot.core.realtime.impl.invertedIndex.RealtimeInvertedIndex;
+import com.linkedin.pinot.core.segment.index.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
 
@@ -183,6 +184,11 @@ public class RealtimeColumnDataSource implements DataSource {
     return invertedIndex;
   }
 
+  @Override
+  public BitmapRangeIndexReader getRangeIndex() {
+    return null;
+  }
+
   @Override
   public Dictionary getDictionary() {
     return dictionary;
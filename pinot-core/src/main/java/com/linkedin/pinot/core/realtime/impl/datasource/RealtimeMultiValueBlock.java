@@ -141,6 +141,11 @@ public class RealtimeMultiValueBlock implements Block {
       public DataType getValueType() {
         return spec.getDataType();
       }
+
+      @Override
+      public void readIntValues(int[] docIds, int startPos, int limit, int[] values, int outStartPos) {
+        throw new UnsupportedOperationException("Batch read is not supported on multi value blocks");
+      }
     };
   }
 
@@ -142,6 +142,14 @@ public class RealtimeSingleValueBlock implements Block {
       public DataType getValueType() {
         return spec.getDataType();
       }
+
+      @Override
+      public void readIntValues(int[] docIds, int startPos, int limit, int[] values, int outStartPos) {
+        int endPos = startPos + limit;
+        for (int i = startPos; i < endPos; ++i) {
+          values[outStartPos++] = reader.getInt(docIds[i]);
+        }
+      }
     };
   }
 
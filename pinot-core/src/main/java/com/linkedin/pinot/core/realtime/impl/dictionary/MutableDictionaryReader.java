@@ -84,15 +84,33 @@ public abstract class MutableDictionaryReader implements Dictionary {
     return inRange(lower, upper, valueToCompare, true, true);
   }
 
+  @Override
+  public int getIntValue(int dictionaryId) {
+    return (int) getLongValue(dictionaryId);
+  }
+
   @Override
   public abstract long getLongValue(int dictionaryId);
 
+  @Override
+  public float getFloatValue(int dictionaryId) {
+    return (float) getDoubleValue(dictionaryId);
+  }
+
   @Override
   public abstract double getDoubleValue(int dictionaryId);
 
   @Override
   public abstract String toString(int dictionaryId);
 
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int i = startPos; i < endPos; ++i) {
+      outValues[outStartPos++] = getDoubleValue(dictionaryIds[i]);
+    }
+  }
+
   public void print() {
     System.out.println("************* printing dictionary for column : " + spec.getName() + " ***************");
     for (Integer key : dictionaryIdBiMap.keySet()) {
@@ -34,17 +34,22 @@ import static com.linkedin.pinot.core.segment.creator.impl.V1Constants.MetadataK
 import static com.linkedin.pinot.core.segment.creator.impl.V1Constants.MetadataKeys.Segment.SEGMENT_NAME;
 import static com.linkedin.pinot.core.segment.creator.impl.V1Constants.MetadataKeys.Segment.SEGMENT_START_TIME;
 import static com.linkedin.pinot.core.segment.creator.impl.V1Constants.MetadataKeys.Segment.SEGMENT_TOTAL_DOCS;
+import static com.linkedin.pinot.core.segment.creator.impl.V1Constants.MetadataKeys.Segment.SEGMENT_VERSION;
 import static com.linkedin.pinot.core.segment.creator.impl.V1Constants.MetadataKeys.Segment.TIME_COLUMN_NAME;
 import static com.linkedin.pinot.core.segment.creator.impl.V1Constants.MetadataKeys.Segment.TIME_INTERVAL;
 import static com.linkedin.pinot.core.segment.creator.impl.V1Constants.MetadataKeys.Segment.TIME_UNIT;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.Schema;
@@ -52,12 +57,17 @@ import com.linkedin.pinot.core.data.GenericRow;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import com.linkedin.pinot.core.segment.creator.ColumnIndexCreationInfo;
 import com.linkedin.pinot.core.segment.creator.ForwardIndexCreator;
+import com.linkedin.pinot.core.segment.creator.ForwardIndexType;
 import com.linkedin.pinot.core.segment.creator.InvertedIndexCreator;
 import com.linkedin.pinot.core.segment.creator.SegmentCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.MultiValueUnsortedForwardIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueChunkCompressedForwardIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueRawForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueSortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueUnsortedForwardIndexCreator;
 import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapInvertedIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapRangeIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.stats.NoDictionaryColumnPreIndexStatsCollector;
 
 
 /**
@@ -67,12 +77,15 @@ import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapInvertedIndexCreat
  */
 
 public class SegmentColumnarIndexCreator implements SegmentCreator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentColumnarIndexCreator.class);
   // TODO Refactor class name to match interface name
   private SegmentGeneratorConfig config;
   private Map<String, ColumnIndexCreationInfo> indexCreationInfoMap;
   private Map<String, SegmentDictionaryCreator> dictionaryCreatorMap;
   private Map<String, ForwardIndexCreator> forwardIndexCreatorMap;
   private Map<String, InvertedIndexCreator> invertedIndexCreatorMap;
+  private Map<String, InvertedIndexCreator> rangeIndexCreatorMap;
+  private List<String> rawIndexColumns;
   private String segmentName;
 
   private Schema schema;
@@ -92,6 +105,8 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     forwardIndexCreatorMap = new HashMap<String, ForwardIndexCreator>();
     this.indexCreationInfoMap = indexCreationInfoMap;
     invertedIndexCreatorMap = new HashMap<String, InvertedIndexCreator>();
+    rangeIndexCreatorMap = new HashMap<String, InvertedIndexCreator>();
+    rawIndexColumns = new ArrayList<String>();
     file = outDir;
 
     // Check that the output directory does not exist
@@ -110,9 +125,17 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       final ColumnIndexCreationInfo info = indexCreationInfoMap.get(spec.getName());
       if (info.isCreateDictionary()) {
         dictionaryCreatorMap.put(spec.getName(),
-            new SegmentDictionaryCreator(info.hasNulls(), info.getSortedUniqueElementsArray(), spec, file));
+            new SegmentDictionaryCreator(info.hasNulls(), info.getSortedUniqueElementsArray(), spec, file,
+                config.getSegmentVersion()));
       } else {
-        throw new RuntimeException("Creation of indices without dictionaries is not implemented!");
+        // Columns without a dictionary only have a raw or chunk compressed forward index, no inverted or range index.
+        rawIndexColumns.add(spec.getName());
+        if (info.getForwardIndexType() == ForwardIndexType.CHUNK_COMPRESSED) {
+          forwardIndexCreatorMap.put(spec.getName(),
+              new SingleValueChunkCompressedForwardIndexCreator(spec, file, totalDocs));
+        } else {
+          forwardIndexCreatorMap.put(spec.getName(), new SingleValueRawForwardIndexCreator(spec, file, totalDocs));
+        }
       }
     }
 
@@ -147,6 +170,19 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
             new BitmapInvertedIndexCreator(file, indexCreationInfo.getSortedUniqueElementsArray().length, schema
                 .getFieldSpecFor(column)));
       }
+
+      if (config.getRangeIndexColumns() != null && config.getRangeIndexColumns().contains(column)
+          && !indexCreationInfo.isSorted()) {
+        // Range predicates only use the range index together with the inverted index, which resolves the edge buckets.
+        if (!config.createInvertedIndexEnabled()) {
+          LOGGER.warn("Not creating the range index of column {}, inverted index creation is disabled", column);
+          continue;
+        }
+        rangeIndexCreatorMap.put(
+            column,
+            new BitmapRangeIndexCreator(file, indexCreationInfo.getSortedUniqueElementsArray().length, schema
+                .getFieldSpecFor(column)));
+      }
     }
   }
 
@@ -166,6 +202,12 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       if (config.createInvertedIndexEnabled()) {
         invertedIndexCreatorMap.get(column).add(docIdCounter, dictionaryIndex);
       }
+      if (rangeIndexCreatorMap.containsKey(column)) {
+        rangeIndexCreatorMap.get(column).add(docIdCounter, dictionaryIndex);
+      }
+    }
+    for (final String column : rawIndexColumns) {
+      forwardIndexCreatorMap.get(column).index(docIdCounter, row.getValue(column));
     }
     docIdCounter++;
   }
@@ -179,10 +221,15 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
   public void seal() throws ConfigurationException, IOException {
     for (final String column : forwardIndexCreatorMap.keySet()) {
       forwardIndexCreatorMap.get(column).close();
-      if (config.createInvertedIndexEnabled()) {
+      if (invertedIndexCreatorMap.containsKey(column)) {
         invertedIndexCreatorMap.get(column).seal();
       }
-      dictionaryCreatorMap.get(column).close();
+      if (rangeIndexCreatorMap.containsKey(column)) {
+        rangeIndexCreatorMap.get(column).seal();
+      }
+      if (dictionaryCreatorMap.containsKey(column)) {
+        dictionaryCreatorMap.get(column).close();
+      }
     }
     writeMetadata();
   }
@@ -198,6 +245,7 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     properties.setProperty(TIME_COLUMN_NAME, config.getTimeColumnName());
     properties.setProperty(TIME_INTERVAL, "not_there");
     properties.setProperty(SEGMENT_TOTAL_DOCS, String.valueOf(totalDocs));
+    properties.setProperty(SEGMENT_VERSION, config.getSegmentVersion().toString());
 
     String timeColumn = config.getTimeColumnName();
     if (indexCreationInfoMap.get(timeColumn) != null) {
@@ -221,17 +269,20 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
     }
 
     for (final String column : indexCreationInfoMap.keySet()) {
+      // The unique values of the columns without a dictionary are not collected.
+      final int cardinality = indexCreationInfoMap.get(column).isCreateDictionary() ? indexCreationInfoMap.get(column)
+          .getSortedUniqueElementsArray().length : NoDictionaryColumnPreIndexStatsCollector.UNKNOWN_CARDINALITY;
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, CARDINALITY),
-          String.valueOf(indexCreationInfoMap.get(column).getSortedUniqueElementsArray().length));
+          String.valueOf(cardinality));
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, TOTAL_DOCS), String.valueOf(totalDocs));
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, DATA_TYPE),
           schema.getFieldSpecFor(column).getDataType().toString());
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, BITS_PER_ELEMENT), String
-          .valueOf(SingleValueUnsortedForwardIndexCreator.getNumOfBits(indexCreationInfoMap.get(column)
-              .getSortedUniqueElementsArray().length)));
+          .valueOf(SingleValueUnsortedForwardIndexCreator.getNumOfBits(cardinality)));
 
+      final SegmentDictionaryCreator dictionaryCreator = dictionaryCreatorMap.get(column);
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, DICTIONARY_ELEMENT_SIZE),
-          String.valueOf(dictionaryCreatorMap.get(column).getStringColumnMaxLength()));
+          String.valueOf(dictionaryCreator == null ? 0 : dictionaryCreator.getStringColumnMaxLength()));
 
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, COLUMN_TYPE),
           String.valueOf(schema.getFieldSpecFor(column).getFieldType().toString()));
@@ -246,7 +297,7 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
           String.valueOf(indexCreationInfoMap.get(column).isCreateDictionary()));
 
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, HAS_INVERTED_INDEX),
-          String.valueOf(true));
+          String.valueOf(indexCreationInfoMap.get(column).isCreateDictionary()));
 
       properties.setProperty(V1Constants.MetadataKeys.Column.getKeyFor(column, IS_SINGLE_VALUED),
           String.valueOf(schema.getFieldSpecFor(column).isSingleValueField()));
@@ -15,8 +15,11 @@
  */
 package com.linkedin.pinot.core.segment.creator.impl;
 
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.Arrays;
@@ -26,6 +29,7 @@ import org.apache.commons.io.FileUtils;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.core.index.reader.impl.FixedByteWidthRowColDataFileReader;
 import com.linkedin.pinot.core.index.writer.impl.FixedByteWidthRowColDataFileWriter;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
 import com.linkedin.pinot.core.indexsegment.utils.ByteBufferBinarySearchUtil;
 
 
@@ -33,21 +37,32 @@ public class SegmentDictionaryCreator implements Closeable {
   private final Object[] sortedList;
   private final FieldSpec spec;
   private final File dictionaryFile;
+  private final SegmentVersion segmentVersion;
   private FixedByteWidthRowColDataFileReader dataReader;
   private ByteBufferBinarySearchUtil searchableByteBuffer;
+  // Values of the variable length string dictionaries, searched on heap while indexing.
+  private String[] sortedStrings;
   private int stringColumnMaxLength = 0;
 
   public SegmentDictionaryCreator(boolean hasNulls, Object[] sortedList, FieldSpec spec, File indexDir)
       throws IOException {
+    this(hasNulls, sortedList, spec, indexDir, SegmentVersion.v1);
+  }
+
+  public SegmentDictionaryCreator(boolean hasNulls, Object[] sortedList, FieldSpec spec, File indexDir,
+      SegmentVersion segmentVersion) throws IOException {
     this.sortedList = sortedList;
     this.spec = spec;
+    this.segmentVersion = segmentVersion;
     dictionaryFile = new File(indexDir, spec.getName() + ".dict");
     FileUtils.touch(dictionaryFile);
   }
 
   @Override
   public void close() throws IOException {
-    dataReader.close();
+    if (dataReader != null) {
+      dataReader.close();
+    }
   }
 
   public void build() throws Exception {
@@ -115,6 +130,11 @@ public class SegmentDictionaryCreator implements Closeable {
           }
         }
 
+        if (segmentVersion == SegmentVersion.v2) {
+          buildVarLengthStringDictionary();
+          return;
+        }
+
         final FixedByteWidthRowColDataFileWriter stringDictionaryWrite =
             new FixedByteWidthRowColDataFileWriter(dictionaryFile, sortedList.length, 1,
                 new int[] { stringColumnMaxLength });
@@ -148,6 +168,37 @@ public class SegmentDictionaryCreator implements Closeable {
     searchableByteBuffer = new ByteBufferBinarySearchUtil(dataReader);
   }
 
+  /**
+   * Writes the string values without padding: the number of values, the offsets of the values relative to the end of
+   * the offsets, and the UTF-8 bytes of the values sorted in String order.
+   */
+  private void buildVarLengthStringDictionary() throws IOException {
+    sortedStrings = new String[sortedList.length];
+    for (int i = 0; i < sortedList.length; i++) {
+      sortedStrings[i] = sortedList[i].toString();
+    }
+    Arrays.sort(sortedStrings);
+
+    final DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dictionaryFile)));
+    try {
+      final byte[][] values = new byte[sortedStrings.length][];
+      out.writeInt(sortedStrings.length);
+      int offset = 0;
+      for (int i = 0; i < sortedStrings.length; i++) {
+        values[i] = sortedStrings[i].getBytes(Charset.forName(V1Constants.Str.CHAR_SET));
+        out.writeInt(offset);
+        offset += values[i].length;
+      }
+      out.writeInt(offset);
+      for (final byte[] value : values) {
+        out.write(value);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
   public int getStringColumnMaxLength() {
     return stringColumnMaxLength;
   }
@@ -176,6 +227,9 @@ public class SegmentDictionaryCreator implements Closeable {
         return new Integer(searchableByteBuffer.binarySearch(0, longValue));
       case STRING:
       case BOOLEAN:
+        if (sortedStrings != null) {
+          return new Integer(Arrays.binarySearch(sortedStrings, e.toString()));
+        }
         final StringBuilder bld = new StringBuilder();
         bld.append(e.toString());
         for (int i = 0; i < (stringColumnMaxLength - ((String) e).getBytes(Charset.forName("UTF-8")).length); i++) {
@@ -219,6 +273,10 @@ public class SegmentDictionaryCreator implements Closeable {
       case STRING:
       case BOOLEAN:
         for (int i = 0; i < multiValues.length; i++) {
+          if (sortedStrings != null) {
+            ret[i] = Arrays.binarySearch(sortedStrings, multiValues[i].toString());
+            continue;
+          }
           final StringBuilder bld = new StringBuilder();
           bld.append(multiValues[i].toString());
           for (int j = 0; j < (stringColumnMaxLength - ((String) multiValues[i]).getBytes(Charset.forName("UTF-8")).length); j++) {
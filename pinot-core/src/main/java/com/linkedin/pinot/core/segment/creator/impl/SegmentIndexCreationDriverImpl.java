@@ -20,7 +20,9 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
@@ -77,7 +79,7 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     dataSchema = recordReader.getSchema();
 
     // Initialize stats collection
-    statsCollector = new SegmentPreIndexStatsCollectorImpl(recordReader.getSchema());
+    statsCollector = new SegmentPreIndexStatsCollectorImpl(recordReader.getSchema(), getNoDictionaryColumns());
     statsCollector.init();
 
     // Initialize index creation
@@ -212,15 +214,64 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     statsCollector.build();
     for (final FieldSpec spec : dataSchema.getAllFieldSpecs()) {
       final String column = spec.getName();
+      final boolean chunkCompressedIndex =
+          config.getChunkCompressedIndexColumns() != null && config.getChunkCompressedIndexColumns().contains(column);
+      final boolean rawIndex =
+          chunkCompressedIndex || (config.getRawIndexColumns() != null && config.getRawIndexColumns().contains(column));
+      if (rawIndex && !isRawIndexSupported(spec, chunkCompressedIndex)) {
+        throw new UnsupportedOperationException((chunkCompressedIndex ? "Chunk compressed" : "Raw")
+            + " index is not supported for column " + column + ", which is " + (spec.isSingleValueField() ? "single"
+            : "multi") + " value " + spec.getDataType());
+      }
+      final ForwardIndexType forwardIndexType;
+      if (chunkCompressedIndex) {
+        forwardIndexType = ForwardIndexType.CHUNK_COMPRESSED;
+      } else if (rawIndex) {
+        forwardIndexType = ForwardIndexType.RAW;
+      } else {
+        forwardIndexType = ForwardIndexType.FIXED_BIT_COMPRESSED;
+      }
+      // Raw columns keep their values in doc id order, so they never use the sorted forward index.
       indexCreationInfoMap.put(
           column,
-          new ColumnIndexCreationInfo(true, // Use dictionary encoding
+          new ColumnIndexCreationInfo(!rawIndex, // Use dictionary encoding unless the column is stored raw
               statsCollector.getColumnProfileFor(column).getMinValue(), statsCollector.getColumnProfileFor(column)
                   .getMaxValue(), statsCollector.getColumnProfileFor(column).getUniqueValuesSet(),
-              ForwardIndexType.FIXED_BIT_COMPRESSED, InvertedIndexType.P4_DELTA, statsCollector.getColumnProfileFor(
-                  column).isSorted(), statsCollector.getColumnProfileFor(column).hasNull(), statsCollector
-                  .getColumnProfileFor(column).getTotalNumberOfEntries(), statsCollector.getColumnProfileFor(column)
-                  .getMaxNumberOfMultiValues()));
+              forwardIndexType, InvertedIndexType.P4_DELTA,
+              !rawIndex && statsCollector.getColumnProfileFor(column).isSorted(), statsCollector.getColumnProfileFor(
+                  column).hasNull(), statsCollector.getColumnProfileFor(column).getTotalNumberOfEntries(),
+              statsCollector.getColumnProfileFor(column).getMaxNumberOfMultiValues()));
+    }
+  }
+
+  private Set<String> getNoDictionaryColumns() {
+    final Set<String> noDictionaryColumns = new HashSet<String>();
+    if (config.getRawIndexColumns() != null) {
+      noDictionaryColumns.addAll(config.getRawIndexColumns());
+    }
+    if (config.getChunkCompressedIndexColumns() != null) {
+      noDictionaryColumns.addAll(config.getChunkCompressedIndexColumns());
+    }
+    return noDictionaryColumns;
+  }
+
+  /**
+   * Raw forward indexes are single value, numeric with fixed width values, or STRING when chunk compressed.
+   */
+  private static boolean isRawIndexSupported(FieldSpec spec, boolean chunkCompressed) {
+    if (!spec.isSingleValueField()) {
+      return false;
+    }
+    switch (spec.getDataType()) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return true;
+      case STRING:
+        return chunkCompressed;
+      default:
+        return false;
     }
   }
 
@@ -78,7 +78,10 @@ public class V1Constants {
     public static final String UN_SORTED_SV_FWD_IDX_FILE_EXTENTION = ".sv.unsorted.fwd";
     public static final String SORTED_FWD_IDX_FILE_EXTENTION = ".sv.sorted.fwd";
     public static final String UN_SORTED_MV_FWD_IDX_FILE_EXTENTION = ".mv.fwd";
+    public static final String RAW_SV_FWD_IDX_FILE_EXTENTION = ".sv.raw.fwd";
+    public static final String CHUNK_COMPRESSED_SV_FWD_IDX_FILE_EXTENTION = ".sv.chunk.fwd";
     public static final String BITMAP_INVERTED_INDEX_FILE_EXTENSION = ".bitmap.inv";
+    public static final String BITMAP_RANGE_INDEX_FILE_EXTENSION = ".bitmap.range";
     public static final String SORTED_INVERTED_INDEX_FILE_EXTENSION = ".sorted.inv";
     public static final String INTARRAY_INVERTED_INDEX_FILE_EXTENSION = ".intArray.inv";
   }
@@ -99,6 +102,7 @@ public class V1Constants {
       public static final String SEGMENT_TOTAL_DOCS = "segment.total.docs";
       public static final String SEGMENT_CRC = "segment.crc";
       public static final String SEGMENT_CREATION_TIME = "segment.creation.time";
+      public static final String SEGMENT_VERSION = "segment.index.version";
 
       // not using currently
       public static final String SEGMENT_INDEX_TYPE = "segment.index.type";
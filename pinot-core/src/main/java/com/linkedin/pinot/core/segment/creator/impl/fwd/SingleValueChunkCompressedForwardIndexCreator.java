@@ -0,0 +1,169 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.fwd;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.segment.creator.ForwardIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.util.Lz4BlockCodec;
+
+
+/**
+ * Forward index creator for single value columns without a dictionary, which stores the values in chunks of a fixed
+ * number of docs, each chunk compressed with LZ4.
+ *
+ * File layout:
+ * <ul>
+ *   <li>int docs per chunk, int number of chunks</li>
+ *   <li>int file offset of every chunk, followed by the file length</li>
+ *   <li>for every chunk, int uncompressed length followed by the compressed bytes</li>
+ * </ul>
+ * An uncompressed chunk of a numeric column is the fixed width big endian values of its docs. A chunk of a STRING
+ * column is the int offsets in the chunk of the UTF-8 bytes of every doc, followed by the end offset and the bytes.
+ */
+public class SingleValueChunkCompressedForwardIndexCreator implements Closeable, ForwardIndexCreator {
+  public static final int DEFAULT_NUM_DOCS_PER_CHUNK = 1000;
+  public static final int HEADER_SIZE_IN_BYTES = 8;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final File forwardIndexFile;
+  private final DataType dataType;
+  private final int numDocsPerChunk;
+  private final int[] chunkOffsets;
+  private final RandomAccessFile raf;
+
+  private final ByteArrayOutputStream chunkBytes = new ByteArrayOutputStream();
+  private final DataOutputStream chunkOut = new DataOutputStream(chunkBytes);
+  private final List<byte[]> chunkStrings = new ArrayList<byte[]>();
+  private byte[] compressed = new byte[0];
+  private int numDocsInChunk = 0;
+  private int numChunksWritten = 0;
+
+  public SingleValueChunkCompressedForwardIndexCreator(FieldSpec spec, File baseIndexDir, int numDocs)
+      throws Exception {
+    this(spec, baseIndexDir, numDocs, DEFAULT_NUM_DOCS_PER_CHUNK);
+  }
+
+  public SingleValueChunkCompressedForwardIndexCreator(FieldSpec spec, File baseIndexDir, int numDocs,
+      int numDocsPerChunk) throws Exception {
+    forwardIndexFile =
+        new File(baseIndexDir, spec.getName() + V1Constants.Indexes.CHUNK_COMPRESSED_SV_FWD_IDX_FILE_EXTENTION);
+    dataType = spec.getDataType();
+    if (dataType != DataType.STRING) {
+      // Fails for the data types that have no fixed width.
+      SingleValueRawForwardIndexCreator.getValueSizeInBytes(dataType);
+    }
+    this.numDocsPerChunk = numDocsPerChunk;
+    chunkOffsets = new int[(numDocs + numDocsPerChunk - 1) / numDocsPerChunk + 1];
+    raf = new RandomAccessFile(forwardIndexFile, "rw");
+    raf.setLength(0);
+    raf.seek(HEADER_SIZE_IN_BYTES + 4 * chunkOffsets.length);
+  }
+
+  /**
+   * {@inheritDoc}
+   * @see com.linkedin.pinot.core.segment.creator.ForwardIndexCreator#index(int, Object)
+   */
+  @Override
+  public void index(int docId, Object e) {
+    try {
+      switch (dataType) {
+        case INT:
+          chunkOut.writeInt(((Number) e).intValue());
+          break;
+        case LONG:
+          chunkOut.writeLong(((Number) e).longValue());
+          break;
+        case FLOAT:
+          chunkOut.writeFloat(((Number) e).floatValue());
+          break;
+        case DOUBLE:
+          chunkOut.writeDouble(((Number) e).doubleValue());
+          break;
+        default:
+          chunkStrings.add(String.valueOf(e).getBytes(UTF_8));
+          break;
+      }
+      numDocsInChunk++;
+      if (numDocsInChunk == numDocsPerChunk) {
+        writeChunk();
+      }
+    } catch (IOException ex) {
+      throw new RuntimeException("Caught exception while indexing doc " + docId + " in " + forwardIndexFile, ex);
+    }
+  }
+
+  private void writeChunk() throws IOException {
+    if (dataType == DataType.STRING) {
+      int offset = 4 * (chunkStrings.size() + 1);
+      for (final byte[] value : chunkStrings) {
+        chunkOut.writeInt(offset);
+        offset += value.length;
+      }
+      chunkOut.writeInt(offset);
+      for (final byte[] value : chunkStrings) {
+        chunkOut.write(value);
+      }
+      chunkStrings.clear();
+    }
+
+    final byte[] chunk = chunkBytes.toByteArray();
+    if (compressed.length < Lz4BlockCodec.maxCompressedLength(chunk.length)) {
+      compressed = new byte[Lz4BlockCodec.maxCompressedLength(chunk.length)];
+    }
+    final int compressedLength = Lz4BlockCodec.compress(chunk, 0, chunk.length, compressed, 0);
+
+    chunkOffsets[numChunksWritten++] = (int) raf.getFilePointer();
+    raf.writeInt(chunk.length);
+    raf.write(compressed, 0, compressedLength);
+    chunkBytes.reset();
+    numDocsInChunk = 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   * @see com.linkedin.pinot.core.segment.creator.ForwardIndexCreator#close()
+   */
+  @Override
+  public void close() throws IOException {
+    if (numDocsInChunk > 0) {
+      writeChunk();
+    }
+    chunkOffsets[numChunksWritten] = (int) raf.getFilePointer();
+
+    raf.seek(0);
+    raf.writeInt(numDocsPerChunk);
+    raf.writeInt(numChunksWritten);
+    final ByteArrayOutputStream offsetBytes = new ByteArrayOutputStream(4 * chunkOffsets.length);
+    final DataOutputStream offsetOut = new DataOutputStream(offsetBytes);
+    for (final int chunkOffset : chunkOffsets) {
+      offsetOut.writeInt(chunkOffset);
+    }
+    raf.write(offsetBytes.toByteArray());
+    raf.close();
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.fwd;
+
+import java.io.Closeable;
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.index.writer.impl.FixedByteWidthRowColDataFileWriter;
+import com.linkedin.pinot.core.segment.creator.ForwardIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+
+
+/**
+ * Forward index creator for single value numeric columns without a dictionary, writes the value of every doc as a fixed
+ * width big endian number in doc id order.
+ */
+public class SingleValueRawForwardIndexCreator implements Closeable, ForwardIndexCreator {
+
+  private final File forwardIndexFile;
+  private final DataType dataType;
+  private final FixedByteWidthRowColDataFileWriter sVWriter;
+
+  public SingleValueRawForwardIndexCreator(FieldSpec spec, File baseIndexDir, int numDocs) throws Exception {
+    forwardIndexFile = new File(baseIndexDir, spec.getName() + V1Constants.Indexes.RAW_SV_FWD_IDX_FILE_EXTENTION);
+    dataType = spec.getDataType();
+    FileUtils.touch(forwardIndexFile);
+    sVWriter =
+        new FixedByteWidthRowColDataFileWriter(forwardIndexFile, numDocs, 1, new int[] { getValueSizeInBytes(dataType) });
+  }
+
+  public static int getValueSizeInBytes(DataType dataType) {
+    switch (dataType) {
+      case INT:
+      case FLOAT:
+        return 4;
+      case LONG:
+      case DOUBLE:
+        return 8;
+      default:
+        throw new UnsupportedOperationException("Raw forward index is not supported for data type : " + dataType);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * @see com.linkedin.pinot.core.segment.creator.ForwardIndexCreator#index(int, Object)
+   */
+  @Override
+  public void index(int docId, Object e) {
+    final Number value = (Number) e;
+    switch (dataType) {
+      case INT:
+        sVWriter.setInt(docId, 0, value.intValue());
+        break;
+      case LONG:
+        sVWriter.setLong(docId, 0, value.longValue());
+        break;
+      case FLOAT:
+        sVWriter.setFloat(docId, 0, value.floatValue());
+        break;
+      case DOUBLE:
+        sVWriter.setDouble(docId, 0, value.doubleValue());
+        break;
+      default:
+        throw new UnsupportedOperationException("Raw forward index is not supported for data type : " + dataType);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * @see com.linkedin.pinot.core.segment.creator.ForwardIndexCreator#close()
+   */
+  @Override
+  public void close() {
+    sVWriter.close();
+  }
+}
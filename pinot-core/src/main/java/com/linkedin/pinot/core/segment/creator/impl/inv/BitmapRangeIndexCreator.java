@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.inv;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.segment.creator.InvertedIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+
+
+/**
+ * BitmapRangeIndexCreator builds one bitmap per bucket of contiguous dictionary ids, so that a range predicate can be
+ * answered by OR-ing a handful of bucket bitmaps instead of one bitmap per matching dictionary id.
+ * Buckets are sqrt(cardinality) dictionary ids wide, which bounds both the number of full buckets and the number of
+ * edge dictionary ids to look up in the inverted index for any range.
+ *
+ * File layout: bucketSize, numBuckets, (numBuckets + 1) offsets, then the serialized bucket bitmaps.
+ */
+public class BitmapRangeIndexCreator implements InvertedIndexCreator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BitmapRangeIndexCreator.class);
+
+  public static final int HEADER_SIZE_IN_BYTES = 8;
+
+  private final File rangeIndexFile;
+  private final FieldSpec spec;
+  private final int bucketSize;
+  private final MutableRoaringBitmap[] bucketBitmaps;
+  long start = 0;
+
+  public BitmapRangeIndexCreator(File indexDir, int cardinality, FieldSpec spec) {
+    this.spec = spec;
+    rangeIndexFile = new File(indexDir, spec.getName() + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION);
+    bucketSize = getBucketSize(cardinality);
+    bucketBitmaps = new MutableRoaringBitmap[(cardinality + bucketSize - 1) / bucketSize];
+    for (int i = 0; i < bucketBitmaps.length; ++i) {
+      bucketBitmaps[i] = new MutableRoaringBitmap();
+    }
+    start = System.currentTimeMillis();
+  }
+
+  public static int getBucketSize(int cardinality) {
+    return Math.max(1, (int) Math.ceil(Math.sqrt(cardinality)));
+  }
+
+  @Override
+  public void add(int docId, int dictionaryId) {
+    if (dictionaryId != -1) {
+      bucketBitmaps[dictionaryId / bucketSize].add(docId);
+    }
+  }
+
+  @Override
+  public void add(int docId, Object e) {
+    if (spec.isSingleValueField()) {
+      add(docId, ((Integer) e).intValue());
+      return;
+    }
+    for (final Object entry : (Object[]) e) {
+      add(docId, ((Integer) entry).intValue());
+    }
+  }
+
+  @Override
+  public long totalTimeTakeSoFar() {
+    return (System.currentTimeMillis() - start);
+  }
+
+  @Override
+  public void seal() throws IOException {
+    final DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(rangeIndexFile)));
+    out.writeInt(bucketSize);
+    out.writeInt(bucketBitmaps.length);
+    // Same offset scheme as the bitmap inverted index, offsets are relative to the start of the file.
+    int offset = HEADER_SIZE_IN_BYTES + 4 * (bucketBitmaps.length + 1);
+    out.writeInt(offset);
+    for (final MutableRoaringBitmap bitmap : bucketBitmaps) {
+      offset += bitmap.serializedSizeInBytes();
+      out.writeInt(offset);
+    }
+    for (final MutableRoaringBitmap bitmap : bucketBitmaps) {
+      bitmap.serialize(out);
+    }
+    out.close();
+    LOGGER.debug("persisted bitmap range index for column : " + spec.getName() + " in "
+        + rangeIndexFile.getAbsolutePath());
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.creator.impl.stats;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.core.segment.creator.AbstractColumnStatisticsCollector;
+
+
+/**
+ * Stats collector for the columns stored without a dictionary. These columns are often high cardinality, so instead
+ * of keeping every unique value, it only tracks min and max. The cardinality is unknown.
+ */
+public class NoDictionaryColumnPreIndexStatsCollector extends AbstractColumnStatisticsCollector {
+  public static final int UNKNOWN_CARDINALITY = -1;
+
+  private Comparable min = null;
+  private Comparable max = null;
+  private boolean sealed = false;
+
+  public NoDictionaryColumnPreIndexStatsCollector(FieldSpec spec) {
+    super(spec);
+  }
+
+  @Override
+  public void collect(Object entry) {
+    if (entry instanceof Object[]) {
+      for (final Object e : (Object[]) entry) {
+        updateMinMax(e);
+      }
+      if (maxNumberOfMultiValues < ((Object[]) entry).length) {
+        maxNumberOfMultiValues = ((Object[]) entry).length;
+      }
+      updateTotalNumberOfEntries((Object[]) entry);
+      return;
+    }
+    updateMinMax(entry);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void updateMinMax(Object entry) {
+    final Comparable value = toComparable(entry);
+    if (min == null || value.compareTo(min) < 0) {
+      min = value;
+    }
+    if (max == null || value.compareTo(max) > 0) {
+      max = value;
+    }
+  }
+
+  private Comparable toComparable(Object entry) {
+    switch (fieldSpec.getDataType()) {
+      case INT:
+        return ((Number) entry).intValue();
+      case LONG:
+        return ((Number) entry).longValue();
+      case FLOAT:
+        return ((Number) entry).floatValue();
+      case DOUBLE:
+        return ((Number) entry).doubleValue();
+      default:
+        return entry.toString();
+    }
+  }
+
+  @Override
+  public Object getMinValue() throws Exception {
+    if (sealed) {
+      return min;
+    }
+    throw new IllegalAccessException("you must seal the collector first before asking for min value");
+  }
+
+  @Override
+  public Object getMaxValue() throws Exception {
+    if (sealed) {
+      return max;
+    }
+    throw new IllegalAccessException("you must seal the collector first before asking for max value");
+  }
+
+  /**
+   * Returns null, the unique values are not collected.
+   */
+  @Override
+  public Object[] getUniqueValuesSet() throws Exception {
+    if (sealed) {
+      return null;
+    }
+    throw new IllegalAccessException("you must seal the collector first before asking for unique values");
+  }
+
+  @Override
+  public int getCardinality() throws Exception {
+    if (sealed) {
+      return UNKNOWN_CARDINALITY;
+    }
+    throw new IllegalAccessException("you must seal the collector first before asking for cardinality");
+  }
+
+  @Override
+  public boolean isSorted() {
+    return false;
+  }
+
+  @Override
+  public boolean hasNull() {
+    return false;
+  }
+
+  @Override
+  public void seal() {
+    sealed = true;
+  }
+}
@@ -15,8 +15,10 @@
  */
 package com.linkedin.pinot.core.segment.creator.impl.stats;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,10 +38,19 @@ public class SegmentPreIndexStatsCollectorImpl implements SegmentPreIndexStatsCo
   private static final Logger LOGGER = LoggerFactory.getLogger(SegmentPreIndexStatsCollectorImpl.class);
 
   private final Schema dataSchema;
+  private final Set<String> noDictionaryColumns;
   Map<String, AbstractColumnStatisticsCollector> columnStatsCollectorMap;
 
   public SegmentPreIndexStatsCollectorImpl(Schema dataSchema) {
+    this(dataSchema, Collections.<String> emptySet());
+  }
+
+  /**
+   * The columns stored without a dictionary only get their min and max collected, not their unique values.
+   */
+  public SegmentPreIndexStatsCollectorImpl(Schema dataSchema, Set<String> noDictionaryColumns) {
     this.dataSchema = dataSchema;
+    this.noDictionaryColumns = noDictionaryColumns;
   }
 
   @Override
@@ -47,6 +58,10 @@ public class SegmentPreIndexStatsCollectorImpl implements SegmentPreIndexStatsCo
     columnStatsCollectorMap = new HashMap<String, AbstractColumnStatisticsCollector>();
 
     for (final FieldSpec spec : dataSchema.getAllFieldSpecs()) {
+      if (noDictionaryColumns.contains(spec.getName())) {
+        columnStatsCollectorMap.put(spec.getName(), new NoDictionaryColumnPreIndexStatsCollector(spec));
+        continue;
+      }
       switch (spec.getDataType()) {
         case BOOLEAN:
         case STRING:
@@ -21,9 +21,9 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.lang.ref.SoftReference;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.Callable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +40,8 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
   public static final Logger LOGGER = LoggerFactory.getLogger(BitmapInvertedIndexReader.class);
 
   final private int numberOfBitmaps;
-  private SoftReference<SoftReference<ImmutableRoaringBitmap>[]> bitmaps = null;
+  // All the bitmaps of the index when they are materialized at load time, null otherwise
+  private ImmutableRoaringBitmap[] materializedBitmaps = null;
 
   private RandomAccessFile _rndFile;
   private ByteBuffer buffer;
@@ -53,8 +54,28 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
    * @throws IOException
    */
   public BitmapInvertedIndexReader(File file, int cardinality, boolean isMmap) throws IOException {
+    this(file, cardinality, isMmap, false);
+  }
+
+  /**
+   * Constructs an inverted index with the specified size.
+   * @param cardinality the number of bitmaps in the inverted index, which should be the same as the number of values in
+   * the dictionary.
+   * @param materializeBitmaps true to build all the bitmaps at load time and keep them for the lifetime of the reader,
+   * instead of going through the {@link InvertedIndexBitmapCache}. Meant for columns with a small cardinality.
+   * @throws IOException
+   */
+  public BitmapInvertedIndexReader(File file, int cardinality, boolean isMmap, boolean materializeBitmaps)
+      throws IOException {
     numberOfBitmaps = cardinality;
     load(file, isMmap);
+    if (materializeBitmaps) {
+      ImmutableRoaringBitmap[] bitmaps = new ImmutableRoaringBitmap[numberOfBitmaps];
+      for (int i = 0; i < numberOfBitmaps; i++) {
+        bitmaps[i] = buildRoaringBitmapForIndex(i);
+      }
+      materializedBitmaps = bitmaps;
+    }
   }
 
   /**
@@ -62,32 +83,20 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
    * @see com.linkedin.pinot.core.segment.index.InvertedIndexReader#getImmutable(int)
    */
   @Override
-  public ImmutableRoaringBitmap getImmutable(int idx) {
-    SoftReference<ImmutableRoaringBitmap>[] bitmapArrayReference = null;
-
-    // Return the bitmap if it's still on heap
-    if (bitmaps != null) {
-      bitmapArrayReference = bitmaps.get();
-      if (bitmapArrayReference != null) {
-        SoftReference<ImmutableRoaringBitmap> bitmapReference = bitmapArrayReference[idx];
-        if (bitmapReference != null) {
-          ImmutableRoaringBitmap value = bitmapReference.get();
-          if (value != null) {
-            return value;
-          }
-        }
-      } else {
-        bitmapArrayReference = new SoftReference[numberOfBitmaps];
-        bitmaps = new SoftReference<SoftReference<ImmutableRoaringBitmap>[]>(bitmapArrayReference);
-      }
-    } else {
-      bitmapArrayReference = new SoftReference[numberOfBitmaps];
-      bitmaps = new SoftReference<SoftReference<ImmutableRoaringBitmap>[]>(bitmapArrayReference);
+  public ImmutableRoaringBitmap getImmutable(final int idx) {
+    if (materializedBitmaps != null) {
+      return materializedBitmaps[idx];
     }
-
-    ImmutableRoaringBitmap value = buildRoaringBitmapForIndex(idx);
-    bitmapArrayReference[idx] = new SoftReference<ImmutableRoaringBitmap>(value);
-    return value;
+    InvertedIndexBitmapCache cache = InvertedIndexBitmapCache.getInstance();
+    if (cache == null) {
+      return buildRoaringBitmapForIndex(idx);
+    }
+    return cache.get(this, idx, new Callable<ImmutableRoaringBitmap>() {
+      @Override
+      public ImmutableRoaringBitmap call() {
+        return buildRoaringBitmapForIndex(idx);
+      }
+    });
   }
 
   private ImmutableRoaringBitmap buildRoaringBitmapForIndex(final int index) {
@@ -95,9 +104,10 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
     final int nextOffset = getOffset(index + 1);
     final int bufferLength = nextOffset - currentOffset;
 
-    // Slice the buffer appropriately for Roaring Bitmap
-    buffer.position(currentOffset);
-    final ByteBuffer bb = buffer.slice();
+    // Slice the buffer appropriately for Roaring Bitmap, through a duplicate as concurrent lookups share the buffer
+    final ByteBuffer duplicate = buffer.duplicate();
+    duplicate.position(currentOffset);
+    final ByteBuffer bb = duplicate.slice();
     bb.limit(bufferLength);
 
     return new ImmutableRoaringBitmap(bb);
@@ -125,6 +135,11 @@ public class BitmapInvertedIndexReader implements InvertedIndexReader {
 
   @Override
   public void close() throws IOException {
+    InvertedIndexBitmapCache cache = InvertedIndexBitmapCache.getInstance();
+    if (cache != null) {
+      cache.invalidate(this);
+    }
+    materializedBitmaps = null;
     MmapUtils.unloadByteBuffer(buffer);
     if (_rndFile != null) {
       _rndFile.close();
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import com.linkedin.pinot.common.utils.MmapUtils;
+import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapRangeIndexCreator;
+
+
+/**
+ * Reader for the bucketed bitmap range index written by {@link BitmapRangeIndexCreator}.
+ * Bucket i holds the docs whose dictionary id is in [i * bucketSize, (i + 1) * bucketSize).
+ */
+public class BitmapRangeIndexReader {
+  public static final int INT_SIZE_IN_BYTES = Integer.SIZE / Byte.SIZE;
+
+  private final int bucketSize;
+  private final int numBuckets;
+  private RandomAccessFile _rndFile;
+  private ByteBuffer buffer;
+
+  public BitmapRangeIndexReader(File file, boolean isMmap) throws IOException {
+    final DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    bucketSize = dis.readInt();
+    numBuckets = dis.readInt();
+    dis.skipBytes(numBuckets * INT_SIZE_IN_BYTES);
+    final int lastOffset = dis.readInt();
+    dis.close();
+
+    _rndFile = new RandomAccessFile(file, "r");
+    if (isMmap) {
+      buffer = _rndFile.getChannel().map(MapMode.READ_ONLY, 0, lastOffset);
+    } else {
+      buffer = ByteBuffer.allocateDirect(lastOffset);
+      _rndFile.getChannel().read(buffer);
+    }
+  }
+
+  public int getBucketSize() {
+    return bucketSize;
+  }
+
+  public int getNumBuckets() {
+    return numBuckets;
+  }
+
+  /**
+   * @param bucket
+   * @return the docs of all the dictionary ids in the given bucket
+   */
+  public ImmutableRoaringBitmap getBucketBitmap(int bucket) {
+    final int currentOffset = getOffset(bucket);
+    final int nextOffset = getOffset(bucket + 1);
+
+    // Slice a duplicate so that concurrent readers do not race on the buffer position.
+    final ByteBuffer duplicate = buffer.duplicate();
+    duplicate.position(currentOffset);
+    final ByteBuffer bb = duplicate.slice();
+    bb.limit(nextOffset - currentOffset);
+    return new ImmutableRoaringBitmap(bb);
+  }
+
+  private int getOffset(int bucket) {
+    return buffer.getInt(BitmapRangeIndexCreator.HEADER_SIZE_IN_BYTES + bucket * INT_SIZE_IN_BYTES);
+  }
+
+  public void close() throws IOException {
+    MmapUtils.unloadByteBuffer(buffer);
+    if (_rndFile != null) {
+      _rndFile.close();
+    }
+  }
+}
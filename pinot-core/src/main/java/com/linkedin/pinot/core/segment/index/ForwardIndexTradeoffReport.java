@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+
+
+/**
+ * Compares, for the given columns, the dictionary encoded forward index of a segment with the chunk compressed forward
+ * index of the same data in another segment: the size on disk, and the time to read the values of all the docs in doc
+ * id order and of random docs. Each timing runs an untimed warm-up pass first and reports the best of NUM_ITERATIONS
+ * passes, so that class loading, JIT compilation and page faults of the first pass do not count.
+ */
+public class ForwardIndexTradeoffReport {
+  private static final int NUM_RANDOM_READS = 10000;
+  private static final int NUM_ITERATIONS = 5;
+
+  // Sink for the values read, so that the reads are not optimized away.
+  private static volatile double valueSink;
+
+  private ForwardIndexTradeoffReport() {
+  }
+
+  public static List<String> generate(File dictionarySegmentDir, File chunkCompressedSegmentDir,
+      Collection<String> columns, ReadMode mode) throws Exception {
+    final IndexSegmentImpl dictionarySegment = (IndexSegmentImpl) ColumnarSegmentLoader.load(dictionarySegmentDir, mode);
+    final IndexSegmentImpl chunkCompressedSegment =
+        (IndexSegmentImpl) ColumnarSegmentLoader.load(chunkCompressedSegmentDir, mode);
+    final List<String> report = new ArrayList<String>();
+    try {
+      final int totalDocs = dictionarySegment.getTotalDocs();
+      final int[] scanDocIds = new int[totalDocs];
+      for (int i = 0; i < totalDocs; i++) {
+        scanDocIds[i] = i;
+      }
+      final int[] randomDocIds = new int[totalDocs == 0 ? 0 : NUM_RANDOM_READS];
+      final Random random = new Random(0);
+      for (int i = 0; i < randomDocIds.length; i++) {
+        randomDocIds[i] = random.nextInt(totalDocs);
+      }
+
+      for (final String column : columns) {
+        final ColumnMetadata columnMetadata =
+            ((SegmentMetadataImpl) chunkCompressedSegment.getSegmentMetadata()).getColumnMetadataFor(column);
+        final File chunkCompressedFile =
+            new File(chunkCompressedSegmentDir, column + V1Constants.Indexes.CHUNK_COMPRESSED_SV_FWD_IDX_FILE_EXTENTION);
+        if (columnMetadata == null || !chunkCompressedFile.exists()) {
+          report.add(column + ": no chunk compressed forward index");
+          continue;
+        }
+
+        final long dictionaryBytes =
+            new File(dictionarySegmentDir, column + V1Constants.Dict.FILE_EXTENTION).length()
+                + new File(dictionarySegmentDir, column + V1Constants.Indexes.UN_SORTED_SV_FWD_IDX_FILE_EXTENTION)
+                    .length()
+                + new File(dictionarySegmentDir, column + V1Constants.Indexes.SORTED_FWD_IDX_FILE_EXTENTION).length();
+        final long chunkCompressedBytes = chunkCompressedFile.length();
+
+        report.add(String.format(
+            "%s (%s, cardinality %d): dictionary + forward index %d bytes, chunk compressed %d bytes (%.2f times); "
+                + "scan %.1f vs %.1f ns/doc; random read %.1f vs %.1f ns/doc",
+            column, columnMetadata.getDataType(),
+            ((SegmentMetadataImpl) dictionarySegment.getSegmentMetadata()).getColumnMetadataFor(column)
+                .getCardinality(), dictionaryBytes,
+            chunkCompressedBytes, (double) chunkCompressedBytes / Math.max(dictionaryBytes, 1),
+            nanosPerDoc(dictionarySegment, column, scanDocIds), nanosPerDoc(chunkCompressedSegment, column, scanDocIds),
+            nanosPerDoc(dictionarySegment, column, randomDocIds),
+            nanosPerDoc(chunkCompressedSegment, column, randomDocIds)));
+      }
+    } finally {
+      chunkCompressedSegment.destroy();
+      dictionarySegment.destroy();
+    }
+    return report;
+  }
+
+  /**
+   * Reads the value of every doc through the data source block, the way selection reads them, and returns the best
+   * average time per doc over NUM_ITERATIONS passes, after a warm-up pass.
+   */
+  private static double nanosPerDoc(IndexSegmentImpl segment, String column, int[] docIds) {
+    if (docIds.length == 0) {
+      return 0;
+    }
+    readValues(segment, column, docIds);
+    long bestElapsed = Long.MAX_VALUE;
+    for (int i = 0; i < NUM_ITERATIONS; i++) {
+      final long start = System.nanoTime();
+      readValues(segment, column, docIds);
+      bestElapsed = Math.min(bestElapsed, System.nanoTime() - start);
+    }
+    return (double) bestElapsed / docIds.length;
+  }
+
+  private static void readValues(IndexSegmentImpl segment, String column, int[] docIds) {
+    final Block block = segment.getDataSource(column).nextBlock();
+    final BlockSingleValIterator iterator = (BlockSingleValIterator) block.getBlockValueSet().iterator();
+    final Dictionary dictionary = block.getMetadata().getDictionary();
+    final boolean isString = block.getMetadata().getDataType() == DataType.STRING;
+
+    double sink = 0;
+    for (final int docId : docIds) {
+      iterator.skipTo(docId);
+      if (dictionary != null) {
+        final int dictId = iterator.nextIntVal();
+        sink += isString ? dictionary.toString(dictId).length() : dictionary.getDoubleValue(dictId);
+      } else {
+        sink += isString ? iterator.nextStringVal().length() : iterator.nextDoubleVal();
+      }
+    }
+    valueSink = sink;
+  }
+}
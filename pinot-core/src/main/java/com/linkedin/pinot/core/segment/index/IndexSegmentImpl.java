@@ -27,6 +27,7 @@ import com.linkedin.pinot.core.common.Predicate;
 import com.linkedin.pinot.core.index.reader.DataFileReader;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.IndexType;
+import com.linkedin.pinot.core.query.cache.FilterBitmapCache;
 import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.data.source.ColumnDataSourceImpl;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
@@ -42,6 +43,8 @@ public class IndexSegmentImpl implements IndexSegment {
   private final File indexDir;
   private final SegmentMetadataImpl segmentMetadata;
   private final Map<String, ColumnIndexContainer> indexContainerMap;
+  // Created on first use, once the server enabled the filter bitmap caches
+  private FilterBitmapCache filterBitmapCache;
 
   public IndexSegmentImpl(File indexDir, SegmentMetadataImpl segmentMetadata,
       Map<String, ColumnIndexContainer> columnIndexContainerMap) throws Exception {
@@ -93,6 +96,16 @@ public class IndexSegmentImpl implements IndexSegment {
     throw new UnsupportedOperationException("cannot ask for a data source with a predicate");
   }
 
+  /**
+   * @return the cache of the filter bitmaps evaluated on this segment, or null if filter bitmap caches are disabled
+   */
+  public synchronized FilterBitmapCache getFilterBitmapCache() {
+    if (filterBitmapCache == null && FilterBitmapCache.getMaxBytesPerSegment() > 0) {
+      filterBitmapCache = new FilterBitmapCache(FilterBitmapCache.getMaxBytesPerSegment());
+    }
+    return filterBitmapCache;
+  }
+
   @Override
   public String[] getColumnNames() {
     return segmentMetadata.getSchema().getColumnNames().toArray(new String[0]);
@@ -100,10 +113,18 @@ public class IndexSegmentImpl implements IndexSegment {
 
   @Override
   public void destroy() {
+    synchronized (this) {
+      if (filterBitmapCache != null) {
+        filterBitmapCache.clear();
+        filterBitmapCache = null;
+      }
+    }
     for (String column : indexContainerMap.keySet()) {
 
       try {
-        indexContainerMap.get(column).getDictionary().close();
+        if (indexContainerMap.get(column).getDictionary() != null) {
+          indexContainerMap.get(column).getDictionary().close();
+        }
       } catch (Exception e) {
         LOGGER.error("Error when close dictionary index for column : " + column, e);
       }
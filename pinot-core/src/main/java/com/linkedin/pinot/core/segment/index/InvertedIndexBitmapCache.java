@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index;
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+
+/**
+ * Server wide cache of the bitmap handles of the inverted indexes, so that the bitmaps used by many queries are not
+ * sliced and parsed out of the index buffer again on every lookup.
+ *
+ * The cache holds at most the configured number of handles, and evicts the least recently used ones first. Handles
+ * only wrap the index buffer, so the cost of an entry does not depend on the size of its bitmap. Readers drop their
+ * handles from the cache once they are closed.
+ *
+ */
+public class InvertedIndexBitmapCache {
+  public static final long DEFAULT_MAX_ENTRIES = 100000L;
+
+  // Null when the cache is disabled
+  private static volatile InvertedIndexBitmapCache instance = new InvertedIndexBitmapCache(DEFAULT_MAX_ENTRIES);
+
+  private final long _maxEntries;
+  private final Cache<BitmapKey, ImmutableRoaringBitmap> _bitmaps;
+
+  public InvertedIndexBitmapCache(long maxEntries) {
+    _maxEntries = maxEntries;
+    _bitmaps = CacheBuilder.newBuilder().maximumSize(maxEntries).build();
+  }
+
+  public static InvertedIndexBitmapCache getInstance() {
+    return instance;
+  }
+
+  /**
+   * Replace the server wide cache, null to disable it.
+   *
+   * @param cache
+   */
+  public static void setInstance(InvertedIndexBitmapCache cache) {
+    InvertedIndexBitmapCache previousCache = instance;
+    instance = cache;
+    if (previousCache != null && previousCache != cache) {
+      previousCache._bitmaps.invalidateAll();
+    }
+  }
+
+  /**
+   * @param reader
+   * @param dictId
+   * @param loader builds the handle of the bitmap when it is not cached
+   * @return the handle of the bitmap of the given dictionary id of the given reader
+   */
+  public ImmutableRoaringBitmap get(InvertedIndexReader reader, int dictId, Callable<ImmutableRoaringBitmap> loader) {
+    try {
+      return _bitmaps.get(new BitmapKey(reader, dictId), loader);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Caught exception while building bitmap " + dictId + " of " + reader, e.getCause());
+    }
+  }
+
+  /**
+   * Drop all the handles of the given reader.
+   *
+   * @param reader
+   */
+  public void invalidate(InvertedIndexReader reader) {
+    final Iterator<BitmapKey> iterator = _bitmaps.asMap().keySet().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next()._reader == reader) {
+        iterator.remove();
+      }
+    }
+  }
+
+  public long getMaxEntries() {
+    return _maxEntries;
+  }
+
+  public long getNumEntries() {
+    return _bitmaps.size();
+  }
+
+  public long getNumHits() {
+    return _bitmaps.stats().hitCount();
+  }
+
+  public long getNumMisses() {
+    return _bitmaps.stats().missCount();
+  }
+
+  public long getNumEvictions() {
+    return _bitmaps.stats().evictionCount();
+  }
+
+  private static class BitmapKey {
+    private final InvertedIndexReader _reader;
+    private final int _dictId;
+
+    BitmapKey(InvertedIndexReader reader, int dictId) {
+      _reader = reader;
+      _dictId = dictId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof BitmapKey)) {
+        return false;
+      }
+      final BitmapKey other = (BitmapKey) o;
+      return (_reader == other._reader) && (_dictId == other._dictId);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(_reader) + _dictId;
+    }
+  }
+}
@@ -66,6 +66,7 @@ public class SegmentMetadataImpl implements SegmentMetadata {
   private Duration _timeGranularity;
   private long _pushTime = Long.MIN_VALUE;
   private long _refreshTime = Long.MIN_VALUE;
+  private SegmentVersion _segmentVersion = SegmentVersion.v1;
 
   public SegmentMetadataImpl(File indexDir) throws ConfigurationException, IOException {
     LOGGER.debug("SegmentMetadata location: " + indexDir);
@@ -235,6 +236,13 @@ public class SegmentMetadataImpl implements SegmentMetadata {
 
     _segmentName = _segmentMetadataPropertiesConfiguration.getString(V1Constants.MetadataKeys.Segment.SEGMENT_NAME);
 
+    // Segments written before the version was stored are v1 segments.
+    if (_segmentMetadataPropertiesConfiguration.containsKey(V1Constants.MetadataKeys.Segment.SEGMENT_VERSION)) {
+      _segmentVersion =
+          SegmentVersion.valueOf(_segmentMetadataPropertiesConfiguration
+              .getString(V1Constants.MetadataKeys.Segment.SEGMENT_VERSION));
+    }
+
     for (final String column : _allColumns) {
       _columnMetadataMap.put(column, extractColumnMetadataFor(column));
     }
@@ -342,7 +350,11 @@ public class SegmentMetadataImpl implements SegmentMetadata {
 
   @Override
   public String getVersion() {
-    return SegmentVersion.v1.toString();
+    return _segmentVersion.toString();
+  }
+
+  public SegmentVersion getSegmentVersion() {
+    return _segmentVersion;
   }
 
   @Override
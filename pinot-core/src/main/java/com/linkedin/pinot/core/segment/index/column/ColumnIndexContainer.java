@@ -18,47 +18,109 @@ package com.linkedin.pinot.core.segment.index.column;
 import java.io.File;
 import java.io.IOException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
 import com.linkedin.pinot.common.segment.ReadMode;
 import com.linkedin.pinot.core.index.reader.DataFileReader;
+import com.linkedin.pinot.core.index.reader.SingleColumnSingleValueReader;
 import com.linkedin.pinot.core.index.reader.impl.FixedBitSkipListSCMVReader;
 import com.linkedin.pinot.core.index.reader.impl.FixedByteWidthRowColDataFileReader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
 import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 import com.linkedin.pinot.core.segment.index.BitmapInvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.InvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.ChunkCompressedSVForwardIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.DoubleDictionary;
 import com.linkedin.pinot.core.segment.index.readers.FixedBitCompressedSVForwardIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.FloatDictionary;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
 import com.linkedin.pinot.core.segment.index.readers.IntDictionary;
 import com.linkedin.pinot.core.segment.index.readers.LongDictionary;
+import com.linkedin.pinot.core.segment.index.readers.OnHeapDoubleDictionary;
+import com.linkedin.pinot.core.segment.index.readers.OnHeapFloatDictionary;
+import com.linkedin.pinot.core.segment.index.readers.OnHeapIntDictionary;
+import com.linkedin.pinot.core.segment.index.readers.OnHeapLongDictionary;
+import com.linkedin.pinot.core.segment.index.readers.OnHeapStringDictionary;
+import com.linkedin.pinot.core.segment.index.readers.RawSVForwardIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
+import com.linkedin.pinot.core.segment.index.readers.VarLengthStringDictionary;
 
 
 public abstract class ColumnIndexContainer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ColumnIndexContainer.class);
 
   public static ColumnIndexContainer init(String column, File indexDir,
       ColumnMetadata metadata, IndexLoadingConfigMetadata indexLoadingConfigMetadata, ReadMode mode) throws Exception {
+    return init(column, indexDir, metadata, indexLoadingConfigMetadata, mode, SegmentVersion.v1);
+  }
+
+  public static ColumnIndexContainer init(String column, File indexDir, ColumnMetadata metadata,
+      IndexLoadingConfigMetadata indexLoadingConfigMetadata, ReadMode mode, SegmentVersion segmentVersion)
+      throws Exception {
 
     boolean loadInverted = false;
+    boolean loadRange = false;
+    boolean materializeInverted = false;
+    boolean stringDictionaryHashIndex = false;
+    boolean onHeapDictionary = false;
     if (indexLoadingConfigMetadata != null) {
       if (indexLoadingConfigMetadata.getLoadingInvertedIndexColumns() != null) {
         loadInverted = indexLoadingConfigMetadata.getLoadingInvertedIndexColumns().contains(column);
       }
+      if (indexLoadingConfigMetadata.getLoadingRangeIndexColumns() != null) {
+        loadRange = indexLoadingConfigMetadata.getLoadingRangeIndexColumns().contains(column);
+      }
+      materializeInverted =
+          metadata.getCardinality() <= indexLoadingConfigMetadata.getMaterializedInvertedIndexMaxCardinality();
+      stringDictionaryHashIndex =
+          metadata.getCardinality() <= indexLoadingConfigMetadata.getStringDictionaryHashIndexMaxCardinality();
+      onHeapDictionary = indexLoadingConfigMetadata.isLoadingOnHeapDictionaryForColumn(column);
+    }
+
+    if (!metadata.hasDictionary()) {
+      return loadRaw(column, indexDir, metadata, mode);
     }
 
     File dictionaryFile = new File(indexDir, column + V1Constants.Dict.FILE_EXTENTION);
-    ImmutableDictionaryReader dictionary = load(metadata, dictionaryFile, mode);
+    ImmutableDictionaryReader dictionary =
+        load(metadata, dictionaryFile, mode, segmentVersion, stringDictionaryHashIndex);
+    if (onHeapDictionary) {
+      dictionary = loadOnHeap(dictionary);
+    }
 
     if (metadata.isSorted() && metadata.isSingleValue()) {
       return loadSorted(column, indexDir, metadata, dictionary, mode);
     }
 
     if (metadata.isSingleValue()) {
-      return loadUnsorted(column, indexDir, metadata, dictionary, mode, loadInverted);
+      return loadUnsorted(column, indexDir, metadata, dictionary, mode, loadInverted, loadRange, materializeInverted);
     }
-    return loadMultiValue(column, indexDir, metadata, dictionary, mode, loadInverted);
+    return loadMultiValue(column, indexDir, metadata, dictionary, mode, loadInverted, loadRange,
+        materializeInverted);
+  }
+
+  private static ColumnIndexContainer loadRaw(String column, File indexDir, ColumnMetadata metadata, ReadMode mode)
+      throws IOException {
+    File chunkCompressedFwdIndexFile =
+        new File(indexDir, column + V1Constants.Indexes.CHUNK_COMPRESSED_SV_FWD_IDX_FILE_EXTENTION);
+
+    SingleColumnSingleValueReader fwdIndexReader;
+    if (chunkCompressedFwdIndexFile.exists()) {
+      fwdIndexReader =
+          new ChunkCompressedSVForwardIndexReader(chunkCompressedFwdIndexFile, metadata.getTotalDocs(),
+              metadata.getDataType(), mode == ReadMode.mmap);
+    } else {
+      File fwdIndexFile = new File(indexDir, column + V1Constants.Indexes.RAW_SV_FWD_IDX_FILE_EXTENTION);
+      fwdIndexReader =
+          new RawSVForwardIndexReader(fwdIndexFile, metadata.getTotalDocs(), metadata.getDataType(),
+              mode == ReadMode.mmap);
+    }
+
+    return new RawSVColumnIndexContainer(column, metadata, fwdIndexReader);
   }
 
   private static ColumnIndexContainer loadSorted(String column, File indexDir, ColumnMetadata metadata,
@@ -73,7 +135,8 @@ public abstract class ColumnIndexContainer {
   }
 
   private static ColumnIndexContainer loadUnsorted(String column, File indexDir, ColumnMetadata metadata,
-      ImmutableDictionaryReader dictionary, ReadMode mode, boolean loadInverted) throws IOException {
+      ImmutableDictionaryReader dictionary, ReadMode mode, boolean loadInverted, boolean loadRange,
+      boolean materializeInverted) throws IOException {
     File fwdIndexFile = new File(indexDir, column + V1Constants.Indexes.UN_SORTED_SV_FWD_IDX_FILE_EXTENTION);
     File invertedIndexFile = new File(indexDir, column + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION);
 
@@ -85,14 +148,17 @@ public abstract class ColumnIndexContainer {
 
     if (invertedIndexFile.exists() && loadInverted) {
       invertedIndex =
-          new BitmapInvertedIndexReader(invertedIndexFile, metadata.getCardinality(), mode == ReadMode.mmap);
+          new BitmapInvertedIndexReader(invertedIndexFile, metadata.getCardinality(), mode == ReadMode.mmap,
+              materializeInverted);
     }
 
-    return new UnsortedSVColumnIndexContainer(column, metadata, fwdIndexReader, dictionary, invertedIndex);
+    return new UnsortedSVColumnIndexContainer(column, metadata, fwdIndexReader, dictionary, invertedIndex,
+        loadRangeIndex(column, indexDir, mode, loadRange, invertedIndex != null));
   }
 
   private static ColumnIndexContainer loadMultiValue(String column, File indexDir, ColumnMetadata metadata,
-      ImmutableDictionaryReader dictionary, ReadMode mode, boolean loadInverted) throws Exception {
+      ImmutableDictionaryReader dictionary, ReadMode mode, boolean loadInverted, boolean loadRange,
+      boolean materializeInverted) throws Exception {
     File fwdIndexFile = new File(indexDir, column + V1Constants.Indexes.UN_SORTED_MV_FWD_IDX_FILE_EXTENTION);
     File invertedIndexFile = new File(indexDir, column + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION);
 
@@ -104,15 +170,33 @@ public abstract class ColumnIndexContainer {
 
     if (invertedIndexFile.exists() && loadInverted) {
       invertedIndex =
-          new BitmapInvertedIndexReader(invertedIndexFile, metadata.getCardinality(), mode == ReadMode.mmap);
+          new BitmapInvertedIndexReader(invertedIndexFile, metadata.getCardinality(), mode == ReadMode.mmap,
+              materializeInverted);
     }
 
-    return new UnSortedMVColumnIndexContainer(column, metadata, fwdIndexReader, dictionary, invertedIndex);
+    return new UnSortedMVColumnIndexContainer(column, metadata, fwdIndexReader, dictionary, invertedIndex,
+        loadRangeIndex(column, indexDir, mode, loadRange, invertedIndex != null));
+  }
+
+  /**
+   * The range index is only read by the bitmap based filter, which needs the inverted index for the edge buckets.
+   */
+  private static BitmapRangeIndexReader loadRangeIndex(String column, File indexDir, ReadMode mode,
+      boolean loadRange, boolean hasInvertedIndex) throws IOException {
+    File rangeIndexFile = new File(indexDir, column + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION);
+    if (rangeIndexFile.exists() && loadRange) {
+      if (!hasInvertedIndex) {
+        LOGGER.warn("Not loading the range index of column {}, its inverted index is not loaded", column);
+        return null;
+      }
+      return new BitmapRangeIndexReader(rangeIndexFile, mode == ReadMode.mmap);
+    }
+    return null;
   }
 
   @SuppressWarnings("incomplete-switch")
-  private static ImmutableDictionaryReader load(ColumnMetadata metadata, File dictionaryFile, ReadMode loadMode)
-      throws IOException {
+  private static ImmutableDictionaryReader load(ColumnMetadata metadata, File dictionaryFile, ReadMode loadMode,
+      SegmentVersion segmentVersion, boolean stringDictionaryHashIndex) throws IOException {
     switch (metadata.getDataType()) {
       case INT:
         return new IntDictionary(dictionaryFile, metadata, loadMode);
@@ -124,18 +208,54 @@ public abstract class ColumnIndexContainer {
         return new DoubleDictionary(dictionaryFile, metadata, loadMode);
       case STRING:
       case BOOLEAN:
+        if (segmentVersion == SegmentVersion.v2) {
+          return new VarLengthStringDictionary(dictionaryFile, metadata, loadMode, stringDictionaryHashIndex);
+        }
         return new StringDictionary(dictionaryFile, metadata, loadMode);
     }
 
     throw new UnsupportedOperationException("unsupported data type : " + metadata.getDataType());
   }
 
+  /**
+   * Decodes the dictionary into an on heap array, and closes the dictionary read from the file. This is for the columns
+   * whose values are read for most of the docs of the queries: a lookup becomes an array access instead of a read and
+   * decode from the buffer, at the cost of the heap holding all the values.
+   */
+  private static ImmutableDictionaryReader loadOnHeap(ImmutableDictionaryReader dictionary) throws IOException {
+    try {
+      if (dictionary instanceof IntDictionary) {
+        return new OnHeapIntDictionary((IntDictionary) dictionary);
+      }
+      if (dictionary instanceof LongDictionary) {
+        return new OnHeapLongDictionary((LongDictionary) dictionary);
+      }
+      if (dictionary instanceof FloatDictionary) {
+        return new OnHeapFloatDictionary((FloatDictionary) dictionary);
+      }
+      if (dictionary instanceof DoubleDictionary) {
+        return new OnHeapDoubleDictionary((DoubleDictionary) dictionary);
+      }
+      return new OnHeapStringDictionary((StringDictionary) dictionary);
+    } finally {
+      dictionary.close();
+    }
+  }
+
   /**
    *
    * @return
    */
   public abstract InvertedIndexReader getInvertedIndex();
 
+  /**
+   *
+   * @return the bucketed bitmap range index, null if it is not loaded for the column
+   */
+  public BitmapRangeIndexReader getRangeIndex() {
+    return null;
+  }
+
   /**
    *
    * @return
@@ -18,6 +18,7 @@ package com.linkedin.pinot.core.segment.index.column;
 import com.linkedin.pinot.core.index.reader.DataFileReader;
 import com.linkedin.pinot.core.index.reader.impl.FixedBitSkipListSCMVReader;
 import com.linkedin.pinot.core.segment.index.BitmapInvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
 import com.linkedin.pinot.core.segment.index.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
@@ -30,6 +31,7 @@ public class UnSortedMVColumnIndexContainer extends ColumnIndexContainer {
   private final FixedBitSkipListSCMVReader indexReader;
   private final ImmutableDictionaryReader dictionary;
   private final BitmapInvertedIndexReader invertedIndexReader;
+  private final BitmapRangeIndexReader rangeIndexReader;
 
   public UnSortedMVColumnIndexContainer(String column, ColumnMetadata columnMetadata,
       FixedBitSkipListSCMVReader indexReader, ImmutableDictionaryReader dictionary) {
@@ -39,11 +41,18 @@ public class UnSortedMVColumnIndexContainer extends ColumnIndexContainer {
   public UnSortedMVColumnIndexContainer(String column, ColumnMetadata columnMetadata,
       FixedBitSkipListSCMVReader indexReader, ImmutableDictionaryReader dictionary,
       BitmapInvertedIndexReader invertedIndex) {
+    this(column, columnMetadata, indexReader, dictionary, invertedIndex, null);
+  }
+
+  public UnSortedMVColumnIndexContainer(String column, ColumnMetadata columnMetadata,
+      FixedBitSkipListSCMVReader indexReader, ImmutableDictionaryReader dictionary,
+      BitmapInvertedIndexReader invertedIndex, BitmapRangeIndexReader rangeIndex) {
     this.column = column;
     this.columnMetadata = columnMetadata;
     this.indexReader = indexReader;
     this.dictionary = dictionary;
     this.invertedIndexReader = invertedIndex;
+    this.rangeIndexReader = rangeIndex;
   }
 
   @Override
@@ -51,6 +60,11 @@ public class UnSortedMVColumnIndexContainer extends ColumnIndexContainer {
     return invertedIndexReader;
   }
 
+  @Override
+  public BitmapRangeIndexReader getRangeIndex() {
+    return rangeIndexReader;
+  }
+
   @Override
   public DataFileReader getForwardIndex() {
     return indexReader;
@@ -73,6 +87,9 @@ public class UnSortedMVColumnIndexContainer extends ColumnIndexContainer {
     if (invertedIndexReader != null) {
       invertedIndexReader.close();
     }
+    if (rangeIndexReader != null) {
+      rangeIndexReader.close();
+    }
     return true;
   }
 
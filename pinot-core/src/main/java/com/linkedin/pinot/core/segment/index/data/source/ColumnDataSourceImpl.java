@@ -25,10 +25,13 @@ import com.linkedin.pinot.core.common.BlockId;
 import com.linkedin.pinot.core.common.DataSource;
 import com.linkedin.pinot.core.common.DataSourceMetadata;
 import com.linkedin.pinot.core.common.Predicate;
+import com.linkedin.pinot.core.index.reader.SingleColumnSingleValueReader;
 import com.linkedin.pinot.core.index.reader.impl.FixedBitSkipListSCMVReader;
+import com.linkedin.pinot.core.segment.index.BitmapRangeIndexReader;
 import com.linkedin.pinot.core.segment.index.InvertedIndexReader;
 import com.linkedin.pinot.core.segment.index.column.ColumnIndexContainer;
 import com.linkedin.pinot.core.segment.index.data.source.mv.block.MultiValueBlock;
+import com.linkedin.pinot.core.segment.index.data.source.sv.block.RawSingleValueBlock;
 import com.linkedin.pinot.core.segment.index.data.source.sv.block.SortedSingleValueBlock;
 import com.linkedin.pinot.core.segment.index.data.source.sv.block.UnSortedSingleValueBlock;
 import com.linkedin.pinot.core.segment.index.readers.Dictionary;
@@ -72,7 +75,11 @@ public class ColumnDataSourceImpl implements DataSource {
   public Block nextBlock(BlockId blockId) {
     Block b = null;
 
-    if (indexContainer.getColumnMetadata().isSingleValue()) {
+    if (!indexContainer.getColumnMetadata().hasDictionary()) {
+      b =
+          new RawSingleValueBlock(blockId, (SingleColumnSingleValueReader) indexContainer.getForwardIndex(),
+              indexContainer.getColumnMetadata());
+    } else if (indexContainer.getColumnMetadata().isSingleValue()) {
       if (indexContainer.getColumnMetadata().isSorted()) {
         b =
             new SortedSingleValueBlock(blockId, (SortedForwardIndexReader) indexContainer.getForwardIndex(),
@@ -151,6 +158,11 @@ public class ColumnDataSourceImpl implements DataSource {
     return indexContainer.getInvertedIndex();
   }
 
+  @Override
+  public BitmapRangeIndexReader getRangeIndex() {
+    return indexContainer.getRangeIndex();
+  }
+
   @Override
   public Dictionary getDictionary() {
     return indexContainer.getDictionary();
@@ -147,6 +147,11 @@ public class MultiValueBlock implements Block {
       public DataType getValueType() {
         return columnMetadata.getDataType();
       }
+
+      @Override
+      public void readIntValues(int[] docIds, int startPos, int limit, int[] values, int outStartPos) {
+        throw new UnsupportedOperationException("Batch read is not supported on multi value blocks");
+      }
     };
   }
 
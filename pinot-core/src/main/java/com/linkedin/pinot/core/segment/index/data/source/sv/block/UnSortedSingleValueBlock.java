@@ -136,6 +136,11 @@ public class UnSortedSingleValueBlock implements Block {
         // TODO Auto-generated method stub
         return null;
       }
+
+      @Override
+      public void readIntValues(int[] docIds, int startPos, int limit, int[] values, int outStartPos) {
+        sVReader.readValues(docIds, startPos, limit, values, outStartPos);
+      }
     };
   }
 
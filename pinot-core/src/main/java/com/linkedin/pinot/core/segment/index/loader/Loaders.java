@@ -45,7 +45,8 @@ public class Loaders {
 
       for (String column : metadata.getColumnMetadataMap().keySet()) {
         indexContainerMap.put(column, ColumnIndexContainer.init(column, indexDir,
-            metadata.getColumnMetadataFor(column), indexLoadingConfigMetadata, readMode));
+            metadata.getColumnMetadataFor(column), indexLoadingConfigMetadata, readMode,
+            metadata.getSegmentVersion()));
       }
       return new IndexSegmentImpl(indexDir, metadata, indexContainerMap);
     }
@@ -0,0 +1,267 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.utils.MmapUtils;
+import com.linkedin.pinot.core.index.reader.DataFileMetadata;
+import com.linkedin.pinot.core.index.reader.SingleColumnSingleValueReader;
+import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueChunkCompressedForwardIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueRawForwardIndexCreator;
+import com.linkedin.pinot.core.util.Lz4BlockCodec;
+
+
+/**
+ * Reads the values of a single value column written by SingleValueChunkCompressedForwardIndexCreator. Reading a value
+ * decompresses its whole chunk into a scratch buffer of the calling thread, which is kept so that the other docs of the
+ * chunk are read without decompressing it again. The numeric getters convert the stored value like
+ * RawSVForwardIndexReader.
+ *
+ * The scratch buffers are static and shared by all the readers, each thread has NUM_CHUNK_SLOTS of them keyed by
+ * (reader id, chunk id). A thread interleaving reads of a few columns keeps one chunk of each, and the memory held by a
+ * thread does not grow with the number of readers it has used. Reader ids are never reused, so the slots of a closed
+ * reader are never matched again and are simply refilled.
+ */
+public class ChunkCompressedSVForwardIndexReader implements SingleColumnSingleValueReader {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int NUM_CHUNK_SLOTS = 8;
+  private static final AtomicLong READER_ID_GENERATOR = new AtomicLong();
+
+  private static final ThreadLocal<ChunkSlots> CHUNK_SLOTS = new ThreadLocal<ChunkSlots>() {
+    @Override
+    protected ChunkSlots initialValue() {
+      return new ChunkSlots();
+    }
+  };
+
+  private static class DecompressedChunk {
+    private long readerId = -1;
+    private int chunkId = -1;
+    private byte[] bytes = new byte[0];
+    private ByteBuffer buffer = ByteBuffer.wrap(bytes);
+  }
+
+  private static class ChunkSlots {
+    private final DecompressedChunk[] chunks = new DecompressedChunk[NUM_CHUNK_SLOTS];
+    private int nextVictim = 0;
+
+    private ChunkSlots() {
+      for (int i = 0; i < NUM_CHUNK_SLOTS; i++) {
+        chunks[i] = new DecompressedChunk();
+      }
+    }
+  }
+
+  private final long readerId = READER_ID_GENERATOR.getAndIncrement();
+
+  private final RandomAccessFile file;
+  private final ByteBuffer byteBuffer;
+  private final boolean isMMap;
+  private final DataType dataType;
+  private final int rows;
+  private final int valueSize;
+  private final int numDocsPerChunk;
+
+  public ChunkCompressedSVForwardIndexReader(File indexFile, int rows, DataType dataType, boolean isMMap)
+      throws IOException {
+    this.rows = rows;
+    this.dataType = dataType;
+    this.isMMap = isMMap;
+    valueSize = dataType == DataType.STRING ? 0 : SingleValueRawForwardIndexCreator.getValueSizeInBytes(dataType);
+    file = new RandomAccessFile(indexFile, "r");
+    if (isMMap) {
+      byteBuffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length()).order(ByteOrder.BIG_ENDIAN);
+    } else {
+      byteBuffer = ByteBuffer.allocateDirect((int) file.length());
+      file.getChannel().read(byteBuffer);
+      file.close();
+    }
+    numDocsPerChunk = byteBuffer.getInt(0);
+  }
+
+  public int getLength() {
+    return rows;
+  }
+
+  public DataType getDataType() {
+    return dataType;
+  }
+
+  public int getNumDocsPerChunk() {
+    return numDocsPerChunk;
+  }
+
+  /**
+   * Returns the uncompressed chunk holding the row. If no scratch buffer of the calling thread holds it, the chunk is
+   * decompressed into the slot after the one last filled.
+   */
+  private ByteBuffer getChunk(int row) {
+    if (row < 0 || row >= rows) {
+      throw new IndexOutOfBoundsException("Row " + row + " is not in [0, " + rows + ")");
+    }
+    final int chunkId = row / numDocsPerChunk;
+    final ChunkSlots slots = CHUNK_SLOTS.get();
+    for (final DecompressedChunk chunk : slots.chunks) {
+      if (chunk.readerId == readerId && chunk.chunkId == chunkId) {
+        return chunk.buffer;
+      }
+    }
+
+    final DecompressedChunk chunk = slots.chunks[slots.nextVictim];
+    slots.nextVictim = (slots.nextVictim + 1) % NUM_CHUNK_SLOTS;
+    final int chunkOffset = getChunkOffset(chunkId);
+    final int uncompressedLength = byteBuffer.getInt(chunkOffset);
+    if (chunk.bytes.length < uncompressedLength) {
+      chunk.bytes = new byte[uncompressedLength];
+      chunk.buffer = ByteBuffer.wrap(chunk.bytes);
+    }
+    // Invalidate first, the buffer holds a partial chunk if decompression fails.
+    chunk.readerId = -1;
+    chunk.chunkId = -1;
+    Lz4BlockCodec.decompress(byteBuffer, chunkOffset + 4, getChunkOffset(chunkId + 1) - chunkOffset - 4, chunk.bytes,
+        uncompressedLength);
+    chunk.readerId = readerId;
+    chunk.chunkId = chunkId;
+    return chunk.buffer;
+  }
+
+  private int getChunkOffset(int chunkId) {
+    return byteBuffer.getInt(SingleValueChunkCompressedForwardIndexCreator.HEADER_SIZE_IN_BYTES + 4 * chunkId);
+  }
+
+  private int getValueOffset(int row) {
+    return (row % numDocsPerChunk) * valueSize;
+  }
+
+  @Override
+  public DataFileMetadata getMetadata() {
+    return null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (isMMap) {
+      MmapUtils.unloadByteBuffer(byteBuffer);
+      file.close();
+    } else {
+      byteBuffer.clear();
+    }
+  }
+
+  @Override
+  public char getChar(int row) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public short getShort(int row) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int getInt(int row) {
+    final ByteBuffer chunk = getChunk(row);
+    switch (dataType) {
+      case INT:
+        return chunk.getInt(getValueOffset(row));
+      case LONG:
+        return (int) chunk.getLong(getValueOffset(row));
+      case FLOAT:
+        return (int) chunk.getFloat(getValueOffset(row));
+      case DOUBLE:
+        return (int) chunk.getDouble(getValueOffset(row));
+      default:
+        throw new UnsupportedOperationException();
+    }
+  }
+
+  @Override
+  public long getLong(int row) {
+    final ByteBuffer chunk = getChunk(row);
+    switch (dataType) {
+      case INT:
+        return chunk.getInt(getValueOffset(row));
+      case LONG:
+        return chunk.getLong(getValueOffset(row));
+      case FLOAT:
+        return (long) chunk.getFloat(getValueOffset(row));
+      case DOUBLE:
+        return (long) chunk.getDouble(getValueOffset(row));
+      default:
+        throw new UnsupportedOperationException();
+    }
+  }
+
+  @Override
+  public float getFloat(int row) {
+    final ByteBuffer chunk = getChunk(row);
+    switch (dataType) {
+      case INT:
+        return chunk.getInt(getValueOffset(row));
+      case LONG:
+        return chunk.getLong(getValueOffset(row));
+      case FLOAT:
+        return chunk.getFloat(getValueOffset(row));
+      case DOUBLE:
+        return (float) chunk.getDouble(getValueOffset(row));
+      default:
+        throw new UnsupportedOperationException();
+    }
+  }
+
+  @Override
+  public double getDouble(int row) {
+    final ByteBuffer chunk = getChunk(row);
+    switch (dataType) {
+      case INT:
+        return chunk.getInt(getValueOffset(row));
+      case LONG:
+        return chunk.getLong(getValueOffset(row));
+      case FLOAT:
+        return chunk.getFloat(getValueOffset(row));
+      case DOUBLE:
+        return chunk.getDouble(getValueOffset(row));
+      default:
+        throw new UnsupportedOperationException();
+    }
+  }
+
+  @Override
+  public String getString(int row) {
+    if (dataType != DataType.STRING) {
+      throw new UnsupportedOperationException();
+    }
+    final ByteBuffer chunk = getChunk(row);
+    final int index = row % numDocsPerChunk;
+    final int start = chunk.getInt(4 * index);
+    final int end = chunk.getInt(4 * index + 4);
+    return new String(chunk.array(), start, end - start, UTF_8);
+  }
+
+  @Override
+  public byte[] getBytes(int row) {
+    throw new UnsupportedOperationException();
+  }
+}
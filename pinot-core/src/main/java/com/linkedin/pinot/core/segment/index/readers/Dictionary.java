@@ -29,13 +29,29 @@ public interface Dictionary {
 
   Object get(int dictionaryId);
 
+  int getIntValue(int dictionaryId);
+
   long getLongValue(int dictionaryId);
 
+  float getFloatValue(int dictionaryId);
+
   double getDoubleValue(int dictionaryId);
 
   String getStringValue(int dictionaryId);
 
   String toString(int dictionaryId);
 
+  /**
+   * Batch version of getDoubleValue(), reads the double values of dictionaryIds[startPos, startPos + limit) into
+   * outValues starting at outStartPos.
+   *
+   * @param dictionaryIds
+   * @param startPos
+   * @param limit
+   * @param outValues
+   * @param outStartPos
+   */
+  void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos);
+
   int length();
 }
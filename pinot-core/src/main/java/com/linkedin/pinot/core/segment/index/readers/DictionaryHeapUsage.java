@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Server wide count of the heap bytes held by the dictionaries decoded on heap at segment load.
+ */
+public class DictionaryHeapUsage {
+  private static final AtomicLong HEAP_BYTES = new AtomicLong(0);
+
+  private DictionaryHeapUsage() {
+  }
+
+  static void add(long bytes) {
+    HEAP_BYTES.addAndGet(bytes);
+  }
+
+  public static long getHeapBytes() {
+    return HEAP_BYTES.get();
+  }
+}
@@ -51,12 +51,12 @@ public class DoubleDictionary extends ImmutableDictionaryReader  {
 
   @Override
   public long getLongValue(int dictionaryId) {
-    return (new Double(getDouble(dictionaryId))).longValue();
+    return (long) getDouble(dictionaryId);
   }
 
   @Override
   public double getDoubleValue(int dictionaryId) {
-    return new Double(getDouble(dictionaryId));
+    return getDouble(dictionaryId);
   }
 
   @Override
@@ -70,6 +70,14 @@ public class DoubleDictionary extends ImmutableDictionaryReader  {
     return (new Double(getDouble(dictionaryId))).toString();
   }
   
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int i = startPos; i < endPos; ++i) {
+      outValues[outStartPos++] = dataFileReader.getDouble(dictionaryIds[i], 0);
+    }
+  }
+
   private double getDouble(int dictionaryId){
     return dataFileReader.getDouble(dictionaryId, 0);
   }
@@ -73,6 +73,38 @@ public class FixedBitCompressedSVForwardIndexReader implements SingleColumnSingl
     return dataFileReader.getInt(row, 0);
   }
 
+  /**
+   * Batch version of getInt(), reads the dictionary ids of rows[startPos, startPos + limit) into values starting at
+   * outStartPos.
+   */
+  public void readValues(int[] rows, int startPos, int limit, int[] values, int outStartPos) {
+    if (limit > 0 && isConsecutive(rows, startPos, limit)) {
+      dataFileReader.readIntValues(rows[startPos], 0, limit, values, outStartPos);
+    } else {
+      dataFileReader.readIntValues(rows, 0, startPos, limit, values, outStartPos);
+    }
+  }
+
+  /**
+   * Reads the dictionary ids of the consecutive rows [startRow, startRow + length) into out, unpacking them in bulk.
+   */
+  public void readDictIds(int startRow, int length, int[] out) {
+    dataFileReader.readIntValues(startRow, 0, length, out, 0);
+  }
+
+  /**
+   * Full scans and projections of unfiltered blocks read runs of consecutive rows, which can be unpacked in bulk.
+   */
+  private static boolean isConsecutive(int[] rows, int startPos, int limit) {
+    final int startRow = rows[startPos];
+    for (int i = 1; i < limit; ++i) {
+      if (rows[startPos + i] != startRow + i) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public long getLong(int row) {
     throw new UnsupportedOperationException();
@@ -51,12 +51,17 @@ public class FloatDictionary extends ImmutableDictionaryReader {
 
   @Override
   public long getLongValue(int dictionaryId) {
-    return new Float(getFloat(dictionaryId)).longValue();
+    return (long) getFloat(dictionaryId);
+  }
+
+  @Override
+  public float getFloatValue(int dictionaryId) {
+    return getFloat(dictionaryId);
   }
 
   @Override
   public double getDoubleValue(int dictionaryId) {
-    return new Double(getFloat(dictionaryId));
+    return getFloat(dictionaryId);
   }
 
   @Override
@@ -69,6 +74,14 @@ public class FloatDictionary extends ImmutableDictionaryReader {
     return new Float(getFloat(dictionaryId)).toString();
   }
 
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int i = startPos; i < endPos; ++i) {
+      outValues[outStartPos++] = dataFileReader.getFloat(dictionaryIds[i], 0);
+    }
+  }
+
   public float getFloat(int dictionaryId) {
     return dataFileReader.getFloat(dictionaryId, 0);
   }
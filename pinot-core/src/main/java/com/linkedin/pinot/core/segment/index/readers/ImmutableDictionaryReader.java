@@ -42,6 +42,16 @@ public abstract class ImmutableDictionaryReader implements Dictionary {
     fileSearcher = new ByteBufferBinarySearchUtil(dataFileReader);
   }
 
+  /**
+   * For dictionaries that are not stored as fixed width rows, they read their file themselves.
+   * @param rows
+   */
+  protected ImmutableDictionaryReader(int rows) {
+    dataFileReader = null;
+    fileSearcher = null;
+    this.rows = rows;
+  }
+
   protected int intIndexOf(int actualValue) {
     return fileSearcher.binarySearch(0, actualValue);
   }
@@ -68,17 +78,37 @@ public abstract class ImmutableDictionaryReader implements Dictionary {
   @Override
   public abstract Object get(int dictionaryId);
 
+  @Override
+  public int getIntValue(int dictionaryId) {
+    return (int) getLongValue(dictionaryId);
+  }
+
   @Override
   public abstract long getLongValue(int dictionaryId);
 
+  @Override
+  public float getFloatValue(int dictionaryId) {
+    return (float) getDoubleValue(dictionaryId);
+  }
+
   @Override
   public abstract double getDoubleValue(int dictionaryId);
 
   @Override
   public abstract String toString(int dictionaryId);
 
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int i = startPos; i < endPos; ++i) {
+      outValues[outStartPos++] = getDoubleValue(dictionaryIds[i]);
+    }
+  }
+
   public void close() throws IOException {
-    dataFileReader.close();
+    if (dataFileReader != null) {
+      dataFileReader.close();
+    }
   }
 
   @Override
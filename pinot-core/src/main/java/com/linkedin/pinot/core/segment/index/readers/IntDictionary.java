@@ -49,14 +49,19 @@ public class IntDictionary extends ImmutableDictionaryReader {
     return new Integer(getInt(dictionaryId));
   }
 
+  @Override
+  public int getIntValue(int dictionaryId) {
+    return getInt(dictionaryId);
+  }
+
   @Override
   public long getLongValue(int dictionaryId) {
-    return new Long(getInt(dictionaryId));
+    return getInt(dictionaryId);
   }
 
   @Override
   public double getDoubleValue(int dictionaryId) {
-    return new Double(getInt(dictionaryId));
+    return getInt(dictionaryId);
   }
   
   @Override
@@ -69,6 +74,14 @@ public class IntDictionary extends ImmutableDictionaryReader {
     return new Integer(getInt(dictionaryId)).toString();
   }
 
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int i = startPos; i < endPos; ++i) {
+      outValues[outStartPos++] = dataFileReader.getInt(dictionaryIds[i], 0);
+    }
+  }
+
   private int getInt(int dictionaryId) {
     return dataFileReader.getInt(dictionaryId, 0);
   }
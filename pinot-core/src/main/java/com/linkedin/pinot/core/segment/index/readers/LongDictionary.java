@@ -50,12 +50,12 @@ public class LongDictionary extends ImmutableDictionaryReader {
 
   @Override
   public long getLongValue(int dictionaryId) {
-    return new Long(getLong(dictionaryId)).longValue();
+    return getLong(dictionaryId);
   }
 
   @Override
   public double getDoubleValue(int dictionaryId) {
-    return new Double(getLong(dictionaryId));
+    return getLong(dictionaryId);
   }
 
   @Override
@@ -68,6 +68,14 @@ public class LongDictionary extends ImmutableDictionaryReader {
     return new Long(getLong(dictionaryId)).toString();
   }
 
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int i = startPos; i < endPos; ++i) {
+      outValues[outStartPos++] = dataFileReader.getLong(dictionaryIds[i], 0);
+    }
+  }
+
   private long getLong(int dictionaryId) {
     return dataFileReader.getLong(dictionaryId, 0);
   }
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import java.util.Arrays;
+
+
+/**
+ * Long dictionary decoded into an on heap array at segment load.
+ */
+public class OnHeapLongDictionary extends ImmutableDictionaryReader {
+  private final long[] values;
+  private boolean closed = false;
+
+  public OnHeapLongDictionary(LongDictionary dictionary) {
+    super(dictionary.length());
+    values = new long[dictionary.length()];
+    for (int dictionaryId = 0; dictionaryId < values.length; dictionaryId++) {
+      values[dictionaryId] = dictionary.getLongValue(dictionaryId);
+    }
+    DictionaryHeapUsage.add(getHeapSizeInBytes());
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    if (rawValue instanceof String) {
+      return Arrays.binarySearch(values, Long.parseLong((String) rawValue));
+    }
+    return Arrays.binarySearch(values, ((Long) rawValue).longValue());
+  }
+
+  @Override
+  public Long get(int dictionaryId) {
+    return values[dictionaryId];
+  }
+
+  @Override
+  public long getLongValue(int dictionaryId) {
+    return values[dictionaryId];
+  }
+
+  @Override
+  public double getDoubleValue(int dictionaryId) {
+    return values[dictionaryId];
+  }
+
+  @Override
+  public String getStringValue(int dictionaryId) {
+    return Long.toString(values[dictionaryId]);
+  }
+
+  @Override
+  public String toString(int dictionaryId) {
+    return Long.toString(values[dictionaryId]);
+  }
+
+  @Override
+  public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+    int endPos = startPos + limit;
+    for (int i = startPos; i < endPos; ++i) {
+      outValues[outStartPos++] = values[dictionaryIds[i]];
+    }
+  }
+
+  public long getHeapSizeInBytes() {
+    return (long) values.length * Long.SIZE / 8;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      DictionaryHeapUsage.add(-getHeapSizeInBytes());
+    }
+  }
+}
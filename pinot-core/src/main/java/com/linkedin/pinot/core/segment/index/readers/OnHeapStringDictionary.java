@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import java.util.Arrays;
+
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+
+
+/**
+ * String dictionary decoded into an on heap array of unpadded values at segment load.
+ */
+public class OnHeapStringDictionary extends StringDictionary {
+  private final String[] values;
+  // Length the values of the source dictionary are padded to, their order is the order of the padded values.
+  private final int lengthOfMaxEntry;
+  private final long heapSizeInBytes;
+  private boolean closed = false;
+
+  public OnHeapStringDictionary(StringDictionary dictionary) {
+    super(dictionary.length());
+    lengthOfMaxEntry = dictionary.getLengthOfMaxEntry();
+    values = new String[dictionary.length()];
+    long heapSize = 0;
+    for (int dictionaryId = 0; dictionaryId < values.length; dictionaryId++) {
+      values[dictionaryId] = dictionary.get(dictionaryId);
+      // Reference, String object and its chars.
+      heapSize += 8 + 40 + 2 * values[dictionaryId].length();
+    }
+    heapSizeInBytes = heapSize;
+    DictionaryHeapUsage.add(heapSizeInBytes);
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    final String lookup = rawValue.toString();
+    if (lengthOfMaxEntry < 0) {
+      return Arrays.binarySearch(values, lookup);
+    }
+
+    // Search in the order of the padded values, padding the lookup the way StringDictionary does.
+    final StringBuilder bld = new StringBuilder(lookup);
+    for (int i = lookup.length(); i < lengthOfMaxEntry; i++) {
+      bld.append(V1Constants.Str.STRING_PAD_CHAR);
+    }
+    final String paddedLookup = bld.toString();
+    int low = 0;
+    int high = values.length - 1;
+    while (low <= high) {
+      final int middle = (low + high) >>> 1;
+      final int compare = pad(values[middle], lengthOfMaxEntry).compareTo(paddedLookup);
+      if (compare < 0) {
+        low = middle + 1;
+      } else if (compare > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  @Override
+  public int getLengthOfMaxEntry() {
+    return lengthOfMaxEntry;
+  }
+
+  @Override
+  public String get(int dictionaryId) {
+    if ((dictionaryId == -1) || (dictionaryId >= values.length)) {
+      return "null";
+    }
+    return values[dictionaryId];
+  }
+
+  @Override
+  public String getStringValue(int dictionaryId) {
+    return get(dictionaryId);
+  }
+
+  public long getHeapSizeInBytes() {
+    return heapSizeInBytes;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      DictionaryHeapUsage.add(-heapSizeInBytes);
+    }
+  }
+}
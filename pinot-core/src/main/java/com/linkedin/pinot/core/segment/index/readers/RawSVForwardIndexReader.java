@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.index.reader.DataFileMetadata;
+import com.linkedin.pinot.core.index.reader.SingleColumnSingleValueReader;
+import com.linkedin.pinot.core.index.reader.impl.FixedByteWidthRowColDataFileReader;
+import com.linkedin.pinot.core.segment.creator.impl.fwd.SingleValueRawForwardIndexCreator;
+
+
+/**
+ * Reads the fixed width values of a single value numeric column stored without a dictionary. The numeric getters
+ * convert the stored value, so e.g. getDouble() can be used on an INT column.
+ */
+public class RawSVForwardIndexReader implements SingleColumnSingleValueReader {
+
+  private final FixedByteWidthRowColDataFileReader dataFileReader;
+  private final DataType dataType;
+  private final int rows;
+
+  public RawSVForwardIndexReader(File file, int rows, DataType dataType, boolean isMMap) throws IOException {
+    this.dataType = dataType;
+    this.rows = rows;
+    dataFileReader =
+        new FixedByteWidthRowColDataFileReader(file, rows, 1,
+            new int[] { SingleValueRawForwardIndexCreator.getValueSizeInBytes(dataType) }, isMMap);
+  }
+
+  public int getLength() {
+    return rows;
+  }
+
+  public DataType getDataType() {
+    return dataType;
+  }
+
+  @Override
+  public DataFileMetadata getMetadata() {
+    return null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    dataFileReader.close();
+  }
+
+  @Override
+  public char getChar(int row) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public short getShort(int row) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int getInt(int row) {
+    switch (dataType) {
+      case INT:
+        return dataFileReader.getInt(row, 0);
+      case LONG:
+        return (int) dataFileReader.getLong(row, 0);
+      case FLOAT:
+        return (int) dataFileReader.getFloat(row, 0);
+      default:
+        return (int) dataFileReader.getDouble(row, 0);
+    }
+  }
+
+  @Override
+  public long getLong(int row) {
+    switch (dataType) {
+      case INT:
+        return dataFileReader.getInt(row, 0);
+      case LONG:
+        return dataFileReader.getLong(row, 0);
+      case FLOAT:
+        return (long) dataFileReader.getFloat(row, 0);
+      default:
+        return (long) dataFileReader.getDouble(row, 0);
+    }
+  }
+
+  @Override
+  public float getFloat(int row) {
+    switch (dataType) {
+      case INT:
+        return dataFileReader.getInt(row, 0);
+      case LONG:
+        return dataFileReader.getLong(row, 0);
+      case FLOAT:
+        return dataFileReader.getFloat(row, 0);
+      default:
+        return (float) dataFileReader.getDouble(row, 0);
+    }
+  }
+
+  @Override
+  public double getDouble(int row) {
+    switch (dataType) {
+      case INT:
+        return dataFileReader.getInt(row, 0);
+      case LONG:
+        return dataFileReader.getLong(row, 0);
+      case FLOAT:
+        return dataFileReader.getFloat(row, 0);
+      default:
+        return dataFileReader.getDouble(row, 0);
+    }
+  }
+
+  @Override
+  public String getString(int row) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public byte[] getBytes(int row) {
+    throw new UnsupportedOperationException();
+  }
+}
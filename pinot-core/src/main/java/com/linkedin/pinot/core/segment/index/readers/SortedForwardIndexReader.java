@@ -76,6 +76,32 @@ public class SortedForwardIndexReader implements SingleColumnSingleValueReader {
     return Constants.EOF;
   }
 
+  /**
+   * Batch version of getInt(). Doc ids are usually ascending within a batch, so instead of one binary search per doc
+   * the dictionary id is advanced linearly from the previous doc, falling back to a binary search otherwise.
+   */
+  public void readValues(int[] docIds, int startPos, int limit, int[] values, int outStartPos) {
+    final int numRows = indexReader.getNumberOfRows();
+    final int endPos = startPos + limit;
+    int previousDocId = -1;
+    int dictionaryId = Constants.EOF;
+    for (int i = startPos; i < endPos; ++i) {
+      final int docId = docIds[i];
+      if (previousDocId == -1 || docId < previousDocId || dictionaryId == Constants.EOF) {
+        dictionaryId = getInt(docId);
+      } else {
+        while (dictionaryId < numRows && indexReader.getInt(dictionaryId, 1) < docId) {
+          dictionaryId++;
+        }
+        if (dictionaryId == numRows) {
+          dictionaryId = Constants.EOF;
+        }
+      }
+      values[outStartPos++] = dictionaryId;
+      previousDocId = docId;
+    }
+  }
+
   @Override
   public long getLong(int row) {
     throw new UnsupportedOperationException("not allowed in sorted reader");
@@ -17,6 +17,7 @@ package com.linkedin.pinot.core.segment.index.readers;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
 
 import org.apache.commons.lang.StringUtils;
 
@@ -30,6 +31,8 @@ import com.linkedin.pinot.core.segment.index.ColumnMetadata;
  */
 
 public class StringDictionary extends ImmutableDictionaryReader {
+  private static final Charset UTF_8 = Charset.forName(V1Constants.Str.CHAR_SET);
+
   private final int lengthofMaxEntry;
 
   public StringDictionary(File dictFile, ColumnMetadata metadata, ReadMode mode) throws IOException {
@@ -37,6 +40,15 @@ public class StringDictionary extends ImmutableDictionaryReader {
     lengthofMaxEntry = metadata.getStringColumnMaxLength();
   }
 
+  /**
+   * For string dictionaries that are not stored as padded fixed width rows.
+   * @param cardinality
+   */
+  protected StringDictionary(int cardinality) {
+    super(cardinality);
+    lengthofMaxEntry = -1;
+  }
+
   @Override
   public int indexOf(Object rawValue) {
     final String lookup = rawValue.toString();
@@ -77,6 +89,33 @@ public class StringDictionary extends ImmutableDictionaryReader {
     return get(dictionaryId);
   }
 
+  /**
+   * Dictionary ids follow the order of the values padded to this length, which differs from the order of the values
+   * when they contain chars smaller than STRING_PAD_CHAR.
+   * @return the length the values are padded to, -1 for the dictionaries whose values are not padded
+   */
+  public int getLengthOfMaxEntry() {
+    return lengthofMaxEntry;
+  }
+
+  /**
+   * Pad the value with STRING_PAD_CHAR to lengthOfMaxEntry UTF-8 bytes, the way the dictionary creator does.
+   * @param value
+   * @param lengthOfMaxEntry
+   * @return padded value
+   */
+  public static String pad(String value, int lengthOfMaxEntry) {
+    final int padding = lengthOfMaxEntry - value.getBytes(UTF_8).length;
+    if (padding <= 0) {
+      return value;
+    }
+    final StringBuilder bld = new StringBuilder(value);
+    for (int i = 0; i < padding; i++) {
+      bld.append(V1Constants.Str.STRING_PAD_CHAR);
+    }
+    return bld.toString();
+  }
+
   private String getString(int dictionaryId) {
     return dataFileReader.getString(dictionaryId, 0);
   }
@@ -0,0 +1,189 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.segment.index.readers;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.utils.MmapUtils;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+
+
+/**
+ * String dictionary of the v2 segments, written by the SegmentDictionaryCreator as:
+ * <pre>
+ *   int cardinality
+ *   int[cardinality + 1] offsets of the values, relative to the start of the values
+ *   byte[] UTF-8 bytes of the values, sorted in String order
+ * </pre>
+ * Values are not padded, so lookups compare the value searched for with the bytes of the buffer directly, and reads
+ * decode the exact bytes of the value. An optional on heap hash index answers the lookups of values in the
+ * dictionary without searching the buffer.
+ */
+public class VarLengthStringDictionary extends StringDictionary {
+  private static final Charset UTF_8 = Charset.forName(V1Constants.Str.CHAR_SET);
+  private static final int INT_SIZE_IN_BYTES = Integer.SIZE / Byte.SIZE;
+
+  private final RandomAccessFile file;
+  private final ByteBuffer buffer;
+  private final int valuesStart;
+  private final Object2IntOpenHashMap<String> hashIndex;
+
+  public VarLengthStringDictionary(File dictFile, ColumnMetadata metadata, ReadMode mode, boolean buildHashIndex)
+      throws IOException {
+    super(metadata.getCardinality());
+    file = new RandomAccessFile(dictFile, "r");
+    if (mode == ReadMode.mmap) {
+      buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+    } else {
+      buffer = ByteBuffer.allocateDirect((int) file.length());
+      file.getChannel().read(buffer, 0);
+      file.close();
+    }
+    final int cardinality = buffer.getInt(0);
+    if (cardinality != length()) {
+      throw new IllegalStateException("Dictionary " + dictFile + " holds " + cardinality + " values, expected "
+          + length());
+    }
+    valuesStart = INT_SIZE_IN_BYTES * (cardinality + 2);
+
+    if (buildHashIndex) {
+      hashIndex = new Object2IntOpenHashMap<String>(cardinality);
+      hashIndex.defaultReturnValue(-1);
+      for (int dictId = 0; dictId < cardinality; dictId++) {
+        hashIndex.put(get(dictId), dictId);
+      }
+    } else {
+      hashIndex = null;
+    }
+  }
+
+  @Override
+  public int indexOf(Object rawValue) {
+    final String lookup = rawValue.toString();
+    if (hashIndex != null) {
+      final int dictId = hashIndex.getInt(lookup);
+      if (dictId >= 0) {
+        return dictId;
+      }
+      // Not in the dictionary, the binary search gives the insertion point.
+    }
+    int low = 0;
+    int high = length() - 1;
+    while (low <= high) {
+      final int middle = (low + high) >>> 1;
+      final int compare = compareValue(middle, lookup);
+      if (compare < 0) {
+        low = middle + 1;
+      } else if (compare > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  @Override
+  public String get(int dictionaryId) {
+    if ((dictionaryId == -1) || (dictionaryId >= length())) {
+      return "null";
+    }
+    final int start = valuesStart + getOffset(dictionaryId);
+    final byte[] bytes = new byte[valuesStart + getOffset(dictionaryId + 1) - start];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(start + i);
+    }
+    return new String(bytes, UTF_8);
+  }
+
+  @Override
+  public String getStringValue(int dictionaryId) {
+    return get(dictionaryId);
+  }
+
+  @Override
+  public void close() throws IOException {
+    MmapUtils.unloadByteBuffer(buffer);
+    file.close();
+  }
+
+  private int getOffset(int dictionaryId) {
+    return buffer.getInt(INT_SIZE_IN_BYTES * (dictionaryId + 1));
+  }
+
+  /**
+   * Compares the value of the given dictionary id with the given string in String order, decoding the UTF-8 bytes of
+   * the value one char at a time.
+   */
+  private int compareValue(int dictionaryId, String value) {
+    int position = valuesStart + getOffset(dictionaryId);
+    final int end = valuesStart + getOffset(dictionaryId + 1);
+    final int valueLength = value.length();
+    int index = 0;
+    while (position < end) {
+      final int firstByte = buffer.get(position) & 0xFF;
+      int codePoint;
+      if (firstByte < 0x80) {
+        codePoint = firstByte;
+        position += 1;
+      } else if (firstByte < 0xE0) {
+        codePoint = ((firstByte & 0x1F) << 6) | (buffer.get(position + 1) & 0x3F);
+        position += 2;
+      } else if (firstByte < 0xF0) {
+        codePoint =
+            ((firstByte & 0x0F) << 12) | ((buffer.get(position + 1) & 0x3F) << 6) | (buffer.get(position + 2) & 0x3F);
+        position += 3;
+      } else {
+        codePoint =
+            ((firstByte & 0x07) << 18) | ((buffer.get(position + 1) & 0x3F) << 12)
+                | ((buffer.get(position + 2) & 0x3F) << 6) | (buffer.get(position + 3) & 0x3F);
+        position += 4;
+      }
+      if (codePoint < 0x10000) {
+        if (index == valueLength) {
+          return 1;
+        }
+        final int compare = codePoint - value.charAt(index++);
+        if (compare != 0) {
+          return compare;
+        }
+      } else {
+        // Supplementary code points are a surrogate pair in the String.
+        final int supplementary = codePoint - 0x10000;
+        final char[] surrogates = { (char) ((supplementary >>> 10) + 0xD800), (char) ((supplementary & 0x3FF) + 0xDC00) };
+        for (char surrogate : surrogates) {
+          if (index == valueLength) {
+            return 1;
+          }
+          final int compare = surrogate - value.charAt(index++);
+          if (compare != 0) {
+            return compare;
+          }
+        }
+      }
+    }
+    return (index == valueLength) ? 0 : -1;
+  }
+}
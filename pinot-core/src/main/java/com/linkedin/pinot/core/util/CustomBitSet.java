@@ -122,6 +122,43 @@ public final class CustomBitSet {
 
   }
 
+  /**
+   * Bulk version of readInt(), reads length values of bitsPerValue bits, the first one starting at startBitIndex and
+   * each next one bitsBetweenValues bits after the previous one, into values starting at outStartPos.
+   * Values are taken from a window of 64 bits read with a single getLong, which is read again only once the next
+   * value does not fit in it, instead of assembling each value byte by byte.
+   *
+   * @param startBitIndex
+   * @param bitsPerValue at most 32
+   * @param bitsBetweenValues
+   * @param length
+   * @param values
+   * @param outStartPos
+   */
+  public void readInts(int startBitIndex, int bitsPerValue, int bitsBetweenValues, int length, int[] values,
+      int outStartPos) {
+    final long mask = (1L << bitsPerValue) - 1;
+    final int lastWordBytePosition = buf.limit() - (Long.SIZE / Byte.SIZE);
+    long word = 0;
+    int wordStartBitIndex = -1;
+    int bitIndex = startBitIndex;
+    for (int i = 0; i < length; i++, bitIndex += bitsBetweenValues) {
+      final int bytePosition = bitIndex >>> 3;
+      if (bytePosition > lastWordBytePosition) {
+        // Not a whole long left in the buffer.
+        values[outStartPos++] = readInt(bitIndex, bitIndex + bitsPerValue);
+        continue;
+      }
+      int bitIndexInWord = bitIndex - wordStartBitIndex;
+      if ((wordStartBitIndex < 0) || (bitIndexInWord + bitsPerValue > Long.SIZE)) {
+        word = buf.getLong(bytePosition);
+        wordStartBitIndex = bytePosition << 3;
+        bitIndexInWord = bitIndex & 7;
+      }
+      values[outStartPos++] = (int) ((word >>> (Long.SIZE - bitIndexInWord - bitsPerValue)) & mask);
+    }
+  }
+
   public byte[] toByteArray() {
     byte[] dst = new byte[buf.capacity()];
     buf.get(dst);
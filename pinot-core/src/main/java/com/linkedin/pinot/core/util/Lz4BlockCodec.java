@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+
+/**
+ * Pure java compressor and decompressor for the LZ4 block format. The compressor is a simple greedy one with a single
+ * hash table of 4 byte sequences, it favours speed over ratio, any LZ4 block decompressor can read its output.
+ *
+ * A block is a list of sequences, each one a token byte (4 bits of literal length, 4 bits of match length - 4), the
+ * extra literal length bytes, the literals, the 2 byte little endian match offset and the extra match length bytes.
+ * The last sequence only has literals.
+ */
+public class Lz4BlockCodec {
+  private static final int MIN_MATCH = 4;
+  private static final int LAST_LITERALS = 5;
+  private static final int MF_LIMIT = 12;
+  private static final int MAX_DISTANCE = 65535;
+  private static final int HASH_LOG = 12;
+  private static final int RUN_MASK = 15;
+
+  private Lz4BlockCodec() {
+  }
+
+  /**
+   * Upper bound of the compressed length of length bytes, for sizing the destination of compress().
+   */
+  public static int maxCompressedLength(int length) {
+    return length + length / 255 + 16;
+  }
+
+  /**
+   * Compresses src[srcOff, srcOff + srcLen) into dest starting at destOff, returns the compressed length. dest must
+   * have at least maxCompressedLength(srcLen) bytes after destOff.
+   */
+  public static int compress(byte[] src, int srcOff, int srcLen, byte[] dest, int destOff) {
+    final int srcEnd = srcOff + srcLen;
+    int dOff = destOff;
+    int anchor = srcOff;
+
+    if (srcLen > MF_LIMIT) {
+      final int[] hashTable = new int[1 << HASH_LOG];
+      Arrays.fill(hashTable, -1);
+      final int matchLimit = srcEnd - LAST_LITERALS;
+      final int mfLimit = srcEnd - MF_LIMIT;
+
+      int sOff = srcOff;
+      while (sOff < mfLimit) {
+        final int sequence = readInt(src, sOff);
+        final int hash = hash(sequence);
+        int ref = hashTable[hash];
+        hashTable[hash] = sOff;
+        if (ref < 0 || sOff - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+          sOff++;
+          continue;
+        }
+
+        while (sOff > anchor && ref > srcOff && src[sOff - 1] == src[ref - 1]) {
+          sOff--;
+          ref--;
+        }
+        int matchLen = MIN_MATCH;
+        while (sOff + matchLen < matchLimit && src[sOff + matchLen] == src[ref + matchLen]) {
+          matchLen++;
+        }
+
+        final int literalLen = sOff - anchor;
+        final int tokenOff = dOff++;
+        final int extraMatchLen = matchLen - MIN_MATCH;
+        dest[tokenOff] = (byte) ((Math.min(literalLen, RUN_MASK) << 4) | Math.min(extraMatchLen, RUN_MASK));
+        dOff = writeLiterals(src, anchor, literalLen, dest, dOff);
+        final int offset = sOff - ref;
+        dest[dOff++] = (byte) offset;
+        dest[dOff++] = (byte) (offset >>> 8);
+        if (extraMatchLen >= RUN_MASK) {
+          dOff = writeLength(extraMatchLen - RUN_MASK, dest, dOff);
+        }
+
+        sOff += matchLen;
+        anchor = sOff;
+      }
+    }
+
+    final int literalLen = srcEnd - anchor;
+    dest[dOff++] = (byte) (Math.min(literalLen, RUN_MASK) << 4);
+    dOff = writeLiterals(src, anchor, literalLen, dest, dOff);
+    return dOff - destOff;
+  }
+
+  /**
+   * Decompresses the srcLen bytes of src starting at srcOff into dest[0, destLen). The position of src is not changed,
+   * so a buffer shared between threads can be read.
+   */
+  public static void decompress(ByteBuffer src, int srcOff, int srcLen, byte[] dest, int destLen) {
+    final ByteBuffer in = src.duplicate();
+    in.position(srcOff);
+    final int srcEnd = srcOff + srcLen;
+    int dOff = 0;
+
+    while (true) {
+      final int token = in.get() & 0xFF;
+      int literalLen = token >>> 4;
+      if (literalLen == RUN_MASK) {
+        literalLen += readLength(in);
+      }
+      if (dOff + literalLen > destLen) {
+        throw new IllegalStateException("Malformed LZ4 block, literals past the end of the output");
+      }
+      in.get(dest, dOff, literalLen);
+      dOff += literalLen;
+
+      if (in.position() >= srcEnd) {
+        break;
+      }
+
+      final int offset = (in.get() & 0xFF) | ((in.get() & 0xFF) << 8);
+      int matchLen = token & RUN_MASK;
+      if (matchLen == RUN_MASK) {
+        matchLen += readLength(in);
+      }
+      matchLen += MIN_MATCH;
+      int ref = dOff - offset;
+      if (offset == 0 || ref < 0 || dOff + matchLen > destLen) {
+        throw new IllegalStateException("Malformed LZ4 block, invalid match at output offset " + dOff);
+      }
+      // The match may overlap the bytes it produces, so copy byte by byte.
+      final int matchEnd = dOff + matchLen;
+      while (dOff < matchEnd) {
+        dest[dOff++] = dest[ref++];
+      }
+    }
+
+    if (dOff != destLen) {
+      throw new IllegalStateException("Malformed LZ4 block, decompressed " + dOff + " bytes instead of " + destLen);
+    }
+  }
+
+  public static void decompress(byte[] src, int srcOff, int srcLen, byte[] dest, int destLen) {
+    decompress(ByteBuffer.wrap(src), srcOff, srcLen, dest, destLen);
+  }
+
+  private static int writeLiterals(byte[] src, int srcOff, int literalLen, byte[] dest, int dOff) {
+    if (literalLen >= RUN_MASK) {
+      dOff = writeLength(literalLen - RUN_MASK, dest, dOff);
+    }
+    System.arraycopy(src, srcOff, dest, dOff, literalLen);
+    return dOff + literalLen;
+  }
+
+  private static int writeLength(int length, byte[] dest, int dOff) {
+    while (length >= 255) {
+      dest[dOff++] = (byte) 255;
+      length -= 255;
+    }
+    dest[dOff++] = (byte) length;
+    return dOff;
+  }
+
+  private static int readLength(ByteBuffer in) {
+    int length = 0;
+    int b;
+    do {
+      b = in.get() & 0xFF;
+      length += b;
+    } while (b == 255);
+    return length;
+  }
+
+  private static int readInt(byte[] buf, int off) {
+    return (buf[off] & 0xFF) | ((buf[off + 1] & 0xFF) << 8) | ((buf[off + 2] & 0xFF) << 16) | ((buf[off + 3]) << 24);
+  }
+
+  private static int hash(int sequence) {
+    return (sequence * -1640531535) >>> (32 - HASH_LOG);
+  }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.common.docidsets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.common.FilterBlockDocIdSet;
+import com.linkedin.pinot.core.operator.docidsets.AndBlockDocIdSet;
+import com.linkedin.pinot.core.operator.docidsets.BitmapDocIdSet;
+import com.linkedin.pinot.core.operator.docidsets.OrBlockDocIdSet;
+import com.linkedin.pinot.core.operator.docidsets.ScanBasedSingleValueDocIdSet;
+import com.linkedin.pinot.util.datasource.SingleValueBlock;
+
+
+public class AndOrBlockDocIdSetTest {
+  private static final int NUM_DOCS = 10000;
+  private final Random _random = new Random();
+
+  @Test
+  public void testAndOfBitmaps() {
+    List<TreeSet<Integer>> expectedSets = new ArrayList<TreeSet<Integer>>();
+    List<FilterBlockDocIdSet> docIdSets = new ArrayList<FilterBlockDocIdSet>();
+    for (int i = 0; i < 3; i++) {
+      TreeSet<Integer> expected = new TreeSet<Integer>();
+      docIdSets.add(createBitmapDocIdSet(NUM_DOCS / 2, expected));
+      expectedSets.add(expected);
+    }
+    TreeSet<Integer> expected = new TreeSet<Integer>(expectedSets.get(0));
+    for (TreeSet<Integer> set : expectedSets) {
+      expected.retainAll(set);
+    }
+
+    AndBlockDocIdSet andBlockDocIdSet = new AndBlockDocIdSet(docIdSets);
+    Assert.assertNotNull(andBlockDocIdSet.getBitmapDocIdSet());
+    Assert.assertEquals(collect(andBlockDocIdSet.iterator()), expected);
+  }
+
+  @Test
+  public void testOrOfBitmaps() {
+    TreeSet<Integer> expected = new TreeSet<Integer>();
+    List<FilterBlockDocIdSet> docIdSets = new ArrayList<FilterBlockDocIdSet>();
+    for (int i = 0; i < 5; i++) {
+      docIdSets.add(createBitmapDocIdSet(NUM_DOCS / 10, expected));
+    }
+
+    OrBlockDocIdSet orBlockDocIdSet = new OrBlockDocIdSet(docIdSets);
+    Assert.assertNotNull(orBlockDocIdSet.getBitmapDocIdSet());
+    Assert.assertEquals(collect(orBlockDocIdSet.iterator()), expected);
+  }
+
+  @Test
+  public void testAndOfBitmapsAndScan() {
+    TreeSet<Integer> expected0 = new TreeSet<Integer>();
+    TreeSet<Integer> expected1 = new TreeSet<Integer>();
+    List<FilterBlockDocIdSet> orChildren = new ArrayList<FilterBlockDocIdSet>();
+    orChildren.add(createBitmapDocIdSet(NUM_DOCS / 4, expected0));
+    orChildren.add(createBitmapDocIdSet(NUM_DOCS / 4, expected0));
+    List<FilterBlockDocIdSet> andChildren = new ArrayList<FilterBlockDocIdSet>();
+    andChildren.add(new OrBlockDocIdSet(orChildren));
+    andChildren.add(createBitmapDocIdSet(NUM_DOCS / 2, expected1));
+
+    // scan child matches the docs with dictionary id 1 or 3
+    int[] dictIds = new int[NUM_DOCS];
+    TreeSet<Integer> scanMatches = new TreeSet<Integer>();
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      dictIds[docId] = _random.nextInt(5);
+      if (dictIds[docId] == 1 || dictIds[docId] == 3) {
+        scanMatches.add(docId);
+      }
+    }
+    SingleValueBlock block = new SingleValueBlock(new int[] { 0, 1, 2, 3, 4 }, dictIds);
+    andChildren.add(new ScanBasedSingleValueDocIdSet(block.getBlockValueSet(), block.getMetadata(), 1, 3));
+
+    TreeSet<Integer> expected = new TreeSet<Integer>(expected0);
+    expected.retainAll(expected1);
+    expected.retainAll(scanMatches);
+
+    AndBlockDocIdSet andBlockDocIdSet = new AndBlockDocIdSet(andChildren);
+    Assert.assertNull(andBlockDocIdSet.getBitmapDocIdSet());
+    Assert.assertEquals(collect(andBlockDocIdSet.iterator()), expected);
+  }
+
+  private BitmapDocIdSet createBitmapDocIdSet(int numValues, TreeSet<Integer> expected) {
+    MutableRoaringBitmap bitmap = new MutableRoaringBitmap();
+    for (int i = 0; i < numValues; i++) {
+      int docId = _random.nextInt(NUM_DOCS);
+      bitmap.add(docId);
+      expected.add(docId);
+    }
+    return new BitmapDocIdSet(0, NUM_DOCS - 1, bitmap);
+  }
+
+  private TreeSet<Integer> collect(BlockDocIdIterator iterator) {
+    TreeSet<Integer> result = new TreeSet<Integer>();
+    int docId;
+    while ((docId = iterator.next()) != Constants.EOF) {
+      result.add(docId);
+    }
+    return result;
+  }
+}
@@ -142,4 +142,25 @@ public class BitmapDocIdSetTest {
     Assert.assertEquals(originalSet.size(), result.size());
     Assert.assertEquals(originalSet, result);
   }
+
+  @Test
+  public void testUnionBitmapClippedToDocIdRange() {
+    MutableRoaringBitmap first = MutableRoaringBitmap.bitmapOf(1, 5, 10, 70000);
+    MutableRoaringBitmap second = MutableRoaringBitmap.bitmapOf(3, 9, 12, 100000);
+
+    BitmapDocIdSet bitmapDocIdSet = new BitmapDocIdSet(0, 200000, first, second);
+    Assert.assertEquals(bitmapDocIdSet.getUnionBitmap(),
+        MutableRoaringBitmap.bitmapOf(1, 3, 5, 9, 10, 12, 70000, 100000));
+
+    bitmapDocIdSet = new BitmapDocIdSet(4, 70000, first, second);
+    Assert.assertEquals(bitmapDocIdSet.getUnionBitmap(), MutableRoaringBitmap.bitmapOf(5, 9, 10, 12, 70000));
+
+    bitmapDocIdSet.setStartDocId(10);
+    bitmapDocIdSet.setEndDocId(12);
+    Assert.assertEquals(bitmapDocIdSet.getUnionBitmap(), MutableRoaringBitmap.bitmapOf(10, 12));
+
+    bitmapDocIdSet = new BitmapDocIdSet(4, 70000, first);
+    Assert.assertEquals(bitmapDocIdSet.getUnionBitmap(), MutableRoaringBitmap.bitmapOf(5, 10, 70000));
+    Assert.assertEquals(first, MutableRoaringBitmap.bitmapOf(1, 5, 10, 70000));
+  }
 }
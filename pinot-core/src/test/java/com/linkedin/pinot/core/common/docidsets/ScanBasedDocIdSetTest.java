@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.common.docidsets;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.operator.docidsets.DictionaryIdMatcher;
+import com.linkedin.pinot.core.operator.docidsets.ScanBasedSingleValueDocIdSet;
+import com.linkedin.pinot.util.datasource.SingleValueBlock;
+
+
+public class ScanBasedDocIdSetTest {
+  private static final int NUM_DOCS = 5000;
+  private static final int CARDINALITY = 200;
+
+  @Test
+  public void testDictionaryIdMatcher() {
+    DictionaryIdMatcher range = new DictionaryIdMatcher(new int[] { 10, 11, 12, 13 });
+    DictionaryIdMatcher sparse = new DictionaryIdMatcher(new int[] { 3, 64, 130 });
+    DictionaryIdMatcher empty = new DictionaryIdMatcher(new int[0]);
+    for (int dictId = 0; dictId < CARDINALITY; dictId++) {
+      Assert.assertEquals(range.matches(dictId), dictId >= 10 && dictId <= 13);
+      Assert.assertEquals(sparse.matches(dictId), dictId == 3 || dictId == 64 || dictId == 130);
+      Assert.assertFalse(empty.matches(dictId));
+    }
+  }
+
+  @Test
+  public void testSingleValueScan() {
+    Random random = new Random(0);
+    int[] dictionary = new int[CARDINALITY];
+    for (int i = 0; i < CARDINALITY; i++) {
+      dictionary[i] = i;
+    }
+    int[] values = new int[NUM_DOCS];
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      values[docId] = random.nextInt(CARDINALITY);
+    }
+    int[][] matchingDictIds = { { 50, 51, 52, 53, 54, 55 }, { 1, 7, 99, 150 }, { 199 } };
+    for (int[] dictIds : matchingDictIds) {
+      TreeSet<Integer> expected = new TreeSet<Integer>();
+      for (int docId = 0; docId < NUM_DOCS; docId++) {
+        for (int dictId : dictIds) {
+          if (values[docId] == dictId) {
+            expected.add(docId);
+          }
+        }
+      }
+      SingleValueBlock block = new SingleValueBlock(dictionary, values);
+      ScanBasedSingleValueDocIdSet docIdSet =
+          new ScanBasedSingleValueDocIdSet(block.getBlockValueSet(), block.getMetadata(), dictIds);
+      TreeSet<Integer> actual = new TreeSet<Integer>();
+      BlockDocIdIterator iterator = docIdSet.iterator();
+      int docId;
+      while ((docId = iterator.next()) != Constants.EOF) {
+        actual.add(docId);
+      }
+      Assert.assertEquals(actual, expected);
+
+      // advance across buffer boundaries
+      docIdSet = new ScanBasedSingleValueDocIdSet(block.getBlockValueSet(), block.getMetadata(), dictIds);
+      iterator = docIdSet.iterator();
+      Integer expectedDocId = expected.ceiling(3000);
+      Assert.assertEquals(iterator.advance(3000), expectedDocId == null ? Constants.EOF : expectedDocId.intValue());
+    }
+  }
+}
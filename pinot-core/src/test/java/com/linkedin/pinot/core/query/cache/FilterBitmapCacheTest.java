@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.query.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.filter.AndOperator;
+import com.linkedin.pinot.core.operator.filter.BaseFilterOperator;
+import com.linkedin.pinot.core.operator.filter.BitmapCachingFilterOperator;
+import com.linkedin.pinot.core.operator.filter.CachedBitmapFilterOperator;
+
+
+public class FilterBitmapCacheTest {
+
+  @Test
+  public void testCanonicalFilter() {
+    FilterQueryTree memberType = leaf("memberType", FilterOperator.EQUALITY, "premium");
+    FilterQueryTree country = leaf("country", FilterOperator.IN, "us", "ca");
+    FilterQueryTree countryReordered = leaf("country", FilterOperator.IN, "ca", "us");
+
+    String canonicalFilter = FilterBitmapCache.getCanonicalFilter(and(memberType, country));
+    Assert.assertEquals(FilterBitmapCache.getCanonicalFilter(and(countryReordered, memberType)), canonicalFilter);
+    Assert.assertFalse(FilterBitmapCache.getCanonicalFilter(or(memberType, country)).equals(canonicalFilter));
+
+    // Values must not be mistaken for separators
+    Assert.assertFalse(FilterBitmapCache.getCanonicalFilter(leaf("a", FilterOperator.IN, "x;y"))
+        .equals(FilterBitmapCache.getCanonicalFilter(leaf("a", FilterOperator.IN, "x", "y"))));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEviction() {
+    ImmutableRoaringBitmap bitmap = MutableRoaringBitmap.bitmapOf(1, 2, 3);
+    FilterBitmapCache cache = new FilterBitmapCache(1000);
+    cache.put("a", bitmap);
+    cache.put("b", bitmap);
+    Assert.assertEquals(cache.getNumEntries(), 2);
+
+    // Touch "a" so that "b" is evicted first
+    Assert.assertNotNull(cache.get("a"));
+    cache.put("c", bitmap);
+    cache.put("d", bitmap);
+    Assert.assertTrue(cache.getNumBytes() <= cache.getMaxBytes());
+    Assert.assertNull(cache.get("b"));
+    Assert.assertNotNull(cache.get("d"));
+
+    cache.clear();
+    Assert.assertEquals(cache.getNumEntries(), 0);
+    Assert.assertEquals(cache.getNumBytes(), 0L);
+  }
+
+  @Test
+  public void testCachingFilterOperator() {
+    FilterBitmapCache cache = new FilterBitmapCache(100000);
+    List<Operator> operators = new ArrayList<Operator>();
+    operators.add(new CachedBitmapFilterOperator(MutableRoaringBitmap.bitmapOf(1, 3, 5, 7, 9), 10));
+    operators.add(new CachedBitmapFilterOperator(MutableRoaringBitmap.bitmapOf(3, 4, 5, 9), 10));
+    BaseFilterOperator cachingOperator = new BitmapCachingFilterOperator(new AndOperator(operators), cache, "and");
+
+    Assert.assertEquals(getDocIds(cachingOperator), Arrays.asList(3, 5, 9));
+    ImmutableRoaringBitmap cachedBitmap = cache.get("and");
+    Assert.assertNotNull(cachedBitmap);
+    Assert.assertEquals(getDocIds(new CachedBitmapFilterOperator(cachedBitmap, 10)), Arrays.asList(3, 5, 9));
+  }
+
+  private static List<Integer> getDocIds(BaseFilterOperator operator) {
+    List<Integer> docIds = new ArrayList<Integer>();
+    BlockDocIdIterator iterator = operator.nextBlock().getBlockDocIdSet().iterator();
+    int docId;
+    while ((docId = iterator.next()) != Constants.EOF) {
+      docIds.add(docId);
+    }
+    return docIds;
+  }
+
+  private static FilterQueryTree leaf(String column, FilterOperator operator, String... values) {
+    return new FilterQueryTree(column, Arrays.asList(values), operator, null);
+  }
+
+  private static FilterQueryTree and(FilterQueryTree... children) {
+    return new FilterQueryTree(null, null, FilterOperator.AND, Arrays.asList(children));
+  }
+
+  private static FilterQueryTree or(FilterQueryTree... children) {
+    return new FilterQueryTree(null, null, FilterOperator.OR, Arrays.asList(children));
+  }
+}
@@ -201,4 +201,32 @@ public class CustomBitSetTest {
           + setBitIndex + " searching from " + searchStartIndex);
     }
   }
+
+  @Test
+  public void testReadInts() {
+    final int NUM_VALUES = 1000;
+    Random random = new Random();
+    for (int bitsPerValue = 1; bitsPerValue <= 32; bitsPerValue++) {
+      // Two columns per row, the second one is read with the width of the first one as the gap between values.
+      for (int bitsBetweenValues : new int[] { bitsPerValue, bitsPerValue + 5 }) {
+        CustomBitSet customBitSet = CustomBitSet.withBitLength(NUM_VALUES * bitsBetweenValues);
+        for (int bit = 0; bit < NUM_VALUES * bitsBetweenValues; bit++) {
+          if (random.nextBoolean()) {
+            customBitSet.setBit(bit);
+          }
+        }
+
+        for (int startValue : new int[] { 0, 1, 7, 63, NUM_VALUES - 70 }) {
+          int length = NUM_VALUES - startValue;
+          int[] values = new int[length + 3];
+          customBitSet.readInts(startValue * bitsBetweenValues, bitsPerValue, bitsBetweenValues, length, values, 3);
+          for (int i = 0; i < length; i++) {
+            int startBitIndex = (startValue + i) * bitsBetweenValues;
+            Assert.assertEquals(values[i + 3], customBitSet.readInt(startBitIndex, startBitIndex + bitsPerValue),
+                "Value " + (startValue + i) + " of " + bitsPerValue + " bits");
+          }
+        }
+      }
+    }
+  }
 }
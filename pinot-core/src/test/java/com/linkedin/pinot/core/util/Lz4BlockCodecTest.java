@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.core.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+
+public class Lz4BlockCodecTest {
+
+  private static void assertRoundTrip(byte[] data) {
+    final byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(data.length) + 3];
+    // Compress at an offset, and decompress from a buffer that is not at position 0.
+    final int compressedLength = Lz4BlockCodec.compress(data, 0, data.length, compressed, 3);
+    Assert.assertTrue(compressedLength <= Lz4BlockCodec.maxCompressedLength(data.length));
+    final ByteBuffer buffer = ByteBuffer.wrap(compressed);
+    final byte[] decompressed = new byte[data.length];
+    Lz4BlockCodec.decompress(buffer, 3, compressedLength, decompressed, data.length);
+    Assert.assertEquals(buffer.position(), 0);
+    Assert.assertTrue(Arrays.equals(decompressed, data));
+  }
+
+  @Test
+  public void testSmallInputs() {
+    for (int length = 0; length < 32; length++) {
+      final byte[] data = new byte[length];
+      for (int i = 0; i < length; i++) {
+        data[i] = (byte) (i % 3);
+      }
+      assertRoundTrip(data);
+    }
+  }
+
+  @Test
+  public void testRandomInputs() {
+    final Random random = new Random(0);
+    for (int i = 0; i < 20; i++) {
+      final byte[] data = new byte[random.nextInt(200000)];
+      random.nextBytes(data);
+      assertRoundTrip(data);
+    }
+  }
+
+  @Test
+  public void testRepetitiveInputs() {
+    final Random random = new Random(0);
+    for (int i = 0; i < 20; i++) {
+      // Long runs give literal and match lengths well above 15 and 255, short alphabets give overlapping matches.
+      final byte[] data = new byte[random.nextInt(200000) + 1];
+      final int alphabet = 1 + random.nextInt(4);
+      int pos = 0;
+      while (pos < data.length) {
+        final int run = Math.min(data.length - pos, random.nextInt(1000));
+        if (random.nextBoolean()) {
+          final byte value = (byte) random.nextInt(alphabet);
+          Arrays.fill(data, pos, pos + run, value);
+        } else {
+          for (int j = 0; j < run; j++) {
+            data[pos + j] = (byte) random.nextInt(256);
+          }
+        }
+        pos += run;
+      }
+      assertRoundTrip(data);
+    }
+  }
+
+  @Test
+  public void testCompressesRepeatedValues() {
+    final ByteBuffer values = ByteBuffer.allocate(4000);
+    for (int i = 0; i < 1000; i++) {
+      values.putInt(i % 10);
+    }
+    final byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(4000)];
+    Assert.assertTrue(Lz4BlockCodec.compress(values.array(), 0, 4000, compressed, 0) < 200);
+    assertRoundTrip(values.array());
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void testWrongLength() {
+    final byte[] data = new byte[100];
+    final byte[] compressed = new byte[Lz4BlockCodec.maxCompressedLength(data.length)];
+    final int compressedLength = Lz4BlockCodec.compress(data, 0, data.length, compressed, 0);
+    Lz4BlockCodec.decompress(compressed, 0, compressedLength, new byte[101], 101);
+  }
+}
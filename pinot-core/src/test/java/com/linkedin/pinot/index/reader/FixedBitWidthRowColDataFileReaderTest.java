@@ -17,6 +17,7 @@ package com.linkedin.pinot.index.reader;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
 import java.util.Random;
 
 import org.slf4j.Logger;
@@ -211,4 +212,110 @@ public class FixedBitWidthRowColDataFileReaderTest {
 
     }
   }
+
+  @Test
+  public void testBulkReadIntValues() throws Exception {
+    final int numElements = 500;
+    Random r = new Random();
+    for (int maxBits = 1; maxBits <= 31; maxBits++) {
+      for (boolean signed : new boolean[] { false, true }) {
+        // Signed values are stored with an offset, in one more bit.
+        final int offset = signed ? (int) Math.pow(2, maxBits) - 1 : 0;
+        final int storedBits = signed ? maxBits + 1 : maxBits;
+        CustomBitSet bitset = CustomBitSet.withBitLength(numElements * storedBits);
+        int[] values = new int[numElements];
+        for (int i = 0; i < numElements; i++) {
+          values[i] = r.nextInt((int) Math.pow(2, maxBits)) - (signed ? r.nextInt(offset + 1) : 0);
+          int stored = values[i] + offset;
+          for (int j = storedBits - 1; j >= 0; j--) {
+            if ((stored & (1 << j)) != 0) {
+              bitset.setBit(i * storedBits + (storedBits - j - 1));
+            }
+          }
+        }
+
+        FixedBitWidthRowColDataFileReader reader =
+            FixedBitWidthRowColDataFileReader.forByteBuffer(ByteBuffer.wrap(bitset.toByteArray()), numElements, 1,
+                new int[] { maxBits }, new boolean[] { signed });
+        int[] readValues = new int[numElements];
+        for (int startRow = 0; startRow < numElements; startRow += 97) {
+          int length = numElements - startRow;
+          reader.readIntValues(startRow, 0, length, readValues, 0);
+          for (int i = 0; i < length; i++) {
+            Assert.assertEquals(readValues[i], values[startRow + i]);
+            Assert.assertEquals(readValues[i], reader.getInt(startRow + i, 0));
+          }
+        }
+        try {
+          reader.readIntValues(numElements - 10, 0, 11, readValues, 0);
+          Assert.fail("Reading past the last row should fail");
+        } catch (IndexOutOfBoundsException e) {
+          // Expected
+        }
+        reader.close();
+      }
+    }
+  }
+
+  @Test
+  public void testBatchReadIntValuesForRows() throws Exception {
+    final int numElements = 500;
+    final int[] maxBits = new int[] { 3, 7, 12 };
+    final boolean[] signed = new boolean[] { false, true, true };
+    final int numCols = maxBits.length;
+    Random r = new Random();
+
+    // Signed columns are stored with an offset, in one more bit.
+    final int[] offsets = new int[numCols];
+    final int[] storedBits = new int[numCols];
+    int rowSizeInBits = 0;
+    for (int col = 0; col < numCols; col++) {
+      offsets[col] = signed[col] ? (int) Math.pow(2, maxBits[col]) - 1 : 0;
+      storedBits[col] = signed[col] ? maxBits[col] + 1 : maxBits[col];
+      rowSizeInBits += storedBits[col];
+    }
+    CustomBitSet bitset = CustomBitSet.withBitLength(numElements * rowSizeInBits);
+    int[][] values = new int[numCols][numElements];
+    for (int i = 0; i < numElements; i++) {
+      int colBitOffset = 0;
+      for (int col = 0; col < numCols; col++) {
+        values[col][i] = r.nextInt((int) Math.pow(2, maxBits[col])) - (signed[col] ? r.nextInt(offsets[col] + 1) : 0);
+        int stored = values[col][i] + offsets[col];
+        for (int j = storedBits[col] - 1; j >= 0; j--) {
+          if ((stored & (1 << j)) != 0) {
+            bitset.setBit(i * rowSizeInBits + colBitOffset + (storedBits[col] - j - 1));
+          }
+        }
+        colBitOffset += storedBits[col];
+      }
+    }
+
+    FixedBitWidthRowColDataFileReader reader =
+        FixedBitWidthRowColDataFileReader.forByteBuffer(ByteBuffer.wrap(bitset.toByteArray()), numElements, numCols,
+            maxBits, signed);
+    // Unordered rows with repeats, read from the middle of the rows array into the middle of the values array.
+    final int startPos = 13;
+    final int outStartPos = 7;
+    final int limit = 300;
+    int[] rows = new int[startPos + limit + 5];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = r.nextInt(numElements);
+    }
+    for (int col = 0; col < numCols; col++) {
+      int[] readValues = new int[outStartPos + limit + 3];
+      reader.readIntValues(rows, col, startPos, limit, readValues, outStartPos);
+      for (int i = 0; i < outStartPos; i++) {
+        Assert.assertEquals(readValues[i], 0);
+      }
+      for (int i = 0; i < limit; i++) {
+        int row = rows[startPos + i];
+        Assert.assertEquals(readValues[outStartPos + i], values[col][row]);
+        Assert.assertEquals(readValues[outStartPos + i], reader.getInt(row, col));
+      }
+      for (int i = outStartPos + limit; i < readValues.length; i++) {
+        Assert.assertEquals(readValues[i], 0);
+      }
+    }
+    reader.close();
+  }
 }
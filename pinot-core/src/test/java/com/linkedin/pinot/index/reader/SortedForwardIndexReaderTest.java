@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.index.reader;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.core.index.reader.impl.FixedByteWidthRowColDataFileReader;
+import com.linkedin.pinot.core.segment.index.readers.SortedForwardIndexReader;
+
+
+public class SortedForwardIndexReaderTest {
+  private static final File FILE =
+      new File(FileUtils.getTempDirectory(), SortedForwardIndexReaderTest.class.getSimpleName() + ".dat");
+  private static final int NUM_DICT_IDS = 200;
+
+  private final Random _random = new Random();
+  private int[] _dictIds;
+  private FixedByteWidthRowColDataFileReader _rawReader;
+  private SortedForwardIndexReader _reader;
+
+  @BeforeClass
+  public void setup() throws Exception {
+    // One (startDocId, endDocId) row per dictionary id, each dictionary id covering 1 to 5 consecutive docs.
+    final int[] runLengths = new int[NUM_DICT_IDS];
+    int numDocs = 0;
+    for (int dictId = 0; dictId < NUM_DICT_IDS; dictId++) {
+      runLengths[dictId] = 1 + _random.nextInt(5);
+      numDocs += runLengths[dictId];
+    }
+    _dictIds = new int[numDocs];
+    final DataOutputStream dos = new DataOutputStream(new FileOutputStream(FILE));
+    int docId = 0;
+    for (int dictId = 0; dictId < NUM_DICT_IDS; dictId++) {
+      dos.writeInt(docId);
+      dos.writeInt(docId + runLengths[dictId] - 1);
+      for (int i = 0; i < runLengths[dictId]; i++) {
+        _dictIds[docId++] = dictId;
+      }
+    }
+    dos.close();
+
+    _rawReader = FixedByteWidthRowColDataFileReader.forHeap(FILE, NUM_DICT_IDS, 2, new int[] { 4, 4 });
+    _reader = new SortedForwardIndexReader(_rawReader, numDocs);
+  }
+
+  @AfterClass
+  public void tearDown() throws Exception {
+    _rawReader.close();
+    FILE.delete();
+  }
+
+  @Test
+  public void testReadValuesOfAscendingDocIds() {
+    // Ascending doc ids with gaps and repeats.
+    final int[] docIds = new int[_dictIds.length];
+    for (int i = 0; i < docIds.length; i++) {
+      docIds[i] = _random.nextInt(_dictIds.length);
+    }
+    Arrays.sort(docIds);
+    docIds[docIds.length - 1] = _dictIds.length - 1;
+    verifyReadValues(docIds, 0, docIds.length, 0);
+    verifyReadValues(docIds, 17, docIds.length - 17, 5);
+  }
+
+  @Test
+  public void testReadValuesOfAllDocIds() {
+    final int[] docIds = new int[_dictIds.length];
+    for (int i = 0; i < docIds.length; i++) {
+      docIds[i] = i;
+    }
+    verifyReadValues(docIds, 0, docIds.length, 0);
+    verifyReadValues(docIds, 3, 50, 11);
+  }
+
+  @Test
+  public void testReadValuesOfUnorderedDocIds() {
+    // Doc ids going backwards fall back to a binary search.
+    final int[] docIds = new int[_dictIds.length];
+    for (int i = 0; i < docIds.length; i++) {
+      docIds[i] = _random.nextInt(_dictIds.length);
+    }
+    verifyReadValues(docIds, 0, docIds.length, 0);
+    verifyReadValues(docIds, 9, docIds.length - 20, 2);
+  }
+
+  private void verifyReadValues(int[] docIds, int startPos, int limit, int outStartPos) {
+    final int[] values = new int[outStartPos + limit + 4];
+    Arrays.fill(values, -1);
+    _reader.readValues(docIds, startPos, limit, values, outStartPos);
+    for (int i = 0; i < outStartPos; i++) {
+      Assert.assertEquals(values[i], -1);
+    }
+    for (int i = 0; i < limit; i++) {
+      final int docId = docIds[startPos + i];
+      Assert.assertEquals(values[outStartPos + i], _dictIds[docId]);
+      Assert.assertEquals(values[outStartPos + i], _reader.getInt(docId));
+    }
+    for (int i = outStartPos + limit; i < values.length; i++) {
+      Assert.assertEquals(values[i], -1);
+    }
+  }
+}
@@ -21,8 +21,11 @@ import java.io.FileInputStream;
 import java.util.Arrays;
 import java.util.Random;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import com.linkedin.pinot.core.index.reader.impl.FixedByteWidthRowColDataFileReader;
@@ -32,10 +35,24 @@ import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
 
 @Test
 public class FixedByteWidthRowColDataFileWriterTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "FixedByteWidthRowColDataFileWriterTest");
+  private static final File FILE = new File(INDEX_DIR, "test_single_col_writer.dat");
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    INDEX_DIR.mkdirs();
+  }
+
+  @AfterClass
+  public void tearDown() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
   @Test
   public void testSingleCol() throws Exception {
 
-    File file = new File("test_single_col_writer.dat");
+    File file = FILE;
     file.delete();
     int rows = 100;
     int cols = 1;
@@ -60,7 +77,7 @@ public class FixedByteWidthRowColDataFileWriterTest {
   @Test
   public void testMultiCol() throws Exception {
 
-    File file = new File("test_single_col_writer.dat");
+    File file = FILE;
     file.delete();
     int rows = 100;
     int cols = 2;
@@ -90,7 +107,7 @@ public class FixedByteWidthRowColDataFileWriterTest {
   public void testSpecialCharsForStringReaderWriter() throws Exception {
     final byte[] bytes1 = new byte[] { -17, -65, -67, -17, -65, -67, 32, 69, 120, 101, 99, 117, 116, 105, 118, 101 };
     final byte[] bytes2 = new byte[] { -17, -65, -68, 32, 99, 97, 108, 103, 97, 114, 121, 32, 106, 117, 110, 107, 32, 114, 101, 109, 111, 118, 97, 108 };
-    File file = new File("test_single_col_writer.dat");
+    File file = FILE;
     file.delete();
     int rows = 100;
     int cols = 1;
@@ -121,6 +138,7 @@ public class FixedByteWidthRowColDataFileWriterTest {
       Assert.assertEquals(StringUtils.remove(stringInFile, String.valueOf(V1Constants.Str.STRING_PAD_CHAR)),
           StringUtils.remove(data[i], String.valueOf(V1Constants.Str.STRING_PAD_CHAR)));
     }
+    dataFileReader.close();
     file.delete();
   }
 }
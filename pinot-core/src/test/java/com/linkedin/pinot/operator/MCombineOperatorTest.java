@@ -0,0 +1,139 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.operator;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockId;
+import com.linkedin.pinot.core.common.Operator;
+import com.linkedin.pinot.core.operator.MCombineOperator;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+
+
+public class MCombineOperatorTest {
+  private static final int NUM_FAST_OPERATORS = 9;
+
+  @Test
+  public void testLateWorkersDoNotTouchTheTimedOutResult() throws Exception {
+    final BrokerRequest brokerRequest = getCountBrokerRequest();
+    final CountDownLatch releaseSlowOperator = new CountDownLatch(1);
+    final AtomicInteger numOperatorsRun = new AtomicInteger();
+    final List<Operator> operators = new ArrayList<Operator>();
+    // The first claimed segment blocks its worker past the timeout, the other worker processes the rest.
+    operators.add(new CountOperator(brokerRequest, releaseSlowOperator, numOperatorsRun));
+    for (int i = 0; i < NUM_FAST_OPERATORS; i++) {
+      operators.add(new CountOperator(brokerRequest, null, numOperatorsRun));
+    }
+
+    final ExecutorService executorService = Executors.newFixedThreadPool(2);
+    try {
+      final MCombineOperator combineOperator =
+          new MCombineOperator(operators, executorService, 1000L, brokerRequest, 2, 1);
+      final IntermediateResultsBlock block = (IntermediateResultsBlock) combineOperator.nextBlock();
+      Assert.assertEquals(block.getAggregationResult().get(0), (long) NUM_FAST_OPERATORS);
+      Assert.assertEquals(block.getNumDocsScanned(), NUM_FAST_OPERATORS);
+      Assert.assertEquals(block.getExceptions().size(), 1);
+      Assert.assertTrue(block.getExceptions().get(0).getMessage().contains("Timed out"));
+
+      // The late worker drops its result instead of merging it into the returned one.
+      releaseSlowOperator.countDown();
+      executorService.shutdown();
+      Assert.assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+      Assert.assertEquals(numOperatorsRun.get(), NUM_FAST_OPERATORS + 1);
+      Assert.assertEquals(block.getAggregationResult().get(0), (long) NUM_FAST_OPERATORS);
+      Assert.assertEquals(block.getNumDocsScanned(), NUM_FAST_OPERATORS);
+    } finally {
+      releaseSlowOperator.countDown();
+      executorService.shutdownNow();
+    }
+  }
+
+  private static BrokerRequest getCountBrokerRequest() {
+    final Map<String, String> params = new HashMap<String, String>();
+    params.put("column", "*");
+    final AggregationInfo aggregationInfo = new AggregationInfo();
+    aggregationInfo.setAggregationType("count");
+    aggregationInfo.setAggregationParams(params);
+    final BrokerRequest brokerRequest = new BrokerRequest();
+    brokerRequest.setAggregationsInfo(Arrays.asList(aggregationInfo));
+    return brokerRequest;
+  }
+
+  /**
+   * Counts one doc, after waiting for the latch if there is one.
+   */
+  private static class CountOperator implements Operator {
+    private final BrokerRequest _brokerRequest;
+    private final CountDownLatch _latch;
+    private final AtomicInteger _numOperatorsRun;
+
+    CountOperator(BrokerRequest brokerRequest, CountDownLatch latch, AtomicInteger numOperatorsRun) {
+      _brokerRequest = brokerRequest;
+      _latch = latch;
+      _numOperatorsRun = numOperatorsRun;
+    }
+
+    @Override
+    public boolean open() {
+      return true;
+    }
+
+    @Override
+    public Block nextBlock() {
+      if (_latch != null) {
+        try {
+          _latch.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      _numOperatorsRun.incrementAndGet();
+      final List<Serializable> results = new ArrayList<Serializable>();
+      results.add(1L);
+      final IntermediateResultsBlock block =
+          new IntermediateResultsBlock(AggregationFunctionFactory.getAggregationFunction(_brokerRequest), results);
+      block.setNumDocsScanned(1);
+      return block;
+    }
+
+    @Override
+    public Block nextBlock(BlockId blockId) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean close() {
+      return true;
+    }
+  }
+}
@@ -18,6 +18,8 @@ package com.linkedin.pinot.query.aggregation;
 import java.io.File;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,6 +51,7 @@ import com.linkedin.pinot.common.utils.NamedThreadFactory;
 import com.linkedin.pinot.common.utils.request.FilterQueryTree;
 import com.linkedin.pinot.common.utils.request.RequestUtils;
 import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.common.DataSource;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
@@ -65,6 +68,7 @@ import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV1;
 import com.linkedin.pinot.core.plan.maker.PlanMaker;
 import com.linkedin.pinot.core.query.aggregation.CombineService;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByIntermediateResult;
 import com.linkedin.pinot.core.query.reduce.DefaultReduceService;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
@@ -255,6 +259,60 @@ public class AggregationGroupByWithDictionaryAndTrieTreeOperatorTest {
 
   }
 
+  @Test
+  public void testTrimGroupByResultToLimit() {
+    final GroupBy groupBy = new GroupBy();
+    groupBy.setColumns(Arrays.asList("column11", "column10"));
+    groupBy.setTopN(1);
+    final IntermediateResultsBlock untrimmedBlock = getAggregationGroupByResultBlock(groupBy, Integer.MAX_VALUE);
+    Assert.assertFalse(untrimmedBlock.isApproximate());
+    final List<Map<String, Serializable>> untrimmedResults = untrimmedBlock.getAggregationGroupByOperatorResult();
+    final int numGroups = untrimmedResults.get(0).size();
+    final int numGroupsToKeep = GroupByIntermediateResult.getNumGroupsToKeep(2, groupBy.getTopN());
+    Assert.assertTrue(numGroups > 2 * numGroupsToKeep);
+
+    final IntermediateResultsBlock trimmedBlock = getAggregationGroupByResultBlock(groupBy, 2);
+    Assert.assertTrue(trimmedBlock.isApproximate());
+    final List<Map<String, Serializable>> trimmedResults = trimmedBlock.getAggregationGroupByOperatorResult();
+    for (int i = 0; i < _numAggregations; ++i) {
+      Assert.assertEquals(numGroupsToKeep, trimmedResults.get(i).size());
+      for (String groupKey : trimmedResults.get(i).keySet()) {
+        Assert.assertEquals(untrimmedResults.get(i).get(groupKey).toString(),
+            trimmedResults.get(i).get(groupKey).toString());
+      }
+    }
+
+    // The groups kept for count are the ones with the largest counts.
+    final List<Double> counts = new ArrayList<Double>();
+    for (Serializable count : untrimmedResults.get(0).values()) {
+      counts.add(((Number) count).doubleValue());
+    }
+    Collections.sort(counts, Collections.reverseOrder());
+    for (Serializable count : trimmedResults.get(0).values()) {
+      Assert.assertTrue(((Number) count).doubleValue() >= counts.get(numGroupsToKeep - 1));
+    }
+  }
+
+  private IntermediateResultsBlock getAggregationGroupByResultBlock(GroupBy groupBy, int numGroupsLimit) {
+    final List<AggregationFunctionGroupByOperator> aggregationFunctionGroupByOperatorList =
+        new ArrayList<AggregationFunctionGroupByOperator>();
+    final BReusableFilteredDocIdSetOperator docIdSetOperator =
+        new BReusableFilteredDocIdSetOperator(null, _indexSegment.getTotalDocs(), 5000);
+    final Map<String, DataSource> dataSourceMap = getDataSourceMap();
+    dataSourceMap.put("column10", _indexSegment.getDataSource("column10"));
+    final MProjectionOperator projectionOperator = new MProjectionOperator(dataSourceMap, docIdSetOperator);
+
+    for (int i = 0; i < _numAggregations; ++i) {
+      aggregationFunctionGroupByOperatorList.add(new MAggregationFunctionGroupByWithDictionaryAndTrieTreeOperator(
+          _aggregationInfos.get(i), groupBy, new UReplicatedProjectionOperator(projectionOperator), true));
+    }
+
+    final MAggregationGroupByOperator aggregationGroupByOperator =
+        new MAggregationGroupByOperator(_indexSegment, _aggregationInfos, groupBy, projectionOperator,
+            aggregationFunctionGroupByOperatorList, numGroupsLimit);
+    return (IntermediateResultsBlock) aggregationGroupByOperator.nextBlock();
+  }
+
   @Test
   public void testAggregationGroupBysWithDataTableEncodeAndDecode() throws Exception {
     final List<AggregationFunctionGroupByOperator> aggregationFunctionGroupByOperatorList =
@@ -327,7 +385,7 @@ public class AggregationGroupByWithDictionaryAndTrieTreeOperatorTest {
     final PlanMaker instancePlanMaker = new InstancePlanMakerImplV1();
     final PlanNode rootPlanNode = instancePlanMaker.makeInnerSegmentPlan(_indexSegment, brokerRequest);
     rootPlanNode.showTree("");
-    final MAggregationGroupByOperator operator = (MAggregationGroupByOperator) rootPlanNode.run();
+    final Operator operator = rootPlanNode.run();
     final IntermediateResultsBlock resultBlock = (IntermediateResultsBlock) operator.nextBlock();
     LOGGER.info("RunningTime : {}", resultBlock.getTimeUsedMs());
     LOGGER.info("NumDocsScanned : {}", resultBlock.getNumDocsScanned());
@@ -360,7 +418,7 @@ public class AggregationGroupByWithDictionaryAndTrieTreeOperatorTest {
     final PlanMaker instancePlanMaker = new InstancePlanMakerImplV1();
     final PlanNode rootPlanNode = instancePlanMaker.makeInnerSegmentPlan(_indexSegment, brokerRequest);
     rootPlanNode.showTree("");
-    final MAggregationGroupByOperator operator = (MAggregationGroupByOperator) rootPlanNode.run();
+    final Operator operator = rootPlanNode.run();
     final IntermediateResultsBlock resultBlock = (IntermediateResultsBlock) operator.nextBlock();
     LOGGER.info("RunningTime : {}", resultBlock.getTimeUsedMs());
     LOGGER.info("NumDocsScanned : {}", resultBlock.getNumDocsScanned());
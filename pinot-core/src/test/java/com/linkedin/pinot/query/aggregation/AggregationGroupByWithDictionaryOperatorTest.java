@@ -18,13 +18,16 @@ package com.linkedin.pinot.query.aggregation;
 import java.io.File;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.commons.io.FileUtils;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -48,6 +51,7 @@ import com.linkedin.pinot.common.utils.NamedThreadFactory;
 import com.linkedin.pinot.common.utils.request.FilterQueryTree;
 import com.linkedin.pinot.common.utils.request.RequestUtils;
 import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.common.Operator;
 import com.linkedin.pinot.core.common.DataSource;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
@@ -58,12 +62,16 @@ import com.linkedin.pinot.core.operator.UReplicatedProjectionOperator;
 import com.linkedin.pinot.core.operator.query.AggregationFunctionGroupByOperator;
 import com.linkedin.pinot.core.operator.query.MAggregationFunctionGroupByWithDictionaryOperator;
 import com.linkedin.pinot.core.operator.query.MAggregationGroupByOperator;
+import com.linkedin.pinot.core.plan.AggregationGroupByOperatorPlanNode;
+import com.linkedin.pinot.core.plan.AggregationGroupByOperatorPlanNode.AggregationGroupByImplementationType;
 import com.linkedin.pinot.core.plan.Plan;
 import com.linkedin.pinot.core.plan.PlanNode;
 import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
 import com.linkedin.pinot.core.plan.maker.PlanMaker;
 import com.linkedin.pinot.core.query.aggregation.CombineService;
 import com.linkedin.pinot.core.query.aggregation.groupby.AggregationGroupByOperatorService;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByIntermediateResult;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 import com.linkedin.pinot.core.query.reduce.DefaultReduceService;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
@@ -326,7 +334,7 @@ public class AggregationGroupByWithDictionaryOperatorTest {
     final PlanNode rootPlanNode = instancePlanMaker.makeInnerSegmentPlan(_indexSegment, brokerRequest);
     rootPlanNode.showTree("");
     // UAggregationGroupByOperator operator = (UAggregationGroupByOperator) rootPlanNode.run();
-    final MAggregationGroupByOperator operator = (MAggregationGroupByOperator) rootPlanNode.run();
+    final Operator operator = rootPlanNode.run();
     final IntermediateResultsBlock resultBlock = (IntermediateResultsBlock) operator.nextBlock();
     LOGGER.info("RunningTime : {}", resultBlock.getTimeUsedMs());
     LOGGER.info("NumDocsScanned : {}", resultBlock.getNumDocsScanned());
@@ -359,7 +367,7 @@ public class AggregationGroupByWithDictionaryOperatorTest {
     final PlanNode rootPlanNode = instancePlanMaker.makeInnerSegmentPlan(_indexSegment, brokerRequest);
     rootPlanNode.showTree("");
     // UAggregationGroupByOperator operator = (UAggregationGroupByOperator) rootPlanNode.run();
-    final MAggregationGroupByOperator operator = (MAggregationGroupByOperator) rootPlanNode.run();
+    final Operator operator = rootPlanNode.run();
     final IntermediateResultsBlock resultBlock = (IntermediateResultsBlock) operator.nextBlock();
     LOGGER.info("RunningTime : {}", resultBlock.getTimeUsedMs());
     LOGGER.info("NumDocsScanned : {}", resultBlock.getNumDocsScanned());
@@ -387,6 +395,150 @@ public class AggregationGroupByWithDictionaryOperatorTest {
     LOGGER.info("Result: {}", jsonResult);
   }
 
+  @Test
+  public void testPartitionedGroupByMerge() throws Exception {
+    final BrokerRequest brokerRequest = getAggregationGroupByNoFilterBrokerRequest();
+    final PlanMaker instancePlanMaker = new InstancePlanMakerImplV2();
+    final int numBlocks = 3;
+    final List<GroupByIntermediateResult> groupByResults = new ArrayList<GroupByIntermediateResult>();
+    for (int i = 0; i < numBlocks; ++i) {
+      final IntermediateResultsBlock block =
+          (IntermediateResultsBlock) instancePlanMaker.makeInnerSegmentPlan(_indexSegment, brokerRequest).run()
+              .nextBlock();
+      Assert.assertNotNull(block.getGroupByIntermediateResult());
+      groupByResults.add(block.getGroupByIntermediateResult());
+    }
+
+    // Expected results from merging the blocks one after the other.
+    final IntermediateResultsBlock expectedBlock =
+        (IntermediateResultsBlock) instancePlanMaker.makeInnerSegmentPlan(_indexSegment, brokerRequest).run()
+            .nextBlock();
+    for (int i = 1; i < numBlocks; ++i) {
+      CombineService.mergeTwoBlocks(brokerRequest, expectedBlock,
+          (IntermediateResultsBlock) instancePlanMaker.makeInnerSegmentPlan(_indexSegment, brokerRequest).run()
+              .nextBlock());
+    }
+    final List<Map<String, Serializable>> expectedResults = expectedBlock.getAggregationGroupByOperatorResult();
+
+    final int numPartitions = 4;
+    final List<Map<String, Serializable>> partitionedResults = new ArrayList<Map<String, Serializable>>();
+    for (int i = 0; i < _numAggregations; ++i) {
+      partitionedResults.add(new HashMap<String, Serializable>());
+    }
+    for (int partitionId = 0; partitionId < numPartitions; ++partitionId) {
+      final List<Map<String, Serializable>> partitionResults =
+          GroupByIntermediateResult.mergePartition(groupByResults, partitionId, numPartitions).toGroupByResultMaps();
+      for (int i = 0; i < _numAggregations; ++i) {
+        for (String groupKey : partitionResults.get(i).keySet()) {
+          // Partitions must hold disjoint groups.
+          Assert.assertNull(partitionedResults.get(i).put(groupKey, partitionResults.get(i).get(groupKey)));
+        }
+      }
+    }
+
+    for (int i = 0; i < _numAggregations; ++i) {
+      final Map<String, Serializable> expectedResult = expectedResults.get(i);
+      final Map<String, Serializable> partitionedResult = partitionedResults.get(i);
+      Assert.assertEquals(partitionedResult.keySet(), expectedResult.keySet());
+      for (String groupKey : expectedResult.keySet()) {
+        final Serializable expectedValue = expectedResult.get(groupKey);
+        if (expectedValue instanceof Set) {
+          Assert.assertEquals(partitionedResult.get(groupKey), expectedValue);
+        } else {
+          Assert.assertEquals(partitionedResult.get(groupKey).toString(), expectedValue.toString());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testTrimGroupByResultToSize() throws Exception {
+    final BrokerRequest brokerRequest = getAggregationGroupByNoFilterBrokerRequest();
+    final PlanMaker instancePlanMaker = new InstancePlanMakerImplV2();
+    final IntermediateResultsBlock block =
+        (IntermediateResultsBlock) instancePlanMaker.makeInnerSegmentPlan(_indexSegment, brokerRequest).run()
+            .nextBlock();
+    final GroupByIntermediateResult groupByResult = block.getGroupByIntermediateResult();
+    Assert.assertNotNull(groupByResult);
+    Assert.assertFalse(block.isApproximate());
+    final List<Map<String, Serializable>> untrimmedResults = groupByResult.toGroupByResultMaps();
+
+    final int numGroupsToKeep = Math.max(1, groupByResult.getNumGroups() / 10);
+    final GroupByIntermediateResult trimmedResult = groupByResult.trimToSize(numGroupsToKeep);
+    Assert.assertTrue(trimmedResult.getNumGroups() <= numGroupsToKeep * _numAggregations);
+    final List<Map<String, Serializable>> trimmedResults = trimmedResult.toGroupByResultMaps();
+
+    // Kept groups carry their untrimmed values.
+    for (int i = 0; i < _numAggregations; ++i) {
+      for (String groupKey : trimmedResults.get(i).keySet()) {
+        Assert.assertEquals(trimmedResults.get(i).get(groupKey).toString(),
+            untrimmedResults.get(i).get(groupKey).toString());
+      }
+    }
+
+    // Every group ranked strictly above the cut for count must survive the trim.
+    final Map<String, Serializable> untrimmedCounts = untrimmedResults.get(0);
+    final List<Double> counts = new ArrayList<Double>();
+    for (Serializable count : untrimmedCounts.values()) {
+      counts.add(((Number) count).doubleValue());
+    }
+    Collections.sort(counts, Collections.reverseOrder());
+    final double threshold = counts.get(Math.min(numGroupsToKeep, counts.size()) - 1);
+    for (String groupKey : untrimmedCounts.keySet()) {
+      if (((Number) untrimmedCounts.get(groupKey)).doubleValue() > threshold) {
+        Assert.assertTrue(trimmedResults.get(0).containsKey(groupKey));
+      }
+    }
+
+    // A result within the limit is returned as is.
+    Assert.assertSame(groupByResult.trimToLimit(Integer.MAX_VALUE, 10), groupByResult);
+  }
+
+  @Test
+  public void testDenseGroupByCardinalityProductThreshold() throws Exception {
+    final BrokerRequest brokerRequest = getAggregationGroupByNoFilterBrokerRequest();
+    int cardinalityProduct = 1;
+    for (String column : brokerRequest.getGroupBy().getColumns()) {
+      cardinalityProduct *= _medataMap.get(column).getCardinality();
+    }
+
+    // A cardinality product at the threshold picks the dense array group by.
+    final AggregationGroupByOperatorPlanNode densePlanNode =
+        (AggregationGroupByOperatorPlanNode) getPlanMaker(cardinalityProduct).makeInnerSegmentPlan(_indexSegment,
+            brokerRequest);
+    Assert.assertEquals(densePlanNode.getAggregationGroupByImplementationType(),
+        AggregationGroupByImplementationType.DictionaryWithDenseResultHolder);
+
+    // Above the threshold the hash based group slots are used.
+    final AggregationGroupByOperatorPlanNode hashPlanNode =
+        (AggregationGroupByOperatorPlanNode) getPlanMaker(cardinalityProduct - 1).makeInnerSegmentPlan(_indexSegment,
+            brokerRequest);
+    Assert.assertEquals(hashPlanNode.getAggregationGroupByImplementationType(),
+        AggregationGroupByImplementationType.DictionaryWithResultHolder);
+
+    // A plan node built directly keeps the implementation type it was given.
+    Assert.assertEquals(new AggregationGroupByOperatorPlanNode(_indexSegment, brokerRequest,
+        AggregationGroupByImplementationType.Dictionary).getAggregationGroupByImplementationType(),
+        AggregationGroupByImplementationType.Dictionary);
+
+    final List<Map<String, Serializable>> denseResults =
+        ((IntermediateResultsBlock) densePlanNode.run().nextBlock()).getAggregationGroupByOperatorResult();
+    final List<Map<String, Serializable>> hashResults =
+        ((IntermediateResultsBlock) hashPlanNode.run().nextBlock()).getAggregationGroupByOperatorResult();
+    for (int i = 0; i < _numAggregations; ++i) {
+      Assert.assertEquals(denseResults.get(i).keySet(), hashResults.get(i).keySet());
+      for (String groupKey : hashResults.get(i).keySet()) {
+        Assert.assertEquals(denseResults.get(i).get(groupKey).toString(), hashResults.get(i).get(groupKey).toString());
+      }
+    }
+  }
+
+  private static PlanMaker getPlanMaker(int maxDenseGroupByCardinalityProduct) throws Exception {
+    final PropertiesConfiguration config = new PropertiesConfiguration();
+    config.setProperty(QueryExecutorConfig.MAX_DENSE_GROUP_BY_CARDINALITY_PRODUCT, maxDenseGroupByCardinalityProduct);
+    return new InstancePlanMakerImplV2(new QueryExecutorConfig(config));
+  }
+
   @Test
   public void testInterSegmentAggregationGroupByPlanMakerAndRun() throws Exception {
     final int numSegments = 20;
@@ -26,6 +26,11 @@ import java.util.concurrent.TimeUnit;
 
 import junit.framework.Assert;
 
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.commons.io.FileUtils;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -57,11 +62,14 @@ import com.linkedin.pinot.core.operator.UReplicatedProjectionOperator;
 import com.linkedin.pinot.core.operator.query.BAggregationFunctionOperator;
 import com.linkedin.pinot.core.operator.query.MAggregationOperator;
 import com.linkedin.pinot.core.plan.Plan;
+import com.linkedin.pinot.core.plan.MetadataBasedAggregationPlanNode;
 import com.linkedin.pinot.core.plan.PlanNode;
 import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV0;
+import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
 import com.linkedin.pinot.core.plan.maker.PlanMaker;
 import com.linkedin.pinot.core.query.aggregation.CombineService;
 import com.linkedin.pinot.core.query.reduce.DefaultReduceService;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
 import com.linkedin.pinot.core.segment.index.ColumnMetadata;
@@ -272,6 +280,98 @@ public class AggregationQueriesTest {
     LOGGER.info("Reduced Result : {}", reducedResults);
   }
 
+  @Test
+  public void testMetadataBasedAggregation() throws Exception {
+    final BrokerRequest brokerRequest = new BrokerRequest();
+    final List<AggregationInfo> aggregationsInfo = new ArrayList<AggregationInfo>();
+    aggregationsInfo.add(getCountAggregationInfo());
+    aggregationsInfo.add(getMaxAggregationInfo());
+    aggregationsInfo.add(getMinAggregationInfo());
+    brokerRequest.setAggregationsInfo(aggregationsInfo);
+
+    final IntermediateResultsBlock scanResultBlock =
+        (IntermediateResultsBlock) new InstancePlanMakerImplV0().makeInnerSegmentPlan(_indexSegment, brokerRequest)
+            .run().nextBlock();
+    final PlanNode metadataPlanNode = new InstancePlanMakerImplV2().makeInnerSegmentPlan(_indexSegment, brokerRequest);
+    Assert.assertTrue(metadataPlanNode instanceof MetadataBasedAggregationPlanNode);
+    final IntermediateResultsBlock metadataResultBlock =
+        (IntermediateResultsBlock) metadataPlanNode.run().nextBlock();
+    Assert.assertEquals(scanResultBlock.getAggregationResult(), metadataResultBlock.getAggregationResult());
+    Assert.assertEquals(scanResultBlock.getNumDocsScanned(), metadataResultBlock.getNumDocsScanned());
+
+    // A range filter covering all the values of its column still selects every doc
+    final long minValue = ((IndexSegmentImpl) _indexSegment).getDictionaryFor("met_impressionCount").getLongValue(0);
+    final List<String> vals = new ArrayList<String>();
+    vals.add("[" + minValue + "\t\t*]");
+    RequestUtils.generateFilterFromTree(
+        new FilterQueryTree(0, "met_impressionCount", vals, FilterOperator.RANGE, null), brokerRequest);
+    Assert.assertTrue(new InstancePlanMakerImplV2().makeInnerSegmentPlan(_indexSegment, brokerRequest)
+        instanceof MetadataBasedAggregationPlanNode);
+
+    // A range filter excluding the min value does not
+    vals.set(0, "(" + minValue + "\t\t*]");
+    RequestUtils.generateFilterFromTree(
+        new FilterQueryTree(0, "met_impressionCount", vals, FilterOperator.RANGE, null), brokerRequest);
+    Assert.assertFalse(new InstancePlanMakerImplV2().makeInnerSegmentPlan(_indexSegment, brokerRequest)
+        instanceof MetadataBasedAggregationPlanNode);
+  }
+
+  @Test
+  public void testMetadataBasedAggregationOnLongValuesAboveDoublePrecision() throws Exception {
+    // 2^53 and 2^53 + 1 are the same double, but a filter on the larger one must not cover a segment holding both.
+    final long minValue = 1L << 53;
+    final File avroFile = new File(INDEX_DIR, "largeLongs.avro");
+    final org.apache.avro.Schema schema =
+        new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"largeLongs\",\"fields\":["
+            + "{\"name\":\"daysSinceEpoch\",\"type\":\"int\"},"
+            + "{\"name\":\"longColumn\",\"type\":\"long\"}]}");
+    final DataFileWriter<GenericRecord> writer =
+        new DataFileWriter<GenericRecord>(new GenericDatumWriter<GenericRecord>(schema));
+    writer.create(schema, avroFile);
+    for (int i = 0; i < 10; i++) {
+      final GenericRecord record = new GenericData.Record(schema);
+      record.put("daysSinceEpoch", 16000);
+      record.put("longColumn", minValue + (i % 3));
+      writer.append(record);
+    }
+    writer.close();
+
+    final File segmentDir = new File(INDEX_DIR, "largeLongs");
+    final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+    driver.init(SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(avroFile, segmentDir,
+        "daysSinceEpoch", TimeUnit.DAYS, "test"));
+    driver.build();
+    final IndexSegment indexSegment =
+        ColumnarSegmentLoader.load(new File(segmentDir, driver.getSegmentName()), ReadMode.heap);
+
+    final BrokerRequest brokerRequest = new BrokerRequest();
+    final List<AggregationInfo> aggregationsInfo = new ArrayList<AggregationInfo>();
+    aggregationsInfo.add(getCountAggregationInfo());
+    brokerRequest.setAggregationsInfo(aggregationsInfo);
+    final List<String> vals = new ArrayList<String>();
+    vals.add("[" + minValue + "\t\t*]");
+    RequestUtils.generateFilterFromTree(
+        new FilterQueryTree(0, "longColumn", vals, FilterOperator.RANGE, null), brokerRequest);
+    Assert.assertTrue(new InstancePlanMakerImplV2().makeInnerSegmentPlan(indexSegment, brokerRequest)
+        instanceof MetadataBasedAggregationPlanNode);
+
+    vals.set(0, "[" + (minValue + 1) + "\t\t*]");
+    RequestUtils.generateFilterFromTree(
+        new FilterQueryTree(0, "longColumn", vals, FilterOperator.RANGE, null), brokerRequest);
+    final PlanNode planNode = new InstancePlanMakerImplV2().makeInnerSegmentPlan(indexSegment, brokerRequest);
+    Assert.assertFalse(planNode instanceof MetadataBasedAggregationPlanNode);
+    final IntermediateResultsBlock resultBlock = (IntermediateResultsBlock) planNode.run().nextBlock();
+    Assert.assertEquals(6L, ((Number) resultBlock.getAggregationResult().get(0)).longValue());
+
+    vals.set(0, "[*\t\t" + (minValue + 1) + ")");
+    RequestUtils.generateFilterFromTree(
+        new FilterQueryTree(0, "longColumn", vals, FilterOperator.RANGE, null), brokerRequest);
+    Assert.assertFalse(new InstancePlanMakerImplV2().makeInnerSegmentPlan(indexSegment, brokerRequest)
+        instanceof MetadataBasedAggregationPlanNode);
+
+    indexSegment.destroy();
+  }
+
   @Test
   public void testInnerSegmentPlanMakerForAggregationFunctionOperatorWithFilter() throws Exception {
     final BrokerRequest brokerRequest = getAggregationWithFilterBrokerRequest();
@@ -327,6 +427,16 @@ public class AggregationQueriesTest {
     LOGGER.info("Result : {}", new JSONArray(brokerResponse.getAggregationResults()));
     LOGGER.info("Time used : {}", brokerResponse.getTimeUsedMs());
     assertBrokerResponse(numSegments, brokerResponse);
+
+    // Same query with one segment per thread, so that several workers steal segments and merge each other's results.
+    final PropertiesConfiguration queryExecutorConfig = new PropertiesConfiguration();
+    queryExecutorConfig.setProperty(QueryExecutorConfig.MAX_THREADS_PER_QUERY, 4);
+    queryExecutorConfig.setProperty(QueryExecutorConfig.MIN_SEGMENTS_PER_THREAD, 1);
+    final Plan parallelPlan = new InstancePlanMakerImplV2(new QueryExecutorConfig(queryExecutorConfig))
+        .makeInterSegmentPlan(_indexSegmentList, brokerRequest, executorService, 150000);
+    parallelPlan.execute();
+    instanceResponseMap.put(new ServerInstance("localhost:0000"), parallelPlan.getInstanceResponse());
+    assertBrokerResponse(numSegments, defaultReduceService.reduceOnDataTable(brokerRequest, instanceResponseMap));
   }
 
   private void assertBrokerResponse(int numSegments, BrokerResponse brokerResponse) throws JSONException {
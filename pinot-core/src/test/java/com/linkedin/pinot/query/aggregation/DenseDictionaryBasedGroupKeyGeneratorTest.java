@@ -0,0 +1,245 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.aggregation;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockDocIdIterator;
+import com.linkedin.pinot.core.common.BlockMultiValIterator;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.common.Constants;
+import com.linkedin.pinot.core.indexsegment.IndexSegment;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.operator.MatchEntireSegmentDocIdSetBlock;
+import com.linkedin.pinot.core.query.aggregation.groupby.DenseDictionaryBasedGroupKeyGenerator;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByConstants;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.segments.v1.creator.SegmentTestUtils;
+import com.linkedin.pinot.util.TestUtils;
+
+
+public class DenseDictionaryBasedGroupKeyGeneratorTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory() + File.separator
+      + "DenseDictionaryBasedGroupKeyGeneratorTest");
+  private static final File SV_SEGMENT_DIR = new File(INDEX_DIR, "sv");
+  private static final File MV_SEGMENT_DIR = new File(INDEX_DIR, "mv");
+  private static final int NUM_MV_ROWS = 25000;
+
+  private IndexSegment _svSegment;
+  private IndexSegment _mvSegment;
+
+  @BeforeClass
+  public void setup() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    final String filePath = TestUtils.getFileFromResourceUrl(getClass().getClassLoader().getResource(AVRO_DATA));
+    _svSegment = buildSegment(new File(filePath), SV_SEGMENT_DIR, "time_day");
+
+    final File mvAvroFile = new File(INDEX_DIR, "mv.avro");
+    writeMultiValueAvro(mvAvroFile);
+    _mvSegment = buildSegment(mvAvroFile, MV_SEGMENT_DIR, "daysSinceEpoch");
+  }
+
+  @AfterClass
+  public void tearDown() {
+    _svSegment.destroy();
+    _mvSegment.destroy();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testSingleValueGroupByColumns() {
+    verifyGroupSlots(_svSegment, new String[] { "column11", "column10" });
+  }
+
+  @Test
+  public void testSingleValueGroupByColumn() {
+    verifyGroupSlots(_svSegment, new String[] { "column12" });
+  }
+
+  @Test
+  public void testMultiValueGroupByColumns() {
+    Assert.assertFalse(_mvSegment.getDataSource("mvColumn").getDataSourceMetadata().isSingleValue());
+    verifyGroupSlots(_mvSegment, new String[] { "svColumn", "mvColumn" });
+    verifyGroupSlots(_mvSegment, new String[] { "mvColumn", "svColumn" });
+  }
+
+  /**
+   * Generate the group slots of all the docs of the segment, and compare them with the mixed radix numbers of the
+   * dictionary ids read doc by doc.
+   */
+  private void verifyGroupSlots(IndexSegment segment, String[] columns) {
+    final int numColumns = columns.length;
+    final Block[] groupByBlocks = new Block[numColumns];
+    final Block[] expectedBlocks = new Block[numColumns];
+    final Dictionary[] dictionaries = new Dictionary[numColumns];
+    long groupSlotUpperBound = 1L;
+    for (int i = 0; i < numColumns; ++i) {
+      groupByBlocks[i] = segment.getDataSource(columns[i]).nextBlock();
+      expectedBlocks[i] = segment.getDataSource(columns[i]).nextBlock();
+      dictionaries[i] = groupByBlocks[i].getMetadata().getDictionary();
+      groupSlotUpperBound *= dictionaries[i].length();
+    }
+
+    final DenseDictionaryBasedGroupKeyGenerator groupKeyGenerator =
+        new DenseDictionaryBasedGroupKeyGenerator(groupByBlocks);
+    Assert.assertEquals(groupKeyGenerator.getGroupSlotUpperBound(), groupSlotUpperBound);
+
+    final Map<Integer, String> expectedGroupKeyStrings = new HashMap<Integer, String>();
+    final BlockDocIdIterator docIdIterator =
+        new MatchEntireSegmentDocIdSetBlock(segment.getTotalDocs()).getBlockDocIdSet().iterator();
+    int expectedDocId = 0;
+    int numChunks = 0;
+    int length;
+    while ((length = groupKeyGenerator.generateGroupSlots(docIdIterator)) != Constants.EOF) {
+      numChunks++;
+      final int[] docIds = groupKeyGenerator.getDocIdBuffer();
+      final int[] groupSlots = groupKeyGenerator.getGroupSlotBuffer();
+      int i = 0;
+      while (i < length) {
+        final int docId = docIds[i];
+        Assert.assertEquals(docId, expectedDocId++);
+        final IntArrayList actualGroupSlots = new IntArrayList();
+        while (i < length && docIds[i] == docId) {
+          Assert.assertTrue(groupSlots[i] >= 0 && groupSlots[i] < groupSlotUpperBound);
+          actualGroupSlots.add(groupSlots[i++]);
+        }
+        final int[] expectedGroupSlots = getExpectedGroupSlots(expectedBlocks, dictionaries, docId,
+            expectedGroupKeyStrings);
+        final int[] actual = actualGroupSlots.toIntArray();
+        Arrays.sort(actual);
+        Arrays.sort(expectedGroupSlots);
+        Assert.assertEquals(actual, expectedGroupSlots);
+      }
+    }
+    Assert.assertEquals(expectedDocId, segment.getTotalDocs());
+    Assert.assertEquals(numChunks,
+        (segment.getTotalDocs() + GroupKeyGenerator.MAX_DOCS_PER_CHUNK - 1) / GroupKeyGenerator.MAX_DOCS_PER_CHUNK);
+
+    // Every generated slot is reported once and decodes back to the values of its group by columns.
+    final Map<Integer, String> actualGroupKeyStrings = new HashMap<Integer, String>();
+    final IntIterator groupSlotIterator = groupKeyGenerator.getGroupSlotIterator();
+    while (groupSlotIterator.hasNext()) {
+      final int groupSlot = groupSlotIterator.nextInt();
+      Assert.assertNull(actualGroupKeyStrings.put(groupSlot, groupKeyGenerator.getGroupKeyString(groupSlot)));
+    }
+    Assert.assertEquals(actualGroupKeyStrings, expectedGroupKeyStrings);
+  }
+
+  private int[] getExpectedGroupSlots(Block[] blocks, Dictionary[] dictionaries, int docId,
+      Map<Integer, String> expectedGroupKeyStrings) {
+    final String delimiter = GroupByConstants.GroupByDelimiter.groupByMultiDelimeter.toString();
+    List<int[]> dictIdTuples = new ArrayList<int[]>();
+    dictIdTuples.add(new int[0]);
+    for (int i = 0; i < blocks.length; ++i) {
+      final int[] dictIds;
+      if (blocks[i].getMetadata().isSingleValue()) {
+        final BlockSingleValIterator iterator = (BlockSingleValIterator) blocks[i].getBlockValueSet().iterator();
+        iterator.skipTo(docId);
+        dictIds = new int[] { iterator.nextIntVal() };
+      } else {
+        final BlockMultiValIterator iterator = (BlockMultiValIterator) blocks[i].getBlockValueSet().iterator();
+        iterator.skipTo(docId);
+        final int[] entries = new int[blocks[i].getMetadata().getMaxNumberOfMultiValues()];
+        dictIds = Arrays.copyOf(entries, iterator.nextIntVal(entries));
+      }
+      final List<int[]> newDictIdTuples = new ArrayList<int[]>();
+      for (final int[] tuple : dictIdTuples) {
+        for (final int dictId : dictIds) {
+          final int[] newTuple = Arrays.copyOf(tuple, tuple.length + 1);
+          newTuple[tuple.length] = dictId;
+          newDictIdTuples.add(newTuple);
+        }
+      }
+      dictIdTuples = newDictIdTuples;
+    }
+
+    final int[] groupSlots = new int[dictIdTuples.size()];
+    for (int j = 0; j < groupSlots.length; ++j) {
+      final int[] tuple = dictIdTuples.get(j);
+      int groupSlot = 0;
+      final StringBuilder groupKeyString = new StringBuilder();
+      for (int i = 0; i < tuple.length; ++i) {
+        groupSlot = groupSlot * dictionaries[i].length() + tuple[i];
+        if (i > 0) {
+          groupKeyString.append(delimiter);
+        }
+        groupKeyString.append(dictionaries[i].get(tuple[i]).toString());
+      }
+      groupSlots[j] = groupSlot;
+      expectedGroupKeyStrings.put(groupSlot, groupKeyString.toString());
+    }
+    return groupSlots;
+  }
+
+  private IndexSegment buildSegment(File avroFile, File segmentDir, String timeColumn) throws Exception {
+    final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+    driver.init(SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(avroFile, segmentDir, timeColumn,
+        TimeUnit.DAYS, "test"));
+    driver.build();
+    return ColumnarSegmentLoader.load(new File(segmentDir, driver.getSegmentName()), ReadMode.heap);
+  }
+
+  private void writeMultiValueAvro(File avroFile) throws Exception {
+    final org.apache.avro.Schema schema =
+        new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"mv\",\"fields\":["
+            + "{\"name\":\"daysSinceEpoch\",\"type\":\"int\"},"
+            + "{\"name\":\"svColumn\",\"type\":\"string\"},"
+            + "{\"name\":\"mvColumn\",\"type\":{\"type\":\"array\",\"items\":\"int\"}}]}");
+    final Random random = new Random(42);
+    final DataFileWriter<GenericRecord> writer =
+        new DataFileWriter<GenericRecord>(new GenericDatumWriter<GenericRecord>(schema));
+    writer.create(schema, avroFile);
+    for (int i = 0; i < NUM_MV_ROWS; ++i) {
+      final GenericRecord record = new GenericData.Record(schema);
+      record.put("daysSinceEpoch", 16000 + random.nextInt(10));
+      record.put("svColumn", "sv_" + random.nextInt(7));
+      final int numValues = 1 + random.nextInt(4);
+      final List<Integer> values = new ArrayList<Integer>();
+      for (int j = 0; j < numValues; ++j) {
+        values.add(random.nextInt(20));
+      }
+      record.put("mvColumn", values);
+      writer.append(record);
+    }
+    writer.close();
+  }
+}
@@ -0,0 +1,351 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.aggregation;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunction;
+import com.linkedin.pinot.core.query.aggregation.AggregationFunctionFactory;
+import com.linkedin.pinot.core.query.aggregation.CombineService;
+import com.linkedin.pinot.core.query.aggregation.function.AvgAggregationFunction.AvgPair;
+import com.linkedin.pinot.core.query.aggregation.groupby.DoubleGroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.DoubleLongPairGroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByConstants;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByIntermediateResult;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.GroupKey;
+import com.linkedin.pinot.core.query.aggregation.groupby.LongGroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+
+
+public class GroupByIntermediateResultTest {
+  private static final String[] AGGREGATION_TYPES = { "count", "sum", "min", "max", "avg", "distinctcount" };
+  private static final DataType[] GROUP_BY_COLUMN_TYPES = { DataType.INT, DataType.STRING, DataType.DOUBLE };
+  private static final int NUM_ROWS_PER_SEGMENT = 2000;
+
+  @Test
+  public void testGroupKeyEqualityAndHashing() {
+    testGroupKeyEqualityAndHashing(DataType.INT, new Object[] { -7, 0, 3, Integer.MAX_VALUE });
+    testGroupKeyEqualityAndHashing(DataType.LONG, new Object[] { -7L, 0L, 3L, Long.MAX_VALUE });
+    testGroupKeyEqualityAndHashing(DataType.FLOAT, new Object[] { -7.5F, 0F, 3.25F, Float.MAX_VALUE });
+    testGroupKeyEqualityAndHashing(DataType.DOUBLE, new Object[] { -7.5, 0.0, 3.25, Double.MAX_VALUE });
+    testGroupKeyEqualityAndHashing(DataType.STRING, new Object[] { "", "a", "b", "new york" });
+  }
+
+  /**
+   * Two dictionaries hold the same values in a different order, the way two segments would. Keys built from ids of
+   * the same value must be equal with the same hash code, keys of different values must differ.
+   */
+  private void testGroupKeyEqualityAndHashing(DataType dataType, Object[] values) {
+    Object[] reversedValues = values.clone();
+    Collections.reverse(Arrays.asList(reversedValues));
+    Dictionary[] dictionaries1 = { new ArrayDictionary(values) };
+    Dictionary[] dictionaries2 = { new ArrayDictionary(reversedValues) };
+    DataType[] dataTypes = { dataType };
+
+    int numValues = values.length;
+    for (int i = 0; i < numValues; ++i) {
+      GroupKey groupKey1 = GroupKey.fromDictionaryIds(dictionaries1, dataTypes, new int[] { i });
+      GroupKey groupKey2 = GroupKey.fromDictionaryIds(dictionaries2, dataTypes, new int[] { numValues - 1 - i });
+      Assert.assertEquals(groupKey1, groupKey2, dataType.toString());
+      Assert.assertEquals(groupKey1.hashCode(), groupKey2.hashCode(), dataType.toString());
+      Assert.assertEquals(groupKey1.toGroupKeyString(dataTypes), values[i].toString());
+      for (int j = 0; j < numValues; ++j) {
+        if (j != i) {
+          Assert.assertFalse(groupKey1.equals(GroupKey.fromDictionaryIds(dictionaries1, dataTypes, new int[] { j })),
+              dataType.toString());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMultiColumnGroupKey() {
+    Dictionary[] dictionaries = getDictionaries(new Random(0));
+    GroupKey groupKey = GroupKey.fromDictionaryIds(dictionaries, GROUP_BY_COLUMN_TYPES, new int[] { 1, 2, 3 });
+    Assert.assertEquals(groupKey,
+        GroupKey.fromDictionaryIds(dictionaries, GROUP_BY_COLUMN_TYPES, new int[] { 1, 2, 3 }));
+    Assert.assertFalse(groupKey.equals(
+        GroupKey.fromDictionaryIds(dictionaries, GROUP_BY_COLUMN_TYPES, new int[] { 1, 3, 3 })));
+    String delimiter = GroupByConstants.GroupByDelimiter.groupByMultiDelimeter.toString();
+    Assert.assertEquals(groupKey.toGroupKeyString(GROUP_BY_COLUMN_TYPES),
+        dictionaries[0].get(1) + delimiter + dictionaries[1].get(2) + delimiter + dictionaries[2].get(3));
+  }
+
+  @Test
+  public void testMergeGroupByResult() {
+    int[] values = { 3, 7, 7 };
+    int[] otherValues = { 1, 7, 9 };
+    for (String aggregationType : AGGREGATION_TYPES) {
+      AggregationFunction function = AggregationFunctionFactory.get(getAggregationInfo(aggregationType), true);
+
+      // Merge into a group that has values.
+      GroupByResultHolder resultHolder = getResultHolder(function, aggregationType, 0, values);
+      GroupByResultHolder otherResultHolder = getResultHolder(function, aggregationType, 1, otherValues);
+      Serializable expected =
+          function.combineTwoValues(
+              (Serializable) function.getGroupByResult(getResultHolder(function, aggregationType, 0, values), 0),
+              (Serializable) function.getGroupByResult(getResultHolder(function, aggregationType, 1, otherValues), 1));
+      function.mergeGroupByResult(resultHolder, 0, otherResultHolder, 1);
+      assertResultEquals(function.getGroupByResult(resultHolder, 0), expected, aggregationType);
+
+      // Merge into a group that has no value yet.
+      resultHolder = getResultHolder(function, aggregationType, 0, values);
+      otherResultHolder = getResultHolder(function, aggregationType, 1, otherValues);
+      function.mergeGroupByResult(resultHolder, 1, otherResultHolder, 1);
+      assertResultEquals(function.getGroupByResult(resultHolder, 1),
+          function.getGroupByResult(getResultHolder(function, aggregationType, 1, otherValues), 1), aggregationType);
+
+      // Merge a group that has no value.
+      resultHolder = getResultHolder(function, aggregationType, 0, values);
+      otherResultHolder = getResultHolder(function, aggregationType, 1, otherValues);
+      function.mergeGroupByResult(resultHolder, 0, otherResultHolder, 0);
+      assertResultEquals(function.getGroupByResult(resultHolder, 0),
+          function.getGroupByResult(getResultHolder(function, aggregationType, 0, values), 0), aggregationType);
+    }
+  }
+
+  /**
+   * Merge the results of two segments through CombineService, once as GroupByIntermediateResults and once as the
+   * String keyed maps the other group by operators produce, and check both merges give the same groups and values.
+   */
+  @Test
+  public void testTypedMergeMatchesMapMerge() {
+    BrokerRequest brokerRequest = getBrokerRequest();
+    List<AggregationFunction> aggregationFunctions =
+        AggregationFunctionFactory.getAggregationFunction(brokerRequest.getAggregationsInfo());
+
+    IntermediateResultsBlock typedBlock =
+        new IntermediateResultsBlock(aggregationFunctions, getGroupByResult(aggregationFunctions, 1));
+    IntermediateResultsBlock typedBlockToMerge =
+        new IntermediateResultsBlock(aggregationFunctions, getGroupByResult(aggregationFunctions, 2));
+    CombineService.mergeTwoBlocks(brokerRequest, typedBlock, typedBlockToMerge);
+    Assert.assertNotNull(typedBlock.getGroupByIntermediateResult());
+
+    IntermediateResultsBlock mapBlock = new IntermediateResultsBlock(aggregationFunctions,
+        getGroupByResult(aggregationFunctions, 1).toGroupByResultMaps(), true);
+    IntermediateResultsBlock mapBlockToMerge = new IntermediateResultsBlock(aggregationFunctions,
+        getGroupByResult(aggregationFunctions, 2).toGroupByResultMaps(), true);
+    CombineService.mergeTwoBlocks(brokerRequest, mapBlock, mapBlockToMerge);
+    Assert.assertNull(mapBlock.getGroupByIntermediateResult());
+
+    List<Map<String, Serializable>> typedResults = typedBlock.getAggregationGroupByOperatorResult();
+    List<Map<String, Serializable>> mapResults = mapBlock.getAggregationGroupByOperatorResult();
+    Assert.assertEquals(typedResults.size(), AGGREGATION_TYPES.length);
+    for (int i = 0; i < AGGREGATION_TYPES.length; ++i) {
+      Map<String, Serializable> typedResult = typedResults.get(i);
+      Map<String, Serializable> mapResult = mapResults.get(i);
+      Assert.assertEquals(typedResult.keySet(), mapResult.keySet(), AGGREGATION_TYPES[i]);
+      for (String groupKey : typedResult.keySet()) {
+        assertResultEquals(typedResult.get(groupKey), mapResult.get(groupKey), AGGREGATION_TYPES[i]);
+      }
+    }
+    long totalCount = 0;
+    for (Serializable count : typedResults.get(0).values()) {
+      totalCount += (Long) count;
+    }
+    Assert.assertEquals(totalCount, 2L * NUM_ROWS_PER_SEGMENT);
+  }
+
+  /**
+   * Build the group by result of a segment: random rows over dictionaries whose value order depends on the segment,
+   * so the same group has different dictionary ids in different segments.
+   */
+  private static GroupByIntermediateResult getGroupByResult(List<AggregationFunction> aggregationFunctions,
+      int segmentSeed) {
+    AggregationFunction[] functions = aggregationFunctions.toArray(new AggregationFunction[aggregationFunctions.size()]);
+    GroupByIntermediateResult result = new GroupByIntermediateResult(functions, GROUP_BY_COLUMN_TYPES, 16);
+    Random random = new Random(segmentSeed);
+    Dictionary[] dictionaries = getDictionaries(random);
+    int[] dictionaryIds = new int[dictionaries.length];
+    for (int row = 0; row < NUM_ROWS_PER_SEGMENT; ++row) {
+      for (int i = 0; i < dictionaries.length; ++i) {
+        dictionaryIds[i] = random.nextInt(dictionaries[i].length());
+      }
+      GroupKey groupKey = GroupKey.fromDictionaryIds(dictionaries, GROUP_BY_COLUMN_TYPES, dictionaryIds);
+      int[] values = { random.nextInt(100) };
+      GroupByResultHolder[] rowResultHolders = new GroupByResultHolder[functions.length];
+      for (int i = 0; i < functions.length; ++i) {
+        rowResultHolders[i] = getResultHolder(functions[i], AGGREGATION_TYPES[i], 0, values);
+      }
+      result.mergeGroup(groupKey, rowResultHolders, 0);
+    }
+    return result;
+  }
+
+  private static Dictionary[] getDictionaries(Random random) {
+    List<Object> intValues = new ArrayList<Object>();
+    List<Object> stringValues = new ArrayList<Object>();
+    List<Object> doubleValues = new ArrayList<Object>();
+    for (int i = 0; i < 10; ++i) {
+      intValues.add(i * 11);
+      stringValues.add("value" + i);
+      doubleValues.add(i / 4.0);
+    }
+    Collections.shuffle(intValues, random);
+    Collections.shuffle(stringValues, random);
+    Collections.shuffle(doubleValues, random);
+    return new Dictionary[] { new ArrayDictionary(intValues.toArray()), new ArrayDictionary(stringValues.toArray()),
+        new ArrayDictionary(doubleValues.toArray()) };
+  }
+
+  /**
+   * Build a result holder of the given function with the given values aggregated in groupSlot.
+   */
+  private static GroupByResultHolder getResultHolder(AggregationFunction function, String aggregationType,
+      int groupSlot, int[] values) {
+    GroupByResultHolder resultHolder = function.createGroupByResultHolder(2);
+    for (int value : values) {
+      if (aggregationType.equals("count")) {
+        LongGroupByResultHolder longResultHolder = (LongGroupByResultHolder) resultHolder;
+        longResultHolder.setValueForSlot(groupSlot, longResultHolder.getLongResult(groupSlot) + 1);
+      } else if (aggregationType.equals("sum")) {
+        DoubleGroupByResultHolder doubleResultHolder = (DoubleGroupByResultHolder) resultHolder;
+        doubleResultHolder.setValueForSlot(groupSlot, doubleResultHolder.getDoubleResult(groupSlot) + value);
+      } else if (aggregationType.equals("min")) {
+        DoubleGroupByResultHolder doubleResultHolder = (DoubleGroupByResultHolder) resultHolder;
+        doubleResultHolder.setValueForSlot(groupSlot, Math.min(doubleResultHolder.getDoubleResult(groupSlot), value));
+      } else if (aggregationType.equals("max")) {
+        DoubleGroupByResultHolder doubleResultHolder = (DoubleGroupByResultHolder) resultHolder;
+        doubleResultHolder.setValueForSlot(groupSlot, Math.max(doubleResultHolder.getDoubleResult(groupSlot), value));
+      } else if (aggregationType.equals("avg")) {
+        ((DoubleLongPairGroupByResultHolder) resultHolder).addToSlot(groupSlot, value, 1);
+      } else {
+        ObjectGroupByResultHolder objectResultHolder = (ObjectGroupByResultHolder) resultHolder;
+        IntOpenHashSet valueSet = objectResultHolder.getResult(groupSlot);
+        if (valueSet == null) {
+          valueSet = new IntOpenHashSet();
+          objectResultHolder.setValueForSlot(groupSlot, valueSet);
+        }
+        valueSet.add(value);
+      }
+    }
+    return resultHolder;
+  }
+
+  private static void assertResultEquals(Object actual, Object expected, String message) {
+    if (expected instanceof AvgPair) {
+      Assert.assertEquals(((AvgPair) actual).getFirst(), ((AvgPair) expected).getFirst(), message);
+      Assert.assertEquals(((AvgPair) actual).getSecond(), ((AvgPair) expected).getSecond(), message);
+    } else {
+      Assert.assertEquals(actual, expected, message);
+    }
+  }
+
+  private static BrokerRequest getBrokerRequest() {
+    BrokerRequest brokerRequest = new BrokerRequest();
+    List<AggregationInfo> aggregationsInfo = new ArrayList<AggregationInfo>();
+    for (String aggregationType : AGGREGATION_TYPES) {
+      aggregationsInfo.add(getAggregationInfo(aggregationType));
+    }
+    brokerRequest.setAggregationsInfo(aggregationsInfo);
+    GroupBy groupBy = new GroupBy();
+    groupBy.setColumns(Arrays.asList("intColumn", "stringColumn", "doubleColumn"));
+    groupBy.setTopN(10);
+    brokerRequest.setGroupBy(groupBy);
+    return brokerRequest;
+  }
+
+  private static AggregationInfo getAggregationInfo(String aggregationType) {
+    Map<String, String> params = new HashMap<String, String>();
+    params.put("column", aggregationType.equals("count") ? "*" : "met");
+    AggregationInfo aggregationInfo = new AggregationInfo();
+    aggregationInfo.setAggregationType(aggregationType);
+    aggregationInfo.setAggregationParams(params);
+    return aggregationInfo;
+  }
+
+  /**
+   * Dictionary over an array of values, in the given order.
+   */
+  private static class ArrayDictionary implements Dictionary {
+    private final Object[] _values;
+
+    ArrayDictionary(Object[] values) {
+      _values = values;
+    }
+
+    @Override
+    public int indexOf(Object rawValue) {
+      return Arrays.asList(_values).indexOf(rawValue);
+    }
+
+    @Override
+    public Object get(int dictionaryId) {
+      return _values[dictionaryId];
+    }
+
+    @Override
+    public int getIntValue(int dictionaryId) {
+      return ((Number) _values[dictionaryId]).intValue();
+    }
+
+    @Override
+    public long getLongValue(int dictionaryId) {
+      return ((Number) _values[dictionaryId]).longValue();
+    }
+
+    @Override
+    public float getFloatValue(int dictionaryId) {
+      return ((Number) _values[dictionaryId]).floatValue();
+    }
+
+    @Override
+    public double getDoubleValue(int dictionaryId) {
+      return ((Number) _values[dictionaryId]).doubleValue();
+    }
+
+    @Override
+    public String getStringValue(int dictionaryId) {
+      return _values[dictionaryId].toString();
+    }
+
+    @Override
+    public String toString(int dictionaryId) {
+      return _values[dictionaryId].toString();
+    }
+
+    @Override
+    public void readDoubleValues(int[] dictionaryIds, int startPos, int limit, double[] outValues, int outStartPos) {
+      for (int i = 0; i < limit; ++i) {
+        outValues[outStartPos + i] = getDoubleValue(dictionaryIds[startPos + i]);
+      }
+    }
+
+    @Override
+    public int length() {
+      return _values.length;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.aggregation;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.core.query.aggregation.groupby.DoubleGroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.DoubleLongPairGroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.LongGroupByResultHolder;
+import com.linkedin.pinot.core.query.aggregation.groupby.ObjectGroupByResultHolder;
+
+
+public class GroupByResultHolderTest {
+
+  @Test
+  public void testDoubleResultHolderKeepsDefaultValueWhenGrowing() {
+    DoubleGroupByResultHolder resultHolder = new DoubleGroupByResultHolder(2, Double.NEGATIVE_INFINITY);
+    resultHolder.setValueForSlot(1, 5.0);
+    resultHolder.ensureCapacity(10);
+    Assert.assertTrue(resultHolder.getCapacity() >= 10);
+    Assert.assertEquals(resultHolder.getDoubleResult(1), 5.0);
+    for (int i = 2; i < resultHolder.getCapacity(); ++i) {
+      Assert.assertEquals(resultHolder.getDoubleResult(i), Double.NEGATIVE_INFINITY);
+    }
+  }
+
+  @Test
+  public void testLongResultHolder() {
+    LongGroupByResultHolder resultHolder = new LongGroupByResultHolder(1);
+    resultHolder.ensureCapacity(3);
+    resultHolder.getResultArray()[2]++;
+    resultHolder.getResultArray()[2]++;
+    Assert.assertEquals(resultHolder.getLongResult(2), 2L);
+    Assert.assertEquals(resultHolder.getLongResult(0), 0L);
+  }
+
+  @Test
+  public void testDoubleLongPairResultHolder() {
+    DoubleLongPairGroupByResultHolder resultHolder = new DoubleLongPairGroupByResultHolder(1);
+    resultHolder.ensureCapacity(4);
+    resultHolder.addToSlot(3, 1.5, 1);
+    resultHolder.addToSlot(3, 2.5, 1);
+    Assert.assertEquals(resultHolder.getDoubleResult(3), 4.0);
+    Assert.assertEquals(resultHolder.getLongResult(3), 2L);
+  }
+
+  @Test
+  public void testObjectResultHolder() {
+    ObjectGroupByResultHolder resultHolder = new ObjectGroupByResultHolder(1);
+    resultHolder.setValueForSlot(0, "a");
+    resultHolder.ensureCapacity(5);
+    Assert.assertEquals(resultHolder.getResult(0), "a");
+    Assert.assertNull(resultHolder.getResult(4));
+  }
+}
@@ -35,6 +35,8 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.linkedin.pinot.common.exception.QueryException;
+import com.linkedin.pinot.common.query.QueryCancellationFlag;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterQuery;
@@ -44,9 +46,12 @@ import com.linkedin.pinot.common.segment.ReadMode;
 import com.linkedin.pinot.common.utils.DataTable;
 import com.linkedin.pinot.core.data.manager.config.FileBasedInstanceDataManagerConfig;
 import com.linkedin.pinot.core.data.manager.offline.FileBasedInstanceDataManager;
+import com.linkedin.pinot.core.data.manager.offline.TableDataManagerProvider;
 import com.linkedin.pinot.core.indexsegment.IndexSegment;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.query.cache.SegmentResultCache;
+import com.linkedin.pinot.core.query.config.QueryExecutorConfig;
 import com.linkedin.pinot.core.query.executor.ServerQueryExecutorV1Impl;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
@@ -61,6 +66,8 @@ public class QueryExecutorTest {
   private List<IndexSegment> _indexSegmentList = new ArrayList<IndexSegment>();
 
   private static ServerQueryExecutorV1Impl _queryExecutor;
+  private static PropertiesConfiguration _serverConf;
+  private static FileBasedInstanceDataManager _instanceDataManager;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(QueryExecutorTest.class);
   public static final String PINOT_PROPERTIES = "pinot.properties";
@@ -77,7 +84,9 @@ public class QueryExecutorTest {
     serverConf.setDelimiterParsingDisabled(false);
     serverConf.load(new File(configFilePath, PINOT_PROPERTIES));
 
+    _serverConf = serverConf;
     FileBasedInstanceDataManager instanceDataManager = FileBasedInstanceDataManager.getInstanceDataManager();
+    _instanceDataManager = instanceDataManager;
     instanceDataManager.init(new FileBasedInstanceDataManagerConfig(serverConf.subset("pinot.server.instance")));
     instanceDataManager.start();
 
@@ -150,6 +159,90 @@ public class QueryExecutorTest {
     }
   }
 
+  @Test
+  public void testQueryMemoryLimit() throws Exception {
+    PropertiesConfiguration queryExecutorConfig = new PropertiesConfiguration();
+    queryExecutorConfig.copy(_serverConf.subset("pinot.server.query.executor"));
+    queryExecutorConfig.setProperty(QueryExecutorConfig.MAX_QUERY_MEMORY_BYTES, 1L);
+    ServerQueryExecutorV1Impl queryExecutor = new ServerQueryExecutorV1Impl();
+    queryExecutor.init(queryExecutorConfig, _instanceDataManager, new ServerMetrics(new MetricsRegistry()));
+
+    BrokerRequest brokerRequest = getCountQuery();
+    QuerySource querySource = new QuerySource();
+    querySource.setTableName("midas");
+    brokerRequest.setQuerySource(querySource);
+    InstanceRequest instanceRequest = new InstanceRequest(0, brokerRequest);
+    instanceRequest.setSearchSegments(new ArrayList<String>());
+    for (IndexSegment segment : _indexSegmentList) {
+      instanceRequest.getSearchSegments().add(segment.getSegmentName());
+    }
+
+    // Building the response alone goes over the one byte limit.
+    DataTable instanceResponse = queryExecutor.processQuery(instanceRequest);
+    Assert.assertTrue(instanceResponse.getMetadata().containsKey(
+        "Exception" + QueryException.QUERY_MEMORY_LIMIT_EXCEEDED_ERROR.getErrorCode()));
+  }
+
+  @Test
+  public void testCancelledQuery() throws Exception {
+    BrokerRequest brokerRequest = getSumQuery();
+    QuerySource querySource = new QuerySource();
+    querySource.setTableName("midas");
+    brokerRequest.setQuerySource(querySource);
+    InstanceRequest instanceRequest = new InstanceRequest(0, brokerRequest);
+    instanceRequest.setSearchSegments(new ArrayList<String>());
+    for (IndexSegment segment : _indexSegmentList) {
+      instanceRequest.getSearchSegments().add(segment.getSegmentName());
+    }
+
+    // The operators stop at their first block once the flag of the query is raised.
+    QueryCancellationFlag cancellationFlag = new QueryCancellationFlag(0);
+    cancellationFlag.cancel();
+    QueryCancellationFlag.setCurrent(cancellationFlag);
+    try {
+      DataTable instanceResponse = _queryExecutor.processQuery(instanceRequest);
+      Assert.assertTrue(instanceResponse.getMetadata().containsKey(
+          "Exception" + QueryException.QUERY_CANCELLED_ERROR.getErrorCode()));
+    } finally {
+      QueryCancellationFlag.setCurrent(null);
+    }
+  }
+
+  @Test
+  public void testSegmentResultCache() throws Exception {
+    PropertiesConfiguration queryExecutorConfig = new PropertiesConfiguration();
+    queryExecutorConfig.copy(_serverConf.subset("pinot.server.query.executor"));
+    queryExecutorConfig.setProperty(QueryExecutorConfig.SEGMENT_RESULT_CACHE_MAX_BYTES, 1024L * 1024L);
+    ServerQueryExecutorV1Impl queryExecutor = new ServerQueryExecutorV1Impl();
+    try {
+      queryExecutor.init(queryExecutorConfig, _instanceDataManager, new ServerMetrics(new MetricsRegistry()));
+      SegmentResultCache segmentResultCache = queryExecutor.getSegmentResultCache();
+
+      // The first query fills the cache, the second one with another request id is answered from it.
+      for (int requestId = 1; requestId <= 2; ++requestId) {
+        BrokerRequest brokerRequest = getSumQuery();
+        QuerySource querySource = new QuerySource();
+        querySource.setTableName("midas");
+        brokerRequest.setQuerySource(querySource);
+        InstanceRequest instanceRequest = new InstanceRequest(requestId, brokerRequest);
+        instanceRequest.setSearchSegments(new ArrayList<String>());
+        for (IndexSegment segment : _indexSegmentList) {
+          instanceRequest.getSearchSegments().add(segment.getSegmentName());
+        }
+        DataTable instanceResponse = queryExecutor.processQuery(instanceRequest);
+        Assert.assertEquals(instanceResponse.getDouble(0, 0), 40000200000.0);
+        Assert.assertEquals(segmentResultCache.getNumEntries(), _indexSegmentList.size());
+        Assert.assertEquals(segmentResultCache.getNumHits(), (requestId - 1) * _indexSegmentList.size());
+      }
+      Assert.assertTrue(segmentResultCache.getNumBytes() <= segmentResultCache.getMaxBytes());
+
+      segmentResultCache.invalidateSegment(_indexSegmentList.get(0).getSegmentName());
+      Assert.assertEquals(segmentResultCache.getNumEntries(), _indexSegmentList.size() - 1);
+    } finally {
+      TableDataManagerProvider.setSegmentResultCache(null);
+    }
+  }
+
   @Test
   public void testSumQuery() {
     BrokerRequest brokerRequest = getSumQuery();
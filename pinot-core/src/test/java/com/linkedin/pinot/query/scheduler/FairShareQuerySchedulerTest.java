@@ -0,0 +1,254 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.query.scheduler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.linkedin.pinot.common.data.DataManager;
+import com.linkedin.pinot.common.metrics.ServerMetrics;
+import com.linkedin.pinot.common.query.QueryCancellationFlag;
+import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.InstanceRequest;
+import com.linkedin.pinot.common.request.QuerySource;
+import com.linkedin.pinot.common.utils.DataTable;
+import com.linkedin.pinot.core.query.scheduler.FairShareQueryScheduler;
+import com.yammer.metrics.core.MetricsRegistry;
+
+
+public class FairShareQuerySchedulerTest {
+  private static final String BLOCKED_TABLE = "blockedTable";
+  private static final String BROKER_ID = "broker0";
+
+  private FairShareQueryScheduler _queryScheduler;
+  private CountDownLatch _unblock;
+  private volatile int _numRunningBlockedQueries;
+  private volatile QueryCancellationFlag _runningQueryCancellationFlag;
+
+  @BeforeMethod
+  public void setUp() {
+    _unblock = new CountDownLatch(1);
+    _numRunningBlockedQueries = 0;
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    _unblock.countDown();
+    if (_queryScheduler != null && _queryScheduler.isStarted()) {
+      _queryScheduler.shutDown();
+    }
+  }
+
+  @Test
+  public void testProcessQuery() throws Exception {
+    _queryScheduler = startQueryScheduler(2, 10, -1);
+    DataTable instanceResponse = _queryScheduler.submit(getInstanceRequest(1L, "myTable")).get(10, TimeUnit.SECONDS);
+    Assert.assertEquals(instanceResponse.getMetadata().get("requestId"), "1");
+    Assert.assertNull(instanceResponse.getMetadata().get("Exception270"));
+  }
+
+  @Test
+  public void testRejectWhenQueueIsFull() throws Exception {
+    _queryScheduler = startQueryScheduler(1, 1, -1);
+    ListenableFuture<DataTable> running = _queryScheduler.submit(getInstanceRequest(1L, BLOCKED_TABLE));
+    waitForBlockedQueryToRun();
+    ListenableFuture<DataTable> pending = _queryScheduler.submit(getInstanceRequest(2L, BLOCKED_TABLE));
+    ListenableFuture<DataTable> rejected = _queryScheduler.submit(getInstanceRequest(3L, BLOCKED_TABLE));
+
+    Assert.assertTrue(rejected.isDone());
+    DataTable rejectedResponse = rejected.get();
+    Assert.assertNotNull(rejectedResponse.getMetadata().get("Exception270"));
+    Assert.assertEquals(rejectedResponse.getMetadata().get("requestId"), "3");
+    Assert.assertFalse(running.isDone());
+    Assert.assertFalse(pending.isDone());
+
+    _unblock.countDown();
+    Assert.assertNull(running.get(10, TimeUnit.SECONDS).getMetadata().get("Exception270"));
+    Assert.assertNull(pending.get(10, TimeUnit.SECONDS).getMetadata().get("Exception270"));
+  }
+
+  @Test
+  public void testTableDoesNotStarveOtherTables() throws Exception {
+    _queryScheduler = startQueryScheduler(2, 10, 1);
+    ListenableFuture<DataTable> running = _queryScheduler.submit(getInstanceRequest(1L, BLOCKED_TABLE));
+    waitForBlockedQueryToRun();
+    ListenableFuture<DataTable> queued = _queryScheduler.submit(getInstanceRequest(2L, BLOCKED_TABLE));
+
+    // The second worker thread is kept for the other tables, rather than for the backlog of the blocked table.
+    DataTable otherTableResponse = _queryScheduler.submit(getInstanceRequest(3L, "otherTable")).get(10, TimeUnit.SECONDS);
+    Assert.assertEquals(otherTableResponse.getMetadata().get("requestId"), "3");
+    Assert.assertFalse(running.isDone());
+    Assert.assertFalse(queued.isDone());
+
+    _unblock.countDown();
+    Assert.assertEquals(queued.get(10, TimeUnit.SECONDS).getMetadata().get("requestId"), "2");
+  }
+
+  @Test
+  public void testCancelPendingQuery() throws Exception {
+    _queryScheduler = startQueryScheduler(1, 10, -1);
+    ListenableFuture<DataTable> running = _queryScheduler.submit(getInstanceRequest(1L, BLOCKED_TABLE));
+    waitForBlockedQueryToRun();
+    ListenableFuture<DataTable> pending = _queryScheduler.submit(getInstanceRequest(2L, BLOCKED_TABLE));
+
+    Assert.assertTrue(_queryScheduler.cancel(BROKER_ID, 2L));
+    Assert.assertTrue(pending.isDone());
+    Assert.assertNotNull(pending.get().getMetadata().get("Exception280"));
+    Assert.assertFalse(_queryScheduler.cancel(BROKER_ID, 3L));
+
+    _unblock.countDown();
+    Assert.assertNull(running.get(10, TimeUnit.SECONDS).getMetadata().get("Exception280"));
+    // Finished queries are no longer registered.
+    Assert.assertFalse(_queryScheduler.cancel(BROKER_ID, 1L));
+  }
+
+  @Test
+  public void testCancelRunningQuery() throws Exception {
+    _queryScheduler = startQueryScheduler(1, 10, -1);
+    ListenableFuture<DataTable> running = _queryScheduler.submit(getInstanceRequest(1L, BLOCKED_TABLE));
+    waitForBlockedQueryToRun();
+    Assert.assertFalse(_runningQueryCancellationFlag.isCancelled());
+
+    Assert.assertTrue(_queryScheduler.cancel(BROKER_ID, 1L));
+    Assert.assertTrue(_runningQueryCancellationFlag.isCancelled());
+    _unblock.countDown();
+    running.get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testCancelIdentifiesQueryByBroker() throws Exception {
+    _queryScheduler = startQueryScheduler(1, 10, -1);
+    ListenableFuture<DataTable> running =
+        _queryScheduler.submit(getInstanceRequest("broker1", 1L, BLOCKED_TABLE));
+    waitForBlockedQueryToRun();
+    // Another broker uses the same request id.
+    ListenableFuture<DataTable> pending = _queryScheduler.submit(getInstanceRequest("broker2", 1L, BLOCKED_TABLE));
+
+    Assert.assertFalse(_queryScheduler.cancel("broker3", 1L));
+    Assert.assertFalse(_queryScheduler.cancel(null, 1L));
+    Assert.assertTrue(_queryScheduler.cancel("broker2", 1L));
+    Assert.assertNotNull(pending.get().getMetadata().get("Exception280"));
+    Assert.assertFalse(_runningQueryCancellationFlag.isCancelled());
+
+    _unblock.countDown();
+    Assert.assertNull(running.get(10, TimeUnit.SECONDS).getMetadata().get("Exception280"));
+    Assert.assertFalse(_queryScheduler.cancel("broker1", 1L));
+  }
+
+  @Test
+  public void testShutDownAnswersPendingQueries() throws Exception {
+    _queryScheduler = startQueryScheduler(1, 10, -1);
+    _queryScheduler.submit(getInstanceRequest(1L, BLOCKED_TABLE));
+    waitForBlockedQueryToRun();
+    ListenableFuture<DataTable> pending = _queryScheduler.submit(getInstanceRequest(2L, BLOCKED_TABLE));
+
+    _queryScheduler.shutDown();
+    Assert.assertTrue(pending.isDone());
+    Assert.assertNotNull(pending.get().getMetadata().get("Exception270"));
+    Assert.assertNotNull(_queryScheduler.submit(getInstanceRequest(3L, "myTable")).get().getMetadata()
+        .get("Exception270"));
+  }
+
+  private FairShareQueryScheduler startQueryScheduler(int numWorkerThreads, int maxPendingQueries,
+      int maxRunningQueriesPerTable) throws Exception {
+    Configuration config = new PropertiesConfiguration();
+    config.setProperty(FairShareQueryScheduler.NUM_WORKER_THREADS, numWorkerThreads);
+    config.setProperty(FairShareQueryScheduler.MAX_PENDING_QUERIES, maxPendingQueries);
+    config.setProperty(FairShareQueryScheduler.MAX_RUNNING_QUERIES_PER_TABLE, maxRunningQueriesPerTable);
+    FairShareQueryScheduler queryScheduler = new FairShareQueryScheduler();
+    queryScheduler.init(config, new BlockingQueryExecutor(), new ServerMetrics(new MetricsRegistry()));
+    queryScheduler.start();
+    return queryScheduler;
+  }
+
+  /**
+   * Waits until the blocked query submitted last has been picked up by a worker thread.
+   */
+  private void waitForBlockedQueryToRun() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000L;
+    while (_numRunningBlockedQueries == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10L);
+    }
+    Assert.assertTrue(_numRunningBlockedQueries > 0);
+  }
+
+  private static InstanceRequest getInstanceRequest(long requestId, String tableName) {
+    return getInstanceRequest(BROKER_ID, requestId, tableName);
+  }
+
+  private static InstanceRequest getInstanceRequest(String brokerId, long requestId, String tableName) {
+    BrokerRequest brokerRequest = new BrokerRequest();
+    QuerySource querySource = new QuerySource();
+    querySource.setTableName(tableName);
+    brokerRequest.setQuerySource(querySource);
+    InstanceRequest instanceRequest = new InstanceRequest(requestId, brokerRequest);
+    instanceRequest.setBrokerId(brokerId);
+    return instanceRequest;
+  }
+
+  /**
+   * Answers every query with an empty response, holding the queries on the blocked table until the test unblocks them.
+   */
+  private class BlockingQueryExecutor implements QueryExecutor {
+    @Override
+    public void init(Configuration queryExecutorConfig, DataManager dataManager, ServerMetrics serverMetrics) {
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public DataTable processQuery(InstanceRequest instanceRequest) {
+      if (BLOCKED_TABLE.equals(instanceRequest.getQuery().getQuerySource().getTableName())) {
+        synchronized (FairShareQuerySchedulerTest.this) {
+          _runningQueryCancellationFlag = QueryCancellationFlag.getCurrent();
+          _numRunningBlockedQueries++;
+        }
+        try {
+          _unblock.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      DataTable instanceResponse = new DataTable();
+      instanceResponse.getMetadata().put("requestId", Long.toString(instanceRequest.getRequestId()));
+      return instanceResponse;
+    }
+
+    @Override
+    public void shutDown() {
+    }
+
+    @Override
+    public boolean isStarted() {
+      return true;
+    }
+
+    @Override
+    public void updateResourceTimeOutInMs(String resource, long timeOutMs) {
+    }
+  }
+}
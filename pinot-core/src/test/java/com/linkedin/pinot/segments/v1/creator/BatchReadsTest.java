@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.util.TestUtils;
+
+
+/**
+ * Compares the batch reads of BlockValSet and Dictionary with the per doc and per dictionary id getters.
+ */
+public class BatchReadsTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File INDEX_DIR = new File(BatchReadsTest.class.toString());
+
+  private final Random _random = new Random();
+  private IndexSegmentImpl _segment;
+  private Map<String, ColumnMetadata> _metadataMap;
+
+  @BeforeClass
+  public void before() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    final String filePath =
+        TestUtils.getFileFromResourceUrl(BatchReadsTest.class.getClassLoader().getResource(AVRO_DATA));
+    final SegmentGeneratorConfig config =
+        SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(new File(filePath), INDEX_DIR, "time_day",
+            TimeUnit.DAYS, "test");
+    final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+    driver.init(config);
+    driver.build();
+
+    // The driver writes the segment in a directory named after the segment.
+    _segment = (IndexSegmentImpl) ColumnarSegmentLoader.load(INDEX_DIR.listFiles()[0], ReadMode.mmap);
+    _metadataMap = ((SegmentMetadataImpl) _segment.getSegmentMetadata()).getColumnMetadataMap();
+  }
+
+  @AfterClass
+  public void cleanup() {
+    _segment.destroy();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testReadIntValues() {
+    final int numDocs = _segment.getTotalDocs();
+    final int[] allDocIds = new int[numDocs];
+    final int[] ascendingDocIds = new int[numDocs / 2];
+    final int[] unorderedDocIds = new int[numDocs / 2];
+    for (int i = 0; i < numDocs; i++) {
+      allDocIds[i] = i;
+    }
+    for (int i = 0; i < ascendingDocIds.length; i++) {
+      ascendingDocIds[i] = _random.nextInt(numDocs);
+      unorderedDocIds[i] = _random.nextInt(numDocs);
+    }
+    Arrays.sort(ascendingDocIds);
+
+    int numSortedColumns = 0;
+    for (final String column : _metadataMap.keySet()) {
+      final ColumnMetadata columnMetadata = _metadataMap.get(column);
+      if (!columnMetadata.isSingleValue()) {
+        continue;
+      }
+      if (columnMetadata.isSorted()) {
+        numSortedColumns++;
+      }
+      final Block block = _segment.getDataSource(column).nextBlock();
+      for (final int[] docIds : new int[][] { allDocIds, ascendingDocIds, unorderedDocIds }) {
+        verifyReadIntValues(block, docIds, 0, docIds.length, 0);
+        verifyReadIntValues(block, docIds, 7, docIds.length - 20, 13);
+      }
+    }
+    // The time column is sorted, so the sorted forward index is covered too.
+    Assert.assertTrue(numSortedColumns > 0);
+  }
+
+  @Test
+  public void testReadDoubleValues() throws Exception {
+    final IndexLoadingConfigMetadata indexLoadingConfigMetadata =
+        new IndexLoadingConfigMetadata(new PropertiesConfiguration());
+    indexLoadingConfigMetadata.initLoadingOnHeapDictionaryColumnSet(_metadataMap.keySet().toArray(new String[0]));
+    final IndexSegmentImpl onHeapSegment =
+        (IndexSegmentImpl) ColumnarSegmentLoader.load(INDEX_DIR.listFiles()[0], ReadMode.mmap,
+            indexLoadingConfigMetadata);
+
+    for (final String column : _metadataMap.keySet()) {
+      final DataType dataType = _metadataMap.get(column).getDataType();
+      if (dataType == DataType.STRING || dataType == DataType.BOOLEAN) {
+        continue;
+      }
+      for (final Dictionary dictionary : new Dictionary[] { _segment.getDictionaryFor(column),
+          onHeapSegment.getDictionaryFor(column) }) {
+        // All the dictionary ids, in random order.
+        final int[] dictIds = new int[dictionary.length() * 2];
+        for (int i = 0; i < dictIds.length; i++) {
+          dictIds[i] = _random.nextInt(dictionary.length());
+        }
+        verifyReadDoubleValues(dictionary, dictIds, 0, dictIds.length, 0);
+        verifyReadDoubleValues(dictionary, dictIds, 3, dictIds.length - 5, 9);
+      }
+    }
+    onHeapSegment.destroy();
+  }
+
+  private void verifyReadIntValues(Block block, int[] docIds, int startPos, int limit, int outStartPos) {
+    final int[] values = new int[outStartPos + limit + 4];
+    Arrays.fill(values, -1);
+    block.getBlockValueSet().readIntValues(docIds, startPos, limit, values, outStartPos);
+    for (int i = 0; i < outStartPos; i++) {
+      Assert.assertEquals(values[i], -1);
+    }
+    for (int i = 0; i < limit; i++) {
+      final int docId = docIds[startPos + i];
+      final BlockSingleValIterator iterator = (BlockSingleValIterator) block.getBlockValueSet().iterator();
+      iterator.skipTo(docId);
+      Assert.assertEquals(values[outStartPos + i], iterator.nextIntVal(), "docId " + docId);
+    }
+    for (int i = outStartPos + limit; i < values.length; i++) {
+      Assert.assertEquals(values[i], -1);
+    }
+  }
+
+  private void verifyReadDoubleValues(Dictionary dictionary, int[] dictIds, int startPos, int limit, int outStartPos) {
+    final double[] values = new double[outStartPos + limit + 4];
+    Arrays.fill(values, Double.NaN);
+    dictionary.readDoubleValues(dictIds, startPos, limit, values, outStartPos);
+    for (int i = 0; i < outStartPos; i++) {
+      Assert.assertTrue(Double.isNaN(values[i]));
+    }
+    for (int i = 0; i < limit; i++) {
+      Assert.assertEquals(values[outStartPos + i], dictionary.getDoubleValue(dictIds[startPos + i]));
+    }
+    for (int i = outStartPos + limit; i < values.length; i++) {
+      Assert.assertTrue(Double.isNaN(values[i]));
+    }
+  }
+}
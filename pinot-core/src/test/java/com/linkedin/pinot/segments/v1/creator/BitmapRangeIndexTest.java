@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.operator.filter.BitmapBasedFilterOperator;
+import com.linkedin.pinot.core.operator.filter.utils.BitmapUtils;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapInvertedIndexCreator;
+import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapRangeIndexCreator;
+import com.linkedin.pinot.core.segment.index.BitmapInvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.BitmapRangeIndexReader;
+import com.linkedin.pinot.util.TestUtils;
+
+
+public class BitmapRangeIndexTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "BitmapRangeIndexTest");
+  private static final int NUM_DOCS = 10000;
+  private static final int CARDINALITY = 150;
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final String RANGE_INDEX_COLUMN = "met_impressionCount";
+
+  private final int[] _dictIds = new int[NUM_DOCS];
+  private BitmapInvertedIndexReader _invertedIndex;
+  private BitmapRangeIndexReader _rangeIndex;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    INDEX_DIR.mkdirs();
+    FieldSpec spec = new DimensionFieldSpec("column", DataType.INT, true);
+    BitmapInvertedIndexCreator invertedIndexCreator = new BitmapInvertedIndexCreator(INDEX_DIR, CARDINALITY, spec);
+    BitmapRangeIndexCreator rangeIndexCreator = new BitmapRangeIndexCreator(INDEX_DIR, CARDINALITY, spec);
+    Random random = new Random(0);
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      _dictIds[docId] = random.nextInt(CARDINALITY);
+      invertedIndexCreator.add(docId, _dictIds[docId]);
+      rangeIndexCreator.add(docId, _dictIds[docId]);
+    }
+    invertedIndexCreator.seal();
+    rangeIndexCreator.seal();
+
+    _invertedIndex =
+        new BitmapInvertedIndexReader(new File(INDEX_DIR, "column" + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION),
+            CARDINALITY, false);
+    _rangeIndex =
+        new BitmapRangeIndexReader(new File(INDEX_DIR, "column" + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION),
+            true);
+  }
+
+  @AfterClass
+  public void tearDown() throws Exception {
+    _invertedIndex.close();
+    _rangeIndex.close();
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testBuckets() {
+    int bucketSize = _rangeIndex.getBucketSize();
+    Assert.assertEquals(bucketSize, 13);
+    Assert.assertEquals(_rangeIndex.getNumBuckets(), 12);
+    for (int bucket = 0; bucket < _rangeIndex.getNumBuckets(); bucket++) {
+      ImmutableRoaringBitmap bitmap = _rangeIndex.getBucketBitmap(bucket);
+      for (int docId = 0; docId < NUM_DOCS; docId++) {
+        Assert.assertEquals(bitmap.contains(docId), _dictIds[docId] / bucketSize == bucket);
+      }
+    }
+  }
+
+  @Test
+  public void testRangeBitmaps() {
+    int[][] ranges = { { 0, CARDINALITY - 1 }, { 0, 0 }, { 3, 9 }, { 5, 40 }, { 13, 25 }, { 12, 26 }, { 100, 149 } };
+    for (int[] range : ranges) {
+      ImmutableRoaringBitmap[] bitmaps =
+          BitmapBasedFilterOperator.getRangeBitmaps(_invertedIndex, _rangeIndex, range[0], range[1]);
+      MutableRoaringBitmap result = BitmapUtils.fastBitmapOr(bitmaps);
+      for (int docId = 0; docId < NUM_DOCS; docId++) {
+        Assert.assertEquals(result.contains(docId), _dictIds[docId] >= range[0] && _dictIds[docId] <= range[1]);
+      }
+      Assert.assertTrue(bitmaps.length <= range[1] - range[0] + 1);
+    }
+  }
+
+  @Test
+  public void testRangeIndexNeedsInvertedIndex() throws Exception {
+    final String filePath =
+        TestUtils.getFileFromResourceUrl(BitmapRangeIndexTest.class.getClassLoader().getResource(AVRO_DATA));
+    for (final boolean createInvertedIndex : new boolean[] { true, false }) {
+      final File outputDir = new File(INDEX_DIR, "segment_" + createInvertedIndex);
+      final SegmentGeneratorConfig config =
+          SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(new File(filePath), outputDir, "time_day",
+              TimeUnit.DAYS, "test");
+      config.setCreateInvertedIndex(createInvertedIndex);
+      config.setRangeIndexColumns(Collections.singletonList(RANGE_INDEX_COLUMN));
+      final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+      driver.init(config);
+      driver.build();
+
+      // Without the inverted index the range index would never be read, so it is not written.
+      final File rangeIndexFile = new File(new File(outputDir, driver.getSegmentName()),
+          RANGE_INDEX_COLUMN + V1Constants.Indexes.BITMAP_RANGE_INDEX_FILE_EXTENSION);
+      Assert.assertEquals(rangeIndexFile.exists(), createInvertedIndex);
+    }
+  }
+}
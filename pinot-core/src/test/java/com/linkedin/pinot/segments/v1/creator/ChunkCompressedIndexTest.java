@@ -0,0 +1,249 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.ForwardIndexTradeoffReport;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.data.source.sv.block.RawSingleValueBlock;
+import com.linkedin.pinot.core.segment.index.readers.ChunkCompressedSVForwardIndexReader;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.util.TestUtils;
+
+
+public class ChunkCompressedIndexTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File INDEX_DIR = new File(ChunkCompressedIndexTest.class.toString());
+  private static final File DICTIONARY_DIR = new File(INDEX_DIR, "dictionary");
+  private static final File CHUNK_COMPRESSED_DIR = new File(INDEX_DIR, "chunk");
+
+  private final List<String> chunkCompressedColumns = new ArrayList<String>();
+
+  @BeforeClass
+  public void before() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    build(DICTIONARY_DIR, new ArrayList<String>());
+    final IndexSegmentImpl segment = load(DICTIONARY_DIR, ReadMode.mmap);
+    for (final Map.Entry<String, ColumnMetadata> entry : ((SegmentMetadataImpl) segment.getSegmentMetadata())
+        .getColumnMetadataMap().entrySet()) {
+      if (entry.getValue().isSingleValue() && entry.getValue().getDataType() != DataType.BOOLEAN) {
+        chunkCompressedColumns.add(entry.getKey());
+      }
+    }
+    segment.destroy();
+
+    build(CHUNK_COMPRESSED_DIR, chunkCompressedColumns);
+  }
+
+  @AfterClass
+  public void cleanup() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  private static void build(File outputDir, List<String> chunkCompressedIndexColumns) throws Exception {
+    final String filePath =
+        TestUtils.getFileFromResourceUrl(ChunkCompressedIndexTest.class.getClassLoader().getResource(AVRO_DATA));
+    final SegmentGeneratorConfig config =
+        SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(new File(filePath), outputDir, "time_day",
+            TimeUnit.DAYS, "test");
+    config.setChunkCompressedIndexColumns(chunkCompressedIndexColumns);
+    final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+    driver.init(config);
+    driver.build();
+  }
+
+  private static IndexSegmentImpl load(File outputDir, ReadMode mode) throws Exception {
+    // The driver writes the segment in a directory named after the segment.
+    return (IndexSegmentImpl) ColumnarSegmentLoader.load(outputDir.listFiles()[0], mode);
+  }
+
+  private static Object readValue(IndexSegmentImpl segment, String column, BlockSingleValIterator iterator) {
+    final Dictionary dictionary = segment.getDictionaryFor(column);
+    final DataType dataType =
+        ((SegmentMetadataImpl) segment.getSegmentMetadata()).getColumnMetadataFor(column).getDataType();
+    if (dictionary != null) {
+      final int dictId = iterator.nextIntVal();
+      return dataType == DataType.STRING ? dictionary.toString(dictId) : dictionary.getDoubleValue(dictId);
+    }
+    return dataType == DataType.STRING ? iterator.nextStringVal() : iterator.nextDoubleVal();
+  }
+
+  @Test
+  public void testSameValuesAsDictionarySegment() throws Exception {
+    Assert.assertTrue(chunkCompressedColumns.size() > 0);
+    for (final ReadMode mode : ReadMode.values()) {
+      final IndexSegmentImpl segment = load(DICTIONARY_DIR, mode);
+      final IndexSegmentImpl chunkSegment = load(CHUNK_COMPRESSED_DIR, mode);
+      boolean hasStringColumn = false;
+
+      for (final String column : chunkCompressedColumns) {
+        final ColumnMetadata columnMetadata =
+            ((SegmentMetadataImpl) chunkSegment.getSegmentMetadata()).getColumnMetadataFor(column);
+        Assert.assertFalse(columnMetadata.hasDictionary());
+        Assert.assertNull(chunkSegment.getDictionaryFor(column));
+        Assert.assertTrue(chunkSegment.getForwardIndexReaderFor(column) instanceof ChunkCompressedSVForwardIndexReader);
+        hasStringColumn |= columnMetadata.getDataType() == DataType.STRING;
+
+        final BlockSingleValIterator iterator =
+            (BlockSingleValIterator) segment.getDataSource(column).nextBlock().getBlockValueSet().iterator();
+        final Block chunkBlock = chunkSegment.getDataSource(column).nextBlock();
+        Assert.assertTrue(chunkBlock instanceof RawSingleValueBlock);
+        final BlockSingleValIterator chunkIterator =
+            (BlockSingleValIterator) chunkBlock.getBlockValueSet().iterator();
+
+        final int totalDocs = chunkSegment.getTotalDocs();
+        for (int docId = 0; docId < totalDocs; docId++) {
+          Assert.assertEquals(readValue(chunkSegment, column, chunkIterator), readValue(segment, column, iterator));
+        }
+
+        // Random reads go back and forth between chunks.
+        final Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+          final int docId = random.nextInt(totalDocs);
+          Assert.assertTrue(iterator.skipTo(docId));
+          Assert.assertTrue(chunkIterator.skipTo(docId));
+          Assert.assertEquals(readValue(chunkSegment, column, chunkIterator), readValue(segment, column, iterator));
+        }
+      }
+      Assert.assertTrue(hasStringColumn);
+
+      chunkSegment.destroy();
+      segment.destroy();
+    }
+  }
+
+  @Test
+  public void testInterleavedColumnReads() throws Exception {
+    final IndexSegmentImpl segment = load(DICTIONARY_DIR, ReadMode.heap);
+    final IndexSegmentImpl chunkSegment = load(CHUNK_COMPRESSED_DIR, ReadMode.heap);
+    final List<BlockSingleValIterator> iterators = new ArrayList<BlockSingleValIterator>();
+    final List<BlockSingleValIterator> chunkIterators = new ArrayList<BlockSingleValIterator>();
+    for (final String column : chunkCompressedColumns) {
+      iterators.add((BlockSingleValIterator) segment.getDataSource(column).nextBlock().getBlockValueSet().iterator());
+      chunkIterators
+          .add((BlockSingleValIterator) chunkSegment.getDataSource(column).nextBlock().getBlockValueSet().iterator());
+    }
+
+    // The readers of all the columns share the scratch buffers of this thread, each read must get its own column.
+    final Random random = new Random(0);
+    for (int i = 0; i < 1000; i++) {
+      final int docId = random.nextInt(chunkSegment.getTotalDocs());
+      for (int j = 0; j < chunkCompressedColumns.size(); j++) {
+        final String column = chunkCompressedColumns.get(j);
+        Assert.assertTrue(iterators.get(j).skipTo(docId));
+        Assert.assertTrue(chunkIterators.get(j).skipTo(docId));
+        Assert.assertEquals(readValue(chunkSegment, column, chunkIterators.get(j)),
+            readValue(segment, column, iterators.get(j)));
+      }
+    }
+
+    chunkSegment.destroy();
+    segment.destroy();
+  }
+
+  @Test
+  public void testConcurrentReads() throws Exception {
+    final IndexSegmentImpl segment = load(DICTIONARY_DIR, ReadMode.mmap);
+    final IndexSegmentImpl chunkSegment = load(CHUNK_COMPRESSED_DIR, ReadMode.mmap);
+    // The expected values are read up front, string dictionaries share the position of their buffer between threads.
+    final Map<String, Object[]> expectedValues = new HashMap<String, Object[]>();
+    for (final String column : chunkCompressedColumns) {
+      final BlockSingleValIterator iterator =
+          (BlockSingleValIterator) segment.getDataSource(column).nextBlock().getBlockValueSet().iterator();
+      final Object[] values = new Object[segment.getTotalDocs()];
+      for (int docId = 0; docId < values.length; docId++) {
+        values[docId] = readValue(segment, column, iterator);
+      }
+      expectedValues.put(column, values);
+    }
+    segment.destroy();
+
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+      for (int thread = 0; thread < 4; thread++) {
+        final int seed = thread;
+        futures.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() throws Exception {
+            // Every thread decompresses chunks into its own buffers, the reads of one can not change the values of
+            // another.
+            final Random random = new Random(seed);
+            for (final String column : chunkCompressedColumns) {
+              final Object[] values = expectedValues.get(column);
+              final BlockSingleValIterator chunkIterator =
+                  (BlockSingleValIterator) chunkSegment.getDataSource(column).nextBlock().getBlockValueSet()
+                      .iterator();
+              for (int i = 0; i < 2000; i++) {
+                final int docId = random.nextInt(chunkSegment.getTotalDocs());
+                chunkIterator.skipTo(docId);
+                if (!readValue(chunkSegment, column, chunkIterator).equals(values[docId])) {
+                  return false;
+                }
+              }
+            }
+            return true;
+          }
+        }));
+      }
+      for (final Future<Boolean> future : futures) {
+        Assert.assertTrue(future.get());
+      }
+    } finally {
+      executor.shutdown();
+      chunkSegment.destroy();
+    }
+  }
+
+  @Test
+  public void testTradeoffReport() throws Exception {
+    final List<String> report =
+        ForwardIndexTradeoffReport.generate(DICTIONARY_DIR.listFiles()[0], CHUNK_COMPRESSED_DIR.listFiles()[0],
+            chunkCompressedColumns, ReadMode.mmap);
+    Assert.assertEquals(report.size(), chunkCompressedColumns.size());
+    for (int i = 0; i < report.size(); i++) {
+      Assert.assertTrue(report.get(i).startsWith(chunkCompressedColumns.get(i) + " ("), report.get(i));
+    }
+  }
+}
@@ -16,19 +16,26 @@
 package com.linkedin.pinot.segments.v1.creator;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 import org.apache.avro.Schema.Field;
 import org.apache.avro.file.DataFileStream;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.util.Utf8;
+import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.commons.io.FileUtils;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
@@ -39,10 +46,14 @@ import com.linkedin.pinot.common.data.DimensionFieldSpec;
 import com.linkedin.pinot.common.data.FieldSpec;
 import com.linkedin.pinot.common.data.FieldSpec.DataType;
 import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
 import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.common.predicate.RegexPredicate;
 import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
 import com.linkedin.pinot.core.indexsegment.utils.AvroUtils;
+import com.linkedin.pinot.core.operator.filter.predicate.PredicateEvaluatorProvider;
 import com.linkedin.pinot.core.segment.creator.AbstractColumnStatisticsCollector;
 import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
@@ -199,6 +210,124 @@ public class DictionariesTest {
     }
   }
 
+  @Test
+  public void testRegexPredicateEvaluator() throws Exception {
+    final IndexSegmentImpl heapSegment = (IndexSegmentImpl) ColumnarSegmentLoader.load(INDEX_DIR, ReadMode.heap);
+    final Map<String, ColumnMetadata> metadataMap =
+        ((SegmentMetadataImpl) heapSegment.getSegmentMetadata()).getColumnMetadataMap();
+    for (final String column : metadataMap.keySet()) {
+      if (metadataMap.get(column).getDataType() != DataType.STRING) {
+        continue;
+      }
+      final ImmutableDictionaryReader dictionary = heapSegment.getDictionaryFor(column);
+      final String value = dictionary.get(dictionary.length() / 2).toString();
+      final String prefix = value.substring(0, Math.min(2, value.length()));
+      for (final String regex : new String[] { "^" + prefix, "^" + prefix + ".*", prefix + "[a-z]" }) {
+        final Pattern pattern = Pattern.compile(regex);
+        final List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < dictionary.length(); i++) {
+          if (pattern.matcher(dictionary.get(i).toString()).find()) {
+            expected.add(i);
+          }
+        }
+        final RegexPredicate predicate = new RegexPredicate(column, Arrays.asList(regex));
+        final int[] matchingIds = PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary).getDictionaryIds();
+        final List<Integer> actual = new ArrayList<Integer>();
+        for (final int dictId : matchingIds) {
+          actual.add(dictId);
+        }
+        Assert.assertEquals(actual, expected, "column: " + column + ", regex: " + regex);
+        // Second evaluation is served from the per dictionary cache
+        Assert.assertSame(PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary).getDictionaryIds(),
+            matchingIds);
+      }
+    }
+  }
+
+  @Test
+  public void testRegexPrefixMatchOnValuesWithCharsBelowPadChar() throws Exception {
+    // ' ', '!' and '$' sort below the pad char, so "new york" comes before "new" in the order of the padded values.
+    final Set<String> valueSet = new HashSet<String>(
+        Arrays.asList("new", "new york", "new!", "newark", "ne", "nex", "ne$w", "new jersey", "a", "zz"));
+    final String alphabet = " !$ab";
+    final Random random = new Random();
+    while (valueSet.size() < 300) {
+      final StringBuilder value = new StringBuilder();
+      for (int i = 1 + random.nextInt(5); i > 0; i--) {
+        value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      valueSet.add(value.toString());
+    }
+    final List<String> values = new ArrayList<String>(valueSet);
+    final List<String> regexes = new ArrayList<String>(
+        Arrays.asList("^new", "^new.*", "^new ", "^new y", "^newa", "^ne", "^ne$", "^n", "^new%", "^z", "^c"));
+    for (int i = 0; i < 50; i++) {
+      final String value = values.get(random.nextInt(values.size()));
+      regexes.add("^" + value.substring(0, 1 + random.nextInt(value.length())).replace("$", "\\$"));
+    }
+    final File dir = new File(INDEX_DIR.getPath() + "_regex");
+    FileUtils.deleteQuietly(dir);
+    final File avroFile = new File(dir, "regex.avro");
+    dir.mkdirs();
+    final org.apache.avro.Schema avroSchema =
+        new org.apache.avro.Schema.Parser().parse("{\"type\":\"record\",\"name\":\"regex\",\"fields\":["
+            + "{\"name\":\"daysSinceEpoch\",\"type\":\"int\"},{\"name\":\"city\",\"type\":\"string\"}]}");
+    final DataFileWriter<GenericRecord> writer =
+        new DataFileWriter<GenericRecord>(new GenericDatumWriter<GenericRecord>(avroSchema));
+    writer.create(avroSchema, avroFile);
+    for (final String value : values) {
+      final GenericRecord record = new GenericData.Record(avroSchema);
+      record.put("daysSinceEpoch", 16000);
+      record.put("city", value);
+      writer.append(record);
+    }
+    writer.close();
+
+    try {
+      for (final SegmentVersion version : SegmentVersion.values()) {
+        final File outputDir = new File(dir, version.toString());
+        final SegmentGeneratorConfig config =
+            SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(avroFile, outputDir, "daysSinceEpoch",
+                TimeUnit.DAYS, "test");
+        config.setSegmentVersion(version);
+        final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+        driver.init(config);
+        driver.build();
+        final File segmentDir = new File(outputDir, driver.getSegmentName());
+
+        final IndexLoadingConfigMetadata onHeapConfig = new IndexLoadingConfigMetadata(new PropertiesConfiguration());
+        onHeapConfig.initLoadingOnHeapDictionaryColumnSet(new String[] { "city" });
+        final IndexSegmentImpl segment = (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.heap);
+        final IndexSegmentImpl onHeapSegment =
+            (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.heap, onHeapConfig);
+        for (final ImmutableDictionaryReader dictionary : new ImmutableDictionaryReader[] {
+            segment.getDictionaryFor("city"), onHeapSegment.getDictionaryFor("city") }) {
+          Assert.assertEquals(dictionary.length(), values.size());
+          for (final String regex : regexes) {
+            final Pattern pattern = Pattern.compile(regex);
+            final List<Integer> expected = new ArrayList<Integer>();
+            for (int i = 0; i < dictionary.length(); i++) {
+              if (pattern.matcher(dictionary.get(i).toString()).find()) {
+                expected.add(i);
+              }
+            }
+            final RegexPredicate predicate = new RegexPredicate("city", Arrays.asList(regex));
+            final List<Integer> actual = new ArrayList<Integer>();
+            for (final int dictId : PredicateEvaluatorProvider.getPredicateFunctionFor(predicate, dictionary)
+                .getDictionaryIds()) {
+              actual.add(dictId);
+            }
+            Assert.assertEquals(actual, expected, version + " " + dictionary.getClass().getSimpleName() + ": " + regex);
+          }
+        }
+        onHeapSegment.destroy();
+        segment.destroy();
+      }
+    } finally {
+      FileUtils.deleteQuietly(dir);
+    }
+  }
+
   @Test
   public void testIntColumnPreIndexStatsCollector() throws Exception {
     FieldSpec spec = new DimensionFieldSpec("column1", DataType.INT, true);
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import java.io.File;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.core.segment.creator.impl.V1Constants;
+import com.linkedin.pinot.core.segment.creator.impl.inv.BitmapInvertedIndexCreator;
+import com.linkedin.pinot.core.segment.index.BitmapInvertedIndexReader;
+import com.linkedin.pinot.core.segment.index.InvertedIndexBitmapCache;
+
+
+public class InvertedIndexBitmapCacheTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "InvertedIndexBitmapCacheTest");
+  private static final File INDEX_FILE =
+      new File(INDEX_DIR, "column" + V1Constants.Indexes.BITMAP_INVERTED_INDEX_FILE_EXTENSION);
+  private static final int NUM_DOCS = 1000;
+  private static final int CARDINALITY = 20;
+
+  private final int[] _dictIds = new int[NUM_DOCS];
+  private InvertedIndexBitmapCache _previousCache;
+
+  @BeforeClass
+  public void setUp() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    INDEX_DIR.mkdirs();
+    FieldSpec spec = new DimensionFieldSpec("column", DataType.INT, true);
+    BitmapInvertedIndexCreator invertedIndexCreator = new BitmapInvertedIndexCreator(INDEX_DIR, CARDINALITY, spec);
+    Random random = new Random(0);
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      _dictIds[docId] = random.nextInt(CARDINALITY);
+      invertedIndexCreator.add(docId, _dictIds[docId]);
+    }
+    invertedIndexCreator.seal();
+    _previousCache = InvertedIndexBitmapCache.getInstance();
+  }
+
+  @AfterClass
+  public void tearDown() {
+    InvertedIndexBitmapCache.setInstance(_previousCache);
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testBoundedCache() throws Exception {
+    InvertedIndexBitmapCache cache = new InvertedIndexBitmapCache(10);
+    InvertedIndexBitmapCache.setInstance(cache);
+    BitmapInvertedIndexReader reader = new BitmapInvertedIndexReader(INDEX_FILE, CARDINALITY, true);
+    try {
+      Assert.assertSame(reader.getImmutable(3), reader.getImmutable(3));
+      Assert.assertEquals(cache.getNumMisses(), 1L);
+      Assert.assertEquals(cache.getNumHits(), 1L);
+
+      for (int dictId = 0; dictId < CARDINALITY; dictId++) {
+        checkBitmap(reader, dictId);
+      }
+      Assert.assertTrue(cache.getNumEntries() <= 10L);
+      Assert.assertTrue(cache.getNumEvictions() > 0L);
+    } finally {
+      reader.close();
+    }
+    Assert.assertEquals(cache.getNumEntries(), 0L);
+  }
+
+  @Test
+  public void testDisabledCache() throws Exception {
+    InvertedIndexBitmapCache.setInstance(null);
+    BitmapInvertedIndexReader reader = new BitmapInvertedIndexReader(INDEX_FILE, CARDINALITY, false);
+    try {
+      for (int dictId = 0; dictId < CARDINALITY; dictId++) {
+        checkBitmap(reader, dictId);
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testMaterializedBitmaps() throws Exception {
+    InvertedIndexBitmapCache cache = new InvertedIndexBitmapCache(10);
+    InvertedIndexBitmapCache.setInstance(cache);
+    BitmapInvertedIndexReader reader = new BitmapInvertedIndexReader(INDEX_FILE, CARDINALITY, true, true);
+    try {
+      for (int dictId = 0; dictId < CARDINALITY; dictId++) {
+        checkBitmap(reader, dictId);
+        Assert.assertSame(reader.getImmutable(dictId), reader.getImmutable(dictId));
+      }
+      // Materialized bitmaps don't go through the cache
+      Assert.assertEquals(cache.getNumEntries(), 0L);
+      Assert.assertEquals(cache.getNumMisses(), 0L);
+    } finally {
+      reader.close();
+    }
+  }
+
+  private void checkBitmap(BitmapInvertedIndexReader reader, int dictId) {
+    for (int docId = 0; docId < NUM_DOCS; docId++) {
+      Assert.assertEquals(reader.getImmutable(dictId).contains(docId), _dictIds[docId] == dictId);
+    }
+  }
+}
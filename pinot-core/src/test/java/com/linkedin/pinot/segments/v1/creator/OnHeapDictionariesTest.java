@@ -0,0 +1,237 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.metadata.segment.IndexLoadingConfigMetadata;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.request.Selection;
+import com.linkedin.pinot.common.request.SelectionSort;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.utils.DataTableBuilder.DataSchema;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.block.query.IntermediateResultsBlock;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.plan.SelectionPlanNode;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.readers.DictionaryHeapUsage;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.core.segment.index.readers.OnHeapStringDictionary;
+import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
+import com.linkedin.pinot.util.TestUtils;
+
+
+public class OnHeapDictionariesTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File INDEX_DIR = new File(OnHeapDictionariesTest.class.toString());
+
+  @BeforeClass
+  public void before() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    final String filePath =
+        TestUtils.getFileFromResourceUrl(OnHeapDictionariesTest.class.getClassLoader().getResource(AVRO_DATA));
+
+    for (final SegmentVersion version : SegmentVersion.values()) {
+      final SegmentGeneratorConfig config =
+          SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(new File(filePath), new File(INDEX_DIR,
+              version.toString()), "time_day", TimeUnit.DAYS, "test");
+      config.setSegmentVersion(version);
+      final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+      driver.init(config);
+      driver.build();
+    }
+  }
+
+  @AfterClass
+  public void cleanup() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testSameValuesAsFileDictionaries() throws Exception {
+    for (final SegmentVersion version : SegmentVersion.values()) {
+      // The driver writes the segment in a directory named after the segment.
+      final File segmentDir = new File(INDEX_DIR, version.toString()).listFiles()[0];
+      final IndexSegmentImpl segment = (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.mmap);
+      final Map<String, ColumnMetadata> metadataMap =
+          ((SegmentMetadataImpl) segment.getSegmentMetadata()).getColumnMetadataMap();
+
+      final IndexLoadingConfigMetadata indexLoadingConfigMetadata =
+          new IndexLoadingConfigMetadata(new PropertiesConfiguration());
+      indexLoadingConfigMetadata.initLoadingOnHeapDictionaryColumnSet(metadataMap.keySet().toArray(new String[0]));
+      final long heapBytes = DictionaryHeapUsage.getHeapBytes();
+      final IndexSegmentImpl onHeapSegment =
+          (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.mmap, indexLoadingConfigMetadata);
+      Assert.assertTrue(DictionaryHeapUsage.getHeapBytes() > heapBytes);
+
+      for (final String column : metadataMap.keySet()) {
+        final ImmutableDictionaryReader dictionary = segment.getDictionaryFor(column);
+        final ImmutableDictionaryReader onHeapDictionary = onHeapSegment.getDictionaryFor(column);
+        Assert.assertEquals(onHeapDictionary.length(), dictionary.length());
+        final DataType dataType = metadataMap.get(column).getDataType();
+
+        for (int dictId = 0; dictId < dictionary.length(); dictId++) {
+          final Object value = dictionary.get(dictId);
+          Assert.assertEquals(onHeapDictionary.get(dictId), value);
+          Assert.assertEquals(onHeapDictionary.indexOf(value), dictId);
+          Assert.assertEquals(onHeapDictionary.toString(dictId), dictionary.toString(dictId));
+
+          if (dataType == DataType.STRING) {
+            Assert.assertTrue(onHeapDictionary instanceof OnHeapStringDictionary);
+            Assert.assertEquals(onHeapDictionary.getStringValue(dictId), value);
+            // Values missing from the dictionary give the same insertion point.
+            for (final String missing : new String[] { value + " ", value + "~", value + "%" }) {
+              Assert.assertEquals(onHeapDictionary.indexOf(missing), dictionary.indexOf(missing), missing);
+            }
+          } else {
+            Assert.assertFalse(onHeapDictionary instanceof StringDictionary);
+            Assert.assertEquals(onHeapDictionary.getIntValue(dictId), dictionary.getIntValue(dictId));
+            Assert.assertEquals(onHeapDictionary.getLongValue(dictId), dictionary.getLongValue(dictId));
+            Assert.assertEquals(onHeapDictionary.getFloatValue(dictId), dictionary.getFloatValue(dictId));
+            Assert.assertEquals(onHeapDictionary.getDoubleValue(dictId), dictionary.getDoubleValue(dictId));
+            Assert.assertEquals(onHeapDictionary.getStringValue(dictId), dictionary.getStringValue(dictId));
+          }
+        }
+      }
+
+      onHeapSegment.destroy();
+      Assert.assertEquals(DictionaryHeapUsage.getHeapBytes(), heapBytes);
+      segment.destroy();
+    }
+  }
+
+  @Test
+  public void testSelectionOnOnHeapColumns() throws Exception {
+    for (final SegmentVersion version : SegmentVersion.values()) {
+      final File segmentDir = new File(INDEX_DIR, version.toString()).listFiles()[0];
+      final IndexSegmentImpl segment = (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.mmap);
+      final Map<String, ColumnMetadata> metadataMap =
+          ((SegmentMetadataImpl) segment.getSegmentMetadata()).getColumnMetadataMap();
+
+      final List<String> columns = new ArrayList<String>();
+      String stringColumn = null;
+      for (final String column : new TreeSet<String>(metadataMap.keySet())) {
+        if (metadataMap.get(column).isSingleValue()) {
+          columns.add(column);
+          if (stringColumn == null && metadataMap.get(column).getDataType() == DataType.STRING) {
+            stringColumn = column;
+          }
+        }
+      }
+      Assert.assertNotNull(stringColumn);
+
+      final IndexLoadingConfigMetadata indexLoadingConfigMetadata =
+          new IndexLoadingConfigMetadata(new PropertiesConfiguration());
+      indexLoadingConfigMetadata.initLoadingOnHeapDictionaryColumnSet(columns.toArray(new String[0]));
+      final IndexSegmentImpl onHeapSegment =
+          (IndexSegmentImpl) ColumnarSegmentLoader.load(segmentDir, ReadMode.mmap, indexLoadingConfigMetadata);
+
+      // Filter on the on-heap String column and sort on another on-heap column, so the dictionary lookups, the
+      // value reads and the ordering are all served from the heap.
+      final ImmutableDictionaryReader dictionary = segment.getDictionaryFor(stringColumn);
+      final String filterValue = dictionary.getStringValue(dictionary.length() / 2);
+      final String sortColumn = columns.get(columns.size() - 1);
+      Assert.assertFalse(sortColumn.equals(stringColumn));
+      final BrokerRequest brokerRequest = getSelectionBrokerRequest(columns, stringColumn, filterValue, sortColumn);
+      final IntermediateResultsBlock block = getSelectionResultBlock(segment, brokerRequest);
+      final IntermediateResultsBlock onHeapBlock = getSelectionResultBlock(onHeapSegment, brokerRequest);
+      final DataSchema dataSchema = block.getSelectionDataSchema();
+      int filterColumnIndex = -1;
+      for (int i = 0; i < dataSchema.size(); i++) {
+        Assert.assertEquals(onHeapBlock.getSelectionDataSchema().getColumnName(i), dataSchema.getColumnName(i));
+        if (dataSchema.getColumnName(i).equals(stringColumn)) {
+          filterColumnIndex = i;
+        }
+      }
+      Assert.assertTrue(filterColumnIndex >= 0);
+
+      final List<Serializable[]> rows = getSelectionRows(block);
+      final List<Serializable[]> onHeapRows = getSelectionRows(onHeapBlock);
+      Assert.assertFalse(rows.isEmpty());
+      Assert.assertEquals(onHeapRows.size(), rows.size());
+      for (int i = 0; i < rows.size(); i++) {
+        Assert.assertTrue(Arrays.equals(onHeapRows.get(i), rows.get(i)));
+        // All rows match the single filter value.
+        Assert.assertEquals(onHeapRows.get(i)[filterColumnIndex], rows.get(0)[filterColumnIndex]);
+      }
+
+      onHeapSegment.destroy();
+      segment.destroy();
+    }
+  }
+
+  private static BrokerRequest getSelectionBrokerRequest(List<String> columns, String filterColumn,
+      String filterValue, String sortColumn) {
+    final Selection selection = new Selection();
+    selection.setSelectionColumns(columns);
+    selection.setOffset(0);
+    selection.setSize(100);
+    final List<SelectionSort> selectionSortSequence = new ArrayList<SelectionSort>();
+    final SelectionSort selectionSort = new SelectionSort();
+    selectionSort.setColumn(sortColumn);
+    selectionSort.setIsAsc(false);
+    selectionSortSequence.add(selectionSort);
+    selection.setSelectionSortSequence(selectionSortSequence);
+
+    final BrokerRequest brokerRequest = new BrokerRequest();
+    brokerRequest.setSelections(selection);
+    final List<String> values = new ArrayList<String>();
+    values.add(filterValue);
+    RequestUtils.generateFilterFromTree(
+        new FilterQueryTree(0, filterColumn, values, FilterOperator.EQUALITY, null), brokerRequest);
+    return brokerRequest;
+  }
+
+  private static IntermediateResultsBlock getSelectionResultBlock(IndexSegmentImpl segment,
+      BrokerRequest brokerRequest) {
+    return (IntermediateResultsBlock) new SelectionPlanNode(segment, brokerRequest).run().nextBlock();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Serializable[]> getSelectionRows(IntermediateResultsBlock block) {
+    final PriorityQueue<Serializable[]> rowQueue = (PriorityQueue<Serializable[]>) block.getSelectionResult();
+    final List<Serializable[]> rows = new ArrayList<Serializable[]>();
+    while (!rowQueue.isEmpty()) {
+      rows.add(rowQueue.poll());
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,243 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.FieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.data.MetricFieldSpec;
+import com.linkedin.pinot.common.query.QueryValidationException;
+import com.linkedin.pinot.common.request.AggregationInfo;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.FilterOperator;
+import com.linkedin.pinot.common.request.GroupBy;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.common.utils.request.FilterQueryTree;
+import com.linkedin.pinot.common.utils.request.RequestUtils;
+import com.linkedin.pinot.core.common.Block;
+import com.linkedin.pinot.core.common.BlockSingleValIterator;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import com.linkedin.pinot.core.query.aggregation.function.SumAggregationNoDictionaryFunction;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.creator.impl.stats.NoDictionaryColumnPreIndexStatsCollector;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.data.source.sv.block.RawSingleValueBlock;
+import com.linkedin.pinot.core.segment.index.readers.Dictionary;
+import com.linkedin.pinot.util.TestUtils;
+
+
+public class RawIndexTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File INDEX_DIR = new File(RawIndexTest.class.toString());
+  private static final File DICTIONARY_DIR = new File(INDEX_DIR, "dictionary");
+  private static final File RAW_DIR = new File(INDEX_DIR, "raw");
+
+  private String filePath;
+  private final List<String> rawColumns = new ArrayList<String>();
+
+  @BeforeClass
+  public void before() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    filePath = TestUtils.getFileFromResourceUrl(RawIndexTest.class.getClassLoader().getResource(AVRO_DATA));
+
+    build(DICTIONARY_DIR, new ArrayList<String>());
+    final IndexSegmentImpl segment = load(DICTIONARY_DIR);
+    for (final Map.Entry<String, ColumnMetadata> entry : ((SegmentMetadataImpl) segment.getSegmentMetadata())
+        .getColumnMetadataMap().entrySet()) {
+      final ColumnMetadata columnMetadata = entry.getValue();
+      if (columnMetadata.isSingleValue() && columnMetadata.getDataType() != DataType.STRING
+          && columnMetadata.getDataType() != DataType.BOOLEAN) {
+        rawColumns.add(entry.getKey());
+      }
+    }
+    segment.destroy();
+    Assert.assertFalse(rawColumns.isEmpty());
+
+    build(RAW_DIR, rawColumns);
+  }
+
+  @AfterClass
+  public void cleanup() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  private void build(File outputDir, List<String> rawIndexColumns) throws Exception {
+    final SegmentGeneratorConfig config =
+        SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(new File(filePath), outputDir, "time_day",
+            TimeUnit.DAYS, "test");
+    config.setRawIndexColumns(rawIndexColumns);
+    final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+    driver.init(config);
+    driver.build();
+  }
+
+  private static IndexSegmentImpl load(File outputDir) throws Exception {
+    // The driver writes the segment in a directory named after the segment.
+    return (IndexSegmentImpl) ColumnarSegmentLoader.load(outputDir.listFiles()[0], ReadMode.mmap);
+  }
+
+  @Test
+  public void testSameValuesAsDictionarySegment() throws Exception {
+    final IndexSegmentImpl segment = load(DICTIONARY_DIR);
+    final IndexSegmentImpl rawSegment = load(RAW_DIR);
+    final SegmentMetadataImpl rawMetadata = (SegmentMetadataImpl) rawSegment.getSegmentMetadata();
+
+    for (final String column : rawColumns) {
+      final ColumnMetadata columnMetadata = rawMetadata.getColumnMetadataFor(column);
+      Assert.assertFalse(columnMetadata.hasDictionary());
+      Assert.assertFalse(columnMetadata.isSorted());
+      Assert.assertNull(rawSegment.getDictionaryFor(column));
+      Assert.assertEquals(columnMetadata.getCardinality(), NoDictionaryColumnPreIndexStatsCollector.UNKNOWN_CARDINALITY);
+
+      final Dictionary dictionary = segment.getDictionaryFor(column);
+      final BlockSingleValIterator dictIdIterator =
+          (BlockSingleValIterator) segment.getDataSource(column).nextBlock().getBlockValueSet().iterator();
+      final Block rawBlock = rawSegment.getDataSource(column).nextBlock();
+      Assert.assertTrue(rawBlock instanceof RawSingleValueBlock);
+      Assert.assertFalse(rawBlock.getMetadata().hasDictionary());
+      final BlockSingleValIterator rawIterator = (BlockSingleValIterator) rawBlock.getBlockValueSet().iterator();
+
+      final SumAggregationNoDictionaryFunction sumFunction = new SumAggregationNoDictionaryFunction();
+      Double rawSum = null;
+      double expectedSum = 0;
+      for (int docId = 0; docId < rawSegment.getTotalDocs(); docId++) {
+        final int dictId = dictIdIterator.nextIntVal();
+        Assert.assertTrue(rawIterator.skipTo(docId));
+        switch (columnMetadata.getDataType()) {
+          case INT:
+            Assert.assertEquals(rawIterator.nextIntVal(), dictionary.getIntValue(dictId));
+            break;
+          case LONG:
+            Assert.assertEquals(rawIterator.nextLongVal(), dictionary.getLongValue(dictId));
+            break;
+          case FLOAT:
+            Assert.assertEquals(rawIterator.nextFloatVal(), dictionary.getFloatValue(dictId));
+            break;
+          default:
+            Assert.assertEquals(rawIterator.nextDoubleVal(), dictionary.getDoubleValue(dictId));
+            break;
+        }
+        expectedSum += dictionary.getDoubleValue(dictId);
+        rawSum = sumFunction.aggregate(rawSum, docId, new Block[] { rawBlock });
+      }
+      Assert.assertFalse(rawIterator.skipTo(rawSegment.getTotalDocs()));
+      Assert.assertEquals(rawSum, expectedSum, 1e-6 * Math.abs(expectedSum));
+    }
+
+    rawSegment.destroy();
+    segment.destroy();
+  }
+
+  @Test
+  public void testNoDictionaryStatsCollector() throws Exception {
+    final FieldSpec spec = new MetricFieldSpec("metric", DataType.LONG);
+    final NoDictionaryColumnPreIndexStatsCollector statsCollector = new NoDictionaryColumnPreIndexStatsCollector(spec);
+    for (final long value : new long[] { 5L, -3L, Long.MAX_VALUE, 7L }) {
+      statsCollector.collect(value);
+    }
+    statsCollector.seal();
+    Assert.assertEquals(statsCollector.getMinValue(), -3L);
+    Assert.assertEquals(statsCollector.getMaxValue(), Long.MAX_VALUE);
+    Assert.assertNull(statsCollector.getUniqueValuesSet());
+    Assert.assertEquals(statsCollector.getCardinality(), NoDictionaryColumnPreIndexStatsCollector.UNKNOWN_CARDINALITY);
+    Assert.assertFalse(statsCollector.isSorted());
+  }
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void testRawStringColumnNotSupported() throws Exception {
+    final IndexSegmentImpl segment = load(DICTIONARY_DIR);
+    final List<String> stringColumns = new ArrayList<String>();
+    for (final Map.Entry<String, ColumnMetadata> entry : ((SegmentMetadataImpl) segment.getSegmentMetadata())
+        .getColumnMetadataMap().entrySet()) {
+      final ColumnMetadata columnMetadata = entry.getValue();
+      if (columnMetadata.getDataType() == DataType.STRING) {
+        stringColumns.add(entry.getKey());
+      }
+    }
+    segment.destroy();
+    Assert.assertFalse(stringColumns.isEmpty());
+
+    build(new File(INDEX_DIR, "string"), stringColumns);
+  }
+
+  @Test
+  public void testQueriesNeedingDictionaryRejected() throws Exception {
+    final IndexSegmentImpl rawSegment = load(RAW_DIR);
+    final String rawColumn = rawColumns.get(0);
+    final InstancePlanMakerImplV2 planMaker = new InstancePlanMakerImplV2();
+
+    // Aggregations reading the values directly are planned as usual.
+    Assert.assertNotNull(planMaker.makeInnerSegmentPlan(rawSegment, getAggregationBrokerRequest("sum", rawColumn)));
+
+    final BrokerRequest filterRequest = getAggregationBrokerRequest("count", "*");
+    final List<String> values = new ArrayList<String>();
+    values.add("1");
+    RequestUtils.generateFilterFromTree(new FilterQueryTree(0, rawColumn, values, FilterOperator.EQUALITY, null),
+        filterRequest);
+    assertRejected(planMaker, rawSegment, filterRequest, "Filter on column " + rawColumn);
+
+    final BrokerRequest groupByRequest = getAggregationBrokerRequest("count", "*");
+    final GroupBy groupBy = new GroupBy();
+    groupBy.setColumns(Collections.singletonList(rawColumn));
+    groupBy.setTopN(10);
+    groupByRequest.setGroupBy(groupBy);
+    assertRejected(planMaker, rawSegment, groupByRequest, "Group by on column " + rawColumn);
+
+    assertRejected(planMaker, rawSegment, getAggregationBrokerRequest("distinctcount", rawColumn),
+        "Distinctcount on column " + rawColumn);
+
+    rawSegment.destroy();
+  }
+
+  private static BrokerRequest getAggregationBrokerRequest(String aggregationType, String column) {
+    final AggregationInfo aggregationInfo = new AggregationInfo();
+    aggregationInfo.setAggregationType(aggregationType);
+    final Map<String, String> params = new HashMap<String, String>();
+    params.put("column", column);
+    aggregationInfo.setAggregationParams(params);
+    final BrokerRequest brokerRequest = new BrokerRequest();
+    brokerRequest.setAggregationsInfo(Collections.singletonList(aggregationInfo));
+    return brokerRequest;
+  }
+
+  private static void assertRejected(InstancePlanMakerImplV2 planMaker, IndexSegmentImpl segment,
+      BrokerRequest brokerRequest, String expectedMessagePrefix) {
+    try {
+      planMaker.makeInnerSegmentPlan(segment, brokerRequest);
+      Assert.fail("Query should be rejected: " + brokerRequest);
+    } catch (QueryValidationException e) {
+      Assert.assertTrue(e.getMessage().startsWith(expectedMessagePrefix), e.getMessage());
+    }
+  }
+}
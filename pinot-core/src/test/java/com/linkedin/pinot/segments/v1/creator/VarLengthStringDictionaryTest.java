@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.segments.v1.creator;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.data.DimensionFieldSpec;
+import com.linkedin.pinot.common.data.FieldSpec.DataType;
+import com.linkedin.pinot.common.data.FieldSpec.FieldType;
+import com.linkedin.pinot.common.segment.ReadMode;
+import com.linkedin.pinot.core.indexsegment.columnar.ColumnarSegmentLoader;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
+import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
+import com.linkedin.pinot.core.segment.creator.SegmentIndexCreationDriver;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentCreationDriverFactory;
+import com.linkedin.pinot.core.segment.creator.impl.SegmentDictionaryCreator;
+import com.linkedin.pinot.core.segment.index.ColumnMetadata;
+import com.linkedin.pinot.core.segment.index.IndexSegmentImpl;
+import com.linkedin.pinot.core.segment.index.SegmentMetadataImpl;
+import com.linkedin.pinot.core.segment.index.readers.ImmutableDictionaryReader;
+import com.linkedin.pinot.core.segment.index.readers.StringDictionary;
+import com.linkedin.pinot.core.segment.index.readers.VarLengthStringDictionary;
+import com.linkedin.pinot.util.TestUtils;
+
+
+public class VarLengthStringDictionaryTest {
+  private static final String AVRO_DATA = "data/test_sample_data.avro";
+  private static final File INDEX_DIR = new File(VarLengthStringDictionaryTest.class.toString());
+  private static final File V1_INDEX_DIR = new File(INDEX_DIR, "v1");
+  private static final File V2_INDEX_DIR = new File(INDEX_DIR, "v2");
+  private static final String[] VALUES = { "", "%", "a%b", "abc", "ab", "zz", "été", "日本",
+      "😀", "😀x", "null" };
+
+  @BeforeClass
+  public void before() throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+    final String filePath =
+        TestUtils.getFileFromResourceUrl(VarLengthStringDictionaryTest.class.getClassLoader().getResource(AVRO_DATA));
+
+    buildSegment(filePath, V1_INDEX_DIR, SegmentVersion.v1);
+    buildSegment(filePath, V2_INDEX_DIR, SegmentVersion.v2);
+  }
+
+  private static void buildSegment(String filePath, File indexDir, SegmentVersion version) throws Exception {
+    final SegmentGeneratorConfig config =
+        SegmentTestUtils.getSegmentGenSpecWithSchemAndProjectedColumns(new File(filePath), indexDir, "time_day",
+            TimeUnit.DAYS, "test");
+    config.setSegmentVersion(version);
+    final SegmentIndexCreationDriver driver = SegmentCreationDriverFactory.get(null);
+    driver.init(config);
+    driver.build();
+  }
+
+  @AfterClass
+  public void cleanup() {
+    FileUtils.deleteQuietly(INDEX_DIR);
+  }
+
+  @Test
+  public void testSameValuesAsPaddedDictionary() throws Exception {
+    // The driver writes the segment in a directory named after the segment.
+    final IndexSegmentImpl v1Segment =
+        (IndexSegmentImpl) ColumnarSegmentLoader.load(V1_INDEX_DIR.listFiles()[0], ReadMode.heap);
+    int stringColumns = 0;
+    for (final ReadMode mode : ReadMode.values()) {
+      final IndexSegmentImpl v2Segment =
+          (IndexSegmentImpl) ColumnarSegmentLoader.load(V2_INDEX_DIR.listFiles()[0], mode);
+      final SegmentMetadataImpl metadata = (SegmentMetadataImpl) v2Segment.getSegmentMetadata();
+      Assert.assertEquals(metadata.getSegmentVersion(), SegmentVersion.v2);
+
+      for (final Map.Entry<String, ColumnMetadata> entry : metadata.getColumnMetadataMap().entrySet()) {
+        if (entry.getValue().getDataType() != DataType.STRING) {
+          continue;
+        }
+        stringColumns++;
+        final ImmutableDictionaryReader v1Dictionary = v1Segment.getDictionaryFor(entry.getKey());
+        final ImmutableDictionaryReader v2Dictionary = v2Segment.getDictionaryFor(entry.getKey());
+        Assert.assertTrue(v1Dictionary instanceof StringDictionary);
+        Assert.assertTrue(v2Dictionary instanceof VarLengthStringDictionary);
+        Assert.assertEquals(v2Dictionary.length(), v1Dictionary.length());
+
+        for (int dictId = 0; dictId < v1Dictionary.length(); dictId++) {
+          final String value = v1Dictionary.get(dictId).toString();
+          Assert.assertEquals(v2Dictionary.get(dictId), value);
+          Assert.assertEquals(v2Dictionary.getStringValue(dictId), value);
+          Assert.assertEquals(v2Dictionary.indexOf(value), dictId);
+        }
+      }
+      v2Segment.destroy();
+    }
+    Assert.assertTrue(stringColumns > 0);
+    v1Segment.destroy();
+  }
+
+  @Test
+  public void testLookups() throws Exception {
+    final File indexDir = new File(INDEX_DIR, "dictionary");
+    final DimensionFieldSpec spec = new DimensionFieldSpec("column", DataType.STRING, true);
+    final SegmentDictionaryCreator creator =
+        new SegmentDictionaryCreator(false, VALUES, spec, indexDir, SegmentVersion.v2);
+    creator.build();
+    creator.close();
+
+    final String[] sorted = Arrays.copyOf(VALUES, VALUES.length);
+    Arrays.sort(sorted);
+    for (int i = 0; i < sorted.length; i++) {
+      Assert.assertEquals(creator.indexOf(sorted[i]), i);
+    }
+
+    final ColumnMetadata metadata =
+        new ColumnMetadata("column", VALUES.length, VALUES.length, DataType.STRING, 4, creator
+            .getStringColumnMaxLength(), FieldType.DIMENSION, false, false, true, 0, false, true, null, VALUES.length);
+    final File dictionaryFile = new File(indexDir, "column.dict");
+    for (final ReadMode mode : ReadMode.values()) {
+      for (final boolean hashIndex : new boolean[] { false, true }) {
+        final VarLengthStringDictionary dictionary =
+            new VarLengthStringDictionary(dictionaryFile, metadata, mode, hashIndex);
+        Assert.assertEquals(dictionary.length(), sorted.length);
+        for (int i = 0; i < sorted.length; i++) {
+          Assert.assertEquals(dictionary.get(i), sorted[i]);
+          Assert.assertEquals(dictionary.indexOf(sorted[i]), i);
+        }
+        Assert.assertEquals(dictionary.get(-1), "null");
+        Assert.assertEquals(dictionary.get(sorted.length), "null");
+
+        // Values missing from the dictionary give their insertion point, as the padded dictionary does.
+        for (final String missing : new String[] { "a", "abd", "é", "😀😀", "￿",
+            "zzz" }) {
+          Assert.assertEquals(dictionary.indexOf(missing), Arrays.binarySearch(sorted, missing), missing);
+        }
+        dictionary.close();
+      }
+    }
+  }
+}
@@ -115,6 +115,14 @@ public class SingleValueBlock implements Block {
       public DataType getValueType() {
         return DataType.INT;
       }
+
+      @Override
+      public void readIntValues(int[] docIds, int startPos, int limit, int[] values, int outStartPos) {
+        int endPos = startPos + limit;
+        for (int i = startPos; i < endPos; ++i) {
+          values[outStartPos++] = SingleValueBlock.this.values[docIds[i]];
+        }
+      }
     };
   }
 
@@ -30,12 +30,16 @@ public class ServerConf {
   private static String PINOT_SERVER_INSTANCE = "pinot.server.instance";
   private static String PINOT_SERVER_METRICS = "pinot.server.metrics";
   private static String PINOT_SERVER_QUERY = "pinot.server.query.executor";
+  private static String PINOT_SERVER_QUERY_SCHEDULER = "pinot.server.query.scheduler";
   private static String PINOT_SERVER_REQUEST = "pinot.server.request";
   private static String PINOT_SERVER_NETTY = "pinot.server.netty";
   private static String PINOT_SERVER_INSTANCE_DATA_MANAGER_CLASS = "pinot.server.instance.data.manager.class";
   private static String PINOT_SERVER_QUERY_EXECUTOR_CLASS = "pinot.server.query.executor.class";
+  private static String PINOT_SERVER_QUERY_SCHEDULER_CLASS = "pinot.server.query.scheduler.class";
   private static String PINOT_SERVER_REQUEST_HANDLER_FACTORY_CLASS = "pinot.server.requestHandlerFactory.class";
 
+  private static String DEFAULT_QUERY_SCHEDULER_CLASS = "com.linkedin.pinot.core.query.scheduler.FairShareQueryScheduler";
+
   private Configuration _serverConf;
 
   public ServerConf(Configuration serverConfig) {
@@ -54,6 +58,10 @@ public class ServerConf {
     return _serverConf.subset(PINOT_SERVER_QUERY);
   }
 
+  public Configuration getQuerySchedulerConfig() {
+    return _serverConf.subset(PINOT_SERVER_QUERY_SCHEDULER);
+  }
+
   public Configuration getRequestConfig() {
     return _serverConf.subset(PINOT_SERVER_REQUEST);
   }
@@ -78,6 +86,10 @@ public class ServerConf {
     return _serverConf.getString(PINOT_SERVER_QUERY_EXECUTOR_CLASS);
   }
 
+  public String getQuerySchedulerClassName() {
+    return _serverConf.getString(PINOT_SERVER_QUERY_SCHEDULER_CLASS, DEFAULT_QUERY_SCHEDULER_CLASS);
+  }
+
   public String getRequestHandlerFactoryClassName() {
     return _serverConf.getString(PINOT_SERVER_REQUEST_HANDLER_FACTORY_CLASS);
   }
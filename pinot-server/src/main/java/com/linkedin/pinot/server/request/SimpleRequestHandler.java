@@ -17,23 +17,22 @@ package com.linkedin.pinot.server.request;
 
 import io.netty.buffer.ByteBuf;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import org.apache.thrift.protocol.TCompactProtocol;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.linkedin.pinot.common.exception.QueryException;
 import com.linkedin.pinot.common.metrics.ServerMeter;
 import com.linkedin.pinot.common.metrics.ServerMetrics;
 import com.linkedin.pinot.common.metrics.ServerQueryPhase;
-import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.common.query.QueryScheduler;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.InstanceRequest;
 import com.linkedin.pinot.common.response.ProcessingException;
 import com.linkedin.pinot.common.utils.DataTable;
-import com.linkedin.pinot.common.utils.DataTableBuilder;
 import com.linkedin.pinot.serde.SerDe;
 import com.linkedin.pinot.transport.netty.NettyServer.RequestHandler;
 
@@ -49,49 +48,75 @@ public class SimpleRequestHandler implements RequestHandler {
 
   private ServerMetrics _serverMetrics;
 
-  QueryExecutor _queryExecutor = null;
+  QueryScheduler _queryScheduler = null;
 
-  public SimpleRequestHandler(QueryExecutor queryExecutor, ServerMetrics serverMetrics) {
-    _queryExecutor = queryExecutor;
+  public SimpleRequestHandler(QueryScheduler queryScheduler, ServerMetrics serverMetrics) {
+    _queryScheduler = queryScheduler;
     _serverMetrics = serverMetrics;
   }
 
+  /**
+   * Deserializes the request on the calling (netty) thread and hands it over to the query scheduler. The returned
+   * future is completed with the serialized response once the scheduler has executed the query.
+   */
   @Override
-  public byte[] processRequest(ByteBuf request) {
-    long queryStartTime = System.nanoTime();
+  public ListenableFuture<byte[]> processRequest(ByteBuf request) {
+    final long queryStartTime = System.nanoTime();
     _serverMetrics.addMeteredValue(null, ServerMeter.QUERIES, 1);
 
     LOGGER.debug("processing request : {}", request);
 
-    DataTable instanceResponse = null;
-
     byte[] byteArray = new byte[request.readableBytes()];
     request.readBytes(byteArray);
     SerDe serDe = new SerDe(new TCompactProtocol.Factory());
-    BrokerRequest brokerRequest = null;
-    try {
-      final InstanceRequest queryRequest = new InstanceRequest();
-      serDe.deserialize(queryRequest, byteArray);
-      long deserRequestTime = System.nanoTime();
-      _serverMetrics.addPhaseTiming(brokerRequest, ServerQueryPhase.TOTAL_QUERY_TIME, deserRequestTime - queryStartTime);
-      LOGGER.info("instance request : {}", queryRequest);
-      brokerRequest = queryRequest.getQuery();
-
-      long startTime = System.nanoTime();
-      instanceResponse = _queryExecutor.processQuery(queryRequest);
-      long totalNanos = System.nanoTime() - startTime;
-      _serverMetrics.addPhaseTiming(brokerRequest, ServerQueryPhase.QUERY_PROCESSING, totalNanos);
-    } catch (Exception e) {
-      LOGGER.error("Got exception while processing request. Returning error response", e);
+    final InstanceRequest queryRequest = new InstanceRequest();
+    if (!serDe.deserialize(queryRequest, byteArray)) {
+      LOGGER.error("Got exception while deserializing request. Returning error response");
       _serverMetrics.addMeteredValue(null, ServerMeter.UNCAUGHT_EXCEPTIONS, 1);
-      DataTableBuilder dataTableBuilder = new DataTableBuilder(null);
-      List<ProcessingException> exceptions = new ArrayList<ProcessingException>();
+      DataTable instanceResponse = new DataTable();
       ProcessingException exception = QueryException.INTERNAL_ERROR.deepCopy();
-      exception.setMessage(e.getMessage());
-      exceptions.add(exception);
-      instanceResponse = dataTableBuilder.buildExceptions();
+      exception.setMessage("Unable to deserialize instance request");
+      instanceResponse.addException(exception);
+      return Futures.immediateFuture(serializeResponse(null, instanceResponse, queryStartTime));
     }
+    if (queryRequest.isCancel()) {
+      return Futures.immediateFuture(processCancelRequest(queryRequest));
+    }
+    long deserRequestTime = System.nanoTime();
+    _serverMetrics.addPhaseTiming(null, ServerQueryPhase.TOTAL_QUERY_TIME, deserRequestTime - queryStartTime);
+    LOGGER.info("instance request : {}", queryRequest);
+    final BrokerRequest brokerRequest = queryRequest.getQuery();
+
+    final long startTime = System.nanoTime();
+    return Futures.transform(_queryScheduler.submit(queryRequest), new Function<DataTable, byte[]>() {
+      @Override
+      public byte[] apply(DataTable instanceResponse) {
+        _serverMetrics.addPhaseTiming(brokerRequest, ServerQueryPhase.QUERY_PROCESSING, System.nanoTime() - startTime);
+        return serializeResponse(brokerRequest, instanceResponse, queryStartTime);
+      }
+    });
+  }
+
+  /**
+   * Cancels the query of a request the broker gave up on, and acknowledges with an empty response.
+   */
+  private byte[] processCancelRequest(InstanceRequest cancelRequest) {
+    long requestId = cancelRequest.getRequestId();
+    String brokerId = cancelRequest.getBrokerId();
+    boolean isFound = _queryScheduler.cancel(brokerId, requestId);
+    LOGGER.info("Received cancel request for request {} of broker {}, query found: {}", requestId, brokerId, isFound);
+    DataTable acknowledgement = new DataTable();
+    acknowledgement.getMetadata().put("requestId", Long.toString(requestId));
+    try {
+      return acknowledgement.toBytes();
+    } catch (Exception e) {
+      _serverMetrics.addMeteredValue(null, ServerMeter.RESPONSE_SERIALIZATION_EXCEPTIONS, 1);
+      LOGGER.error("Got exception while serializing cancel acknowledgement.", e);
+      return new byte[0];
+    }
+  }
 
+  private byte[] serializeResponse(BrokerRequest brokerRequest, DataTable instanceResponse, long queryStartTime) {
     byte[] responseByte;
     long serializationStartTime = System.nanoTime();
     try {
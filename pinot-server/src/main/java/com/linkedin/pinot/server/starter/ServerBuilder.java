@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.data.DataManager;
 import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.common.query.QueryScheduler;
 import com.linkedin.pinot.server.conf.NettyServerConfig;
 import com.linkedin.pinot.server.conf.ServerConf;
 import com.linkedin.pinot.server.request.SimpleRequestHandlerFactory;
@@ -155,18 +156,36 @@ public class ServerBuilder {
   }
 
   /**
-   * Build RequestHandlerFactory
+   * Build QueryScheduler
    * @param queryExecutor
    * @return
    * @throws InstantiationException
    * @throws IllegalAccessException
    * @throws ClassNotFoundException
+   * @throws ConfigurationException
+   */
+  public QueryScheduler buildQueryScheduler(QueryExecutor queryExecutor) throws InstantiationException,
+      IllegalAccessException, ClassNotFoundException, ConfigurationException {
+    String className = _serverConf.getQuerySchedulerClassName();
+    LOGGER.info("Trying to Load Query Scheduler by Class : " + className);
+    QueryScheduler queryScheduler = (QueryScheduler) Class.forName(className).newInstance();
+    queryScheduler.init(_serverConf.getQuerySchedulerConfig(), queryExecutor, _serverMetrics);
+    return queryScheduler;
+  }
+
+  /**
+   * Build RequestHandlerFactory
+   * @param queryScheduler
+   * @return
+   * @throws InstantiationException
+   * @throws IllegalAccessException
+   * @throws ClassNotFoundException
    */
-  public RequestHandlerFactory buildRequestHandlerFactory(QueryExecutor queryExecutor) throws InstantiationException,
+  public RequestHandlerFactory buildRequestHandlerFactory(QueryScheduler queryScheduler) throws InstantiationException,
       IllegalAccessException, ClassNotFoundException {
     String className = _serverConf.getRequestHandlerFactoryClassName();
     LOGGER.info("Trying to Load Request Handler Factory by Class : " + className);
-    RequestHandlerFactory requestHandlerFactory = new SimpleRequestHandlerFactory(queryExecutor, _serverMetrics);
+    RequestHandlerFactory requestHandlerFactory = new SimpleRequestHandlerFactory(queryScheduler, _serverMetrics);
     return requestHandlerFactory;
   }
 
@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.data.DataManager;
 import com.linkedin.pinot.common.query.QueryExecutor;
+import com.linkedin.pinot.common.query.QueryScheduler;
 import com.linkedin.pinot.common.request.AggregationInfo;
 import com.linkedin.pinot.common.request.BrokerRequest;
 import com.linkedin.pinot.common.request.FilterQuery;
@@ -63,8 +64,11 @@ public class InstanceServerStarter {
     sendQueryToQueryExecutor(getMaxQuery(), queryExecutor);
     sendQueryToQueryExecutor(getMinQuery(), queryExecutor);
 
+    LOGGER.info("Trying to build QueryScheduler");
+    final QueryScheduler queryScheduler = serverBuilder.buildQueryScheduler(queryExecutor);
+
     LOGGER.info("Trying to build RequestHandlerFactory");
-    RequestHandlerFactory simpleRequestHandlerFactory = serverBuilder.buildRequestHandlerFactory(queryExecutor);
+    RequestHandlerFactory simpleRequestHandlerFactory = serverBuilder.buildRequestHandlerFactory(queryScheduler);
     LOGGER.info("Trying to build NettyServer");
 
     System.out.println(getMaxQuery());
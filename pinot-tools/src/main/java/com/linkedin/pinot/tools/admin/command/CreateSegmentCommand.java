@@ -18,6 +18,8 @@ package com.linkedin.pinot.tools.admin.command;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -29,12 +31,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.linkedin.pinot.common.data.Schema;
+import com.linkedin.pinot.common.segment.ReadMode;
 import com.linkedin.pinot.core.data.readers.FileFormat;
 import com.linkedin.pinot.core.data.readers.CSVRecordReaderConfig;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentGeneratorConfig;
 import com.linkedin.pinot.core.indexsegment.generator.SegmentVersion;
 import com.linkedin.pinot.core.indexsegment.utils.AvroUtils;
 import com.linkedin.pinot.core.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import com.linkedin.pinot.core.segment.index.ForwardIndexTradeoffReport;
 
 
 /**
@@ -68,6 +72,14 @@ public class CreateSegmentCommand extends AbstractBaseCommand implements Command
   @Option(name = "-overwrite", required = false, metaVar = "<string>", usage = "Overwrite existing output directory.")
   private boolean _overwrite = false;
 
+  @Option(name = "-chunkCompressedColumns", required = false, metaVar = "<string>",
+      usage = "Comma separated columns to store without dictionary in compressed chunks.")
+  private String _chunkCompressedColumns;
+
+  @Option(name = "-reportForwardIndexTradeoff", required = false, metaVar = "<string>",
+      usage = "Compare the size and read latency of the chunk compressed columns with dictionary encoding.")
+  private boolean _reportForwardIndexTradeoff = false;
+
   @Option(name = "-help", required = false, help = true, aliases={"-h", "--h", "--help"}, usage = "Print this message.")
   boolean _help = false;
 
@@ -115,12 +127,23 @@ public class CreateSegmentCommand extends AbstractBaseCommand implements Command
     return this;
   }
 
+  public CreateSegmentCommand setChunkCompressedColumns(String chunkCompressedColumns) {
+    _chunkCompressedColumns = chunkCompressedColumns;
+    return this;
+  }
+
+  public CreateSegmentCommand setReportForwardIndexTradeoff(boolean reportForwardIndexTradeoff) {
+    _reportForwardIndexTradeoff = reportForwardIndexTradeoff;
+    return this;
+  }
+
   @Override
   public String toString() {
     return ("CreateSegmentCommand -schemaFile " + _schemaFile + " -dataDir " + _dataDir +
         " -format " + _format + " -readerConfigFile " + _recordReaderConfigFile +
         " -tableName " + _tableName + " -segmentName " + _segmentName + " -outDir " + _outDir +
-        " -overwrite " + _overwrite);
+        " -overwrite " + _overwrite + " -chunkCompressedColumns " + _chunkCompressedColumns +
+        " -reportForwardIndexTradeoff " + _reportForwardIndexTradeoff);
   }
 
   @Override
@@ -183,6 +206,15 @@ public class CreateSegmentCommand extends AbstractBaseCommand implements Command
       recordReaderConfig = null;
     }
 
+    final List<String> chunkCompressedColumns = new ArrayList<String>();
+    if (_chunkCompressedColumns != null) {
+      for (final String column : _chunkCompressedColumns.split(",")) {
+        if (!column.trim().isEmpty()) {
+          chunkCompressedColumns.add(column.trim());
+        }
+      }
+    }
+
     ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 
     int cnt = 0;
@@ -194,26 +226,9 @@ public class CreateSegmentCommand extends AbstractBaseCommand implements Command
         public void run() {
           try {
 
-            SegmentGeneratorConfig config = new SegmentGeneratorConfig(schema);
-            config.setInputFileFormat(_format);
-            config.setRecordeReaderConfig(recordReaderConfig);
-            config.setSegmentVersion(SegmentVersion.v1);
-
-            config.setIndexOutputDir(_outDir);
-            config.setTableName(_tableName);
-
-            config.setInputFilePath(file.getAbsolutePath());
-            config.setSegmentName(_segmentName + "_" + segCnt);
-
-            if (schema.getTimeColumnName() != null) {
-              config.setTimeColumnName(schema.getTimeColumnName());
-            }
-
-            if (schema.getTimeFieldSpec() != null) {
-              config.setTimeUnitForSegment(schema.getTimeFieldSpec().getIncomingGranularitySpec().getTimeType());
-            } else {
-              config.setTimeUnitForSegment(TimeUnit.DAYS);
-            }
+            SegmentGeneratorConfig config =
+                buildConfig(schema, recordReaderConfig, file, _outDir, _segmentName + "_" + segCnt);
+            config.setChunkCompressedIndexColumns(chunkCompressedColumns);
 
             final SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
             driver.init(config);
@@ -231,6 +246,58 @@ public class CreateSegmentCommand extends AbstractBaseCommand implements Command
     executor.shutdown();
     executor.awaitTermination(1, TimeUnit.HOURS);
 
+    if (_reportForwardIndexTradeoff && !chunkCompressedColumns.isEmpty()) {
+      reportForwardIndexTradeoff(schema, recordReaderConfig, files[0], chunkCompressedColumns);
+    }
+
     return true;
   }
+
+  private SegmentGeneratorConfig buildConfig(Schema schema, CSVRecordReaderConfig recordReaderConfig, File file,
+      String outDir, String segmentName) {
+    SegmentGeneratorConfig config = new SegmentGeneratorConfig(schema);
+    config.setInputFileFormat(_format);
+    config.setRecordeReaderConfig(recordReaderConfig);
+    config.setSegmentVersion(SegmentVersion.v1);
+
+    config.setIndexOutputDir(outDir);
+    config.setTableName(_tableName);
+
+    config.setInputFilePath(file.getAbsolutePath());
+    config.setSegmentName(segmentName);
+
+    if (schema.getTimeColumnName() != null) {
+      config.setTimeColumnName(schema.getTimeColumnName());
+    }
+
+    if (schema.getTimeFieldSpec() != null) {
+      config.setTimeUnitForSegment(schema.getTimeFieldSpec().getIncomingGranularitySpec().getTimeType());
+    } else {
+      config.setTimeUnitForSegment(TimeUnit.DAYS);
+    }
+    return config;
+  }
+
+  /**
+   * Builds the segment of the first data file again with dictionary encoding in a temporary directory, and logs the
+   * size and read latency of both encodings of the chunk compressed columns.
+   */
+  private void reportForwardIndexTradeoff(Schema schema, CSVRecordReaderConfig recordReaderConfig, File file,
+      List<String> chunkCompressedColumns) throws Exception {
+    final String segmentName = _segmentName + "_0";
+    final File dictionaryOutDir = new File(FileUtils.getTempDirectory(), "pinot-tradeoff-" + System.nanoTime());
+    try {
+      final SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+      driver.init(buildConfig(schema, recordReaderConfig, file, dictionaryOutDir.getAbsolutePath(), segmentName));
+      driver.build();
+
+      _logger.info("Forward index tradeoff for segment {}:", segmentName);
+      for (final String line : ForwardIndexTradeoffReport.generate(new File(dictionaryOutDir, segmentName),
+          new File(_outDir, segmentName), chunkCompressedColumns, ReadMode.mmap)) {
+        _logger.info(line);
+      }
+    } finally {
+      FileUtils.deleteQuietly(dictionaryOutDir);
+    }
+  }
 }
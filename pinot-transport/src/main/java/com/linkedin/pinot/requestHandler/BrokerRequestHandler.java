@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -75,24 +76,36 @@ public class BrokerRequestHandler {
   private final RoutingTable _routingTable;
   private final ScatterGather _scatterGatherer;
   private final AtomicLong _requestIdGen;
+  // Request ids restart at 0 with every broker, servers identify a query by the broker id and the request id.
+  private final String _brokerId;
   private final ReduceService _reduceService;
   private final BrokerMetrics _brokerMetrics;
   private final TimeBoundaryService _timeBoundaryService;
   private final long _brokerTimeOut;
+  // Null when the broker result cache is disabled
+  private final BrokerResultCache _brokerResultCache;
 
   //TODO: Currently only using RoundRobin selection. But, this can be allowed to be configured.
   private RoundRobinReplicaSelection _replicaSelection;
 
   public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
       ScatterGather scatterGatherer, ReduceService reduceService, BrokerMetrics brokerMetrics, long brokerTimeOut) {
+    this(table, timeBoundaryService, scatterGatherer, reduceService, brokerMetrics, brokerTimeOut, null);
+  }
+
+  public BrokerRequestHandler(RoutingTable table, TimeBoundaryService timeBoundaryService,
+      ScatterGather scatterGatherer, ReduceService reduceService, BrokerMetrics brokerMetrics, long brokerTimeOut,
+      BrokerResultCache brokerResultCache) {
     _routingTable = table;
     _timeBoundaryService = timeBoundaryService;
     _scatterGatherer = scatterGatherer;
     _requestIdGen = new AtomicLong(0);
+    _brokerId = UUID.randomUUID().toString();
     _replicaSelection = new RoundRobinReplicaSelection();
     _reduceService = reduceService;
     _brokerMetrics = brokerMetrics;
     _brokerTimeOut = brokerTimeOut;
+    _brokerResultCache = brokerResultCache;
   }
 
   /**
@@ -103,6 +116,8 @@ public class BrokerRequestHandler {
    * 4. Gather response from the servers.
    * 5. Deserialize the responses and errors.
    * 6. Reduce (Merge) the responses. Create a broker response to be returned.
+   * When the broker result cache is enabled, a response cached for the same query and the same routing tables is
+   * returned instead, and the responses of the queries that get through are cached.
    *
    * @param request Broker Request to be sent
    * @return Broker response
@@ -116,13 +131,34 @@ public class BrokerRequestHandler {
       return BrokerResponse.getNullBrokerResponse();
     }
     List<String> matchedTables = getMatchedTables(request);
+    if (matchedTables.isEmpty()) {
+      return BrokerResponse.getNullBrokerResponse();
+    }
+
+    // The key is built before the request gets routed, routing rewrites its table name.
+    BrokerResultCache.ResultKey resultKey = null;
+    if (_brokerResultCache != null && _brokerResultCache.isCacheable(request)) {
+      final long startTime = System.currentTimeMillis();
+      resultKey = _brokerResultCache.getKey(request, matchedTables);
+      BrokerResponse cachedResponse = _brokerResultCache.get(resultKey);
+      if (cachedResponse != null) {
+        _brokerMetrics.addMeteredValue(request, BrokerMeter.RESULT_CACHE_HITS, 1);
+        cachedResponse.setTimeUsedMs(System.currentTimeMillis() - startTime);
+        return cachedResponse;
+      }
+      _brokerMetrics.addMeteredValue(request, BrokerMeter.RESULT_CACHE_MISSES, 1);
+    }
+
+    Object response;
     if (matchedTables.size() > 1) {
-      return processFederatedBrokerRequest(request, overriddenSelection);
+      response = processFederatedBrokerRequest(request, overriddenSelection);
+    } else {
+      response = processSingleTableBrokerRequest(request, matchedTables.get(0), overriddenSelection);
     }
-    if (matchedTables.size() == 1) {
-      return processSingleTableBrokerRequest(request, matchedTables.get(0), overriddenSelection);
+    if (resultKey != null && response instanceof BrokerResponse) {
+      _brokerResultCache.put(resultKey, (BrokerResponse) response);
     }
-    return BrokerResponse.getNullBrokerResponse();
+    return response;
   }
 
   /**
@@ -249,7 +285,7 @@ public class BrokerRequestHandler {
     ScatterGatherRequestImpl scatterRequest =
         new ScatterGatherRequestImpl(request, segmentServices, _replicaSelection,
             ReplicaSelectionGranularity.SEGMENT_ID_SET, request.getBucketHashKey(), 0, //TODO: Speculative Requests not yet supported
-            overriddenSelection, _requestIdGen.incrementAndGet(), _brokerTimeOut);
+            overriddenSelection, _brokerId, _requestIdGen.incrementAndGet(), _brokerTimeOut);
     CompositeFuture<ServerInstance, ByteBuf> response = _scatterGatherer.scatterGather(scatterRequest);
 
     //Step 5 - Deserialize Responses and build instance response map
@@ -341,7 +377,7 @@ public class BrokerRequestHandler {
       ScatterGatherRequestImpl scatterRequest =
           new ScatterGatherRequestImpl(request, segmentServices, _replicaSelection,
               ReplicaSelectionGranularity.SEGMENT_ID_SET, request.getBucketHashKey(), 0, //TODO: Speculative Requests not yet supported
-              overriddenSelection, _requestIdGen.incrementAndGet(), _brokerTimeOut);
+              overriddenSelection, _brokerId, _requestIdGen.incrementAndGet(), _brokerTimeOut);
       responseFuturesList.put(request, _scatterGatherer.scatterGather(scatterRequest));
     }
     _brokerMetrics.addPhaseTiming(federatedBrokerRequest, BrokerQueryPhase.QUERY_ROUTING, queryRoutingTime);
@@ -430,12 +466,14 @@ public class BrokerRequestHandler {
     private final Object _hashKey;
     private final int _numSpeculativeRequests;
     private final BucketingSelection _bucketingSelection;
+    private final String _brokerId;
     private final long _requestId;
     private final long _requestTimeoutMs;
 
     public ScatterGatherRequestImpl(BrokerRequest request, Map<ServerInstance, SegmentIdSet> segmentServices,
         ReplicaSelection replicaSelection, ReplicaSelectionGranularity replicaSelectionGranularity, Object hashKey,
-        int numSpeculativeRequests, BucketingSelection bucketingSelection, long requestId, long requestTimeoutMs) {
+        int numSpeculativeRequests, BucketingSelection bucketingSelection, String brokerId, long requestId,
+        long requestTimeoutMs) {
       _brokerRequest = request;
       _segmentServices = segmentServices;
       _replicaSelection = replicaSelection;
@@ -443,6 +481,7 @@ public class BrokerRequestHandler {
       _hashKey = hashKey;
       _numSpeculativeRequests = numSpeculativeRequests;
       _bucketingSelection = bucketingSelection;
+      _brokerId = brokerId;
       _requestId = requestId;
       _requestTimeoutMs = requestTimeoutMs;
     }
@@ -456,6 +495,7 @@ public class BrokerRequestHandler {
     public byte[] getRequestForService(ServerInstance service, SegmentIdSet querySegments) {
       InstanceRequest r = new InstanceRequest();
       r.setRequestId(_requestId);
+      r.setBrokerId(_brokerId);
       r.setEnableTrace(_brokerRequest.isEnableTrace());
       r.setQuery(_brokerRequest);
       r.setSearchSegments(querySegments.getSegmentsNameList());
@@ -465,6 +505,17 @@ public class BrokerRequestHandler {
       //      return _serde.serialize(r);
     }
 
+    @Override
+    public byte[] getCancelRequestForService(ServerInstance service) {
+      InstanceRequest r = new InstanceRequest();
+      r.setRequestId(_requestId);
+      r.setBrokerId(_brokerId);
+      r.setQuery(_brokerRequest);
+      r.setCancel(true);
+
+      return getSerde().serialize(r);
+    }
+
     @Override
     public ReplicaSelection getReplicaSelection() {
       return _replicaSelection;
@@ -0,0 +1,291 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.requestHandler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linkedin.pinot.common.config.TableNameBuilder;
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.response.BrokerResponse;
+import com.linkedin.pinot.common.utils.CommonConstants.Helix.TableType;
+import com.linkedin.pinot.routing.RoutingTableChangeListener;
+
+
+/**
+ * BrokerResultCache keeps the responses of the queries served by the broker, so that identical queries issued again
+ * before the data they were computed from changes are answered without a scatter gather.
+ *
+ * Entries are keyed by the broker request stripped of the fields that do not change its result, and by the routing
+ * table version of every table the query is routed to. The version of a table is bumped every time its routing table
+ * changes, which also drops the entries of the table right away. Entries expire after the TTL of their table: the
+ * data of a realtime table changes without any routing table change, so queries on realtime and hybrid tables get
+ * a shorter TTL than queries on offline tables. The cache is bounded by the size of the responses it holds, and
+ * evicts the least recently used entries first.
+ *
+ * Responses are stored as JSON, every hit builds a fresh BrokerResponse.
+ *
+ */
+public class BrokerResultCache implements RoutingTableChangeListener {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BrokerResultCache.class);
+  // Rough heap cost of an entry on top of its response: the key with its copy of the broker request, and the linked
+  // hash map entry.
+  private static final int ENTRY_OVERHEAD_BYTES = 1024;
+
+  private final long _maxBytes;
+  private final long _offlineTtlMs;
+  private final long _realtimeTtlMs;
+  // TTL overrides, by table name without type suffix
+  private final Map<String, Long> _tableTtlMsMap = new HashMap<String, Long>();
+  private final Map<String, Long> _routingTableVersions = new HashMap<String, Long>();
+  private final LinkedHashMap<ResultKey, Entry> _entries = new LinkedHashMap<ResultKey, Entry>(16, 0.75f, true);
+  private long _numBytes = 0L;
+
+  public BrokerResultCache(long maxBytes, long offlineTtlMs, long realtimeTtlMs) {
+    _maxBytes = maxBytes;
+    _offlineTtlMs = offlineTtlMs;
+    _realtimeTtlMs = realtimeTtlMs;
+  }
+
+  /**
+   * Override the TTL of the entries of the given table.
+   *
+   * @param tableName table name without type suffix
+   * @param ttlMs
+   */
+  public synchronized void setTableTtlMs(String tableName, long ttlMs) {
+    _tableTtlMsMap.put(tableName, ttlMs);
+  }
+
+  /**
+   * Traced queries are not cached, their response is specific to their execution.
+   *
+   * @param brokerRequest
+   * @return true if the response of the query can be cached
+   */
+  public boolean isCacheable(BrokerRequest brokerRequest) {
+    return !brokerRequest.isEnableTrace();
+  }
+
+  /**
+   * Build the key of the given request routed to the given tables. The key holds the current routing table versions of
+   * the tables, so a response computed with an outdated routing table is never served once the routing table changes.
+   * It must be built before the request is routed, and before the request is modified by the routing.
+   *
+   * @param brokerRequest
+   * @param tableNames table names with their type suffix the request is routed to
+   * @return key of the response of the request
+   */
+  public synchronized ResultKey getKey(BrokerRequest brokerRequest, List<String> tableNames) {
+    BrokerRequest normalizedRequest = brokerRequest.deepCopy();
+    normalizedRequest.unsetBucketHashKey();
+    normalizedRequest.unsetEnableTrace();
+    List<Long> routingTableVersions = new ArrayList<Long>(tableNames.size());
+    for (String tableName : tableNames) {
+      routingTableVersions.add(getRoutingTableVersion(tableName));
+    }
+    return new ResultKey(normalizedRequest, new ArrayList<String>(tableNames), routingTableVersions);
+  }
+
+  /**
+   * Look up the response of the given key.
+   *
+   * @param key
+   * @return a fresh copy of the cached response, or null if it is not cached or expired
+   */
+  public BrokerResponse get(ResultKey key) {
+    final String response;
+    synchronized (this) {
+      Entry entry = _entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (entry._expirationTimeMs <= System.currentTimeMillis()) {
+        removeEntry(key);
+        return null;
+      }
+      response = entry._response;
+    }
+    try {
+      return BrokerResponse.fromJson(new JSONObject(response));
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while reading a cached broker response", e);
+      synchronized (this) {
+        removeEntry(key);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Cache the response of the given key. Responses with exceptions are not cached.
+   *
+   * @param key
+   * @param brokerResponse
+   */
+  public void put(ResultKey key, BrokerResponse brokerResponse) {
+    if (brokerResponse.getExceptionsSize() > 0) {
+      return;
+    }
+    final String response;
+    try {
+      response = brokerResponse.toJson().toString();
+    } catch (Exception e) {
+      LOGGER.error("Caught exception while caching a broker response", e);
+      return;
+    }
+    final Entry entry = new Entry(response, System.currentTimeMillis() + getTtlMs(key._tableNames));
+    if (entry.getBytes() > _maxBytes) {
+      return;
+    }
+    synchronized (this) {
+      if (!key._routingTableVersions.equals(getRoutingTableVersions(key._tableNames))) {
+        // The routing table changed while the query was running, the response may already be outdated.
+        return;
+      }
+      removeEntry(key);
+      _entries.put(key, entry);
+      _numBytes += entry.getBytes();
+      Iterator<Map.Entry<ResultKey, Entry>> iterator = _entries.entrySet().iterator();
+      while (_numBytes > _maxBytes && iterator.hasNext()) {
+        _numBytes -= iterator.next().getValue().getBytes();
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Bump the routing table version of the table, and drop the responses of the queries routed to it.
+   */
+  @Override
+  public synchronized void onRoutingTableChange(String tableName) {
+    _routingTableVersions.put(tableName, getRoutingTableVersion(tableName) + 1);
+    Iterator<Map.Entry<ResultKey, Entry>> iterator = _entries.entrySet().iterator();
+    int numInvalidatedEntries = 0;
+    while (iterator.hasNext()) {
+      Map.Entry<ResultKey, Entry> entry = iterator.next();
+      if (entry.getKey()._tableNames.contains(tableName)) {
+        _numBytes -= entry.getValue().getBytes();
+        iterator.remove();
+        numInvalidatedEntries++;
+      }
+    }
+    if (numInvalidatedEntries > 0) {
+      LOGGER.info("Invalidated {} cached responses of table {}", numInvalidatedEntries, tableName);
+    }
+  }
+
+  public long getMaxBytes() {
+    return _maxBytes;
+  }
+
+  public synchronized long getNumBytes() {
+    return _numBytes;
+  }
+
+  public synchronized int getNumEntries() {
+    return _entries.size();
+  }
+
+  private long getRoutingTableVersion(String tableName) {
+    Long routingTableVersion = _routingTableVersions.get(tableName);
+    return (routingTableVersion == null) ? 0L : routingTableVersion;
+  }
+
+  private List<Long> getRoutingTableVersions(List<String> tableNames) {
+    List<Long> routingTableVersions = new ArrayList<Long>(tableNames.size());
+    for (String tableName : tableNames) {
+      routingTableVersions.add(getRoutingTableVersion(tableName));
+    }
+    return routingTableVersions;
+  }
+
+  private synchronized long getTtlMs(List<String> tableNames) {
+    long ttlMs = Long.MAX_VALUE;
+    for (String tableName : tableNames) {
+      Long tableTtlMs = _tableTtlMsMap.get(TableNameBuilder.extractRawTableName(tableName));
+      if (tableTtlMs == null) {
+        tableTtlMs = (TableNameBuilder.getTableTypeFromTableName(tableName) == TableType.REALTIME)
+            ? _realtimeTtlMs : _offlineTtlMs;
+      }
+      ttlMs = Math.min(ttlMs, tableTtlMs);
+    }
+    return ttlMs;
+  }
+
+  private void removeEntry(ResultKey key) {
+    Entry entry = _entries.remove(key);
+    if (entry != null) {
+      _numBytes -= entry.getBytes();
+    }
+  }
+
+  private static class Entry {
+    private final String _response;
+    private final long _expirationTimeMs;
+
+    Entry(String response, long expirationTimeMs) {
+      _response = response;
+      _expirationTimeMs = expirationTimeMs;
+    }
+
+    long getBytes() {
+      // Two bytes per char
+      return 2L * _response.length() + ENTRY_OVERHEAD_BYTES;
+    }
+  }
+
+  public static class ResultKey {
+    private final BrokerRequest _normalizedRequest;
+    private final List<String> _tableNames;
+    private final List<Long> _routingTableVersions;
+    private final int _hashCode;
+
+    private ResultKey(BrokerRequest normalizedRequest, List<String> tableNames, List<Long> routingTableVersions) {
+      _normalizedRequest = normalizedRequest;
+      _tableNames = tableNames;
+      _routingTableVersions = routingTableVersions;
+      _hashCode = 31 * (31 * _normalizedRequest.hashCode() + _tableNames.hashCode()) + _routingTableVersions.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ResultKey)) {
+        return false;
+      }
+      ResultKey other = (ResultKey) o;
+      return (_hashCode == other._hashCode) && _tableNames.equals(other._tableNames)
+          && _routingTableVersions.equals(other._routingTableVersions)
+          && _normalizedRequest.equals(other._normalizedRequest);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+}
@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.helix.ZNRecord;
 import org.apache.helix.model.ExternalView;
@@ -57,6 +58,8 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
   private final Map<String, Long> _routingTableModifiedTimeStampMap = new HashMap<String, Long>();
   private final Random _random = new Random(System.currentTimeMillis());
   private final HelixExternalViewBasedTimeBoundaryService _timeBoundaryService;
+  private final List<RoutingTableChangeListener> _routingTableChangeListeners =
+      new CopyOnWriteArrayList<RoutingTableChangeListener>();
 
   public HelixExternalViewBasedRouting(RoutingTableBuilder defaultOfflineRoutingTableBuilder,
       RoutingTableBuilder defaultRealtimeRoutingTableBuilder, Map<String, RoutingTableBuilder> routingTableBuilderMap,
@@ -156,7 +159,7 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
     } catch (Exception e) {
       LOGGER.error("Failed to update the TimeBoundaryService : " + e.getCause(), e);
     }
-
+    notifyRoutingTableChangeListeners(tableName);
   }
 
   public synchronized void markDataResourceOffline(String tableName) {
@@ -166,6 +169,26 @@ public class HelixExternalViewBasedRouting implements RoutingTable {
       _brokerRoutingTable.remove(tableName);
       _routingTableModifiedTimeStampMap.remove(tableName);
       _timeBoundaryService.remove(tableName);
+      notifyRoutingTableChangeListeners(tableName);
+    }
+  }
+
+  /**
+   * Register a listener to be called every time the routing table of a table is recomputed or removed.
+   *
+   * @param routingTableChangeListener
+   */
+  public void addRoutingTableChangeListener(RoutingTableChangeListener routingTableChangeListener) {
+    _routingTableChangeListeners.add(routingTableChangeListener);
+  }
+
+  private void notifyRoutingTableChangeListeners(String tableName) {
+    for (RoutingTableChangeListener routingTableChangeListener : _routingTableChangeListeners) {
+      try {
+        routingTableChangeListener.onRoutingTableChange(tableName);
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while notifying routing table change of table : " + tableName, e);
+      }
     }
   }
 
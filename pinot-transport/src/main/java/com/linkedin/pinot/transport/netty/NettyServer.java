@@ -15,6 +15,7 @@
  */
 package com.linkedin.pinot.transport.netty;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
@@ -54,24 +55,26 @@ public abstract class NettyServer implements Runnable {
 
   /**
    * The request handler callback which processes the incoming request.
-   * This method is executed by the Netty worker thread.
+   * This method is executed by the Netty worker thread, so implementations are expected to hand off any expensive
+   * processing to their own threads and complete the returned future from there.
    */
   public static interface RequestHandler {
     /**
-     * Callback for Servers to process the request and return the response.
+     * Callback for Servers to process the request and return a future of the response.
      * The ownership of the request bytebuf resides with the caler (NettyServer).
      * This callback is not expected to call {@link ByteBuf#release()} on request
-     * The ownership of the request byteBuf lies with the caller.
+     * The ownership of the request byteBuf lies with the caller, and the request is released as soon as this
+     * callback returns, so the implementation must read the request before returning.
      *
-     * The implementation MUST not throw any runtime exceptions. In case of errors,
+     * The implementation MUST not throw any runtime exceptions nor fail the returned future. In case of errors,
      * the implementation is expected to construct and return an error response.
-     * If the implementation throws runtime exceptions, then the underlying connection
+     * If the implementation throws runtime exceptions or fails the future, then the underlying connection
      * will be terminated.
      *
      * @param request Serialized request
-     * @return Serialized response
+     * @return Future of the serialized response, the response is written to the channel once it completes
      */
-    public byte[] processRequest(ByteBuf request);
+    public ListenableFuture<byte[]> processRequest(ByteBuf request);
   }
 
   public static interface RequestHandlerFactory {
@@ -206,7 +209,7 @@ public abstract class NettyServer implements Runnable {
     private State _state = State.INIT;
 
     @Override
-    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+    public void channelRead(final ChannelHandlerContext ctx, Object msg) {
       _requestStartTime = System.currentTimeMillis();
       LOGGER.debug("Request received by server !!");
       _state = State.REQUEST_RECEIVED;
@@ -215,16 +218,38 @@ public abstract class NettyServer implements Runnable {
 
       //Call processing handler
       _lastProcessingLatency = MetricsHelper.startTimer();
-      byte[] response = _handler.processRequest(request);
-      _lastProcessingLatency.stop();
+      final ListenableFuture<byte[]> responseFuture = _handler.processRequest(request);
+      request.release();
+
+      // Send Response once it is ready, without holding the Netty worker thread while the request is processed. The
+      // response is sent on the event loop of the channel, which also keeps the handler state on a single thread.
+      responseFuture.addListener(new Runnable() {
+        @Override
+        public void run() {
+          sendResponse(ctx, responseFuture);
+        }
+      }, ctx.executor());
+    }
 
-      // Send Response
+    private void sendResponse(ChannelHandlerContext ctx, ListenableFuture<byte[]> responseFuture) {
+      _lastProcessingLatency.stop();
+      byte[] response;
+      try {
+        response = responseFuture.get();
+      } catch (Exception e) {
+        exceptionCaught(ctx, e);
+        return;
+      }
+      if (response == null) {
+        exceptionCaught(ctx, new IllegalStateException("Request handler returned a null response"));
+        return;
+      }
+      _lastResponseSizeInBytes = response.length;
       ByteBuf responseBuf = Unpooled.wrappedBuffer(response);
       _lastSendResponseLatency = MetricsHelper.startTimer();
       ChannelFuture f = ctx.writeAndFlush(responseBuf);
       _state = State.RESPONSE_WRITTEN;
       f.addListener(this);
-      request.release();
     }
 
     @Override
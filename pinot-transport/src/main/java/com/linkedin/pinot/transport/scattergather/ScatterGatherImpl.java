@@ -61,6 +61,9 @@ public class ScatterGatherImpl implements ScatterGather {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ScatterGatherImpl.class);
 
+  // Timeout for sending a cancel request to a server, cancel requests are best effort.
+  private static final long CANCEL_REQUEST_TIMEOUT_MS = 1000L;
+
   private final ExecutorService _executorService;
 
   private final Histogram _latency = MetricsHelper.newHistogram(null, new MetricName(ScatterGatherImpl.class,
@@ -151,11 +154,35 @@ public class ScatterGatherImpl implements ScatterGather {
         h.cancel();
       }
     }
+    cancelAbandonedRequests(ctxt.getRequest(), handlers);
     t.stop();
     _latency.update(t.getLatencyMs());
     return response;
   }
 
+  /**
+   * Once the response future of a request sent to a server is cancelled or fails (timeout, or short-circuit of the
+   * gather on another server's error), nobody waits for the response anymore. Let the server know, so that it stops
+   * processing the request instead of burning CPU on it.
+   */
+  private void cancelAbandonedRequests(final ScatterGatherRequest request, List<SingleRequestHandler> handlers) {
+    for (final SingleRequestHandler h : handlers) {
+      if (!h.isSent()) {
+        continue;
+      }
+      final ResponseFuture responseFuture = h.getResponseFuture();
+      responseFuture.addListener(new Runnable() {
+        @Override
+        public void run() {
+          if (responseFuture.isCancelled() || (responseFuture.getError() != null)) {
+            // Checking out a connection may block, don't do it on the thread completing the future.
+            _executorService.submit(new CancelRequestHandler(_connPool, h.getServer(), request));
+          }
+        }
+      }, null);
+    }
+  }
+
   /**
    * Merge segment-sets which have the same set of servers. If 2 segmentIds have overlapping
    * set of servers, they are not merged. If there is predefined-selection for a segmentId,
@@ -439,6 +466,66 @@ public class ScatterGatherImpl implements ScatterGather {
     public ResponseFuture getResponseFuture() {
       return _responseFuture;
     }
+
+    public boolean isSent() {
+      return _isSent.get();
+    }
+  }
+
+  /**
+   * Runnable responsible for sending a cancel request to the server for a request the scatter-gather gave up on.
+   * The acknowledgement of the server is not waited for.
+   */
+  public static class CancelRequestHandler implements Runnable {
+    private final KeyedPool<ServerInstance, NettyClientConnection> _connPool;
+    private final ServerInstance _server;
+    private final ScatterGatherRequest _request;
+
+    public CancelRequestHandler(KeyedPool<ServerInstance, NettyClientConnection> connPool, ServerInstance server,
+        ScatterGatherRequest request) {
+      _connPool = connPool;
+      _server = server;
+      _request = request;
+    }
+
+    @Override
+    public void run() {
+      byte[] serializedCancelRequest = _request.getCancelRequestForService(_server);
+      if (null == serializedCancelRequest) {
+        return;
+      }
+      try {
+        KeyedFuture<ServerInstance, NettyClientConnection> c = _connPool.checkoutObject(_server);
+        NettyClientConnection conn = c.getOne(CANCEL_REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        while (!conn.validate()) {
+          _connPool.destroyObject(_server, conn);
+          c = _connPool.checkoutObject(_server);
+          conn = c.getOne(CANCEL_REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        ByteBuf req = Unpooled.wrappedBuffer(serializedCancelRequest);
+        final ResponseFuture acknowledgementFuture =
+            conn.sendRequest(req, _request.getRequestId(), CANCEL_REQUEST_TIMEOUT_MS);
+        // The connection goes back to the pool by itself, only the acknowledgement needs to be released.
+        acknowledgementFuture.addListener(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              ByteBuf acknowledgement = acknowledgementFuture.getOne();
+              if (null != acknowledgement) {
+                acknowledgement.release();
+              }
+            } catch (Exception e) {
+              LOGGER.warn("Got exception getting cancel acknowledgement of request ({}) from server {}",
+                  _request.getRequestId(), _server, e);
+            }
+          }
+        }, null);
+        LOGGER.info("Sent cancel request for request ({}) to server {}", _request.getRequestId(), _server);
+      } catch (Exception e) {
+        LOGGER.warn("Got exception sending cancel request for request (" + _request.getRequestId() + ") to server "
+            + _server, e);
+      }
+    }
   }
 
   public Histogram getLatency() {
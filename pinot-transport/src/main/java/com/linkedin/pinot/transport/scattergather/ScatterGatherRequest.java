@@ -48,6 +48,14 @@ public interface ScatterGatherRequest {
    */
   public byte[] getRequestForService(ServerInstance service, SegmentIdSet querySegments);
 
+  /**
+   * Return the request that will be sent to the service to cancel the request sent with
+   * {@link #getRequestForService(ServerInstance, SegmentIdSet)}, once the scatter-gather gives up on its response.
+   * @param service Service to which the request was sent.
+   * @return byte[] cancel request to be sent, or null if the request cannot be cancelled.
+   */
+  public byte[] getCancelRequestForService(ServerInstance service);
+
   /**
    * Replica Selection Policy to follow when a segmentIdSet has more than one candidate nodes
    * @return Replica selection strategy for this request.
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2014-2015 LinkedIn Corp. (pinot-core@linkedin.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.linkedin.pinot.requestHandler;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.linkedin.pinot.common.request.BrokerRequest;
+import com.linkedin.pinot.common.request.QuerySource;
+import com.linkedin.pinot.common.response.BrokerResponse;
+
+
+public class BrokerResultCacheTest {
+  private static final List<String> OFFLINE_TABLES = Arrays.asList("myTable_OFFLINE");
+  private static final List<String> HYBRID_TABLES = Arrays.asList("myTable_OFFLINE", "myTable_REALTIME");
+
+  @Test
+  public void testHitIgnoresTraceAndBucketHashKey() {
+    BrokerResultCache resultCache = new BrokerResultCache(1024L * 1024L, 60000L, 60000L);
+    resultCache.put(resultCache.getKey(getRequest(), OFFLINE_TABLES), getResponse(42L));
+
+    BrokerRequest request = getRequest();
+    request.setBucketHashKey("someKey");
+    BrokerResponse cachedResponse = resultCache.get(resultCache.getKey(request, OFFLINE_TABLES));
+    Assert.assertNotNull(cachedResponse);
+    Assert.assertEquals(cachedResponse.getNumDocsScanned(), 42L);
+
+    // Every hit gets its own copy of the response.
+    cachedResponse.setNumDocsScanned(0L);
+    Assert.assertEquals(resultCache.get(resultCache.getKey(request, OFFLINE_TABLES)).getNumDocsScanned(), 42L);
+
+    request.setEnableTrace(true);
+    Assert.assertFalse(resultCache.isCacheable(request));
+  }
+
+  @Test
+  public void testRoutingTableChange() {
+    BrokerResultCache resultCache = new BrokerResultCache(1024L * 1024L, 60000L, 60000L);
+    BrokerResultCache.ResultKey key = resultCache.getKey(getRequest(), HYBRID_TABLES);
+    resultCache.put(key, getResponse(42L));
+    Assert.assertEquals(resultCache.getNumEntries(), 1);
+
+    resultCache.onRoutingTableChange("otherTable_OFFLINE");
+    Assert.assertNotNull(resultCache.get(resultCache.getKey(getRequest(), HYBRID_TABLES)));
+
+    resultCache.onRoutingTableChange("myTable_REALTIME");
+    Assert.assertEquals(resultCache.getNumEntries(), 0);
+    Assert.assertEquals(resultCache.getNumBytes(), 0L);
+    Assert.assertNull(resultCache.get(resultCache.getKey(getRequest(), HYBRID_TABLES)));
+
+    // A response computed with the previous routing table is not cached.
+    resultCache.put(key, getResponse(42L));
+    Assert.assertEquals(resultCache.getNumEntries(), 0);
+  }
+
+  @Test
+  public void testTtl() throws Exception {
+    BrokerResultCache resultCache = new BrokerResultCache(1024L * 1024L, 60000L, 0L);
+    resultCache.put(resultCache.getKey(getRequest(), OFFLINE_TABLES), getResponse(42L));
+    resultCache.put(resultCache.getKey(getRequest(), HYBRID_TABLES), getResponse(42L));
+    Assert.assertNotNull(resultCache.get(resultCache.getKey(getRequest(), OFFLINE_TABLES)));
+    Assert.assertNull(resultCache.get(resultCache.getKey(getRequest(), HYBRID_TABLES)));
+
+    resultCache.setTableTtlMs("myTable", 0L);
+    resultCache.put(resultCache.getKey(getRequest(), OFFLINE_TABLES), getResponse(42L));
+    Assert.assertNull(resultCache.get(resultCache.getKey(getRequest(), OFFLINE_TABLES)));
+  }
+
+  @Test
+  public void testEviction() {
+    BrokerResultCache resultCache = new BrokerResultCache(4096L, 60000L, 60000L);
+    for (int i = 0; i < 10; ++i) {
+      BrokerRequest request = getRequest();
+      request.setDuration(Integer.toString(i));
+      resultCache.put(resultCache.getKey(request, OFFLINE_TABLES), getResponse(i));
+      Assert.assertTrue(resultCache.getNumBytes() <= resultCache.getMaxBytes());
+    }
+    BrokerRequest lastRequest = getRequest();
+    lastRequest.setDuration("9");
+    Assert.assertNotNull(resultCache.get(resultCache.getKey(lastRequest, OFFLINE_TABLES)));
+    Assert.assertTrue(resultCache.getNumEntries() < 10);
+  }
+
+  private static BrokerRequest getRequest() {
+    BrokerRequest request = new BrokerRequest();
+    QuerySource querySource = new QuerySource();
+    querySource.setTableName("myTable");
+    request.setQuerySource(querySource);
+    return request;
+  }
+
+  private static BrokerResponse getResponse(long numDocsScanned) {
+    BrokerResponse response = new BrokerResponse();
+    response.setNumDocsScanned(numDocsScanned);
+    response.setTotalDocs(100L);
+    return response;
+  }
+}
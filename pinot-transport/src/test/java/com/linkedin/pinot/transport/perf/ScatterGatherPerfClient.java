@@ -453,6 +453,11 @@ public class ScatterGatherPerfClient implements Runnable {
       return _brokerRequest;
     }
 
+    @Override
+    public byte[] getCancelRequestForService(ServerInstance service) {
+      return null;
+    }
+
     @Override
     public ReplicaSelection getReplicaSelection() {
       return new FirstReplicaSelection();
@@ -15,6 +15,8 @@
  */
 package com.linkedin.pinot.transport.scattergather;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
@@ -646,7 +648,7 @@ public class ScatterGatherTest {
     }
 
     @Override
-    public byte[] processRequest(ByteBuf request) {
+    public ListenableFuture<byte[]> processRequest(ByteBuf request) {
 
       if (_sleepTimeMS > 0) {
         try {
@@ -664,7 +666,7 @@ public class ScatterGatherTest {
       _request.add(new String(dst));
       int index = _index.incrementAndGet();
       String res = _responses.get(index);
-      return res.getBytes();
+      return Futures.immediateFuture(res.getBytes());
     }
 
     public List<String> getRequest() {
@@ -712,6 +714,11 @@ public class ScatterGatherTest {
       return s.getBytes();
     }
 
+    @Override
+    public byte[] getCancelRequestForService(ServerInstance service) {
+      return null;
+    }
+
     @Override
     public ReplicaSelection getReplicaSelection() {
       return _replicaSelection;